@@ -0,0 +1,66 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue.benchmarks;
+
+import org.onlab.jdvue.Catalog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of analyzing a loaded catalog, i.e. resolving its imports and
+ * finding its dependency cycles. Since analysis changes the catalog, each
+ * invocation is given a freshly loaded one; loading is not measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AnalyzeBenchmark {
+
+    /**
+     * Freshly loaded, not yet analyzed catalog.
+     */
+    @State(Scope.Thread)
+    public static class LoadedCatalog {
+        private Catalog cat;
+
+        @Setup(Level.Invocation)
+        public void load(CatalogState state) throws IOException {
+            cat = new Catalog(state.basePath());
+            cat.load();
+        }
+    }
+
+    @Benchmark
+    public Catalog analyze(LoadedCatalog loaded) {
+        loaded.cat.analyze();
+        return loaded.cat;
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Synthetic catalog file shared by the benchmarks, generated once per trial
+ * into a temporary directory according to the benchmark parameters.
+ * <p>
+ * Even small cycle densities soon merge most packages into one strongly
+ * connected component, whose cycle segments every report then repeats for
+ * each of its packages, so densities above a fraction of a percent make
+ * for very large reports.
+ */
+@State(Scope.Benchmark)
+public class CatalogState {
+
+    @Param({"1000", "10000"})
+    public int packages;
+
+    @Param({"8"})
+    public int sourcesPerPackage;
+
+    @Param({"6"})
+    public int fanOut;
+
+    @Param({"0.0", "0.0005"})
+    public double cycleDensity;
+
+    private Path directory;
+    private String basePath;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        directory = Files.createTempDirectory("jdvue-bench");
+        basePath = directory.resolve("catalog").toString();
+        new SyntheticCatalog(packages, sourcesPerPackage, fanOut, cycleDensity, 0)
+                .write(directory.resolve("catalog.db"));
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Returns the catalog base path of the generated catalog file.
+     *
+     * @return catalog base path
+     */
+    public String basePath() {
+        return basePath;
+    }
+
+}
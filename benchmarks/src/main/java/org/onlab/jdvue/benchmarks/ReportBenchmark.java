@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue.benchmarks;
+
+import org.onlab.jdvue.BundleView;
+import org.onlab.jdvue.Catalog;
+import org.onlab.jdvue.CatalogDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of generating the reports of an analyzed catalog. The HTML
+ * page is rendered into a writer which discards it, so that only the
+ * generation is measured and not the file system. The detail data, which
+ * is encoded only as it is written, is written into the temporary
+ * directory of the generated catalog.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReportBenchmark {
+
+    /**
+     * Loaded and analyzed catalog.
+     */
+    @State(Scope.Benchmark)
+    public static class AnalyzedCatalog {
+        private Catalog cat;
+
+        @Setup(Level.Trial)
+        public void analyze(CatalogState state) throws IOException {
+            cat = new Catalog(state.basePath());
+            cat.load();
+            cat.analyze();
+        }
+    }
+
+    @Benchmark
+    public CatalogDetails details(AnalyzedCatalog analyzed) throws IOException {
+        CatalogDetails details = new CatalogDetails(analyzed.cat);
+        details.writeDetails();
+        return details;
+    }
+
+    @Benchmark
+    public long html(AnalyzedCatalog analyzed) throws IOException {
+        CountingWriter writer = new CountingWriter();
+        new BundleView(analyzed.cat).writeHTML(writer);
+        return writer.count;
+    }
+
+    // Writer which discards the text, counting its characters
+    private static final class CountingWriter extends Writer {
+        private long count;
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void write(String text, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+}
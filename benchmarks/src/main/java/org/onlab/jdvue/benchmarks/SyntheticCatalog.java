@@ -0,0 +1,177 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Generator of synthetic catalog files of arbitrary size, in the format
+ * produced by {@code bin/jdvue}.
+ * <p>
+ * Packages are laid out in a row and each source imports sources of
+ * packages near its own, mostly of packages further along the row, which
+ * keeps the package graph acyclic. A fraction of imports, the cycle
+ * density, instead point back along the row, each of which closes one or
+ * more dependency cycles. Imports which would reach past either end of the
+ * row import library classes instead. Sources also import a library class
+ * which the catalog does not know, and now and then a package further
+ * along the row by wildcard.
+ * <p>
+ * Generation is deterministic for a given seed.
+ */
+public class SyntheticCatalog {
+
+    // how far along the row, in packages, imports may reach
+    private static final int LOCALITY = 32;
+
+    // packages per module, i.e. per shared middle name segment
+    private static final int MODULE_SIZE = 16;
+
+    private static final String ROOT = "org.example.";
+    private static final String[] LIBRARY = {
+            "java.util.List", "java.util.Map", "java.io.IOException", "com.google.common.base.Preconditions"
+    };
+
+    private final int packages;
+    private final int sourcesPerPackage;
+    private final int fanOut;
+    private final double cycleDensity;
+    private final long seed;
+
+    /**
+     * Creates a generator of catalogs of the given shape.
+     *
+     * @param packages          number of packages
+     * @param sourcesPerPackage number of sources in each package
+     * @param fanOut            number of catalog sources imported by each
+     *                          source
+     * @param cycleDensity      fraction of imports which point back along
+     *                          the row of packages, between 0 and 1
+     * @param seed              random seed
+     */
+    public SyntheticCatalog(int packages, int sourcesPerPackage, int fanOut, double cycleDensity, long seed) {
+        checkArgument(packages > 0, "Package count must be positive");
+        checkArgument(sourcesPerPackage > 0, "Source count must be positive");
+        checkArgument(fanOut >= 0, "Fan-out must not be negative");
+        checkArgument(cycleDensity >= 0 && cycleDensity <= 1, "Cycle density must be between 0 and 1");
+        this.packages = packages;
+        this.sourcesPerPackage = sourcesPerPackage;
+        this.fanOut = fanOut;
+        this.cycleDensity = cycleDensity;
+        this.seed = seed;
+    }
+
+    /**
+     * Writes the catalog into the given catalog file.
+     *
+     * @param catalogFile catalog file, conventionally with {@code .db}
+     *                    extension
+     * @throws IOException if unable to write the file
+     */
+    public void write(Path catalogFile) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(catalogFile, StandardCharsets.UTF_8)) {
+            write(writer);
+        }
+    }
+
+    /**
+     * Writes the catalog lines to the given writer, which is left open.
+     *
+     * @param writer catalog writer
+     * @throws IOException if unable to write the lines
+     */
+    public void write(Writer writer) throws IOException {
+        Random random = new Random(seed);
+        for (int p = 0; p < packages; p++) {
+            String pkg = packageName(p);
+            String dir = "src/main/java/" + pkg.replace('.', '/') + "/";
+            for (int s = 0; s < sourcesPerPackage; s++) {
+                String path = dir + sourceName(s) + ".java:";
+                writer.write(path + "package " + pkg + ";\n");
+                for (int i = 0; i < fanOut; i++) {
+                    writer.write(path + "import " + importName(p, random) + ";\n");
+                }
+                writer.write(path + "import " + LIBRARY[random.nextInt(LIBRARY.length)] + ";\n");
+                int wildcard = p + 1 + random.nextInt(LOCALITY);
+                if (random.nextInt(MODULE_SIZE) == 0 && wildcard < packages) {
+                    writer.write(path + "import " + packageName(wildcard) + ".*;\n");
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    // Picks a source of a package near the given one to import, or a library
+    // class if the pick falls off either end of the row
+    private String importName(int p, Random random) {
+        int reach = 1 + random.nextInt(LOCALITY);
+        int target = random.nextDouble() < cycleDensity ? p - reach : p + reach;
+        if (target < 0 || target >= packages) {
+            return LIBRARY[random.nextInt(LIBRARY.length)];
+        }
+        return packageName(target) + "." + sourceName(random.nextInt(sourcesPerPackage));
+    }
+
+    private static String packageName(int p) {
+        return ROOT + "m" + (p / MODULE_SIZE) + ".p" + p;
+    }
+
+    private static String sourceName(int s) {
+        return "Source" + s;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("packages", packages)
+                .add("sourcesPerPackage", sourcesPerPackage)
+                .add("fanOut", fanOut)
+                .add("cycleDensity", cycleDensity)
+                .add("seed", seed)
+                .toString();
+    }
+
+    /**
+     * Writes a synthetic catalog file, for use outside of the benchmarks.
+     *
+     * @param args catalog file, package count, sources per package,
+     *             fan-out, cycle density and optionally the seed
+     * @throws IOException if unable to write the file
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 5) {
+            System.err.println("Expected Args: <catalog file> <packages> <sources per package> " +
+                                       "<fan-out> <cycle density> [seed]");
+            return;
+        }
+        SyntheticCatalog catalog = new SyntheticCatalog(Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                                                        Integer.parseInt(args[3]), Double.parseDouble(args[4]),
+                                                        args.length > 5 ? Long.parseLong(args[5]) : 0);
+        catalog.write(Paths.get(args[0]));
+        System.err.println("Wrote catalog: " + catalog);
+    }
+
+}
@@ -19,12 +19,44 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Base class for generating text-based reports.
  */
 public abstract class AbstractReportGenerator {
 
+    // resource contents and templates, keyed by resource URL
+    private static final ConcurrentMap<String, String> RESOURCES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, ReportTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
+    private static final String EOL = System.lineSeparator();
+
+    private ReportAssets assets;
+
+    /**
+     * Sets the shared assets which reports reference in place of embedding
+     * their style sheets and scripts.
+     *
+     * @param assets shared report assets; null to embed them
+     */
+    public void setAssets(ReportAssets assets) {
+        this.assets = assets;
+    }
+
+    /**
+     * Returns the shared assets which reports reference.
+     *
+     * @return shared report assets; null if embedded
+     */
+    public ReportAssets getAssets() {
+        return assets;
+    }
+
     /**
      * Slurps the specified input stream into a string.
      *
@@ -44,14 +76,110 @@ public abstract class AbstractReportGenerator {
     }
 
     /**
-     * Uses the given string as the name of the resource to slurp in.
+     * Uses the given string as the name of the resource to slurp in. Each
+     * resource is read only once and then served from a cache shared by all
+     * report generators.
      *
      * @param resourceName name of the resource to read
      * @return string containing the contents of the specified resource
      * @throws IOException if issues encountered reading from the resource
      */
     protected String getResourceAsString(String resourceName) throws IOException {
-        return slurp(getClass().getResourceAsStream(resourceName));
+        URL url = getClass().getResource(resourceName);
+        if (url == null) {
+            throw new IOException("Resource not found: " + resourceName);
+        }
+        String key = url.toExternalForm();
+        String text = RESOURCES.get(key);
+        if (text == null) {
+            try (InputStream stream = url.openStream()) {
+                text = slurp(stream);
+            }
+            String existing = RESOURCES.putIfAbsent(key, text);
+            text = existing != null ? existing : text;
+        }
+        return text;
+    }
+
+    /**
+     * Returns the named resource as a template tokenized at the given
+     * placeholders. Each template is tokenized only once and then served
+     * from a cache shared by all report generators.
+     *
+     * @param resourceName name of the template resource
+     * @param placeholders placeholders to look for
+     * @return template
+     * @throws IOException if issues encountered reading from the resource
+     */
+    protected ReportTemplate getTemplate(String resourceName, String... placeholders) throws IOException {
+        String text = getResourceAsString(resourceName);
+        String key = getClass().getResource(resourceName).toExternalForm() + "|" + String.join("|", placeholders);
+        ReportTemplate template = TEMPLATES.get(key);
+        if (template == null) {
+            template = ReportTemplate.parse(text, placeholders);
+            ReportTemplate existing = TEMPLATES.putIfAbsent(key, template);
+            template = existing != null ? existing : template;
+        }
+        return template;
+    }
+
+    /**
+     * Writes the named style sheet resource as a style element or, with
+     * shared assets, as a link to its asset file.
+     *
+     * @param writer       writer of the report
+     * @param resourceName name of the style sheet resource
+     * @param reportDir    directory of the report
+     * @throws IOException if issues encountered reading the resource or
+     *                     writing the report or asset
+     */
+    protected void writeStyle(Writer writer, String resourceName, Path reportDir) throws IOException {
+        String css = getResourceAsString(resourceName);
+        if (assets == null) {
+            writer.write("<style>" + EOL + css + "    </style>");
+        } else {
+            writer.write("<link rel=\"stylesheet\" href=\"" + assets.reference(reportDir, resourceName, css) + "\">");
+        }
+    }
+
+    /**
+     * Writes the named script resource as a script element, either with
+     * the script embedded or, with shared assets, referencing its asset file.
+     *
+     * @param writer       writer of the report
+     * @param resourceName name of the script resource
+     * @param reportDir    directory of the report
+     * @throws IOException if issues encountered reading the resource or
+     *                     writing the report or asset
+     */
+    protected void writeScript(Writer writer, String resourceName, Path reportDir) throws IOException {
+        String js = getResourceAsString(resourceName);
+        if (assets == null) {
+            writer.write("<script>" + EOL + js + "</script>");
+        } else {
+            writer.write("<script src=\"" + assets.reference(reportDir, resourceName, js) + "\"></script>");
+        }
+    }
+
+    /**
+     * Writes the named script resource as the rest of the content of a
+     * script element left open by the report, or with shared assets, ends
+     * that element and opens one which references the asset file instead.
+     * Either way, the script runs after whatever precedes it.
+     *
+     * @param writer       writer of the report
+     * @param resourceName name of the script resource
+     * @param reportDir    directory of the report
+     * @throws IOException if issues encountered reading the resource or
+     *                     writing the report or asset
+     */
+    protected void writeScriptContent(Writer writer, String resourceName, Path reportDir) throws IOException {
+        String js = getResourceAsString(resourceName);
+        if (assets == null) {
+            writer.write(js);
+        } else {
+            writer.write("</script>" + EOL + "<script src=\"" + assets.reference(reportDir, resourceName, js) + "\">");
+        }
     }
 
 }
@@ -15,39 +15,119 @@
  */
 package org.onlab.jdvue;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import static com.google.common.base.Preconditions.checkArgument;
 
 /**
  * Able to create a "Hierarchical Edge Bundling" view from an analyzed {@link Catalog}.
+ * <p>
+ * The page is written as a stream: the template text between placeholders,
+ * the page style and script, the d3 library and the JSON data straight from
+ * a generator, so that neither the data nor the page is ever held in memory
+ * as a whole. The template and the d3 library are read and tokenized only
+ * once. With {@link #setAssets shared assets}, the page references the
+ * style, the script and the d3 library instead of embedding them.
+ * <p>
+ * Catalogs with more packages than the detail limit are shown at a coarser
+ * level of detail: packages sharing a name prefix start out collapsed into
+ * one aggregate node, which expands on click, so that the page lays out no
+ * more than about the detail limit of nodes at a time.
+ * <p>
+ * Alternatively, the data may be written as shards next to the page, which
+ * then fetches them as needed: an index with the summary, the initially
+ * visible nodes and the bundled links between them, one shard per group
+ * with the nodes within it and their links by package, and one shard per
+ * package with its details. The index, and so the time to first render,
+ * depends only on the detail limit rather than the size of the catalog.
+ * <p>
+ * Either way, the data includes the {@link RadialLayout radial layout} of
+ * the initially visible nodes and the links between them, so that the page
+ * draws its initial view straight away; it lays out only the views which
+ * follow from expanding and collapsing groups.
  */
 public class BundleView extends AbstractReportGenerator {
 
     private static final String HTML_EXT = ".html";
+    private static final String SHARDS_EXT = ".shards";
+    private static final String JSON_EXT = ".json";
+    private static final String INDEX_SHARD = "index";
+    private static final String GROUP_SHARD = "g";
+    private static final String PACKAGE_SHARD = "p";
+    private static final Pattern SHARD_FILE =
+            Pattern.compile("(" + INDEX_SHARD + "|[" + GROUP_SHARD + PACKAGE_SHARD + "][0-9]+)\\" + JSON_EXT);
 
     private static final String INDEX = "index.html";
+    private static final String STYLE = "bundle.css";
+    private static final String SCRIPT = "bundle.js";
     private static final String D3JS = "d3.v3.min.js";
 
     private static final String TITLE_PLACEHOLDER = "TITLE_PLACEHOLDER";
+    private static final String STYLE_PLACEHOLDER = "STYLE_PLACEHOLDER";
     private static final String D3JS_PLACEHOLDER = "D3JS_PLACEHOLDER";
     private static final String DATA_PLACEHOLDER = "DATA_PLACEHOLDER";
+    private static final String SCRIPT_PLACEHOLDER = "SCRIPT_PLACEHOLDER";
+    private static final String[] PLACEHOLDERS = {
+            TITLE_PLACEHOLDER, STYLE_PLACEHOLDER, D3JS_PLACEHOLDER, DATA_PLACEHOLDER, SCRIPT_PLACEHOLDER
+    };
+
+    /**
+     * Default maximum number of nodes initially shown by the view.
+     */
+    public static final int DEFAULT_DETAIL_LIMIT = 500;
+
+    // fractions of the layout are rounded to millionths
+    private static final long LAYOUT_PRECISION = 1_000_000;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
 
     private final Catalog cat;
+    private final int detailLimit;
 
     /**
-     * Wraps a catalog in a bundle view generator.
+     * Wraps a catalog in a bundle view generator with the default detail
+     * limit.
      *
      * @param cat the catalog
      */
     public BundleView(Catalog cat) {
+        this(cat, DEFAULT_DETAIL_LIMIT);
+    }
+
+    /**
+     * Wraps a catalog in a bundle view generator.
+     *
+     * @param cat         the catalog
+     * @param detailLimit maximum number of nodes initially shown; packages
+     *                    beyond it are collapsed into groups
+     */
+    public BundleView(Catalog cat, int detailLimit) {
+        checkArgument(detailLimit > 0, "Detail limit must be positive");
         this.cat = cat;
+        this.detailLimit = detailLimit;
     }
 
     /**
@@ -56,7 +136,7 @@ public class BundleView extends AbstractReportGenerator {
     public void dumpLongestCycle() {
         DependencyCycle longest = null;
         for (DependencyCycle cycle : cat.getCycles()) {
-            if (longest == null || longest.getCycleSegments().size() < cycle.getCycleSegments().size()) {
+            if (longest == null || longest.getCycle().size() < cycle.getCycle().size()) {
                 longest = cycle;
             }
         }
@@ -75,83 +155,486 @@ public class BundleView extends AbstractReportGenerator {
      * @throws IOException if issues encountered writing the HTML file
      */
     public void writeHTMLFile() throws IOException {
-        String base = cat.basePath();
-        String htmlFile = base + HTML_EXT;
-
-        String index = getResourceAsString(INDEX);
-        String d3js = getResourceAsString(D3JS);
-
-        FileWriter fw = new FileWriter(htmlFile);
-        ObjectWriter writer = new ObjectMapper().writer(); // .writerWithDefaultPrettyPrinter();
-        fw.write(index.replace(TITLE_PLACEHOLDER, base)
-                .replace(D3JS_PLACEHOLDER, d3js)
-                .replace(DATA_PLACEHOLDER, writer.writeValueAsString(toJson())));
-        fw.close();
+        String htmlFile = cat.basePath() + HTML_EXT;
+        try (PipelineMetrics.Phase phase = cat.metrics().start("writeHTMLFile");
+             Writer writer = Files.newBufferedWriter(Paths.get(htmlFile), StandardCharsets.UTF_8)) {
+            writeHTML(writer);
+            phase.count("packages", cat.getPackages().size());
+        }
         System.err.println("Wrote HTML report: " + htmlFile);
     }
 
-    // Produces a JSON structure designed to drive the hierarchical visual
+    /**
+     * Renders the HTML visualization of the catalog.
+     *
+     * @return self-contained HTML page
+     * @throws IOException if issues encountered reading the page resources
+     */
+    public String toHTML() throws IOException {
+        StringWriter writer = new StringWriter();
+        writeHTML(writer);
+        return writer.toString();
+    }
+
+    /**
+     * Writes the HTML visualization of the catalog to the given writer,
+     * which is left open.
+     *
+     * @param writer writer of the page
+     * @throws IOException if issues encountered reading the page resources
+     *                     or writing the page
+     */
+    public void writeHTML(Writer writer) throws IOException {
+        writePage(writer, this::writeJson);
+    }
+
+    /**
+     * Writes the HTML visualization of the catalog file with its data in
+     * shards, which are written into a directory named after the catalog
+     * and fetched by the page as needed. The page must therefore be served
+     * over HTTP, together with the shard directory. Shards left in that
+     * directory by an earlier report are deleted first.
+     *
+     * @throws IOException if issues encountered writing the HTML file or
+     *                     the shards
+     */
+    public void writeShardedHTMLFile() throws IOException {
+        String htmlFile = cat.basePath() + HTML_EXT;
+        Path shardDir = Paths.get(cat.basePath() + SHARDS_EXT);
+        try (PipelineMetrics.Phase phase = cat.metrics().start("writeShardedHTMLFile")) {
+            Files.createDirectories(shardDir);
+            phase.count("staleShards", deleteShards(shardDir));
+            phase.count("shards", writeShards(shardDir));
+            try (Writer writer = Files.newBufferedWriter(Paths.get(htmlFile), StandardCharsets.UTF_8)) {
+                writePage(writer, w -> {
+                    try (JsonGenerator gen = JSON_FACTORY.createGenerator(w)) {
+                        gen.writeStartObject();
+                        gen.writeStringField("shards", shardDir.getFileName() + "/");
+                        gen.writeEndObject();
+                    }
+                });
+            }
+        }
+        System.err.println("Wrote sharded HTML report: " + htmlFile);
+    }
+
+    // Writes the page with the data given by the supplied data writer
+    private void writePage(Writer writer, DataWriter data) throws IOException {
+        Path reportDir = Paths.get(cat.basePath()).toAbsolutePath().getParent();
+        getTemplate(INDEX, PLACEHOLDERS).render(writer, (placeholder, w) -> {
+            if (placeholder.equals(TITLE_PLACEHOLDER)) {
+                w.write(cat.basePath());
+            } else if (placeholder.equals(STYLE_PLACEHOLDER)) {
+                writeStyle(w, STYLE, reportDir);
+            } else if (placeholder.equals(D3JS_PLACEHOLDER)) {
+                writeScript(w, D3JS, reportDir);
+            } else if (placeholder.equals(SCRIPT_PLACEHOLDER)) {
+                writeScriptContent(w, SCRIPT, reportDir);
+            } else {
+                data.write(w);
+            }
+        });
+    }
+
+    // Writer of the page data
+    private interface DataWriter {
+        void write(Writer writer) throws IOException;
+    }
+
+    // Deletes shards left in the given directory by an earlier report, which
+    // the new shards need not overwrite; returns their number
+    private static int deleteShards(Path dir) throws IOException {
+        int count = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, BundleView::isShard)) {
+            for (Path file : files) {
+                Files.delete(file);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isShard(Path file) {
+        return Files.isRegularFile(file) && SHARD_FILE.matcher(file.getFileName().toString()).matches();
+    }
+
+    // Writes the index, group and package shards; returns their number
+    private int writeShards(Path dir) throws IOException {
+        PackageGroups groups = new PackageGroups(cat.getPackages(), cat.getCycles(), detailLimit);
+        Shards shards = new Shards(groups);
+
+        List<PackageGroups.Group> expanded = new ArrayList<>();
+        List<PackageGroups.Group> leafGroups = new ArrayList<>();
+        List<JavaPackage> leafPackages = new ArrayList<>();
+        collectLeaves(groups.root(), expanded, leafGroups, leafPackages);
+        try (JsonGenerator gen = createGenerator(dir, INDEX_SHARD)) {
+            gen.writeStartObject();
+            gen.writeFieldName("summary");
+            writeSummary(gen);
+            gen.writeArrayFieldStart("expanded");
+            for (PackageGroups.Group group : expanded) {
+                shards.writeGroupEntry(gen, group, false);
+            }
+            gen.writeEndArray();
+            gen.writeArrayFieldStart("leaves");
+            for (PackageGroups.Group group : leafGroups) {
+                shards.writeGroupEntry(gen, group, false);
+            }
+            for (JavaPackage javaPackage : leafPackages) {
+                shards.writePackageEntry(gen, javaPackage, false);
+            }
+            gen.writeEndArray();
+            gen.writeFieldName("links");
+            Map<Long, int[]> links = shards.links(leafGroups, leafPackages);
+            shards.writeLinks(gen, links);
+
+            List<String> leaves = new ArrayList<>();
+            leafGroups.forEach(group -> leaves.add(group.name()));
+            leafPackages.forEach(javaPackage -> leaves.add(javaPackage.name()));
+            List<List<Integer>> targets = new ArrayList<>();
+            leaves.forEach(leaf -> targets.add(new ArrayList<>()));
+            for (long key : links.keySet()) {
+                targets.get((int) (key >>> 32)).add((int) key);
+            }
+            List<int[]> imports = new ArrayList<>();
+            targets.forEach(list -> imports.add(list.stream().mapToInt(Integer::intValue).toArray()));
+            gen.writeFieldName("layout");
+            writeLayout(gen, leaves, imports);
+            gen.writeEndObject();
+        }
+
+        for (PackageGroups.Group group : groups.groups()) {
+            try (JsonGenerator gen = createGenerator(dir, GROUP_SHARD + shards.groupIds.get(group.name()))) {
+                gen.writeStartObject();
+                gen.writeStringField("name", group.name());
+                gen.writeArrayFieldStart("children");
+                for (PackageGroups.Group subgroup : group.subgroups()) {
+                    shards.writeGroupEntry(gen, subgroup, true);
+                }
+                for (JavaPackage javaPackage : group.packages()) {
+                    shards.writePackageEntry(gen, javaPackage, true);
+                }
+                gen.writeEndArray();
+                gen.writeEndObject();
+            }
+        }
+
+        for (Map.Entry<JavaPackage, Integer> entry : shards.packageIds.entrySet()) {
+            try (JsonGenerator gen = createGenerator(dir, PACKAGE_SHARD + entry.getValue())) {
+                writePackage(gen, entry.getKey());
+            }
+        }
+        return 1 + shards.groupIds.size() + shards.packageIds.size();
+    }
+
+    private static JsonGenerator createGenerator(Path dir, String shard) throws IOException {
+        return JSON_FACTORY.createGenerator(Files.newBufferedWriter(dir.resolve(shard + JSON_EXT),
+                                                                    StandardCharsets.UTF_8))
+                .enable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    // Collects the initially expanded groups and the initially visible
+    // groups and packages within the given expanded group
+    private static void collectLeaves(PackageGroups.Group group, List<PackageGroups.Group> expanded,
+                                      List<PackageGroups.Group> leafGroups, List<JavaPackage> leafPackages) {
+        for (PackageGroups.Group subgroup : group.subgroups()) {
+            if (subgroup.isExpanded()) {
+                expanded.add(subgroup);
+                collectLeaves(subgroup, expanded, leafGroups, leafPackages);
+            } else {
+                leafGroups.add(subgroup);
+            }
+        }
+        leafPackages.addAll(group.packages());
+    }
+
+    // Shard numbering and the writing of shard entries
+    private final class Shards {
+        private final Map<String, Integer> groupIds = new HashMap<>();
+        private final Map<JavaPackage, Integer> packageIds = new LinkedHashMap<>();
+        private final Map<JavaPackage, List<JavaPackage>> dependents = new HashMap<>();
+        private final Set<Dependency> segments = cat.getCycleSegments();
+
+        private Shards(PackageGroups groups) {
+            for (PackageGroups.Group group : groups.groups()) {
+                groupIds.put(group.name(), groupIds.size());
+            }
+            List<JavaPackage> packages = new ArrayList<>(cat.getPackages());
+            packages.sort(Comparator.comparing(JavaPackage::name));
+            for (JavaPackage javaPackage : packages) {
+                packageIds.put(javaPackage, packageIds.size());
+                for (JavaPackage dependency : javaPackage.getDependencies()) {
+                    dependents.computeIfAbsent(dependency, k -> new ArrayList<>()).add(javaPackage);
+                }
+            }
+        }
+
+        // Writes a group as a node, optionally with its links by package
+        private void writeGroupEntry(JsonGenerator gen, PackageGroups.Group group,
+                                     boolean links) throws IOException {
+            gen.writeStartObject();
+            gen.writeStringField("name", group.name());
+            gen.writeBooleanField("group", true);
+            gen.writeNumberField("size", group.size());
+            gen.writeNumberField("packages", group.packageCount());
+            gen.writeNumberField("cycleCount", group.cycleCount());
+            gen.writeNumberField("shard", groupIds.get(group.name()));
+            if (links) {
+                writeLinks(gen, group.members(), p -> group.contains(p.name()));
+            }
+            gen.writeEndObject();
+        }
+
+        // Writes a package as a node, optionally with its links by package
+        private void writePackageEntry(JsonGenerator gen, JavaPackage javaPackage,
+                                       boolean links) throws IOException {
+            gen.writeStartObject();
+            gen.writeStringField("name", javaPackage.name());
+            gen.writeNumberField("size", javaPackage.getSources().size());
+            gen.writeNumberField("cycleCount", cat.getPackageCycles(javaPackage).size());
+            gen.writeNumberField("cycleSegmentCount", cat.getPackageCycleSegments(javaPackage).size());
+            gen.writeNumberField("shard", packageIds.get(javaPackage));
+            if (links) {
+                writeLinks(gen, Collections.singletonList(javaPackage), p -> p == javaPackage);
+            }
+            gen.writeEndObject();
+        }
+
+        // Writes the dependencies of the members on packages outside of them
+        // and those of outside packages on the members, each bundled by the
+        // outside package as [name, count, cyclic]
+        private void writeLinks(JsonGenerator gen, List<JavaPackage> members,
+                                Predicate<JavaPackage> inside) throws IOException {
+            Map<String, int[]> out = new TreeMap<>();
+            Map<String, int[]> in = new TreeMap<>();
+            for (JavaPackage member : members) {
+                for (JavaPackage dependency : member.getDependencies()) {
+                    if (!inside.test(dependency)) {
+                        bundle(out, dependency, new Dependency(member, dependency));
+                    }
+                }
+                for (JavaPackage dependent : dependents.getOrDefault(member, Collections.emptyList())) {
+                    if (!inside.test(dependent)) {
+                        bundle(in, dependent, new Dependency(dependent, member));
+                    }
+                }
+            }
+            gen.writeFieldName("out");
+            writeBundles(gen, out);
+            gen.writeFieldName("in");
+            writeBundles(gen, in);
+        }
+
+        private void bundle(Map<String, int[]> bundles, JavaPackage javaPackage, Dependency dependency) {
+            int[] bundle = bundles.computeIfAbsent(javaPackage.name(), k -> new int[2]);
+            bundle[0]++;
+            bundle[1] |= segments.contains(dependency) ? 1 : 0;
+        }
+
+        private void writeBundles(JsonGenerator gen, Map<String, int[]> bundles) throws IOException {
+            gen.writeStartArray();
+            for (Map.Entry<String, int[]> entry : bundles.entrySet()) {
+                gen.writeStartArray();
+                gen.writeString(entry.getKey());
+                gen.writeNumber(entry.getValue()[0]);
+                gen.writeNumber(entry.getValue()[1]);
+                gen.writeEndArray();
+            }
+            gen.writeEndArray();
+        }
+
+        // Returns the links between the given leaves, groups numbered first,
+        // as [count, cyclic] keyed by source and target number
+        private TreeMap<Long, int[]> links(List<PackageGroups.Group> leafGroups, List<JavaPackage> leafPackages) {
+            Map<JavaPackage, Integer> leaves = new HashMap<>();
+            int index = 0;
+            for (PackageGroups.Group group : leafGroups) {
+                for (JavaPackage member : group.members()) {
+                    leaves.put(member, index);
+                }
+                index++;
+            }
+            for (JavaPackage javaPackage : leafPackages) {
+                leaves.put(javaPackage, index++);
+            }
+
+            TreeMap<Long, int[]> links = new TreeMap<>();
+            for (Map.Entry<JavaPackage, Integer> entry : leaves.entrySet()) {
+                for (JavaPackage dependency : entry.getKey().getDependencies()) {
+                    int target = leaves.get(dependency);
+                    if (target != entry.getValue()) {
+                        int[] link = links.computeIfAbsent(((long) entry.getValue() << 32) | target,
+                                                           k -> new int[2]);
+                        link[0]++;
+                        link[1] |= segments.contains(new Dependency(entry.getKey(), dependency)) ? 1 : 0;
+                    }
+                }
+            }
+            return links;
+        }
+
+        // Writes the links as [source, target, count, cyclic]
+        private void writeLinks(JsonGenerator gen, Map<Long, int[]> links) throws IOException {
+            gen.writeStartArray();
+            for (Map.Entry<Long, int[]> entry : links.entrySet()) {
+                gen.writeStartArray();
+                gen.writeNumber((int) (entry.getKey() >>> 32));
+                gen.writeNumber((int) (long) entry.getKey());
+                gen.writeNumber(entry.getValue()[0]);
+                gen.writeNumber(entry.getValue()[1]);
+                gen.writeEndArray();
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    // Writes a JSON structure designed to drive the hierarchical visual
     // representation of Java package dependencies and any dependency cycles
-    private JsonNode toJson() {
-        ObjectMapper mapper = new ObjectMapper();
-        ObjectNode root = mapper.createObjectNode();
-        root.put("packages", jsonPackages(mapper));
-        root.put("cycleSegments", jsonCycleSegments(mapper, cat.getCycleSegments()));
-        root.put("summary", jsonSummary(mapper));
-        return root;
-    }
-
-    // Produces a JSON summary of dependencies
-    private JsonNode jsonSummary(ObjectMapper mapper) {
-        ObjectNode summary = mapper.createObjectNode();
-        summary.put("packages", cat.getPackages().size());
-        summary.put("sources", cat.getSources().size());
-        summary.put("cycles", cat.getCycles().size());
-        summary.put("cycleSegments", cat.getCycleSegments().size());
-        return summary;
-    }
-
-    // Produces a JSON structure with package dependency data
-    private JsonNode jsonPackages(ObjectMapper mapper) {
-        ArrayNode packages = mapper.createArrayNode();
+    private void writeJson(Writer writer) throws IOException {
+        PackageGroups groups = cat.getPackages().size() > detailLimit ?
+                new PackageGroups(cat.getPackages(), cat.getCycles(), detailLimit) : null;
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(writer)) {
+            gen.writeStartObject();
+            gen.writeFieldName("packages");
+            writePackages(gen);
+            gen.writeFieldName("cycleSegments");
+            writeCycleSegments(gen, cat.getCycleSegments());
+            gen.writeFieldName("summary");
+            writeSummary(gen);
+            if (groups != null) {
+                gen.writeFieldName("groups");
+                writeGroups(gen, groups);
+            }
+            gen.writeFieldName("layout");
+            writeLayout(gen, groups);
+            gen.writeEndObject();
+        }
+    }
+
+    // Writes the layout of the initially visible packages and groups, the
+    // latter as they stand for their packages on the page
+    private void writeLayout(JsonGenerator gen, PackageGroups groups) throws IOException {
+        Map<String, Integer> leaves = new LinkedHashMap<>();
+        List<Set<String>> targets = new ArrayList<>();
         for (JavaPackage javaPackage : cat.getPackages()) {
-            packages.add(json(mapper, javaPackage));
+            String leaf = groups != null ? groups.representative(javaPackage.name()) : javaPackage.name();
+            Integer index = leaves.get(leaf);
+            if (index == null) {
+                index = leaves.size();
+                leaves.put(leaf, index);
+                targets.add(new LinkedHashSet<>());
+            }
+            for (JavaPackage dependency : javaPackage.getDependencies()) {
+                String target = groups != null ? groups.representative(dependency.name()) : dependency.name();
+                if (!target.equals(leaf)) {
+                    targets.get(index).add(target);
+                }
+            }
+        }
+
+        List<int[]> imports = new ArrayList<>();
+        for (Set<String> names : targets) {
+            imports.add(names.stream().mapToInt(leaves::get).toArray());
         }
-        return packages;
+        writeLayout(gen, new ArrayList<>(leaves.keySet()), imports);
     }
 
-    // Produces a JSON structure with all cyclic segments
-    private JsonNode jsonCycleSegments(ObjectMapper mapper,
-                                       Set<Dependency> segments) {
-        ObjectNode cyclicSegments = mapper.createObjectNode();
-        for (Dependency dependency : segments) {
-            String s = dependency.getSource().name();
-            String t = dependency.getTarget().name();
-            cyclicSegments.put(t + "-" + s,
-                    mapper.createObjectNode().put("s", s).put("t", t));
+    // Lays out the given leaves and writes the positions of all nodes as
+    // [angle, radius] and the links as paths of node numbers
+    private void writeLayout(JsonGenerator gen, List<String> leaves, List<int[]> imports) throws IOException {
+        RadialLayout layout = new RadialLayout(leaves, imports, cat.pool());
+        gen.writeStartObject();
+        gen.writeArrayFieldStart("nodes");
+        for (int node = 0; node < layout.nodeCount(); node++) {
+            gen.writeStartArray();
+            gen.writeNumber(rounded(layout.angle(node)));
+            gen.writeNumber(rounded(layout.radius(node)));
+            gen.writeEndArray();
         }
-        return cyclicSegments;
+        gen.writeEndArray();
+        gen.writeArrayFieldStart("links");
+        for (int[] path : layout.paths()) {
+            gen.writeStartArray();
+            for (int node : path) {
+                gen.writeNumber(node);
+            }
+            gen.writeEndArray();
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
     }
 
-    // Produces a JSON object structure describing the specified Java package.
-    private JsonNode json(ObjectMapper mapper, JavaPackage javaPackage) {
-        ObjectNode node = mapper.createObjectNode();
+    // Rounds the layout fraction to a precision well under a pixel
+    private static double rounded(double fraction) {
+        return Math.round(fraction * LAYOUT_PRECISION) / (double) LAYOUT_PRECISION;
+    }
 
-        ArrayNode imports = mapper.createArrayNode();
-        for (JavaPackage dependency : javaPackage.getDependencies()) {
-            imports.add(dependency.name());
+    // Writes a JSON summary of dependencies
+    private void writeSummary(JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeNumberField("packages", cat.getPackages().size());
+        gen.writeNumberField("sources", cat.getSources().size());
+        gen.writeNumberField("cycles", cat.getCycles().size());
+        gen.writeNumberField("cycleSegments", cat.getCycleSegments().size());
+        gen.writeEndObject();
+    }
+
+    // Writes a JSON structure with the package groups by name prefix
+    private void writeGroups(JsonGenerator gen, PackageGroups groups) throws IOException {
+        gen.writeStartArray();
+        for (PackageGroups.Group group : groups.groups()) {
+            gen.writeStartObject();
+            gen.writeStringField("name", group.name());
+            gen.writeNumberField("size", group.size());
+            gen.writeNumberField("packages", group.packageCount());
+            gen.writeNumberField("cycleCount", group.cycleCount());
+            gen.writeBooleanField("expanded", group.isExpanded());
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+    }
+
+    // Writes a JSON structure with package dependency data
+    private void writePackages(JsonGenerator gen) throws IOException {
+        gen.writeStartArray();
+        for (JavaPackage javaPackage : cat.getPackages()) {
+            writePackage(gen, javaPackage);
         }
+        gen.writeEndArray();
+    }
 
+    // Writes a JSON structure with all cyclic segments
+    private void writeCycleSegments(JsonGenerator gen, Set<Dependency> segments) throws IOException {
+        gen.writeStartObject();
+        for (Dependency dependency : segments) {
+            String s = dependency.getSource().name();
+            String t = dependency.getTarget().name();
+            gen.writeObjectFieldStart(t + "-" + s);
+            gen.writeStringField("s", s);
+            gen.writeStringField("t", t);
+            gen.writeEndObject();
+        }
+        gen.writeEndObject();
+    }
+
+    // Writes a JSON object structure describing the specified Java package.
+    private void writePackage(JsonGenerator gen, JavaPackage javaPackage) throws IOException {
         Set<DependencyCycle> packageCycles = cat.getPackageCycles(javaPackage);
         Set<Dependency> packageCycleSegments = cat.getPackageCycleSegments(javaPackage);
 
-        node.put("name", javaPackage.name());
-        node.put("size", javaPackage.getSources().size());
-        node.put("imports", imports);
-        node.put("cycleSegments", jsonCycleSegments(mapper, packageCycleSegments));
-        node.put("cycleCount", packageCycles.size());
-        node.put("cycleSegmentCount", packageCycleSegments.size());
-        return node;
+        gen.writeStartObject();
+        gen.writeStringField("name", javaPackage.name());
+        gen.writeNumberField("size", javaPackage.getSources().size());
+        gen.writeArrayFieldStart("imports");
+        for (JavaPackage dependency : javaPackage.getDependencies()) {
+            gen.writeString(dependency.name());
+        }
+        gen.writeEndArray();
+        gen.writeFieldName("cycleSegments");
+        writeCycleSegments(gen, packageCycleSegments);
+        gen.writeNumberField("cycleCount", packageCycles.size());
+        gen.writeNumberField("cycleSegmentCount", packageCycleSegments.size());
+        gen.writeEndObject();
     }
 
 }
@@ -15,24 +15,34 @@
  */
 package org.onlab.jdvue;
 
+import org.onlab.jdvue.CatalogLineParser.Pragma;
 
 import java.io.BufferedReader;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkState;
 
 /**
  * Produces a package &amp; source catalogue.
@@ -41,32 +51,76 @@ import static com.google.common.base.MoreObjects.toStringHelper;
  */
 public class Catalog {
 
-    private static final String PACKAGE = "package";
-    private static final String IMPORT = "import";
-    private static final String STATIC = "static";
-    private static final String WILDCARD = "\\.*$";
+    private static final int RESOLVE_THRESHOLD = 16;
     private static final String JPD_EXT = ".db";
+    private static final String JAVA_EXT = ".java";
+    private static final String SNAPSHOT_EXT = ".snap";
 
-    private static final String RE_PATH_SANS_JAVA = "^(\\S+)(/\\S+\\.java)";
-    private static final Pattern PATH_SANS_JAVA = Pattern.compile(RE_PATH_SANS_JAVA);
+    // state of a removed source when detecting changes; see sourceStates()
+    private static final int ABSENT = -2;
 
     private final String catBasePath;
+    private final ForkJoinPool pool;
 
-    private final Map<String, String> packagePaths = new HashMap<>();
-    private final Map<String, JavaSource> sources = new HashMap<>();
-    private final Map<String, JavaPackage> packages = new HashMap<>();
-    private final Set<DependencyCycle> cycles = new HashSet<>();
+    // package name symbols keyed by full package path
+    private final Map<String, Integer> packagePaths = new HashMap<>();
+    private final Set<DependencyCycle> cycles = new LinkedHashSet<>();
     private final Set<Dependency> cycleSegments = new HashSet<>();
     private final Map<JavaPackage, Set<DependencyCycle>> packageCycles = new HashMap<>();
     private final Map<JavaPackage, Set<Dependency>> packageCycleSegments = new HashMap<>();
 
+    private CycleLimits cycleLimits = CycleLimits.DEFAULT;
+    private long catalogSize = CatalogSnapshot.NO_STAMP;
+    private long catalogModified = CatalogSnapshot.NO_STAMP;
+    private boolean cycleSearchComplete = true;
+    private final CatalogGraph catalogGraph = new CatalogGraph();
+    private final NameTable names = catalogGraph.names();
+    private PackageGraph packageGraph;
+    private StronglyConnectedComponents components;
+    private ReachabilityIndex reachability;
+    private final PipelineMetrics metrics;
+    private long pragmaCount;
+    private final LongAdder importNameCount = new LongAdder();
+    private final LongAdder unresolvedImportCount = new LongAdder();
+
+    // most recently located source; consecutive catalog lines share a path
+    private String lastPath;
+    private JavaSource lastSource;
+
     /**
      * Creates a catalog with the given base path.
      *
      * @param catBasePath the catalog base path
      */
     public Catalog(String catBasePath) {
+        this(catBasePath, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a catalog with the given base path, which will use the given
+     * fork-join pool for any work it performs in parallel.
+     *
+     * @param catBasePath the catalog base path
+     * @param pool        fork-join pool for parallel work
+     */
+    public Catalog(String catBasePath, ForkJoinPool pool) {
+        this(catBasePath, pool, false);
+    }
+
+    /**
+     * Creates a catalog with the given base path, which will use the given
+     * fork-join pool for any work it performs in parallel.
+     *
+     * @param catBasePath the catalog base path
+     * @param pool        fork-join pool for parallel work
+     * @param sharedPool  true if the pool is used by other catalogs at the
+     *                    same time, in which case the metrics cannot tell
+     *                    the allocations of this catalog apart
+     */
+    Catalog(String catBasePath, ForkJoinPool pool, boolean sharedPool) {
         this.catBasePath = catBasePath;
+        this.pool = pool;
+        this.metrics = new PipelineMetrics(pool, sharedPool);
     }
 
     /**
@@ -78,6 +132,36 @@ public class Catalog {
         return catBasePath;
     }
 
+    /**
+     * Returns the metrics recorded for the phases of loading, analyzing
+     * and reporting on this catalog.
+     *
+     * @return pipeline metrics
+     */
+    public PipelineMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the fork-join pool for any work performed in parallel on
+     * behalf of this catalog.
+     *
+     * @return fork-join pool
+     */
+    ForkJoinPool pool() {
+        return pool;
+    }
+
+    /**
+     * Sets the limits on enumerating dependency cycles during analysis.
+     * Defaults to {@link CycleLimits#DEFAULT}.
+     *
+     * @param cycleLimits cycle enumeration limits
+     */
+    public void setCycleLimits(CycleLimits cycleLimits) {
+        this.cycleLimits = cycleLimits;
+    }
+
     /**
      * Loads the catalog from its configured catalog file (base path with {@value JPD_EXT} extension).
      *
@@ -85,59 +169,248 @@ public class Catalog {
      */
     public void load() throws IOException {
         String catalogPath = catBasePath + JPD_EXT;
-        InputStream is = new FileInputStream(catalogPath);
-        BufferedReader br = new BufferedReader(new InputStreamReader(is));
-
-        String line;
-        while ((line = br.readLine()) != null) {
-            // Split the line into the two fields: path and pragmas
-            String[] fields = line.trim().split(":");
-            if (fields.length <= 1) {
-                continue;
+        try (PipelineMetrics.Phase phase = metrics.start("load")) {
+            long pragmasBefore = pragmaCount;
+            stampCatalog(Paths.get(catalogPath));
+            InputStream is = new FileInputStream(catalogPath);
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(is))) {
+                CatalogLineParser parser = new CatalogLineParser();
+                long lines = 0;
+                String line;
+                while ((line = br.readLine()) != null) {
+                    lines++;
+                    if (parser.parse(line)) {
+                        processPragma(parser.path(), parser.pragma(), parser.name());
+                    }
+                }
+                phase.count("lines", lines);
             }
-            String path = fields[0];
+            phase.count("pragmas", pragmaCount - pragmasBefore);
+        }
+    }
 
-            // Now split the pragmas on whitespace and trim punctuation
-            String[] pragma = fields[1].trim().replaceAll("[;\n\r]", "").split("[\t ]");
+    /**
+     * Loads the catalog from its configured catalog file by memory-mapping
+     * the file and parsing chunks of it in parallel. The resulting catalog
+     * contents are the same as those produced by {@link #load()}, which is
+     * also used as a fallback if the platform charset is not suitable for
+     * splitting the file into chunks.
+     *
+     * @throws IOException if unable to read the catalog file
+     */
+    public void loadMapped() throws IOException {
+        Charset charset = Charset.defaultCharset();
+        if (!MappedCatalogReader.isSupported(charset)) {
+            load();
+            return;
+        }
+        Path catalogPath = Paths.get(catBasePath + JPD_EXT);
+        try (PipelineMetrics.Phase phase = metrics.start("load")) {
+            long pragmasBefore = pragmaCount;
+            stampCatalog(catalogPath);
+            MappedCatalogReader reader = new MappedCatalogReader(catalogPath, charset, pool,
+                                                                 MappedCatalogReader.DEFAULT_CHUNK_SIZE);
+            phase.count("lines", reader.read(this::processPragma));
+            phase.count("pragmas", pragmaCount - pragmasBefore);
+        }
+    }
 
-            // Ensure we have full-package-path to package-path lookups populated
-            if (pragma[0].equals(PACKAGE)) {
-                addPackagePath(path, pragma[1]);
-            }
+    /**
+     * Loads the catalog by scanning the Java sources under the given source
+     * roots directly, rather than from a catalog file. The sources are
+     * scanned in parallel on the catalog fork-join pool. The resulting
+     * catalog contents are the same as those produced by {@link #load()}
+     * from a catalog file built of the same roots by {@code bin/jdvue},
+     * except that package declarations and imports within comments are
+     * ignored.
+     *
+     * @param roots source root directories
+     * @throws IOException if unable to walk the roots or read a source
+     */
+    public void loadSources(List<Path> roots) throws IOException {
+        try (PipelineMetrics.Phase phase = metrics.start("load")) {
+            long pragmasBefore = pragmaCount;
+            new JavaSourceScanner(roots, pool).scan(this::processPragma);
+            countScannedLines(phase, pragmaCount - pragmasBefore);
+        }
+    }
+
+    /**
+     * Loads the catalog from compiled classes in the given class directories
+     * and jar files, rather than from a catalog file. Each top-level class
+     * stands for a source, which imports all classes referenced by it or
+     * its nested classes. The classes are parsed in parallel on the catalog
+     * fork-join pool. Malformed or unsupported class files are skipped with
+     * a message on standard error, and counted as "skippedClasses" of the
+     * load phase.
+     *
+     * @param roots class directories or jar files
+     * @throws IOException if unable to read a root or a class
+     */
+    public void loadClasses(List<Path> roots) throws IOException {
+        try (PipelineMetrics.Phase phase = metrics.start("load")) {
+            long pragmasBefore = pragmaCount;
+            phase.count("skippedClasses", new ClassFileScanner(roots, pool).scan(this::processPragma));
+            countScannedLines(phase, pragmaCount - pragmasBefore);
+        }
+    }
 
-            // Locate (or create) Java source entity based on the path
-            JavaSource source = getOrCreateSource(path);
+    // counts the pragmas of a scan, along with the lines of the catalog file
+    // it stands in for, which has one line per pragma
+    private static void countScannedLines(PipelineMetrics.Phase phase, long pragmas) {
+        phase.count("lines", pragmas).count("pragmas", pragmas);
+    }
 
-            // Now process the package or import statements
-            if (pragma[0].equals(PACKAGE)) {
-                processPackageDeclaration(source, pragma[1]);
+    // remembers the size and modification time of the catalog file
+    private void stampCatalog(Path catalogPath) throws IOException {
+        catalogSize = Files.size(catalogPath);
+        catalogModified = Files.getLastModifiedTime(catalogPath).toMillis();
+    }
 
-            } else if (pragma[0].equals(IMPORT)) {
-                if (pragma[1].equals(STATIC)) {
-                    processImportStatement(source, sansMethodName(pragma[2]));
-                } else {
-                    processImportStatement(source, pragma[1]);
+    /**
+     * Loads the already analyzed catalog from its snapshot file (base path
+     * with {@value SNAPSHOT_EXT} extension), provided the snapshot was taken
+     * of the catalog file as it is now, i.e. of the same size and with the
+     * same modification time, or there is no catalog file. Neither parsing
+     * nor analysis is then required, except that cycles are enumerated anew
+     * if the snapshot cycles were found under limits other than the
+     * configured ones.
+     *
+     * @return true if the catalog was loaded from the snapshot; false if
+     * there is no usable snapshot, including a snapshot that cannot be read
+     * or is corrupt, in which case the catalog is unchanged
+     * @throws IOException if unable to check the catalog file
+     * @throws IllegalStateException if the catalog has already been loaded
+     */
+    public boolean loadSnapshot() throws IOException {
+        checkState(catalogGraph.sourceCount() == 0 && catalogGraph.packageCount() == 0,
+                   "Catalog has already been loaded");
+        try (PipelineMetrics.Phase phase = metrics.start("loadSnapshot")) {
+            Path snapshotPath = Paths.get(catBasePath + SNAPSHOT_EXT);
+            Path catalogPath = Paths.get(catBasePath + JPD_EXT);
+            if (!Files.isRegularFile(snapshotPath)) {
+                return false;
+            }
+            boolean hasCatalog = Files.exists(catalogPath);
+            long size = hasCatalog ? Files.size(catalogPath) : CatalogSnapshot.NO_STAMP;
+            long modified = hasCatalog ?
+                    Files.getLastModifiedTime(catalogPath).toMillis() : CatalogSnapshot.NO_STAMP;
+
+            CatalogSnapshot snapshot = new CatalogSnapshot(catalogGraph, packagePaths);
+            try {
+                if (!snapshot.read(snapshotPath, size, modified)) {
+                    return false;
+                }
+            } catch (IOException e) {
+                // discard whatever was read before the problem was found
+                catalogGraph.clear();
+                packagePaths.clear();
+                phase.count("unreadable", 1);
+                System.err.println("Ignoring unreadable catalog snapshot: " + e.getMessage());
+                return false;
+            }
+            catalogSize = snapshot.catalogSize();
+            catalogModified = snapshot.catalogModified();
+
+            findCycleSegments(new PackageGraph(catalogGraph));
+            if (cycleLimits.equals(snapshot.cycleLimits())) {
+                cycles.clear();
+                packageCycles.clear();
+                for (int[] ids : snapshot.cycles()) {
+                    List<JavaPackage> cycle = new ArrayList<>(ids.length);
+                    for (int id : ids) {
+                        cycle.add(catalogGraph.getPackage(id));
+                    }
+                    recordCycle(new DependencyCycle(cycle, cycle.get(0)));
                 }
+                cycleSearchComplete = snapshot.isCycleSearchComplete();
+            } else {
+                phase.count("searchNodesVisited", findCycles());
             }
+            phase.count("packages", packageGraph.size()).count("cycles", cycles.size());
+            return true;
         }
     }
 
-    // assumes s is a dot-delimited string: "some.package.ClassName.methodName"
-    private String sansMethodName(String s) {
-        int ri = s.lastIndexOf(".");
-        return ri >= 0 ? s.substring(0, ri) : s;
+    /**
+     * Saves the analyzed catalog into its snapshot file (base path with
+     * {@value SNAPSHOT_EXT} extension), from which it can be loaded again
+     * via {@link #loadSnapshot()}.
+     *
+     * @throws IOException if unable to write the snapshot file
+     * @throws IllegalStateException if the catalog has not been analyzed
+     */
+    public void saveSnapshot() throws IOException {
+        checkState(packageGraph != null, "Catalog has not been analyzed");
+        List<int[]> cycleIds = new ArrayList<>(cycles.size());
+        for (DependencyCycle cycle : cycles) {
+            cycleIds.add(cycle.getCycle().stream().mapToInt(JavaEntity::id).toArray());
+        }
+        CatalogSnapshot snapshot = new CatalogSnapshot(catalogGraph, packagePaths);
+        snapshot.setCatalogStamp(catalogSize, catalogModified);
+        snapshot.setCycles(cycleLimits, cycleSearchComplete, cycleIds);
+        snapshot.write(Paths.get(catBasePath + SNAPSHOT_EXT));
+    }
+
+    /**
+     * Processes a single pragma parsed from the catalog file.
+     *
+     * @param path   Java source path
+     * @param pragma kind of pragma
+     * @param name   package or imported entity name; null for other pragmas
+     */
+    private void processPragma(String path, Pragma pragma, String name) {
+        pragmaCount++;
+
+        // Ensure we have full-package-path to package-path lookups populated
+        if (pragma == Pragma.PACKAGE) {
+            addPackagePath(path, name);
+        }
+
+        // Locate (or create) Java source entity based on the path
+        JavaSource source = getOrCreateSource(path, pragma == Pragma.PACKAGE);
+        applyPragma(source, pragma, name);
+    }
+
+    /**
+     * Applies a single pragma parsed from the catalog file to its source.
+     *
+     * @param source Java source
+     * @param pragma kind of pragma
+     * @param name   package or imported entity name; null for other pragmas
+     */
+    private void applyPragma(JavaSource source, Pragma pragma, String name) {
+        if (pragma == Pragma.PACKAGE) {
+            processPackageDeclaration(source, name);
+        } else if (pragma == Pragma.IMPORT) {
+            processImportStatement(source, name);
+        }
     }
 
     // strips off trailing "/xxxxxxxxxx.java" if there is one
     private String javaSuffixRemoved(String s) {
-        Matcher m = PATH_SANS_JAVA.matcher(s);
-        return m.matches() ? m.group(1) : s;
+        if (!s.endsWith(JAVA_EXT) || hasWhitespace(s)) {
+            return s;
+        }
+        // leave at least one character between the slash and the extension
+        int ri = s.lastIndexOf('/', s.length() - JAVA_EXT.length() - 2);
+        return ri > 0 ? s.substring(0, ri) : s;
+    }
+
+    private boolean hasWhitespace(String s) {
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
     }
 
     // adds lookup from full-package-path to package-name
     private void addPackagePath(String path, String pkgName) {
         String pkgPath = javaSuffixRemoved(path);
-        packagePaths.put(pkgPath, pkgName);
+        packagePaths.put(pkgPath, names.intern(pkgName));
     }
 
     /**
@@ -150,145 +423,412 @@ public class Catalog {
     }
 
     /**
-     * Identifies circular package dependencies through what amounts to be a
-     * depth-first search rooted with each package.
+     * Updates the analyzed catalog with a delta of catalog records, such as
+     * the catalog lines of the files changed by a commit, and analyzes anew
+     * only what the delta affects. For every source named by the given
+     * lines, which are in the catalog file format, all its previous records
+     * are replaced by those lines. Sources at the given removed paths are
+     * removed altogether, as are packages left without sources.
+     * <p>
+     * Records are kept per source rather than per path, so if several paths
+     * map onto the same source, the lines of all of them must be given.
+     * <p>
+     * Imports are resolved anew for the updated sources and for sources
+     * importing the names of sources which were added, removed or moved to
+     * another package; dependencies are resolved anew for the packages of
+     * all of those. Cycles are enumerated anew only within the strongly
+     * connected components containing a package whose dependencies changed,
+     * unless the previous cycle search was incomplete.
+     *
+     * @param lines        catalog lines of added or changed sources
+     * @param removedPaths paths of removed sources
+     * @throws IllegalStateException if the catalog has not been analyzed
      */
-    private void findCircularDependencies() {
-        cycles.clear();
-        for (JavaPackage javaPackage : getPackages()) {
-            findCircularDependencies(javaPackage);
+    public void update(Iterable<String> lines, Collection<String> removedPaths) {
+        checkState(packageGraph != null, "Catalog has not been analyzed");
+        int[] before = sourceStates();
+        int wildcardBefore = wildcardPackage();
+        BitSet updated = applyDelta(lines, removedPaths);
+
+        // Drop packages which the update left without sources
+        catalogGraph.seal();
+        for (int s = updated.nextSetBit(0); s >= 0; s = updated.nextSetBit(s + 1)) {
+            int p = s < before.length ? before[s] : ABSENT;
+            if (p >= 0 && !catalogGraph.isRemovedPackage(p) && catalogGraph.sourceIds(p).length == 0) {
+                catalogGraph.removePackage(p);
+            }
         }
 
-        cycleSegments.clear();
-        packageCycles.clear();
-        packageCycleSegments.clear();
+        int wildcardPackage = wildcardPackage();
+        BitSet affected = affectedSources(before, updated, wildcardBefore != wildcardPackage);
+        BitSet packages = new BitSet();
+        for (int s = affected.nextSetBit(0); s >= 0; s = affected.nextSetBit(s + 1)) {
+            int p = catalogGraph.packageOf(s);
+            if (p != CatalogGraph.NONE) {
+                packages.set(p);
+            }
+            if (s < before.length && before[s] >= 0) {
+                packages.set(before[s]);
+            }
+        }
 
-        for (DependencyCycle cycle : getCycles()) {
-            recordCycleForPackages(cycle);
-            cycleSegments.addAll(cycle.getCycleSegments());
+        // Resolve the affected packages anew, and note whose dependencies changed
+        int[] packageIds = packages.stream().toArray();
+        int[][] imports = new int[catalogGraph.sourceCount()][];
+        int[][] dependencies = new int[catalogGraph.packageCount()][];
+        pool.invoke(new ForkJoinRange(0, packageIds.length, RESOLVE_THRESHOLD,
+                                      i -> dependencies[packageIds[i]] =
+                                              resolveImports(packageIds[i], wildcardPackage, imports)));
+        BitSet sources = (BitSet) updated.clone();
+        BitSet dirty = new BitSet();
+        for (int p : packageIds) {
+            for (int s : catalogGraph.sourceIds(p)) {
+                sources.set(s);
+            }
+            if (!Arrays.equals(catalogGraph.dependencyIds(p), dependencies[p])) {
+                dirty.set(p);
+            }
+        }
+        catalogGraph.reresolved(sources, imports, packages, dependencies);
+
+        List<DependencyCycle> previous = new ArrayList<>(cycles);
+        findCycleSegments(new PackageGraph(catalogGraph));
+        if (cycleSearchComplete) {
+            updateCycles(previous, dirty);
+        } else {
+            findCycles();
+        }
+    }
+
+    // states of all sources: package id, NONE if unpackaged, or ABSENT
+    private int[] sourceStates() {
+        int[] states = new int[catalogGraph.sourceCount()];
+        for (int s = 0; s < states.length; s++) {
+            states[s] = catalogGraph.isRemovedSource(s) ? ABSENT : catalogGraph.packageOf(s);
         }
+        return states;
+    }
+
+    // id of the package imported by wildcard imports, if any
+    private int wildcardPackage() {
+        return catalogGraph.packageId(names.find(""));
     }
 
     /**
-     * Records the specified cycle into a set for each involved package.
+     * Applies the delta records to the catalog graph.
      *
-     * @param cycle cycle to record for involved packages
+     * @param lines        catalog lines of added or changed sources
+     * @param removedPaths paths of removed sources
+     * @return ids of the sources which were updated or removed
      */
-    private void recordCycleForPackages(DependencyCycle cycle) {
-        for (JavaPackage javaPackage : cycle.getCycle()) {
-            Set<DependencyCycle> cset = packageCycles.computeIfAbsent(javaPackage, k -> new HashSet<>());
-            cset.add(cycle);
+    private BitSet applyDelta(Iterable<String> lines, Collection<String> removedPaths) {
+        BitSet updated = new BitSet();
+        lastPath = null;
+        lastSource = null;
+        for (String path : removedPaths) {
+            int id = catalogGraph.sourceId(symbolFromPath(path));
+            if (id != CatalogGraph.NONE) {
+                catalogGraph.removeSource(id);
+                updated.set(id);
+            }
+        }
 
-            Set<Dependency> sset = packageCycleSegments.computeIfAbsent(javaPackage, k -> new HashSet<>());
-            sset.addAll(cycle.getCycleSegments());
+        CatalogLineParser parser = new CatalogLineParser();
+        for (String line : lines) {
+            if (parser.parse(line)) {
+                Pragma pragma = parser.pragma();
+                if (pragma == Pragma.PACKAGE) {
+                    addPackagePath(parser.path(), parser.name());
+                }
+                JavaSource source = getOrCreateSource(parser.path(), pragma == Pragma.PACKAGE);
+                if (!updated.get(source.id())) {
+                    catalogGraph.clearSource(source.id());
+                    updated.set(source.id());
+                }
+                applyPragma(source, pragma, parser.name());
+            }
         }
+        return updated;
     }
 
     /**
-     * Identifies circular dependencies in which this package participates
-     * using depth-first search.
+     * Determines which sources need their imports resolved anew: the updated
+     * ones, and those of other packaged sources which import names of
+     * sources whose existence or package changed.
      *
-     * @param javaPackage Java package to inspect for dependency cycles
+     * @param before          source states before the update
+     * @param updated         ids of the updated sources
+     * @param wildcardChanged true if the package imported by wildcard
+     *                        imports changed
+     * @return ids of the affected sources
+     */
+    private BitSet affectedSources(int[] before, BitSet updated, boolean wildcardChanged) {
+        BitSet changedNames = new BitSet();
+        int[] after = sourceStates();
+        for (int s = 0; s < after.length; s++) {
+            if (after[s] != (s < before.length ? before[s] : ABSENT)) {
+                changedNames.set(catalogGraph.sourceSymbol(s));
+            }
+        }
+
+        BitSet affected = (BitSet) updated.clone();
+        if (changedNames.isEmpty() && !wildcardChanged) {
+            return affected;
+        }
+        for (int s = 0; s < after.length; s++) {
+            if (after[s] < 0 || affected.get(s)) {
+                continue;
+            }
+            for (int i = catalogGraph.importNameStart(s), end = catalogGraph.importNameEnd(s); i < end; i++) {
+                int symbol = catalogGraph.importSymbol(i);
+                if (changedNames.get(symbol) || (wildcardChanged && names.isBlank(symbol))) {
+                    affected.set(s);
+                    break;
+                }
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Updates the dependency cycles after the dependencies of some packages
+     * changed. Previous cycles which pass through none of those packages
+     * remain, and cycles are enumerated anew only within the strongly
+     * connected components which contain such a package.
+     *
+     * @param previous previous dependency cycles, found by a complete search
+     * @param dirty    ids of packages whose dependencies changed
+     */
+    private void updateCycles(List<DependencyCycle> previous, BitSet dirty) {
+        BitSet dirtyComponents = new BitSet();
+        for (int p = dirty.nextSetBit(0); p >= 0; p = dirty.nextSetBit(p + 1)) {
+            int index = packageGraph.indexOf(catalogGraph.getPackage(p));
+            if (index >= 0) {
+                dirtyComponents.set(components.component(index));
+            }
+        }
+
+        cycles.clear();
+        packageCycles.clear();
+        for (DependencyCycle cycle : previous) {
+            if (isUnaffected(cycle, dirty, dirtyComponents)) {
+                recordCycle(cycle);
+            }
+        }
+        if (!dirtyComponents.isEmpty()) {
+            CycleLimits limits = new CycleLimits(cycleLimits.maxLength(), cycleLimits.maxCount() - cycles.size(),
+                                                 cycleLimits.timeBudgetMillis());
+            cycleSearchComplete = new CycleEnumerator(packageGraph, components, limits)
+                    .enumerate(dirtyComponents::get, this::recordCycle);
+        }
+    }
+
+    private boolean isUnaffected(DependencyCycle cycle, BitSet dirty, BitSet dirtyComponents) {
+        for (JavaPackage javaPackage : cycle.getCycle()) {
+            if (dirty.get(javaPackage.id())) {
+                return false;
+            }
+        }
+        int index = packageGraph.indexOf(cycle.getCycle().get(0));
+        return !dirtyComponents.get(components.component(index));
+    }
+
+    /**
+     * Identifies circular package dependencies. Cycle segments are derived
+     * from the strongly connected components of the package graph, while
+     * the individual cycles are enumerated within those components, subject
+     * to the configured cycle limits.
      */
-    private void findCircularDependencies(JavaPackage javaPackage) {
-        // Setup a depth trace anchored at the given java package.
-        List<JavaPackage> trace = newTrace(new ArrayList<>(), javaPackage);
-        Set<JavaPackage> searched = new HashSet<>();
-        searchDependencies(javaPackage, trace, searched);
+    private void findCircularDependencies() {
+        try (PipelineMetrics.Phase phase = metrics.start("findCircularDependencies")) {
+            findCycleSegments(new PackageGraph(catalogGraph));
+            phase.count("packages", packageGraph.size())
+                    .count("components", components.count())
+                    .count("cycleSegments", cycleSegments.size())
+                    .count("searchNodesVisited", findCycles())
+                    .count("cycles", cycles.size());
+        }
     }
 
     /**
-     * Generates a new trace using the previous one and a new element
+     * Enumerates the dependency cycles, subject to the configured limits.
      *
-     * @param trace       old search trace
-     * @param javaPackage package to add to the trace
-     * @return new search trace
+     * @return number of packages entered by the search
      */
-    private List<JavaPackage> newTrace(List<JavaPackage> trace,
-                                       JavaPackage javaPackage) {
-        List<JavaPackage> newTrace = new ArrayList<>(trace);
-        newTrace.add(javaPackage);
-        return newTrace;
+    private long findCycles() {
+        cycles.clear();
+        packageCycles.clear();
+        CycleEnumerator enumerator = new CycleEnumerator(packageGraph, components, cycleLimits);
+        cycleSearchComplete = enumerator.enumerate(this::recordCycle);
+        return enumerator.visits();
     }
 
+    /**
+     * Records the specified cycle, both overall and for each involved package.
+     *
+     * @param cycle dependency cycle
+     */
+    private void recordCycle(DependencyCycle cycle) {
+        cycles.add(cycle);
+        recordCycleForPackages(cycle);
+    }
 
     /**
-     * Recursive depth-first search through dependency tree
+     * Identifies all cycle segments, i.e. dependencies which participate in
+     * at least one dependency cycle, in time linear to the size of the
+     * package graph. A dependency is a cycle segment exactly when both of
+     * its packages belong to the same strongly connected component. Each
+     * package is associated with the segments of its component.
      *
-     * @param javaPackage java package being searched currently
-     * @param trace       search trace
-     * @param searched    set of java packages already searched
+     * @param graph package graph of the catalog
      */
-    private void searchDependencies(JavaPackage javaPackage,
-                                    List<JavaPackage> trace,
-                                    Set<JavaPackage> searched) {
-        if (!searched.contains(javaPackage)) {
-            searched.add(javaPackage);
-            for (JavaPackage dependency : javaPackage.getDependencies()) {
-                if (dependency != null) {
-                    if (trace.contains(dependency)) {
-                        cycles.add(new DependencyCycle(trace, dependency));
-                    } else {
-                        searchDependencies(dependency, newTrace(trace, dependency), searched);
-                    }
+    private void findCycleSegments(PackageGraph graph) {
+        packageGraph = graph;
+        components = new StronglyConnectedComponents(graph);
+        synchronized (this) {
+            reachability = null;
+        }
+        cycleSegments.clear();
+        packageCycleSegments.clear();
+
+        List<Set<Dependency>> componentSegments = new ArrayList<>(components.count());
+        for (int c = 0; c < components.count(); c++) {
+            componentSegments.add(components.isCyclic(c) ? new HashSet<>() : null);
+        }
+
+        for (int s = 0; s < packageGraph.size(); s++) {
+            for (int p = packageGraph.start(s), end = packageGraph.end(s); p < end; p++) {
+                int t = packageGraph.target(p);
+                if (components.isCycleSegment(s, t)) {
+                    Dependency segment = new Dependency(packageGraph.getPackage(s), packageGraph.getPackage(t));
+                    componentSegments.get(components.component(s)).add(segment);
+                    cycleSegments.add(segment);
                 }
             }
         }
+
+        for (int i = 0; i < packageGraph.size(); i++) {
+            Set<Dependency> segments = componentSegments.get(components.component(i));
+            if (segments != null) {
+                packageCycleSegments.put(packageGraph.getPackage(i), segments);
+            }
+        }
+    }
+
+    /**
+     * Records the specified cycle into a set for each involved package.
+     *
+     * @param cycle cycle to record for involved packages
+     */
+    private void recordCycleForPackages(DependencyCycle cycle) {
+        for (JavaPackage javaPackage : cycle.getCycle()) {
+            Set<DependencyCycle> cset = packageCycles.computeIfAbsent(javaPackage, k -> new HashSet<>());
+            cset.add(cycle);
+        }
+    }
+
+    /**
+     * Streams the elementary dependency cycles of the analyzed catalog to
+     * the given consumer, as they are found, subject to the specified limits.
+     * Unlike {@link #getCycles()}, the cycles are not retained.
+     *
+     * @param limits   cycle enumeration limits
+     * @param consumer consumer of the dependency cycles
+     * @return true if all cycles within the maximum length were produced;
+     * false if the count or time limit ended the enumeration early
+     * @throws IllegalStateException if the catalog has not been analyzed
+     */
+    public boolean forEachCycle(CycleLimits limits, Consumer<DependencyCycle> consumer) {
+        checkState(packageGraph != null, "Catalog has not been analyzed");
+        return new CycleEnumerator(packageGraph, components, limits).enumerate(consumer);
     }
 
     /**
      * Resolves import names of Java sources into imports of entities known
      * to this catalog. All other import names will be ignored.
+     * <p>
+     * Packages are resolved independently of each other, in parallel on the
+     * catalog fork-join pool, and the outcome is recorded in the catalog
+     * graph in one go.
      */
     private void resolveImports() {
-        for (JavaPackage javaPackage : getPackages()) {
-            Set<JavaPackage> dependencies = new HashSet<>();
-            for (JavaSource source : javaPackage.getSources()) {
-                Set<JavaEntity> imports = resolveImports(source);
-                source.setImports(imports);
-                dependencies.addAll(importedPackages(imports));
-            }
-            javaPackage.setDependencies(dependencies);
+        try (PipelineMetrics.Phase phase = metrics.start("resolveImports")) {
+            importNameCount.reset();
+            unresolvedImportCount.reset();
+            catalogGraph.seal();
+            int wildcardPackage = catalogGraph.packageId(names.find(""));
+            int[][] imports = new int[catalogGraph.sourceCount()][];
+            int[][] dependencies = new int[catalogGraph.packageCount()][];
+            pool.invoke(new ForkJoinRange(0, dependencies.length, RESOLVE_THRESHOLD,
+                                          p -> dependencies[p] = resolveImports(p, wildcardPackage, imports)));
+            catalogGraph.resolved(imports, dependencies);
+            phase.count("importNames", importNameCount.sumThenReset())
+                    .count("unresolvedImports", unresolvedImportCount.sumThenReset());
         }
     }
 
     /**
-     * Produces a set of imported Java packages from the specified set of
-     * Java source entities.
+     * Resolves import names of all sources of the specified Java package and
+     * produces the ids of packages on which it depends as a result.
      *
-     * @param imports list of imported Java source entities
-     * @return list of imported Java packages
+     * @param packageId       Java package id
+     * @param wildcardPackage id of the package imported by wildcard imports
+     * @param imports         array in which to record entity codes imported
+     *                        by each of the package sources
+     * @return sorted, distinct ids of the packages depended on
      */
-    private Set<JavaPackage> importedPackages(Set<JavaEntity> imports) {
-        Set<JavaPackage> packages = new HashSet<>();
-        for (JavaEntity entity : imports) {
-            JavaPackage e = entity instanceof JavaPackage ? (JavaPackage) entity :
-                    ((JavaSource) entity).getPackage();
-            if (e != null) {
-                packages.add(e);
+    private int[] resolveImports(int packageId, int wildcardPackage, int[][] imports) {
+        int[] buffer = new int[16];
+        int n = 0;
+        for (int sourceId : catalogGraph.sourceIds(packageId)) {
+            int[] codes = resolveImports(sourceId, wildcardPackage);
+            imports[sourceId] = codes;
+            if (n + codes.length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, n + codes.length));
+            }
+            for (int code : codes) {
+                int dependency = code < 0 ? ~code : catalogGraph.packageOf(code);
+                if (dependency != CatalogGraph.NONE) {
+                    buffer[n++] = dependency;
+                }
             }
         }
-        return packages;
+        return CatalogGraph.sortedDistinct(buffer, n);
     }
 
     /**
      * Resolves import names of the specified Java source into imports of
      * entities known to this catalog. All other import names will be ignored.
      *
-     * @param source Java source
-     * @return list of resolved imports
-     */
-    private Set<JavaEntity> resolveImports(JavaSource source) {
-        Set<JavaEntity> imports = new HashSet<>();
-        for (String importName : source.getImportNames()) {
-            JavaEntity entity = importName.matches(WILDCARD) ?
-                    getPackage(importName.replaceAll(WILDCARD, "")) :
-                    getSource(importName);
-            if (entity != null) {
-                imports.add(entity);
+     * Import names are matched by their name symbols. A wildcard import,
+     * i.e. a name consisting of nothing but dots, stands for the package
+     * whose name is what remains once the trailing dots are stripped off.
+     *
+     * @param sourceId        Java source id
+     * @param wildcardPackage id of the package imported by wildcard imports
+     * @return sorted, distinct entity codes of resolved imports
+     */
+    private int[] resolveImports(int sourceId, int wildcardPackage) {
+        int start = catalogGraph.importNameStart(sourceId);
+        int end = catalogGraph.importNameEnd(sourceId);
+        int[] codes = new int[end - start];
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            int symbol = catalogGraph.importSymbol(i);
+            if (names.isBlank(symbol)) {
+                if (wildcardPackage != CatalogGraph.NONE) {
+                    codes[n++] = CatalogGraph.packageEntityCode(wildcardPackage);
+                }
+            } else {
+                int id = catalogGraph.sourceId(symbol);
+                if (id != CatalogGraph.NONE) {
+                    codes[n++] = id;
+                }
             }
         }
-        return imports;
+        importNameCount.add(codes.length);
+        unresolvedImportCount.add(codes.length - n);
+        return CatalogGraph.sortedDistinct(codes, n);
     }
 
     /**
@@ -298,39 +838,52 @@ public class Catalog {
      * @return Java package
      */
     private JavaPackage getOrCreatePackage(String packageName) {
-        return packages.computeIfAbsent(packageName, JavaPackage::new);
+        int symbol = names.intern(packageName);
+        int id = catalogGraph.packageId(symbol);
+        return id != CatalogGraph.NONE ? catalogGraph.getPackage(id) : catalogGraph.addPackage(symbol);
     }
 
     /**
      * Returns either an existing or a newly created Java source.
+     * <p>
+     * The source located for the previous path is reused, unless the given
+     * path differs or the package-path mappings may have just changed.
      *
-     * @param path Java source path
+     * @param path    Java source path
+     * @param refresh true if package-path mappings may have changed
      * @return Java source
      */
-    private JavaSource getOrCreateSource(String path) {
-        String name = nameFromPath(path);
-        return sources.computeIfAbsent(name, n -> new JavaSource(n, path));
+    private JavaSource getOrCreateSource(String path, boolean refresh) {
+        if (refresh || lastSource == null || !path.equals(lastPath)) {
+            int symbol = symbolFromPath(path);
+            int id = catalogGraph.sourceId(symbol);
+            lastSource = id != CatalogGraph.NONE ? catalogGraph.getSource(id) : catalogGraph.addSource(symbol, path);
+            lastPath = path;
+        }
+        return lastSource;
     }
 
     /**
-     * Extracts a fully qualified source class name from the given path.
+     * Extracts the symbol of a fully qualified source class name from the
+     * given path. The name is interned as the simple class name under the
+     * package name, so it is never assembled as a string.
      * <p>
      * Uses the package-path mappings to suppress the unwanted path prefix.
-     * If no matching mapping is found, it will simply return the path as
-     * the name.
+     * If no matching mapping is found, it will simply use the path as the
+     * name.
      *
      * @param path source path
-     * @return source name
+     * @return source name symbol
      */
-    private String nameFromPath(String path) {
+    private int symbolFromPath(String path) {
         String pkgPath = javaSuffixRemoved(path);
-        String pkgName = packagePaths.computeIfAbsent(pkgPath, p -> p);
-        int ri = path.lastIndexOf("/");
+        int pkgSymbol = packagePaths.computeIfAbsent(pkgPath, names::intern);
+        int ri = path.lastIndexOf('/');
         if (ri >= 0) {
-            String srcName = path.substring(ri + 1).replaceAll("\\.java$", "");
-            return pkgName + "." + srcName;
+            int end = path.endsWith(JAVA_EXT) ? path.length() - JAVA_EXT.length() : path.length();
+            return names.intern(pkgSymbol, path, ri + 1, end);
         }
-        return path;
+        return names.intern(path);
     }
 
     /**
@@ -342,7 +895,6 @@ public class Catalog {
     private void processPackageDeclaration(JavaSource source, String packageName) {
         JavaPackage javaPackage = getOrCreatePackage(packageName);
         source.setPackage(javaPackage);
-        javaPackage.addSource(source);
     }
 
     /**
@@ -361,7 +913,7 @@ public class Catalog {
      * @return collection of java sources
      */
     public Collection<JavaSource> getSources() {
-        return Collections.unmodifiableCollection(sources.values());
+        return catalogGraph.sources();
     }
 
     /**
@@ -371,7 +923,7 @@ public class Catalog {
      * @return Java source
      */
     public JavaSource getSource(String name) {
-        return sources.get(name);
+        return catalogGraph.findSource(name);
     }
 
     /**
@@ -380,11 +932,12 @@ public class Catalog {
      * @return collection of java packages
      */
     public Collection<JavaPackage> getPackages() {
-        return Collections.unmodifiableCollection(packages.values());
+        return catalogGraph.packages();
     }
 
     /**
-     * Returns the set of all Java package dependency cycles.
+     * Returns the set of all Java package dependency cycles found during
+     * analysis, within the configured cycle limits.
      *
      * @return set of dependency cycles
      */
@@ -392,6 +945,17 @@ public class Catalog {
         return Collections.unmodifiableSet(cycles);
     }
 
+    /**
+     * Indicates whether the last analysis found all dependency cycles within
+     * the configured maximum length, i.e. neither the count nor the time
+     * limit cut the search short.
+     *
+     * @return true if the cycle search was complete
+     */
+    public boolean isCycleSearchComplete() {
+        return cycleSearchComplete;
+    }
+
     /**
      * Returns the set of all Java package dependency cycle segments.
      *
@@ -413,7 +977,9 @@ public class Catalog {
     }
 
     /**
-     * Returns the set of dependency cycle segments which involve the specified package.
+     * Returns the set of dependency cycle segments which involve the specified
+     * package, i.e. the segments within the strongly connected component of
+     * the package graph to which the package belongs.
      *
      * @param javaPackage java package
      * @return set of dependency cycle segments
@@ -423,6 +989,78 @@ public class Catalog {
         return Collections.unmodifiableSet(set == null ? new HashSet<>() : set);
     }
 
+    /**
+     * Indicates whether the first package depends on the second one, either
+     * directly or by way of other packages.
+     *
+     * @param dependent  dependent package
+     * @param dependency package possibly depended on
+     * @return true if the package transitively depends on the other one
+     * @throws IllegalStateException if the catalog has not been analyzed
+     */
+    public boolean dependsOn(JavaPackage dependent, JavaPackage dependency) {
+        ReachabilityIndex index = reachability();
+        int source = packageGraph.indexOf(dependent);
+        int target = packageGraph.indexOf(dependency);
+        return source >= 0 && target >= 0 && index.dependsOn(source, target);
+    }
+
+    /**
+     * Returns the set of packages on which the specified package depends,
+     * either directly or by way of other packages, in order of names. The
+     * package itself is among them if it is part of a dependency cycle.
+     *
+     * @param javaPackage java package
+     * @return set of packages transitively depended on
+     * @throws IllegalStateException if the catalog has not been analyzed
+     */
+    public Set<JavaPackage> getTransitiveDependencies(JavaPackage javaPackage) {
+        ReachabilityIndex index = reachability();
+        int i = packageGraph.indexOf(javaPackage);
+        return i < 0 ? Collections.emptySet() : packages(index.dependencies(i));
+    }
+
+    /**
+     * Returns the set of packages which depend on the specified package,
+     * either directly or by way of other packages, in order of names. The
+     * package itself is among them if it is part of a dependency cycle.
+     *
+     * @param javaPackage java package
+     * @return set of packages transitively dependent on it
+     * @throws IllegalStateException if the catalog has not been analyzed
+     */
+    public Set<JavaPackage> getTransitiveDependents(JavaPackage javaPackage) {
+        ReachabilityIndex index = reachability();
+        int i = packageGraph.indexOf(javaPackage);
+        return i < 0 ? Collections.emptySet() : packages(index.dependents(i));
+    }
+
+    // Returns the packages with the given indexes
+    private Set<JavaPackage> packages(BitSet indexes) {
+        Set<JavaPackage> packages = new LinkedHashSet<>();
+        for (int i = indexes.nextSetBit(0); i >= 0; i = indexes.nextSetBit(i + 1)) {
+            packages.add(packageGraph.getPackage(i));
+        }
+        return Collections.unmodifiableSet(packages);
+    }
+
+    /**
+     * Returns the transitive reachability index of the package graph,
+     * computing it on first use after each analysis.
+     *
+     * @return reachability index
+     */
+    private synchronized ReachabilityIndex reachability() {
+        checkState(packageGraph != null, "Catalog has not been analyzed");
+        if (reachability == null) {
+            try (PipelineMetrics.Phase phase = metrics.start("indexReachability")) {
+                reachability = new ReachabilityIndex(packageGraph, components, pool);
+                phase.count("components", components.count()).count("runs", reachability.runCount());
+            }
+        }
+        return reachability;
+    }
+
     /**
      * Returns the Java package with the specified name.
      *
@@ -430,14 +1068,14 @@ public class Catalog {
      * @return Java package
      */
     public JavaPackage getPackage(String name) {
-        return packages.get(name);
+        return catalogGraph.findPackage(name);
     }
 
     @Override
     public String toString() {
         return toStringHelper(this)
-                .add("packages", packages.size())
-                .add("sources", sources.size())
+                .add("packages", getPackages().size())
+                .add("sources", getSources().size())
                 .add("cycles", cycles.size())
                 .add("cycleSegments", cycleSegments.size()).toString();
     }
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Batch of catalogs processed concurrently within one JVM. Each catalog is
+ * loaded, analyzed and reported on just as by a run of
+ * {@link DependencyViewer} of its own, on a bounded number of threads,
+ * while the parallel work within catalogs shares a single fork-join pool.
+ * <p>
+ * Catalogs are processed in isolation: the failure of one is recorded in
+ * its result and does not affect the others. A virtual machine error other
+ * than a stack overflow, such as running out of memory, ends the batch. As
+ * catalogs processed at the same time share the pool, their metrics do not
+ * measure allocations.
+ */
+public class CatalogBatch {
+
+    private static final String COMMENT = "#";
+
+    private final List<String> catalogPaths;
+    private final int threads;
+    private final ProgArgs options;
+
+    /**
+     * Creates a batch of the given catalogs.
+     *
+     * @param catalogPaths catalog base paths
+     * @param threads      number of catalogs to process at a time
+     * @param options      program arguments which apply to each catalog
+     */
+    public CatalogBatch(List<String> catalogPaths, int threads, ProgArgs options) {
+        checkArgument(threads > 0, "Thread count must be positive");
+        this.catalogPaths = new ArrayList<>(catalogPaths);
+        this.threads = threads;
+        this.options = options;
+    }
+
+    /**
+     * Reads the catalog base paths listed in the given manifest file, one
+     * per line. Blank lines and lines starting with {@value COMMENT} are
+     * ignored.
+     *
+     * @param manifest manifest file
+     * @return catalog base paths
+     * @throws IOException if unable to read the manifest
+     */
+    public static List<String> readManifest(Path manifest) throws IOException {
+        List<String> paths = new ArrayList<>();
+        for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+            String path = line.trim();
+            if (!path.isEmpty() && !path.startsWith(COMMENT)) {
+                paths.add(path);
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Processes all catalogs of the batch and waits for them to complete.
+     *
+     * @return results of the catalogs, in batch order
+     * @throws InterruptedException if interrupted while waiting
+     * @throws VirtualMachineError  if one occurs while processing a catalog,
+     *                              other than a stack overflow; the catalogs
+     *                              still being processed are cancelled
+     */
+    public List<Result> run() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, catalogPaths.size())));
+        ForkJoinPool pool = new ForkJoinPool();
+        boolean sharedPool = threads > 1 && catalogPaths.size() > 1;
+        try {
+            CompletionService<Result> completion = new ExecutorCompletionService<>(executor);
+            Map<Future<Result>, Integer> indexes = new HashMap<>();
+            for (int i = 0; i < catalogPaths.size(); i++) {
+                String path = catalogPaths.get(i);
+                indexes.put(completion.submit(() -> process(path, pool, sharedPool)), i);
+            }
+            Result[] results = new Result[catalogPaths.size()];
+            for (int n = 0; n < results.length; n++) {
+                Future<Result> future = completion.take();
+                int i = indexes.get(future);
+                try {
+                    results[i] = future.get();
+                } catch (ExecutionException e) {
+                    // The catalogs share one heap and one pool, whose state
+                    // is unknown after such an error; the rest are cancelled
+                    if (e.getCause() instanceof VirtualMachineError) {
+                        throw (VirtualMachineError) e.getCause();
+                    }
+                    // process() records failures itself; should it fail
+                    // nevertheless, the other catalogs still count
+                    results[i] = new Result(catalogPaths.get(i), null, e.getCause().toString(), 0);
+                }
+            }
+            return Arrays.asList(results);
+        } finally {
+            executor.shutdownNow();
+            pool.shutdown();
+        }
+    }
+
+    // Processes a single catalog, recording its outcome and timing
+    private Result process(String path, ForkJoinPool pool, boolean sharedPool) {
+        long start = System.nanoTime();
+        try {
+            Catalog cat = new Catalog(path, pool, sharedPool);
+            DependencyViewer.process(cat, options, false);
+            return new Result(path, cat.toString(), null, elapsedMillis(start));
+        } catch (Exception | StackOverflowError e) {
+            // a stack overflow on a pathological catalog is confined to the
+            // catalog in which it occurs; other errors end the batch
+            return new Result(path, null, e.toString(), elapsedMillis(start));
+        }
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    /**
+     * Outcome of processing one catalog of a batch.
+     */
+    public static final class Result {
+        private final String catalogPath;
+        private final String summary;
+        private final String failure;
+        private final long millis;
+
+        private Result(String catalogPath, String summary, String failure, long millis) {
+            this.catalogPath = catalogPath;
+            this.summary = summary;
+            this.failure = failure;
+            this.millis = millis;
+        }
+
+        /**
+         * Returns the catalog base path.
+         *
+         * @return catalog base path
+         */
+        public String catalogPath() {
+            return catalogPath;
+        }
+
+        /**
+         * Indicates whether the catalog was processed successfully.
+         *
+         * @return true if successful
+         */
+        public boolean isSuccess() {
+            return failure == null;
+        }
+
+        /**
+         * Returns the summary of the processed catalog.
+         *
+         * @return catalog summary; null if processing failed
+         */
+        public String summary() {
+            return summary;
+        }
+
+        /**
+         * Returns the description of the failure, if processing failed.
+         *
+         * @return failure description; null if successful
+         */
+        public String failure() {
+            return failure;
+        }
+
+        /**
+         * Returns the time taken to process the catalog.
+         *
+         * @return elapsed time in milliseconds
+         */
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public String toString() {
+            return toStringHelper(this)
+                    .add("catalogPath", catalogPath)
+                    .add("millis", millis)
+                    .add(isSuccess() ? "summary" : "failure", isSuccess() ? summary : failure)
+                    .toString();
+        }
+    }
+
+}
@@ -15,28 +15,49 @@
  */
 package org.onlab.jdvue;
 
-import java.io.FileWriter;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Able to create a compact text file containing data pertaining to an analyzed {@link Catalog}.
+ * <p>
+ * Records are encoded as they are written, straight into the buffer of a
+ * {@link DetailWriter}, which is drained through a file channel; the
+ * encoded records are never held in memory as a whole. The file is
+ * encoded as UTF-8.
+ * <p>
+ * The same data may also be written in the compact binary format described
+ * by {@link DetailData}, optionally gzip-compressed.
  */
 public class CatalogDetails {
-    private static final String DATA_EXT = ".data";
-    private static final String COMMENT_CHAR = ";";
-    private static final String PACKAGE_CHAR = "P";
-    private static final String SOURCE_CHAR = "S";
-    private static final String DEP_CHAR = "D";
-    private static final String DEP_ARROW_CHAR = ">";
-    private static final String CYCLE_CHAR = "C";
-    private static final String CYCLE_ARROW_CHAR = "}";
+    private static final String BINARY_EXT = ".datb";
+    static final String DATA_EXT = ".data";
+    static final String TITLE = "Java Package Dependency Data";
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
+    private static final char COMMENT_CHAR = ';';
+    private static final char PACKAGE_CHAR = 'P';
+    private static final char SOURCE_CHAR = 'S';
+    private static final char DEP_CHAR = 'D';
+    private static final char DEP_ARROW_CHAR = '>';
+    private static final char CYCLE_CHAR = 'C';
+    private static final char CYCLE_ARROW_CHAR = '}';
+    private static final char CODE_SEPARATOR = '.';
 
     private final Catalog cat;
     private final String dataFileName;
@@ -47,11 +68,8 @@ public class CatalogDetails {
     private List<JavaPackage> sortedPackages;
     private final Map<JavaPackage, List<JavaSource>> sortedSources = new HashMap<>();
 
-    private final List<String> encPackageSources = new ArrayList<>();
-    private final List<String> encDependencies = new ArrayList<>();
-    private final List<String> encCycles = new ArrayList<>();
-
-    private FileWriter fw;
+    // scratch space for ordering the imports of a source by their codes
+    private long[] importKeys = new long[16];
 
     /**
      * Wraps a catalog in a detail writer.
@@ -62,7 +80,6 @@ public class CatalogDetails {
         this.cat = cat;
         this.dataFileName = cat.basePath() + DATA_EXT;
         sortPackages();
-        encodeData();
     }
 
     private void sortPackages() {
@@ -91,139 +108,257 @@ public class CatalogDetails {
 
     private List<JavaPackage> getSortedPackages() {
         // Sort packages by name, even though they don't implement Comparable
-        List<JavaPackage> sortedPkgs = cat.getPackages().stream()
-                .map(JavaEntity::name)
-                .sorted()
-                .map(cat::getPackage)
-                .collect(Collectors.toList());
-        return Collections.unmodifiableList(sortedPkgs);
+        return Collections.unmodifiableList(JavaEntity.sortedByName(cat.getPackages()));
     }
 
     private List<JavaSource> getSortedSources(JavaPackage pkg) {
         // Sort sources by name, even though they don't implement Comparable
-        List<JavaSource> sortedSrcs = pkg.getSources().stream()
-                .map(JavaEntity::name)
-                .sorted()
-                .map(cat::getSource)
-                .collect(Collectors.toList());
-        return Collections.unmodifiableList(sortedSrcs);
-    }
-
-    private String leafName(String dottedName) {
-        int ri = dottedName.lastIndexOf(".");
-        return ri >= 0 ? dottedName.substring(ri + 1) : dottedName;
-    }
-
-    private void encodeData() {
-        encodePackages();
-        encodeDependencies();
-        encodeCycles();
+        return Collections.unmodifiableList(JavaEntity.sortedByName(pkg.getSources()));
     }
 
-    private void encodePackages() {
+    private void encodePackages(DetailWriter out) throws IOException {
         for (JavaPackage p : sortedPackages) {
-            encodePackage(p);
+            encodePackage(out, p);
         }
     }
 
-    private void encodePackage(JavaPackage p) {
-        encPackageSources.add(PACKAGE_CHAR + p.name());
-        List<JavaSource> srcs = sortedSources.get(p);
-        for (JavaSource s : srcs) {
-            encPackageSources.add(SOURCE_CHAR + leafName(s.name()));
+    private void encodePackage(DetailWriter out, JavaPackage p) throws IOException {
+        out.append(PACKAGE_CHAR).append(p.name()).endLine();
+        for (JavaSource s : sortedSources.get(p)) {
+            out.append(SOURCE_CHAR).append(s.lastSegment()).endLine();
         }
     }
 
-    private void encodeDependencies() {
+    private void encodeDependencies(DetailWriter out) throws IOException {
         for (JavaPackage p : sortedPackages) {
-            encodeDependencies(p);
+            int packageCode = packageCodes.get(p);
+            Map<JavaSource, Integer> codes = sourceCodes.get(p);
+            for (JavaSource s : sortedSources.get(p)) {
+                encodeDependencies(out, packageCode, codes.get(s), s);
+            }
         }
     }
 
-    private void encodeDependencies(JavaPackage p) {
-        for (JavaSource s : sortedSources.get(p)) {
-            encodeDependencies(s);
+    private void encodeDependencies(DetailWriter out, int packageCode, int sourceCode,
+                                    JavaSource src) throws IOException {
+        int n = sortImports(src);
+        for (int i = 0; i < n; i++) {
+            out.append(DEP_CHAR).append(packageCode).append(CODE_SEPARATOR).append(sourceCode)
+                    .append(DEP_ARROW_CHAR)
+                    .append((int) (importKeys[i] >>> Integer.SIZE)).append(CODE_SEPARATOR)
+                    .append((int) importKeys[i]).endLine();
         }
     }
 
-    private void encodeDependencies(JavaSource src) {
-        for (JavaEntity imp : src.getImports()) {
-            JavaSource tgt = (JavaSource) imp;
-            encDependencies.add(DEP_CHAR + coded(src) + DEP_ARROW_CHAR + coded(tgt));
+    // Orders the imports of the source by their codes, so the output is
+    // stable, as keys in the import key scratch space; returns their count
+    private int sortImports(JavaSource src) {
+        Collection<JavaEntity> imports = src.getImports();
+        if (importKeys.length < imports.size()) {
+            importKeys = new long[Math.max(importKeys.length * 2, imports.size())];
         }
+        int n = 0;
+        for (JavaEntity entity : imports) {
+            JavaSource tgt = (JavaSource) entity;
+            JavaPackage p = tgt.getPackage();
+            importKeys[n++] = (long) packageCodes.get(p) << Integer.SIZE | sourceCodes.get(p).get(tgt);
+        }
+        Arrays.sort(importKeys, 0, n);
+        return n;
     }
 
-    private void encodeCycles() {
+    private void encodeCycles(DetailWriter out) throws IOException {
         for (DependencyCycle cycle : cat.getCycles()) {
-            encCycles.add(CYCLE_CHAR + encodeCycleAsString(cycle));
+            out.append(CYCLE_CHAR);
+            for (JavaPackage p : cycle.getCycle()) {
+                out.append(packageCodes.get(p)).append(CYCLE_ARROW_CHAR);
+            }
+            out.endLine();
         }
+    }
 
+
+    /**
+     * Writer of a source dependency given by the codes of its endpoints.
+     */
+    interface CodedDependencyWriter {
+        /**
+         * Writes a dependency of one source on another.
+         *
+         * @param sourcePackage source package code
+         * @param source        source code within its package
+         * @param targetPackage target package code
+         * @param target        target code within its package
+         * @throws IOException if issues encountered writing the dependency
+         */
+        void write(int sourcePackage, int source, int targetPackage, int target) throws IOException;
     }
 
-    private String encodeCycleAsString(DependencyCycle cycle) {
-        StringBuilder sb = new StringBuilder();
-        for (JavaPackage p: cycle.getCycle()) {
-            sb.append(coded(p)).append(CYCLE_ARROW_CHAR);
-        }
-        return sb.toString();
+    // for report generators working off the detail codes
+
+    List<JavaPackage> sortedPackages() {
+        return sortedPackages;
+    }
+
+    List<JavaSource> sortedSources(JavaPackage javaPackage) {
+        return sortedSources.get(javaPackage);
+    }
+
+    int packageCode(JavaPackage javaPackage) {
+        return packageCodes.get(javaPackage);
     }
 
-    private String coded(JavaPackage p) {
-        return packageCodes.get(p).toString();
+    String dataFileName() {
+        return dataFileName;
     }
 
-    private String coded(JavaSource s) {
-        JavaPackage p = s.getPackage();
-        String sCodeStr = sourceCodes.get(p).get(s).toString();
-        return coded(p) + "." + sCodeStr;
+    // writes all dependencies in the order of the detail data
+    void writeDependencies(CodedDependencyWriter writer) throws IOException {
+        for (int p = 0; p < sortedPackages.size(); p++) {
+            List<JavaSource> srcs = sortedSources.get(sortedPackages.get(p));
+            for (int s = 0; s < srcs.size(); s++) {
+                int n = sortImports(srcs.get(s));
+                for (int i = 0; i < n; i++) {
+                    writer.write(p, s, (int) (importKeys[i] >>> Integer.SIZE), (int) importKeys[i]);
+                }
+            }
+        }
     }
 
 
     // for unit testing access
 
-    List<String> getEncPackageSources() {
-        return Collections.unmodifiableList(encPackageSources);
+    List<String> getEncPackageSources() throws IOException {
+        return encoded(this::encodePackages);
+    }
+
+    List<String> getEncDependencies() throws IOException {
+        return encoded(this::encodeDependencies);
     }
 
-    List<String> getEncDependencies() {
-        return Collections.unmodifiableList(encDependencies);
+    List<String> getEncCycles() throws IOException {
+        return encoded(this::encodeCycles);
     }
 
-    List<String> getEncCycles() {
-        return Collections.unmodifiableList(encCycles);
+    private interface Encoder {
+        void encode(DetailWriter out) throws IOException;
+    }
+
+    private List<String> encoded(Encoder encoder) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DetailWriter out = new DetailWriter(Channels.newChannel(bytes), DetailWriter.DEFAULT_BUFFER_SIZE)) {
+            encoder.encode(out);
+        }
+        String text = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        return text.isEmpty() ? Collections.emptyList() :
+                Collections.unmodifiableList(Arrays.asList(text.split(System.lineSeparator())));
     }
 
 
     public void writeDetails() throws IOException {
-        fw = new FileWriter(dataFileName);
-        writeHeader();
-        writeCodedBlock("Packages/Sources", encPackageSources);
-        writeCodedBlock("Source Dependencies", encDependencies);
-        writeCodedBlock("Package Cycles", encCycles);
-        fw.close();
+        try (PipelineMetrics.Phase phase = cat.metrics().start("writeDetails");
+             DetailWriter out = new DetailWriter(FileChannel.open(Paths.get(dataFileName),
+                                                                  StandardOpenOption.CREATE,
+                                                                  StandardOpenOption.TRUNCATE_EXISTING,
+                                                                  StandardOpenOption.WRITE),
+                                                 DetailWriter.DEFAULT_BUFFER_SIZE)) {
+            writeHeader(out);
+            writeHeading(out, "Packages/Sources");
+            encodePackages(out);
+            writeHeading(out, "Source Dependencies");
+            encodeDependencies(out);
+            writeHeading(out, "Package Cycles");
+            encodeCycles(out);
+            phase.count("lines", out.lines());
+        }
         System.err.println("Wrote DATA file: " + dataFileName);
     }
 
-    private void writeCodedBlock(String heading, List<String> encData) throws IOException {
-        wrComment("");
-        wrComment(heading);
-        for (String data : encData) {
-            writeLine(data);
+    /**
+     * Writes the detail data in the compact binary format, into a file
+     * named by the catalog base path with {@value BINARY_EXT} extension.
+     *
+     * @param compressed true to gzip-compress the data
+     * @throws IOException if issues encountered writing the file
+     */
+    public void writeBinaryDetails(boolean compressed) throws IOException {
+        String fileName = cat.basePath() + BINARY_EXT;
+        try (PipelineMetrics.Phase phase = cat.metrics().start("writeBinaryDetails");
+             OutputStream file = new BufferedOutputStream(Files.newOutputStream(Paths.get(fileName)),
+                                                          STREAM_BUFFER_SIZE)) {
+            file.write(DetailData.MAGIC);
+            file.write(DetailData.VERSION);
+            file.write(compressed ? DetailData.GZIP_FLAG : 0);
+            GZIPOutputStream gzip = compressed ? new GZIPOutputStream(file, STREAM_BUFFER_SIZE) : null;
+            OutputStream out = compressed ? new BufferedOutputStream(gzip, STREAM_BUFFER_SIZE) : file;
+            phase.count("dependencies", writeBinaryBody(out, fileName));
+            out.flush();
+            if (gzip != null) {
+                gzip.finish();
+            }
+        }
+        System.err.println("Wrote binary DATA file: " + fileName);
+    }
+
+    // Writes the body of the binary format; returns the dependency count
+    private long writeBinaryBody(OutputStream out, String fileName) throws IOException {
+        DetailData.writeString(out, TITLE);
+        DetailData.writeString(out, new Date().toString());
+        DetailData.writeString(out, fileName);
+
+        int[] offsets = new int[sortedPackages.size()];
+        DetailData.writeVarint(out, sortedPackages.size());
+        int offset = 0;
+        for (int p = 0; p < offsets.length; p++) {
+            JavaPackage javaPackage = sortedPackages.get(p);
+            List<JavaSource> srcs = sortedSources.get(javaPackage);
+            offsets[p] = offset;
+            offset += srcs.size();
+            DetailData.writeString(out, javaPackage.name());
+            DetailData.writeVarint(out, srcs.size());
+            for (JavaSource src : srcs) {
+                DetailData.writeString(out, src.lastSegment());
+            }
+        }
+
+        long dependencies = 0;
+        for (JavaPackage javaPackage : sortedPackages) {
+            for (JavaSource src : sortedSources.get(javaPackage)) {
+                int n = sortImports(src);
+                DetailData.writeVarint(out, n);
+                int previous = 0;
+                for (int i = 0; i < n; i++) {
+                    int target = offsets[(int) (importKeys[i] >>> Integer.SIZE)] + (int) importKeys[i];
+                    DetailData.writeVarint(out, target - previous);
+                    previous = target;
+                }
+                dependencies += n;
+            }
+        }
+
+        DetailData.writeVarint(out, cat.getCycles().size());
+        for (DependencyCycle cycle : cat.getCycles()) {
+            DetailData.writeVarint(out, cycle.getCycle().size());
+            for (JavaPackage p : cycle.getCycle()) {
+                DetailData.writeVarint(out, packageCodes.get(p));
+            }
         }
+        return dependencies;
     }
 
-    private void writeHeader() throws IOException {
-        wrComment("Java Package Dependency Data");
-        wrComment(new Date().toString());
-        wrComment(dataFileName);
-        wrComment("");
+    private void writeHeading(DetailWriter out, String heading) throws IOException {
+        wrComment(out, "");
+        wrComment(out, heading);
     }
 
-    private void wrComment(String comment) throws IOException {
-        writeLine(COMMENT_CHAR + comment);
+    private void writeHeader(DetailWriter out) throws IOException {
+        wrComment(out, TITLE);
+        wrComment(out, new Date().toString());
+        wrComment(out, dataFileName);
+        wrComment(out, "");
     }
 
-    private void writeLine(String line) throws IOException {
-        fw.write(line + System.lineSeparator());
+    private void wrComment(DetailWriter out, String comment) throws IOException {
+        out.append(COMMENT_CHAR).append(comment).endLine();
     }
 }
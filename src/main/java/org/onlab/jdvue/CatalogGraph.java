@@ -0,0 +1,878 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Compact graph core of a catalog. Packages and sources are given dense
+ * integer ids in order of creation and all relations between them are held
+ * in primitive arrays; {@link JavaPackage} and {@link JavaSource} instances
+ * merely carry their id and present views over this core.
+ * <p>
+ * Relations are recorded by appending to flat arrays while the catalog is
+ * loaded. Upon {@link #seal()}, the package membership of sources and the
+ * import names of sources are rearranged into compressed sparse row (CSR)
+ * form, i.e. an offset array indexed by entity id and a target array, and
+ * resolved imports and package dependencies are supplied in the same form.
+ * Repeated import names of a source are dropped at that point.
+ * <p>
+ * Resolved imports of a source are encoded as entity codes: a source id
+ * stands for itself, while a package is encoded as the complement of its id.
+ * <p>
+ * Entity and import names are interned in a shared {@link NameTable}, and
+ * entities are looked up by name symbol rather than by hashing names.
+ * Entities hold only their name symbol, so each name is stored once.
+ * <p>
+ * Entities are never discarded, so that ids stay dense and stable. A removed
+ * entity is merely marked as such; it can no longer be looked up by name and
+ * is left out of the entity lists, but it is revived under its former id if
+ * an entity of the same name is added again.
+ */
+final class CatalogGraph {
+
+    static final int NONE = -1;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final NameTable names = new NameTable();
+    private final List<JavaPackage> packages = new ArrayList<>();
+    private final List<JavaSource> sources = new ArrayList<>();
+    private int[] sourcePackages = new int[INITIAL_CAPACITY];
+
+    // package and source ids indexed by name symbol, and the reverse
+    private int[] symbolPackages = new int[0];
+    private int[] symbolSources = new int[0];
+    private int[] packageSymbols = new int[INITIAL_CAPACITY];
+    private int[] sourceSymbols = new int[INITIAL_CAPACITY];
+    private final BitSet removedPackages = new BitSet();
+    private final BitSet removedSources = new BitSet();
+
+    // import name symbols in the order in which they were added; names of
+    // a source added before its clear mark have been cleared
+    private int[] importOwners = new int[INITIAL_CAPACITY];
+    private int[] importSymbols = new int[INITIAL_CAPACITY];
+    private int importCount = 0;
+    private int[] clearMarks = new int[INITIAL_CAPACITY];
+
+    // package sources and source import names in CSR form; built by seal()
+    private volatile boolean sealed = false;
+    private int[] memberOffsets;
+    private int[] members;
+    private int[] nameOffsets;
+    private int[] nameSymbols;
+
+    // resolved source imports and package dependencies in CSR form
+    private volatile boolean resolved = false;
+    private BitSet resolvedSources;
+    private int[] importOffsets;
+    private int[] imports;
+    private int[] dependencyOffsets;
+    private int[] dependencies;
+
+    /**
+     * Returns the table of names used by this graph.
+     *
+     * @return name table
+     */
+    NameTable names() {
+        return names;
+    }
+
+    /**
+     * Creates a new package with the next available package id, or revives
+     * the removed package of the same name.
+     *
+     * @param name package name
+     * @return new Java package
+     * @throws IllegalArgumentException if a package of that name exists
+     */
+    synchronized JavaPackage addPackage(String name) {
+        return addPackage(names.intern(name));
+    }
+
+    /**
+     * Creates a new package with the next available package id, or revives
+     * the removed package of the same name.
+     *
+     * @param symbol package name symbol
+     * @return new Java package
+     * @throws IllegalArgumentException if a package of that name exists
+     */
+    synchronized JavaPackage addPackage(int symbol) {
+        int existing = bound(symbolPackages, symbol);
+        if (existing != NONE) {
+            checkArgument(removedPackages.get(existing), "Duplicate package %s", names.name(symbol));
+            removedPackages.clear(existing);
+            return packages.get(existing);
+        }
+        int id = packages.size();
+        JavaPackage javaPackage = new JavaPackage(symbol, this, id);
+        packages.add(javaPackage);
+        if (id == packageSymbols.length) {
+            packageSymbols = Arrays.copyOf(packageSymbols, id * 2);
+        }
+        packageSymbols[id] = symbol;
+        symbolPackages = bind(symbolPackages, symbol, id);
+        sealed = false;
+        return javaPackage;
+    }
+
+    /**
+     * Creates a new source with the next available source id, or revives
+     * the removed source of the same name.
+     *
+     * @param name source name
+     * @param path source path
+     * @return new Java source
+     * @throws IllegalArgumentException if a source of that name exists
+     */
+    synchronized JavaSource addSource(String name, String path) {
+        return addSource(names.intern(name), path);
+    }
+
+    /**
+     * Creates a new source with the next available source id, or revives
+     * the removed source of the same name. A revived source keeps its
+     * original path.
+     *
+     * @param symbol source name symbol
+     * @param path   source path
+     * @return new Java source
+     * @throws IllegalArgumentException if a source of that name exists
+     */
+    synchronized JavaSource addSource(int symbol, String path) {
+        int existing = bound(symbolSources, symbol);
+        if (existing != NONE) {
+            checkArgument(removedSources.get(existing), "Duplicate source %s", names.name(symbol));
+            removedSources.clear(existing);
+            return sources.get(existing);
+        }
+        int id = sources.size();
+        JavaSource source = new JavaSource(symbol, path, this, id);
+        sources.add(source);
+        if (id == sourcePackages.length) {
+            sourcePackages = Arrays.copyOf(sourcePackages, id * 2);
+            sourceSymbols = Arrays.copyOf(sourceSymbols, id * 2);
+            clearMarks = Arrays.copyOf(clearMarks, id * 2);
+        }
+        sourcePackages[id] = NONE;
+        sourceSymbols[id] = symbol;
+        symbolSources = bind(symbolSources, symbol, id);
+        sealed = false;
+        return source;
+    }
+
+    // Records the id for the symbol, growing the array to cover all symbols
+    private int[] bind(int[] ids, int symbol, int id) {
+        int[] bound = ids;
+        if (symbol >= bound.length) {
+            bound = Arrays.copyOf(ids, Math.max(names.size(), INITIAL_CAPACITY));
+            Arrays.fill(bound, ids.length, bound.length, NONE);
+        }
+        bound[symbol] = id;
+        return bound;
+    }
+
+    // Returns the id bound to the symbol, whether removed or not
+    private static int bound(int[] ids, int symbol) {
+        return symbol >= 0 && symbol < ids.length ? ids[symbol] : NONE;
+    }
+
+    /**
+     * Discards all packages, sources, names and resolved relations, leaving
+     * the graph as if newly created.
+     */
+    synchronized void clear() {
+        names.clear();
+        packages.clear();
+        sources.clear();
+        sourcePackages = new int[INITIAL_CAPACITY];
+        symbolPackages = new int[0];
+        symbolSources = new int[0];
+        packageSymbols = new int[INITIAL_CAPACITY];
+        sourceSymbols = new int[INITIAL_CAPACITY];
+        removedPackages.clear();
+        removedSources.clear();
+        importOwners = new int[INITIAL_CAPACITY];
+        importSymbols = new int[INITIAL_CAPACITY];
+        importCount = 0;
+        clearMarks = new int[INITIAL_CAPACITY];
+        sealed = false;
+        memberOffsets = null;
+        members = null;
+        nameOffsets = null;
+        nameSymbols = null;
+        resolved = false;
+        resolvedSources = null;
+        importOffsets = null;
+        imports = null;
+        dependencyOffsets = null;
+        dependencies = null;
+    }
+
+    /**
+     * Removes the package with the given id. The package must have no
+     * sources left.
+     *
+     * @param packageId package id
+     */
+    synchronized void removePackage(int packageId) {
+        removedPackages.set(packageId);
+    }
+
+    /**
+     * Removes the source with the given id, along with its import names and
+     * its membership of a package.
+     *
+     * @param sourceId source id
+     */
+    synchronized void removeSource(int sourceId) {
+        clearSource(sourceId);
+        removedSources.set(sourceId);
+    }
+
+    /**
+     * Clears the package membership and the import names of the source with
+     * the given id, so that they can be set anew.
+     *
+     * @param sourceId source id
+     */
+    synchronized void clearSource(int sourceId) {
+        clearMarks[sourceId] = importCount;
+        sourcePackages[sourceId] = NONE;
+        sealed = false;
+    }
+
+    /**
+     * Indicates whether the package with the given id has been removed.
+     *
+     * @param packageId package id
+     * @return true if removed
+     */
+    boolean isRemovedPackage(int packageId) {
+        return removedPackages.get(packageId);
+    }
+
+    /**
+     * Indicates whether the source with the given id has been removed.
+     *
+     * @param sourceId source id
+     * @return true if removed
+     */
+    boolean isRemovedSource(int sourceId) {
+        return removedSources.get(sourceId);
+    }
+
+    /**
+     * Returns the id of the package with the given name symbol.
+     *
+     * @param symbol package name symbol
+     * @return package id or {@link #NONE}, also if the package was removed
+     */
+    int packageId(int symbol) {
+        int id = bound(symbolPackages, symbol);
+        return id != NONE && !removedPackages.get(id) ? id : NONE;
+    }
+
+    /**
+     * Returns the id of the source with the given name symbol.
+     *
+     * @param symbol source name symbol
+     * @return source id or {@link #NONE}, also if the source was removed
+     */
+    int sourceId(int symbol) {
+        int id = bound(symbolSources, symbol);
+        return id != NONE && !removedSources.get(id) ? id : NONE;
+    }
+
+    /**
+     * Returns the name symbol of the package with the given id.
+     *
+     * @param packageId package id
+     * @return package name symbol
+     */
+    int packageSymbol(int packageId) {
+        return packageSymbols[packageId];
+    }
+
+    /**
+     * Returns the name symbol of the source with the given id.
+     *
+     * @param sourceId source id
+     * @return source name symbol
+     */
+    int sourceSymbol(int sourceId) {
+        return sourceSymbols[sourceId];
+    }
+
+    /**
+     * Returns the package with the given name.
+     *
+     * @param name package name
+     * @return Java package; null if there is no such package
+     */
+    JavaPackage findPackage(String name) {
+        int id = packageId(names.find(name));
+        return id == NONE ? null : packages.get(id);
+    }
+
+    /**
+     * Returns the source with the given name.
+     *
+     * @param name source name
+     * @return Java source; null if there is no such source
+     */
+    JavaSource findSource(String name) {
+        int id = sourceId(names.find(name));
+        return id == NONE ? null : sources.get(id);
+    }
+
+    /**
+     * Returns all packages which have not been removed, in order of their ids.
+     *
+     * @return list of Java packages
+     */
+    List<JavaPackage> packages() {
+        return present(packages, removedPackages);
+    }
+
+    /**
+     * Returns all sources which have not been removed, in order of their ids.
+     *
+     * @return list of Java sources
+     */
+    List<JavaSource> sources() {
+        return present(sources, removedSources);
+    }
+
+    private static <E extends JavaEntity> List<E> present(List<E> entities, BitSet removed) {
+        if (removed.isEmpty()) {
+            return Collections.unmodifiableList(entities);
+        }
+        List<E> list = new ArrayList<>(entities.size() - removed.cardinality());
+        for (E entity : entities) {
+            if (!removed.get(entity.id())) {
+                list.add(entity);
+            }
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Returns the number of packages.
+     *
+     * @return package count
+     */
+    int packageCount() {
+        return packages.size();
+    }
+
+    /**
+     * Returns the number of sources.
+     *
+     * @return source count
+     */
+    int sourceCount() {
+        return sources.size();
+    }
+
+    /**
+     * Returns the package with the given id.
+     *
+     * @param id package id
+     * @return Java package
+     */
+    JavaPackage getPackage(int id) {
+        return packages.get(id);
+    }
+
+    /**
+     * Returns the source with the given id.
+     *
+     * @param id source id
+     * @return Java source
+     */
+    JavaSource getSource(int id) {
+        return sources.get(id);
+    }
+
+    /**
+     * Assigns the source to the package, unless the source already has one.
+     *
+     * @param sourceId  source id
+     * @param packageId package id
+     */
+    synchronized void setPackage(int sourceId, int packageId) {
+        if (sourcePackages[sourceId] == NONE) {
+            sourcePackages[sourceId] = packageId;
+            sealed = false;
+        }
+    }
+
+    /**
+     * Returns the id of the package of the given source.
+     *
+     * @param sourceId source id
+     * @return package id or {@link #NONE}
+     */
+    int packageOf(int sourceId) {
+        return sourcePackages[sourceId];
+    }
+
+    /**
+     * Adds the name of an entity imported by the given source.
+     *
+     * @param sourceId source id
+     * @param name     imported entity name
+     */
+    synchronized void addImportName(int sourceId, String name) {
+        addImportName(sourceId, names.intern(name));
+    }
+
+    /**
+     * Adds the name of an entity imported by the given source.
+     *
+     * @param sourceId source id
+     * @param symbol   imported entity name symbol
+     */
+    synchronized void addImportName(int sourceId, int symbol) {
+        if (importCount == importSymbols.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, importCount * 2);
+            importOwners = Arrays.copyOf(importOwners, capacity);
+            importSymbols = Arrays.copyOf(importSymbols, capacity);
+        }
+        importOwners[importCount] = sourceId;
+        importSymbols[importCount++] = symbol;
+        sealed = false;
+    }
+
+    /**
+     * Rearranges package sources and source import names into CSR form, if
+     * anything changed since the last time. Must be invoked before the graph
+     * is read from multiple threads.
+     */
+    synchronized void seal() {
+        if (sealed) {
+            return;
+        }
+        int sourceCount = sources.size();
+
+        memberOffsets = new int[packages.size() + 1];
+        for (int s = 0; s < sourceCount; s++) {
+            if (sourcePackages[s] != NONE) {
+                memberOffsets[sourcePackages[s] + 1]++;
+            }
+        }
+        prefixSum(memberOffsets);
+        members = new int[memberOffsets[packages.size()]];
+        int[] fill = Arrays.copyOf(memberOffsets, packages.size());
+        for (int s = 0; s < sourceCount; s++) {
+            if (sourcePackages[s] != NONE) {
+                members[fill[sourcePackages[s]]++] = s;
+            }
+        }
+
+        // Cleared import names are left out
+        nameOffsets = new int[sourceCount + 1];
+        for (int i = 0; i < importCount; i++) {
+            if (i >= clearMarks[importOwners[i]]) {
+                nameOffsets[importOwners[i] + 1]++;
+            }
+        }
+        prefixSum(nameOffsets);
+        int liveCount = nameOffsets[sourceCount];
+        nameSymbols = new int[liveCount];
+        int[] owners = new int[liveCount];
+        fill = Arrays.copyOf(nameOffsets, sourceCount);
+        for (int i = 0; i < importCount; i++) {
+            if (i >= clearMarks[importOwners[i]]) {
+                int at = fill[importOwners[i]]++;
+                nameSymbols[at] = importSymbols[i];
+                owners[at] = importOwners[i];
+            }
+        }
+
+        // Repeated import names of a source are dropped, keeping the first
+        int[] seen = new int[names.size()];
+        int distinctCount = 0;
+        for (int s = 0; s < sourceCount; s++) {
+            int start = nameOffsets[s];
+            int end = nameOffsets[s + 1];
+            nameOffsets[s] = distinctCount;
+            for (int i = start; i < end; i++) {
+                int symbol = nameSymbols[i];
+                if (seen[symbol] != s + 1) {
+                    seen[symbol] = s + 1;
+                    nameSymbols[distinctCount] = symbol;
+                    owners[distinctCount++] = s;
+                }
+            }
+        }
+        nameOffsets[sourceCount] = distinctCount;
+
+        // The rearranged arrays double as the raw ones; appending copies them
+        importSymbols = nameSymbols;
+        importOwners = owners;
+        importCount = distinctCount;
+        Arrays.fill(clearMarks, 0);
+        sealed = true;
+    }
+
+    private void ensureSealed() {
+        if (!sealed) {
+            seal();
+        }
+    }
+
+    private static void prefixSum(int[] offsets) {
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+    }
+
+    /**
+     * Returns the ids of sources belonging to the given package, in
+     * ascending order.
+     *
+     * @param packageId package id
+     * @return source ids
+     */
+    int[] sourceIds(int packageId) {
+        ensureSealed();
+        return Arrays.copyOfRange(members, memberOffsets[packageId], memberOffsets[packageId + 1]);
+    }
+
+    /**
+     * Returns a view of the sources belonging to the given package.
+     *
+     * @param packageId package id
+     * @return set of Java sources
+     */
+    Set<JavaSource> sources(int packageId) {
+        ensureSealed();
+        return new EntitySet<>(members, memberOffsets[packageId], memberOffsets[packageId + 1],
+                               this::getSource, this::sourceCode);
+    }
+
+    /**
+     * Returns the number of distinct import names added for the given source.
+     *
+     * @param sourceId source id
+     * @return import name count
+     */
+    int importNameCount(int sourceId) {
+        ensureSealed();
+        return nameOffsets[sourceId + 1] - nameOffsets[sourceId];
+    }
+
+    /**
+     * Returns the distinct import names added for the given source, in the
+     * order in which they were first added.
+     *
+     * @param sourceId source id
+     * @return list of import names
+     */
+    List<String> importNames(int sourceId) {
+        ensureSealed();
+        List<String> list = new ArrayList<>(importNameCount(sourceId));
+        for (int i = importNameStart(sourceId), end = importNameEnd(sourceId); i < end; i++) {
+            list.add(names.name(nameSymbols[i]));
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Returns the position in the import name array of the first import
+     * name of the given source.
+     *
+     * @param sourceId source id
+     * @return start of the source import names, inclusive
+     */
+    int importNameStart(int sourceId) {
+        ensureSealed();
+        return nameOffsets[sourceId];
+    }
+
+    /**
+     * Returns the position in the import name array just past the last
+     * import name of the given source.
+     *
+     * @param sourceId source id
+     * @return end of the source import names, exclusive
+     */
+    int importNameEnd(int sourceId) {
+        ensureSealed();
+        return nameOffsets[sourceId + 1];
+    }
+
+    /**
+     * Returns the symbol of the import name at the given position.
+     *
+     * @param position position in the import name array
+     * @return import name symbol
+     */
+    int importSymbol(int position) {
+        return nameSymbols[position];
+    }
+
+    /**
+     * Records the outcome of import resolution, replacing any previous one.
+     *
+     * @param sourceImports     sorted, distinct entity codes imported by each
+     *                          source, indexed by source id; null for sources
+     *                          which were not resolved
+     * @param packageDependencies sorted, distinct ids of packages on which
+     *                          each package depends, indexed by package id
+     */
+    synchronized void resolved(int[][] sourceImports, int[][] packageDependencies) {
+        resolvedSources = new BitSet(sourceImports.length);
+        importOffsets = new int[sourceImports.length + 1];
+        for (int s = 0; s < sourceImports.length; s++) {
+            if (sourceImports[s] != null) {
+                resolvedSources.set(s);
+                importOffsets[s + 1] = sourceImports[s].length;
+            }
+        }
+        prefixSum(importOffsets);
+        imports = concat(sourceImports, importOffsets);
+
+        dependencyOffsets = new int[packageDependencies.length + 1];
+        for (int p = 0; p < packageDependencies.length; p++) {
+            dependencyOffsets[p + 1] = packageDependencies[p] != null ? packageDependencies[p].length : 0;
+        }
+        prefixSum(dependencyOffsets);
+        dependencies = concat(packageDependencies, dependencyOffsets);
+        resolved = true;
+    }
+
+    /**
+     * Records the outcome of resolving imports anew for some sources and
+     * packages, keeping the previous outcome for all others.
+     *
+     * @param sources             ids of sources resolved anew
+     * @param sourceImports       sorted, distinct entity codes imported by
+     *                            each source resolved anew, indexed by source
+     *                            id; null for sources left unresolved
+     * @param packages            ids of packages resolved anew
+     * @param packageDependencies sorted, distinct ids of packages on which
+     *                            each package resolved anew depends, indexed
+     *                            by package id
+     */
+    synchronized void reresolved(BitSet sources, int[][] sourceImports,
+                                 BitSet packages, int[][] packageDependencies) {
+        checkState(resolved, "Graph has not been resolved");
+        int[][] allImports = new int[sourceCount()][];
+        for (int s = 0; s < allImports.length; s++) {
+            allImports[s] = sources.get(s) ? sourceImports[s] : importCodes(s);
+        }
+        int[][] allDependencies = new int[packageCount()][];
+        for (int p = 0; p < allDependencies.length; p++) {
+            allDependencies[p] = packages.get(p) ? packageDependencies[p] : dependencyIds(p);
+        }
+        resolved(allImports, allDependencies);
+    }
+
+    /**
+     * Returns the ids of the packages on which the given package depends.
+     *
+     * @param packageId package id
+     * @return sorted, distinct package ids; empty if not resolved
+     */
+    int[] dependencyIds(int packageId) {
+        return Arrays.copyOfRange(dependencies == null ? new int[0] : dependencies,
+                                  dependencyStart(packageId), dependencyEnd(packageId));
+    }
+
+    private static int[] concat(int[][] rows, int[] offsets) {
+        int[] all = new int[offsets[rows.length]];
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] != null) {
+                System.arraycopy(rows[i], 0, all, offsets[i], rows[i].length);
+            }
+        }
+        return all;
+    }
+
+    /**
+     * Indicates whether import resolution results are available.
+     *
+     * @return true if resolved
+     */
+    boolean isResolved() {
+        return resolved;
+    }
+
+    /**
+     * Returns a view of the entities imported by the given source.
+     *
+     * @param sourceId source id
+     * @return set of imported entities; null if the source was not resolved
+     */
+    Set<JavaEntity> imports(int sourceId) {
+        if (!resolved || sourceId >= importOffsets.length - 1 || !resolvedSources.get(sourceId)) {
+            return null;
+        }
+        return new EntitySet<>(imports, importOffsets[sourceId], importOffsets[sourceId + 1],
+                               this::entity, this::entityCode);
+    }
+
+    /**
+     * Returns the entity codes imported by the given source.
+     *
+     * @param sourceId source id
+     * @return sorted, distinct entity codes; null if the source was not resolved
+     */
+    int[] importCodes(int sourceId) {
+        if (!resolved || sourceId >= importOffsets.length - 1 || !resolvedSources.get(sourceId)) {
+            return null;
+        }
+        return Arrays.copyOfRange(imports, importOffsets[sourceId], importOffsets[sourceId + 1]);
+    }
+
+    /**
+     * Returns the number of entities imported by the given source.
+     *
+     * @param sourceId source id
+     * @return import count; 0 if not resolved
+     */
+    int importCount(int sourceId) {
+        if (!resolved || sourceId >= importOffsets.length - 1) {
+            return 0;
+        }
+        return importOffsets[sourceId + 1] - importOffsets[sourceId];
+    }
+
+    /**
+     * Returns a view of the packages on which the given package depends.
+     *
+     * @param packageId package id
+     * @return set of Java packages; empty if not resolved
+     */
+    Set<JavaPackage> dependencies(int packageId) {
+        if (!resolved || packageId >= dependencyOffsets.length - 1) {
+            return Collections.emptySet();
+        }
+        return new EntitySet<>(dependencies, dependencyOffsets[packageId], dependencyOffsets[packageId + 1],
+                               this::getPackage, this::packageCode);
+    }
+
+    /**
+     * Returns the position in the dependency array of the first dependency
+     * of the given package.
+     *
+     * @param packageId package id
+     * @return start of the package dependencies, inclusive
+     */
+    int dependencyStart(int packageId) {
+        return resolved && packageId < dependencyOffsets.length - 1 ? dependencyOffsets[packageId] : 0;
+    }
+
+    /**
+     * Returns the position in the dependency array just past the last
+     * dependency of the given package.
+     *
+     * @param packageId package id
+     * @return end of the package dependencies, exclusive
+     */
+    int dependencyEnd(int packageId) {
+        return resolved && packageId < dependencyOffsets.length - 1 ? dependencyOffsets[packageId + 1] : 0;
+    }
+
+    /**
+     * Returns the id of the package depended on at the given position.
+     *
+     * @param position position in the dependency array
+     * @return package id
+     */
+    int dependency(int position) {
+        return dependencies[position];
+    }
+
+    /**
+     * Returns the entity code of the given package.
+     *
+     * @param packageId package id
+     * @return entity code
+     */
+    static int packageEntityCode(int packageId) {
+        return ~packageId;
+    }
+
+    /**
+     * Returns the entity with the given entity code.
+     *
+     * @param code entity code
+     * @return Java package or source
+     */
+    JavaEntity entity(int code) {
+        return code < 0 ? getPackage(~code) : getSource(code);
+    }
+
+    // Entity code of the object, if it is an entity of this graph
+    private int entityCode(Object o) {
+        if (o instanceof JavaPackage) {
+            int id = packageCode(o);
+            return id == EntitySet.FOREIGN ? id : packageEntityCode(id);
+        }
+        return sourceCode(o);
+    }
+
+    private int packageCode(Object o) {
+        if (o instanceof JavaPackage && ((JavaPackage) o).graph() == this) {
+            return ((JavaPackage) o).id();
+        }
+        return EntitySet.FOREIGN;
+    }
+
+    private int sourceCode(Object o) {
+        if (o instanceof JavaSource && ((JavaSource) o).graph() == this) {
+            return ((JavaSource) o).id();
+        }
+        return EntitySet.FOREIGN;
+    }
+
+    /**
+     * Sorts the first n values of the buffer and returns them without
+     * duplicates.
+     *
+     * @param buffer buffer of values
+     * @param n      number of values in the buffer
+     * @return sorted, distinct values
+     */
+    static int[] sortedDistinct(int[] buffer, int n) {
+        if (n == 0) {
+            return new int[0];
+        }
+        Arrays.sort(buffer, 0, n);
+        int m = 1;
+        for (int i = 1; i < n; i++) {
+            if (buffer[i] != buffer[m - 1]) {
+                buffer[m++] = buffer[i];
+            }
+        }
+        return Arrays.copyOf(buffer, m);
+    }
+
+}
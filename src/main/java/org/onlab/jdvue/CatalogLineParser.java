@@ -0,0 +1,310 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+/**
+ * Single-pass scanner of catalog lines in the form produced by
+ * {@code grep}, i.e. {@code path:package name;} or {@code path:import name;}.
+ * <p>
+ * The scanner walks the line by character index and only allocates the
+ * resulting path and name strings. It tokenizes the same way the original
+ * {@code split}/{@code replaceAll} based loader did: the pragma is the text
+ * between the first and second colon, tokens are separated by single spaces
+ * or tabs and any semicolons or line-break characters are dropped. Lines on
+ * which the original loader would have failed, e.g. a package declaration
+ * without a name, are skipped.
+ * <p>
+ * Instances are stateful and are not safe for concurrent use.
+ */
+final class CatalogLineParser {
+
+    /**
+     * Kind of the pragma carried by a catalog line.
+     */
+    enum Pragma {
+        /** Package declaration. */
+        PACKAGE,
+        /** Import statement, static or otherwise. */
+        IMPORT,
+        /** Any other text following the path. */
+        OTHER
+    }
+
+    private static final String PACKAGE = "package";
+    private static final String IMPORT = "import";
+    private static final String STATIC = "static";
+
+    private static final int MAX_TOKENS = 3;
+
+    private final int[] tokenStarts = new int[MAX_TOKENS];
+    private final int[] tokenEnds = new int[MAX_TOKENS];
+
+    private CharSequence line;
+    private Pragma pragma;
+    private String path;
+    private String name;
+
+    /**
+     * Parses the specified line.
+     *
+     * @param line line to parse
+     * @return true if the line carried a path and a pragma
+     */
+    boolean parse(CharSequence line) {
+        return parse(line, 0, line.length());
+    }
+
+    /**
+     * Parses the line occupying the given range of the character sequence.
+     *
+     * @param chars character sequence holding the line
+     * @param start index of the first character of the line
+     * @param end   index just past the last character of the line
+     * @return true if the line carried a path and a pragma
+     */
+    boolean parse(CharSequence chars, int start, int end) {
+        this.line = chars;
+        pragma = null;
+        name = null;
+
+        // Trim the line and locate the colon that terminates the path
+        int s = skipBlanks(start, end);
+        int e = trimBlanks(s, end);
+        int colon = indexOf(':', s, e);
+        if (colon < 0 || !hasPragma(colon + 1, e)) {
+            return false;
+        }
+
+        // The pragma extends to the next colon, if any; trim it as well
+        int fieldEnd = indexOf(':', colon + 1, e);
+        fieldEnd = fieldEnd < 0 ? e : fieldEnd;
+        int fs = skipBlanks(colon + 1, fieldEnd);
+        int fe = trimBlanks(fs, fieldEnd);
+
+        int tokens = tokenize(fs, fe);
+        if (tokens == 0) {
+            return false;
+        }
+
+        if (tokenEquals(0, PACKAGE)) {
+            if (tokens < 2) {
+                return false;
+            }
+            pragma = Pragma.PACKAGE;
+            name = token(1, false);
+
+        } else if (tokenEquals(0, IMPORT)) {
+            if (tokens < 2) {
+                return false;
+            }
+            if (tokenEquals(1, STATIC)) {
+                if (tokens < 3) {
+                    return false;
+                }
+                name = token(2, true);
+            } else {
+                name = token(1, false);
+            }
+            pragma = Pragma.IMPORT;
+
+        } else {
+            pragma = Pragma.OTHER;
+        }
+
+        path = path(s, colon);
+        return true;
+    }
+
+    /**
+     * Returns the pragma kind of the last successfully parsed line.
+     *
+     * @return pragma kind
+     */
+    Pragma pragma() {
+        return pragma;
+    }
+
+    /**
+     * Returns the source path of the last successfully parsed line.
+     * Consecutive lines with the same path yield the same string instance.
+     *
+     * @return source path
+     */
+    String path() {
+        return path;
+    }
+
+    /**
+     * Returns the package or imported entity name of the last successfully
+     * parsed line; null for lines of {@link Pragma#OTHER} kind. For static
+     * imports, the trailing member name is already removed.
+     *
+     * @return package or import name
+     */
+    String name() {
+        return name;
+    }
+
+    // Returns the path string, reusing the previous one if it is the same
+    private String path(int start, int end) {
+        int length = end - start;
+        if (path != null && path.length() == length) {
+            int i = 0;
+            while (i < length && path.charAt(i) == line.charAt(start + i)) {
+                i++;
+            }
+            if (i == length) {
+                return path;
+            }
+        }
+        return line.subSequence(start, end).toString();
+    }
+
+    // Returns true if there is anything other than colons in the given range
+    private boolean hasPragma(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (line.charAt(i) != ':') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Records bounds of the leading tokens and returns the number of tokens
+    // that splitting the range on single spaces and tabs would have produced
+    private int tokenize(int start, int end) {
+        int count = 0;
+        int lastNonEmpty = -1;
+        int tokenStart = start;
+        boolean nonEmpty = false;
+        for (int i = start; i <= end; i++) {
+            char c = i < end ? line.charAt(i) : ' ';
+            if (c == ' ' || c == '\t') {
+                if (count < MAX_TOKENS) {
+                    tokenStarts[count] = tokenStart;
+                    tokenEnds[count] = i;
+                }
+                if (nonEmpty) {
+                    lastNonEmpty = count;
+                }
+                count++;
+                tokenStart = i + 1;
+                nonEmpty = false;
+            } else if (!isDropped(c)) {
+                nonEmpty = true;
+            }
+        }
+        // Trailing empty tokens do not count, unless there is just one
+        return lastNonEmpty >= 0 ? lastNonEmpty + 1 : (count == 1 ? 1 : 0);
+    }
+
+    // Compares the given token, sans dropped characters, to the literal
+    private boolean tokenEquals(int token, String literal) {
+        int j = 0;
+        int n = literal.length();
+        for (int i = tokenStarts[token], end = tokenEnds[token]; i < end; i++) {
+            char c = line.charAt(i);
+            if (!isDropped(c)) {
+                if (j == n || literal.charAt(j) != c) {
+                    return false;
+                }
+                j++;
+            }
+        }
+        return j == n;
+    }
+
+    // Produces the text of the given token, optionally sans member name
+    private String token(int token, boolean sansMember) {
+        int s = tokenStarts[token];
+        int e = tokenEnds[token];
+        while (s < e && isDropped(line.charAt(s))) {
+            s++;
+        }
+        while (e > s && isDropped(line.charAt(e - 1))) {
+            e--;
+        }
+
+        // Typically the token is contiguous; otherwise copy it piecemeal
+        for (int i = s; i < e; i++) {
+            if (isDropped(line.charAt(i))) {
+                return spliced(s, e, sansMember);
+            }
+        }
+
+        if (sansMember) {
+            int dot = lastIndexOf('.', s, e);
+            e = dot >= 0 ? dot : e;
+        }
+        return line.subSequence(s, e).toString();
+    }
+
+    // Produces the text of the given range without the dropped characters
+    private String spliced(int start, int end, boolean sansMember) {
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+            if (!isDropped(c)) {
+                sb.append(c);
+            }
+        }
+        if (sansMember) {
+            int dot = sb.lastIndexOf(".");
+            if (dot >= 0) {
+                sb.setLength(dot);
+            }
+        }
+        return sb.toString();
+    }
+
+    private int skipBlanks(int start, int end) {
+        while (start < end && line.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimBlanks(int start, int end) {
+        while (end > start && line.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private int indexOf(char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (line.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int lastIndexOf(char c, int start, int end) {
+        for (int i = end - 1; i >= start; i--) {
+            if (line.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Characters which are dropped from the pragma before tokenizing
+    private static boolean isDropped(char c) {
+        return c == ';' || c == '\n' || c == '\r';
+    }
+
+}
@@ -0,0 +1,417 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Binary snapshot of an analyzed catalog, from which the catalog can be
+ * restored without parsing the catalog file or resolving imports again.
+ * <p>
+ * The snapshot is stamped with the size and modification time of the
+ * catalog file from which the catalog was loaded, and is only read back
+ * while the catalog file still carries the same stamp.
+ * <p>
+ * The snapshot holds the name table as segments and trie nodes, the package
+ * paths, the package and source tables, the import names, the resolved
+ * imports and package dependencies, and the dependency cycles found along
+ * with the limits under which they were found. Entities removed by catalog
+ * updates are saved as removed, so that ids stay stable. All numbers are
+ * big-endian, strings are length-prefixed UTF-8 and entities are given by
+ * id, so that a restored catalog graph is identical to the one saved.
+ */
+final class CatalogSnapshot {
+
+    private static final int MAGIC = 0x4A445653; // "JDVS"
+    private static final int VERSION = 2;
+
+    static final long NO_STAMP = -1;
+
+    private final CatalogGraph graph;
+    private final Map<String, Integer> packagePaths;
+
+    private long catalogSize = NO_STAMP;
+    private long catalogModified = NO_STAMP;
+    private CycleLimits cycleLimits = CycleLimits.DEFAULT;
+    private boolean cycleSearchComplete = true;
+    private List<int[]> cycles = Collections.emptyList();
+
+    /**
+     * Creates a snapshot of the specified catalog graph and package paths,
+     * which are also the targets of reading a snapshot file.
+     *
+     * @param graph        catalog graph
+     * @param packagePaths package name symbols keyed by full package path
+     */
+    CatalogSnapshot(CatalogGraph graph, Map<String, Integer> packagePaths) {
+        this.graph = graph;
+        this.packagePaths = packagePaths;
+    }
+
+    /**
+     * Sets the stamp of the catalog file from which the catalog was loaded.
+     *
+     * @param size     catalog file size; {@link #NO_STAMP} if unknown
+     * @param modified catalog file modification time in millis;
+     *                 {@link #NO_STAMP} if unknown
+     */
+    void setCatalogStamp(long size, long modified) {
+        this.catalogSize = size;
+        this.catalogModified = modified;
+    }
+
+    /**
+     * Returns the size of the catalog file from which the catalog was loaded.
+     *
+     * @return catalog file size; {@link #NO_STAMP} if unknown
+     */
+    long catalogSize() {
+        return catalogSize;
+    }
+
+    /**
+     * Returns the modification time of the catalog file from which the
+     * catalog was loaded.
+     *
+     * @return catalog file modification time in millis; {@link #NO_STAMP}
+     * if unknown
+     */
+    long catalogModified() {
+        return catalogModified;
+    }
+
+    /**
+     * Sets the dependency cycles to be saved in the snapshot.
+     *
+     * @param limits   limits under which the cycles were enumerated
+     * @param complete true if the cycle search was complete
+     * @param cycles   cycles given as package ids in order of dependency
+     */
+    void setCycles(CycleLimits limits, boolean complete, List<int[]> cycles) {
+        this.cycleLimits = limits;
+        this.cycleSearchComplete = complete;
+        this.cycles = cycles;
+    }
+
+    /**
+     * Returns the limits under which the snapshot cycles were enumerated.
+     *
+     * @return cycle limits
+     */
+    CycleLimits cycleLimits() {
+        return cycleLimits;
+    }
+
+    /**
+     * Indicates whether the snapshot cycles are complete.
+     *
+     * @return true if the cycle search was complete
+     */
+    boolean isCycleSearchComplete() {
+        return cycleSearchComplete;
+    }
+
+    /**
+     * Returns the snapshot cycles as package ids in order of dependency.
+     *
+     * @return list of cycles
+     */
+    List<int[]> cycles() {
+        return Collections.unmodifiableList(cycles);
+    }
+
+    /**
+     * Writes the snapshot to the specified file. The file is replaced only
+     * once the snapshot has been written in full, and is created with the
+     * default file permissions.
+     *
+     * @param path snapshot file path
+     * @throws IOException if unable to write the snapshot file
+     */
+    void write(Path path) throws IOException {
+        Path dir = path.toAbsolutePath().getParent();
+        // a temp file of our own naming; createTempFile would restrict it to the owner
+        Path temp = dir.resolve(path.getFileName() + "." +
+                                        Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)))) {
+                write(out);
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(catalogSize);
+        out.writeLong(catalogModified);
+
+        NameTable names = graph.names();
+        out.writeInt(names.segmentCount());
+        for (int i = 0; i < names.segmentCount(); i++) {
+            writeString(out, names.segment(i));
+        }
+        out.writeInt(names.size());
+        for (int s = 0; s < names.size(); s++) {
+            out.writeInt(names.parent(s));
+            out.writeInt(names.segmentOf(s));
+        }
+
+        out.writeInt(packagePaths.size());
+        for (Map.Entry<String, Integer> entry : packagePaths.entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+
+        int packageCount = graph.packageCount();
+        int sourceCount = graph.sourceCount();
+        out.writeInt(packageCount);
+        for (int p = 0; p < packageCount; p++) {
+            out.writeInt(graph.packageSymbol(p));
+            out.writeBoolean(graph.isRemovedPackage(p));
+        }
+        out.writeInt(sourceCount);
+        for (int s = 0; s < sourceCount; s++) {
+            out.writeInt(graph.sourceSymbol(s));
+            writeString(out, graph.getSource(s).path());
+            out.writeInt(graph.packageOf(s));
+            out.writeBoolean(graph.isRemovedSource(s));
+        }
+
+        graph.seal();
+        for (int s = 0; s < sourceCount; s++) {
+            int start = graph.importNameStart(s);
+            int end = graph.importNameEnd(s);
+            out.writeInt(end - start);
+            for (int i = start; i < end; i++) {
+                out.writeInt(graph.importSymbol(i));
+            }
+        }
+        for (int s = 0; s < sourceCount; s++) {
+            int[] codes = graph.importCodes(s);
+            out.writeInt(codes == null ? -1 : codes.length);
+            if (codes != null) {
+                writeInts(out, codes);
+            }
+        }
+        for (int p = 0; p < packageCount; p++) {
+            out.writeInt(graph.dependencyEnd(p) - graph.dependencyStart(p));
+            for (int i = graph.dependencyStart(p); i < graph.dependencyEnd(p); i++) {
+                out.writeInt(graph.dependency(i));
+            }
+        }
+
+        out.writeInt(cycleLimits.maxLength());
+        out.writeInt(cycleLimits.maxCount());
+        out.writeLong(cycleLimits.timeBudgetMillis());
+        out.writeBoolean(cycleSearchComplete);
+        out.writeInt(cycles.size());
+        for (int[] cycle : cycles) {
+            out.writeInt(cycle.length);
+            writeInts(out, cycle);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads the snapshot from the specified file into the catalog graph and
+     * package paths, which must both be empty. The file is memory-mapped.
+     *
+     * @param path     snapshot file path
+     * @param size     current catalog file size; {@link #NO_STAMP} if
+     *                 there is no catalog file to compare with
+     * @param modified current catalog file modification time in millis
+     * @return true if the snapshot was read; false if the file is not a
+     * snapshot of a version this reader understands or if it was taken of
+     * a different catalog file, in which case nothing was read
+     * @throws IOException if unable to read the snapshot file or if it is
+     *                     corrupt, in which case the graph may be partially
+     *                     populated
+     */
+    boolean read(Path path, long size, long modified) throws IOException {
+        checkState(graph.names().size() == 0 && graph.packageCount() == 0 && graph.sourceCount() == 0,
+                   "Catalog graph is not empty");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.remaining() < 24 || in.getInt() != MAGIC || in.getInt() != VERSION) {
+                return false;
+            }
+            catalogSize = in.getLong();
+            catalogModified = in.getLong();
+            if (size != NO_STAMP && (size != catalogSize || modified != catalogModified)) {
+                return false;
+            }
+            read(in);
+            check(!in.hasRemaining(), "trailing data");
+            return true;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Corrupt catalog snapshot " + path, e);
+        }
+    }
+
+    private void read(ByteBuffer in) throws IOException {
+        NameTable names = graph.names();
+        int segmentCount = readCount(in);
+        for (int i = 0; i < segmentCount; i++) {
+            check(names.internSegment(readString(in)) == i, "duplicate segment");
+        }
+        int symbolCount = readCount(in);
+        for (int s = 0; s < symbolCount; s++) {
+            int parent = in.getInt();
+            int segment = in.getInt();
+            check(parent >= NameTable.NONE && parent < s, "bad symbol parent");
+            check(segment >= 0 && segment < segmentCount, "bad symbol segment");
+            check(names.internChild(parent, segment) == s, "duplicate symbol");
+        }
+
+        int pathCount = readCount(in);
+        for (int i = 0; i < pathCount; i++) {
+            packagePaths.put(readString(in), readIndex(in, symbolCount));
+        }
+
+        int packageCount = readCount(in);
+        for (int p = 0; p < packageCount; p++) {
+            graph.addPackage(readIndex(in, symbolCount));
+            if (in.get() != 0) {
+                graph.removePackage(p);
+            }
+        }
+        int sourceCount = readCount(in);
+        for (int s = 0; s < sourceCount; s++) {
+            graph.addSource(readIndex(in, symbolCount), readString(in));
+            int packageId = in.getInt();
+            if (packageId != CatalogGraph.NONE) {
+                check(packageId >= 0 && packageId < packageCount, "bad package id");
+                graph.setPackage(s, packageId);
+            }
+            if (in.get() != 0) {
+                graph.removeSource(s);
+            }
+        }
+
+        for (int s = 0; s < sourceCount; s++) {
+            int n = readCount(in);
+            for (int i = 0; i < n; i++) {
+                graph.addImportName(s, readIndex(in, symbolCount));
+            }
+        }
+        graph.seal();
+
+        int[][] imports = new int[sourceCount][];
+        for (int s = 0; s < sourceCount; s++) {
+            int n = in.getInt();
+            if (n != -1) {
+                imports[s] = readInts(in, n);
+                for (int code : imports[s]) {
+                    check(code < 0 ? ~code < packageCount : code < sourceCount, "bad import code");
+                }
+            }
+        }
+        int[][] dependencies = new int[packageCount][];
+        for (int p = 0; p < packageCount; p++) {
+            dependencies[p] = readIndexes(in, readCount(in), packageCount);
+        }
+        graph.resolved(imports, dependencies);
+
+        cycleLimits = new CycleLimits(in.getInt(), in.getInt(), in.getLong());
+        cycleSearchComplete = in.get() != 0;
+        int cycleCount = readCount(in);
+        cycles = new ArrayList<>(cycleCount);
+        for (int c = 0; c < cycleCount; c++) {
+            int n = readCount(in);
+            check(n > 0, "empty cycle");
+            cycles.add(readIndexes(in, n, packageCount));
+        }
+    }
+
+    private static void check(boolean condition, String problem) throws IOException {
+        if (!condition) {
+            throw new IOException("Corrupt catalog snapshot: " + problem);
+        }
+    }
+
+    private static int readCount(ByteBuffer in) throws IOException {
+        int n = in.getInt();
+        check(n >= 0 && n <= in.remaining(), "bad count");
+        return n;
+    }
+
+    private static int readIndex(ByteBuffer in, int limit) throws IOException {
+        int index = in.getInt();
+        check(index >= 0 && index < limit, "bad index");
+        return index;
+    }
+
+    private static int[] readInts(ByteBuffer in, int n) throws IOException {
+        check(n >= 0 && n <= in.remaining() / 4, "bad count");
+        int[] values = new int[n];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + n * 4);
+        return values;
+    }
+
+    private static int[] readIndexes(ByteBuffer in, int n, int limit) throws IOException {
+        int[] values = readInts(in, n);
+        for (int value : values) {
+            check(value >= 0 && value < limit, "bad index");
+        }
+        return values;
+    }
+
+    private static String readString(ByteBuffer in) throws IOException {
+        byte[] bytes = new byte[readCount(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
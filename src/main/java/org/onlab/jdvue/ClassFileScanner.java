@@ -0,0 +1,436 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import com.google.common.io.ByteStreams;
+import org.onlab.jdvue.CatalogLineParser.Pragma;
+import org.onlab.jdvue.MappedCatalogReader.PragmaConsumer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Scanner of compiled classes, in class directories or jar files, which
+ * produces catalog pragmas from the class references in the constant pool
+ * of each class rather than from source imports. Same-package and fully
+ * qualified references are thus seen as well.
+ * <p>
+ * Each top-level class, together with its nested classes, stands for one
+ * source, whose path is that of the class file with the {@code .java}
+ * extension in place of {@code .class}; jar entries are given as
+ * {@code jar!/entry}. Its package is declared by the class itself and its
+ * imports are the top-level classes referenced as classes or in the field
+ * and method descriptors of the constant pool or of its own members.
+ * Nested classes are told apart by the {@code $} in their binary names.
+ * <p>
+ * Class files in directories are memory-mapped, while jar entries are
+ * inflated; either way classes are parsed in parallel on the threads of a
+ * fork-join pool, and the pragmas are handed to the consumer on the
+ * calling thread, in order of source path.
+ */
+final class ClassFileScanner {
+
+    private static final String CLASS_EXT = ".class";
+    private static final String JAVA_EXT = ".java";
+    private static final String JAR_SEPARATOR = "!/";
+    private static final int MAGIC = 0xCAFEBABE;
+
+    // constant pool tags
+    private static final int UTF8 = 1;
+    private static final int INTEGER = 3;
+    private static final int FLOAT = 4;
+    private static final int LONG = 5;
+    private static final int DOUBLE = 6;
+    private static final int CLASS = 7;
+    private static final int STRING = 8;
+    private static final int FIELD_REF = 9;
+    private static final int METHOD_REF = 10;
+    private static final int INTERFACE_METHOD_REF = 11;
+    private static final int NAME_AND_TYPE = 12;
+    private static final int METHOD_HANDLE = 15;
+    private static final int METHOD_TYPE = 16;
+    private static final int DYNAMIC = 17;
+    private static final int INVOKE_DYNAMIC = 18;
+    private static final int MODULE = 19;
+    private static final int PACKAGE = 20;
+
+    private final List<Path> roots;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a scanner of the specified class directories and jar files.
+     *
+     * @param roots class directories or jar files
+     * @param pool  pool on which to parse the classes
+     */
+    ClassFileScanner(List<Path> roots, ForkJoinPool pool) {
+        this.roots = roots;
+        this.pool = pool;
+    }
+
+    /**
+     * Scans all classes under the roots, handing the pragmas of the sources
+     * they stand for to the consumer. Malformed or unsupported class files
+     * are skipped, each with a message on standard error.
+     *
+     * @param consumer pragma consumer
+     * @return number of class files skipped
+     * @throws IOException if unable to read a root or a class
+     */
+    int scan(PragmaConsumer consumer) throws IOException {
+        List<ZipFile> jars = new ArrayList<>();
+        try {
+            List<ClassEntry> entries = new ArrayList<>();
+            for (Path root : roots) {
+                if (Files.isDirectory(root)) {
+                    findClasses(root, entries);
+                } else {
+                    ZipFile jar = new ZipFile(root.toFile());
+                    jars.add(jar);
+                    findClasses(root.toString(), jar, entries);
+                }
+            }
+
+            ParsedClass[] classes = new ParsedClass[entries.size()];
+            String[] problems = new String[entries.size()];
+            pool.invoke(new ForkJoinRange(0, classes.length, 1,
+                                          i -> classes[i] = parse(entries.get(i), problems, i)));
+
+            // Merge nested classes into the sources of their top-level classes
+            Map<String, ParsedClass> sources = new TreeMap<>();
+            int skipped = 0;
+            for (int i = 0; i < classes.length; i++) {
+                if (classes[i] != null) {
+                    sources.merge(classes[i].path, classes[i], ParsedClass::merge);
+                } else {
+                    skipped++;
+                    System.err.println("Skipped class file " + entries.get(i).path + ": " + problems[i]);
+                }
+            }
+            sources.values().forEach(c -> c.replay(consumer));
+            return skipped;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for (ZipFile jar : jars) {
+                jar.close();
+            }
+        }
+    }
+
+    private static boolean isClassFile(String name) {
+        // Skips module-info and package-info, which stand for no source
+        return name.endsWith(CLASS_EXT) && name.indexOf('-') < 0;
+    }
+
+    // Collects the class files under the given directory
+    private static void findClasses(Path root, List<ClassEntry> entries) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && isClassFile(file.getFileName().toString())) {
+                    String path = file.toString().replace(file.getFileSystem().getSeparator(), "/");
+                    entries.add(new ClassEntry(path, () -> map(file)));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    // Collects the class entries of the given jar, other than versioned ones
+    private static void findClasses(String jarPath, ZipFile jar, List<ClassEntry> entries) {
+        Enumeration<? extends ZipEntry> e = jar.entries();
+        while (e.hasMoreElements()) {
+            ZipEntry entry = e.nextElement();
+            if (!entry.isDirectory() && isClassFile(entry.getName()) && !entry.getName().startsWith("META-INF/")) {
+                entries.add(new ClassEntry(jarPath + JAR_SEPARATOR + entry.getName(), () -> inflate(jar, entry)));
+            }
+        }
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static ByteBuffer inflate(ZipFile jar, ZipEntry entry) throws IOException {
+        try (InputStream is = jar.getInputStream(entry)) {
+            return ByteBuffer.wrap(ByteStreams.toByteArray(is));
+        }
+    }
+
+    // Parses the given class; returns null if it is not a valid class file,
+    // recording the problem at the given index
+    private static ParsedClass parse(ClassEntry entry, String[] problems, int index) {
+        try {
+            ParsedClass parsed = new ClassReader(entry.bytes.get()).read(entry.path);
+            if (parsed == null) {
+                problems[index] = "not a class file";
+            }
+            return parsed;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            // Truncated or otherwise malformed class file
+            problems[index] = e.toString();
+            return null;
+        }
+    }
+
+    /**
+     * Source of the bytes of a class file.
+     */
+    private interface ByteSource {
+        ByteBuffer get() throws IOException;
+    }
+
+    /**
+     * Class file or jar entry.
+     */
+    private static final class ClassEntry {
+        private final String path;
+        private final ByteSource bytes;
+
+        ClassEntry(String path, ByteSource bytes) {
+            this.path = path;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Package and referenced top-level classes of a class, or of a top-level
+     * class and all of its nested classes once merged.
+     */
+    private static final class ParsedClass {
+        private final String path;
+        private final String packageName;
+        private final String name;
+        private final Set<String> references;
+
+        ParsedClass(String path, String packageName, String name, Set<String> references) {
+            this.path = path;
+            this.packageName = packageName;
+            this.name = name;
+            this.references = references;
+        }
+
+        ParsedClass merge(ParsedClass other) {
+            references.addAll(other.references);
+            return this;
+        }
+
+        void replay(PragmaConsumer consumer) {
+            if (!packageName.isEmpty()) {
+                consumer.accept(path, Pragma.PACKAGE, packageName);
+            }
+            for (String reference : references) {
+                if (!reference.equals(name)) {
+                    consumer.accept(path, Pragma.IMPORT, reference);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reader of the constant pool, the names and the member descriptors of
+     * a class file; attributes are skipped.
+     */
+    private static final class ClassReader {
+        private final ByteBuffer in;
+        private int[] offsets;
+        private final Set<String> references = new TreeSet<>();
+
+        ClassReader(ByteBuffer in) {
+            this.in = in;
+        }
+
+        ParsedClass read(String path) {
+            if (in.getInt() != MAGIC) {
+                return null;
+            }
+            in.getInt(); // minor and major version
+            readConstantPool();
+
+            in.getShort(); // access flags
+            String thisClass = topLevelName(className(in.getShort() & 0xffff));
+            in.getShort(); // super class, already among the classes
+            int interfaces = in.getShort() & 0xffff;
+            in.position(in.position() + 2 * interfaces);
+            readMembers();
+            readMembers();
+
+            int dot = thisClass.lastIndexOf('.');
+            int end = path.length() - CLASS_EXT.length();
+            int slash = path.lastIndexOf('/', end);
+            int nested = path.indexOf('$', slash + 1);
+            String sourcePath = path.substring(0, nested > slash && nested < end ? nested : end) + JAVA_EXT;
+            return new ParsedClass(sourcePath, dot < 0 ? "" : thisClass.substring(0, dot), thisClass, references);
+        }
+
+        // Records the offsets of all entries and the classes they refer to
+        private void readConstantPool() {
+            int count = in.getShort() & 0xffff;
+            offsets = new int[count];
+            List<Integer> classes = new ArrayList<>();
+            List<Integer> descriptors = new ArrayList<>();
+            for (int i = 1; i < count; i++) {
+                int tag = in.get();
+                offsets[i] = in.position();
+                switch (tag) {
+                    case UTF8:
+                        int length = in.getShort() & 0xffff;
+                        in.position(in.position() + length);
+                        break;
+                    case CLASS:
+                        classes.add(in.getShort() & 0xffff);
+                        break;
+                    case METHOD_TYPE:
+                        descriptors.add(in.getShort() & 0xffff);
+                        break;
+                    case NAME_AND_TYPE:
+                        in.getShort();
+                        descriptors.add(in.getShort() & 0xffff);
+                        break;
+                    case STRING:
+                    case MODULE:
+                    case PACKAGE:
+                        in.position(in.position() + 2);
+                        break;
+                    case METHOD_HANDLE:
+                        in.position(in.position() + 3);
+                        break;
+                    case INTEGER:
+                    case FLOAT:
+                    case FIELD_REF:
+                    case METHOD_REF:
+                    case INTERFACE_METHOD_REF:
+                    case DYNAMIC:
+                    case INVOKE_DYNAMIC:
+                        in.position(in.position() + 4);
+                        break;
+                    case LONG:
+                    case DOUBLE:
+                        in.position(in.position() + 8);
+                        i++;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+                }
+            }
+
+            for (int index : classes) {
+                String name = utf8(index);
+                if (name.startsWith("[")) {
+                    addDescriptor(name);
+                } else {
+                    references.add(topLevelName(name));
+                }
+            }
+            for (int index : descriptors) {
+                addDescriptor(utf8(index));
+            }
+        }
+
+        // Records the descriptors of fields or methods, skipping attributes
+        private void readMembers() {
+            int count = in.getShort() & 0xffff;
+            for (int i = 0; i < count; i++) {
+                in.getShort(); // access flags
+                in.getShort(); // name
+                addDescriptor(utf8(in.getShort() & 0xffff));
+                skipAttributes();
+            }
+        }
+
+        private void skipAttributes() {
+            int count = in.getShort() & 0xffff;
+            for (int i = 0; i < count; i++) {
+                in.getShort(); // name
+                int length = in.getInt();
+                in.position(in.position() + length);
+            }
+        }
+
+        // Records the classes of the object types in the given descriptor
+        private void addDescriptor(String descriptor) {
+            int i = 0;
+            int n = descriptor.length();
+            while (i < n) {
+                if (descriptor.charAt(i) == 'L') {
+                    int end = descriptor.indexOf(';', i);
+                    if (end < 0) {
+                        return;
+                    }
+                    references.add(topLevelName(descriptor.substring(i + 1, end)));
+                    i = end;
+                }
+                i++;
+            }
+        }
+
+        private String className(int index) {
+            return utf8(in.getShort(offsets[index]) & 0xffff);
+        }
+
+        // Decodes the modified UTF-8 constant at the given index
+        private String utf8(int index) {
+            int p = offsets[index];
+            int end = p + 2 + (in.getShort(p) & 0xffff);
+            StringBuilder sb = new StringBuilder(end - p);
+            for (p += 2; p < end; p++) {
+                int b = in.get(p) & 0xff;
+                if (b < 0x80) {
+                    sb.append((char) b);
+                } else if ((b & 0xe0) == 0xc0) {
+                    sb.append((char) (((b & 0x1f) << 6) | (in.get(++p) & 0x3f)));
+                } else {
+                    int b2 = in.get(++p) & 0x3f;
+                    sb.append((char) (((b & 0x0f) << 12) | (b2 << 6) | (in.get(++p) & 0x3f)));
+                }
+            }
+            return sb.toString();
+        }
+
+        // Turns an internal class name into the name of its top-level class
+        private static String topLevelName(String internalName) {
+            int slash = internalName.lastIndexOf('/');
+            int nested = internalName.indexOf('$', slash + 1);
+            String name = nested > slash + 1 ? internalName.substring(0, nested) : internalName;
+            return name.replace('/', '.');
+        }
+    }
+
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Enumerates elementary dependency cycles of a package graph using Johnson's
+ * algorithm, confined to the strongly connected components of the graph.
+ * <p>
+ * Cycles are produced in a deterministic order: by their least package, in
+ * order of package names, and then in depth-first order of dependencies.
+ * Each cycle is streamed to the consumer as soon as it is found, subject to
+ * the given {@link CycleLimits}. Cycles longer than the maximum length are
+ * skipped; reaching the maximum count or exhausting the time budget ends
+ * the enumeration early.
+ */
+final class CycleEnumerator {
+
+    // how many search steps to take between checks of the clock
+    private static final int CLOCK_CHECK_INTERVAL = 1024;
+
+    // budgets beyond this many millis (over a century) count as unlimited
+    private static final long MAX_BUDGET_MILLIS = Long.MAX_VALUE / 4 / 1_000_000;
+
+    private final PackageGraph graph;
+    private final StronglyConnectedComponents scc;
+    private final CycleLimits limits;
+
+    // search state, reused for every start package
+    private final boolean[] blocked;
+    private final int[][] blockers;
+    private final int[] blockerCounts;
+    private final int[] path;
+    private final int[] positions;
+    private final boolean[] found;
+    private final int[] unblockStack;
+
+    private Consumer<DependencyCycle> consumer;
+    private boolean timed;
+    private long deadline;
+    private int count;
+    private int steps;
+    private boolean stopped;
+    private long visits;
+
+    /**
+     * Creates an enumerator of cycles in the specified package graph.
+     *
+     * @param graph  package graph
+     * @param scc    strongly connected components of the graph
+     * @param limits enumeration limits
+     */
+    CycleEnumerator(PackageGraph graph, StronglyConnectedComponents scc, CycleLimits limits) {
+        this.graph = graph;
+        this.scc = scc;
+        this.limits = limits;
+
+        int n = graph.size();
+        int depth = Math.min(n, limits.maxLength());
+        blocked = new boolean[n];
+        blockers = new int[n][];
+        blockerCounts = new int[n];
+        path = new int[depth];
+        positions = new int[depth];
+        found = new boolean[depth];
+        unblockStack = new int[n];
+    }
+
+    /**
+     * Enumerates the cycles, streaming each to the given consumer.
+     *
+     * @param consumer cycle consumer
+     * @return true if all cycles within the maximum length were produced;
+     * false if the enumeration ended early due to the count or time limit
+     */
+    boolean enumerate(Consumer<DependencyCycle> consumer) {
+        return enumerate(c -> true, consumer);
+    }
+
+    /**
+     * Enumerates the cycles within the selected strongly connected
+     * components, streaming each to the given consumer.
+     *
+     * @param components predicate selecting components by number
+     * @param consumer   cycle consumer
+     * @return true if all cycles within the maximum length were produced;
+     * false if the enumeration ended early due to the count or time limit
+     */
+    boolean enumerate(IntPredicate components, Consumer<DependencyCycle> consumer) {
+        this.consumer = consumer;
+        long budget = limits.timeBudgetMillis();
+        timed = budget < MAX_BUDGET_MILLIS;
+        deadline = timed ? System.nanoTime() + budget * 1_000_000 : 0;
+        count = 0;
+        steps = 0;
+        stopped = limits.maxCount() == 0;
+
+        int[][] members = members();
+        for (int s = 0; s < graph.size() && !stopped; s++) {
+            int c = scc.component(s);
+            if (scc.isCyclic(c) && components.test(c)) {
+                reset(members[c], s);
+                search(s);
+            }
+        }
+        return !stopped;
+    }
+
+    /**
+     * Returns the number of times a package was entered by the searches of
+     * this enumerator so far.
+     *
+     * @return number of search nodes visited
+     */
+    long visits() {
+        return visits;
+    }
+
+    // Lists the packages of each cyclic component in ascending index order
+    private int[][] members() {
+        int[][] members = new int[scc.count()][];
+        int[] fill = new int[scc.count()];
+        for (int v = 0; v < graph.size(); v++) {
+            int c = scc.component(v);
+            if (scc.isCyclic(c)) {
+                if (members[c] == null) {
+                    members[c] = new int[scc.size(c)];
+                }
+                members[c][fill[c]++] = v;
+            }
+        }
+        return members;
+    }
+
+    // Clears the search state of packages which may take part in cycles
+    // through the given start package
+    private void reset(int[] members, int start) {
+        for (int v : members) {
+            if (v >= start) {
+                blocked[v] = false;
+                blockerCounts[v] = 0;
+            }
+        }
+    }
+
+    // Determines whether the package may take part in the current search
+    private boolean isAllowed(int start, int v) {
+        return v >= start && scc.component(v) == scc.component(start);
+    }
+
+    /**
+     * Finds all cycles whose least package is the given start package. This
+     * is Johnson's CIRCUIT procedure, with the recursion unrolled onto an
+     * explicit stack of path positions.
+     *
+     * @param start start package index
+     */
+    private void search(int start) {
+        int depth = 0;
+        enter(start, depth++);
+
+        while (depth > 0 && !stopped) {
+            int top = depth - 1;
+            int v = path[top];
+            if (positions[top] < graph.end(v)) {
+                int w = graph.target(positions[top]++);
+                if (!isAllowed(start, w)) {
+                    continue;
+                }
+                if (w == start) {
+                    emit(depth);
+                    found[top] = true;
+                } else if (!blocked[w]) {
+                    if (depth < path.length) {
+                        enter(w, depth++);
+                    } else {
+                        // Too deep to tell; leave the package unblocked
+                        found[top] = true;
+                    }
+                }
+                tick();
+                continue;
+            }
+
+            // All dependencies of v are explored; back out of it
+            if (found[top]) {
+                unblock(v);
+            } else {
+                for (int p = graph.start(v), end = graph.end(v); p < end; p++) {
+                    int w = graph.target(p);
+                    if (isAllowed(start, w)) {
+                        addBlocker(w, v);
+                    }
+                }
+            }
+            depth--;
+            if (depth > 0 && found[top]) {
+                found[depth - 1] = true;
+            }
+        }
+    }
+
+    private void enter(int v, int depth) {
+        path[depth] = v;
+        positions[depth] = graph.start(v);
+        found[depth] = false;
+        blocked[v] = true;
+        visits++;
+    }
+
+    // Unblocks the package and, transitively, all packages it was blocking
+    private void unblock(int v) {
+        int sp = 0;
+        unblockStack[sp++] = v;
+        blocked[v] = false;
+        while (sp > 0) {
+            int u = unblockStack[--sp];
+            int[] list = blockers[u];
+            for (int i = 0, n = blockerCounts[u]; i < n; i++) {
+                int w = list[i];
+                if (blocked[w]) {
+                    blocked[w] = false;
+                    unblockStack[sp++] = w;
+                }
+            }
+            blockerCounts[u] = 0;
+        }
+    }
+
+    // Records that package v must be unblocked when package w is
+    private void addBlocker(int w, int v) {
+        int[] list = blockers[w];
+        int n = blockerCounts[w];
+        for (int i = 0; i < n; i++) {
+            if (list[i] == v) {
+                return;
+            }
+        }
+        if (list == null) {
+            list = blockers[w] = new int[4];
+        } else if (n == list.length) {
+            list = blockers[w] = Arrays.copyOf(list, n * 2);
+        }
+        list[n] = v;
+        blockerCounts[w] = n + 1;
+    }
+
+    // Streams out the cycle formed by the current path
+    private void emit(int depth) {
+        List<JavaPackage> cycle = new ArrayList<>(depth);
+        for (int i = 0; i < depth; i++) {
+            cycle.add(graph.getPackage(path[i]));
+        }
+        consumer.accept(new DependencyCycle(cycle, cycle.get(0)));
+        if (++count >= limits.maxCount()) {
+            stopped = true;
+        }
+    }
+
+    private void tick() {
+        if (timed && ++steps % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() - deadline > 0) {
+            stopped = true;
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Limits placed on the enumeration of elementary dependency cycles, which
+ * can otherwise grow exponentially with the density of the package graph.
+ */
+public final class CycleLimits {
+
+    /**
+     * Limits applied by a catalog unless configured otherwise.
+     */
+    public static final CycleLimits DEFAULT = new CycleLimits(Integer.MAX_VALUE, 10_000, 10_000);
+
+    /**
+     * No limits at all; enumerates every elementary cycle.
+     */
+    public static final CycleLimits UNBOUNDED = new CycleLimits(Integer.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE);
+
+    private final int maxLength;
+    private final int maxCount;
+    private final long timeBudgetMillis;
+
+    /**
+     * Creates cycle enumeration limits.
+     *
+     * @param maxLength        maximum number of packages in a cycle
+     * @param maxCount         maximum number of cycles to enumerate
+     * @param timeBudgetMillis maximum time to spend enumerating, in millis
+     */
+    public CycleLimits(int maxLength, int maxCount, long timeBudgetMillis) {
+        checkArgument(maxLength > 0, "Maximum cycle length must be positive");
+        checkArgument(maxCount >= 0, "Maximum cycle count must not be negative");
+        checkArgument(timeBudgetMillis >= 0, "Time budget must not be negative");
+        this.maxLength = maxLength;
+        this.maxCount = maxCount;
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * Returns the maximum number of packages in an enumerated cycle.
+     *
+     * @return maximum cycle length
+     */
+    public int maxLength() {
+        return maxLength;
+    }
+
+    /**
+     * Returns the maximum number of cycles to enumerate.
+     *
+     * @return maximum cycle count
+     */
+    public int maxCount() {
+        return maxCount;
+    }
+
+    /**
+     * Returns the maximum time to spend enumerating cycles.
+     *
+     * @return time budget in milliseconds
+     */
+    public long timeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof CycleLimits) {
+            CycleLimits that = (CycleLimits) obj;
+            return maxLength == that.maxLength && maxCount == that.maxCount &&
+                    timeBudgetMillis == that.timeBudgetMillis;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(maxLength, maxCount, timeBudgetMillis);
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("maxLength", maxLength)
+                .add("maxCount", maxCount)
+                .add("timeBudgetMillis", timeBudgetMillis).toString();
+    }
+
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Long-running server which keeps an analyzed {@link Catalog} in memory and
+ * answers queries about it over HTTP on the loopback interface.
+ * <p>
+ * The following resources are served in response to GET requests:
+ * <ul>
+ * <li>{@code /} - the hierarchical edge bundling page of {@link BundleView}</li>
+ * <li>{@code /summary} - counts of packages, sources, cycles and segments</li>
+ * <li>{@code /packages} - names of all packages</li>
+ * <li>{@code /dependencies?package=name} - packages the package depends on</li>
+ * <li>{@code /dependents?package=name} - packages depending on the package</li>
+ * <li>{@code /cycles?package=name} - dependency cycles through the package</li>
+ * <li>{@code /segments[?package=name]} - cycle segments, of the package if given</li>
+ * </ul>
+ * All but the first produce JSON. The catalog is not modified once served,
+ * so requests are handled concurrently without any locking; the page and the
+ * dependents of all packages are derived from the catalog once, on first use.
+ */
+public class DependencyServer {
+
+    /**
+     * Default port on which the server listens.
+     */
+    public static final int DEFAULT_PORT = 8181;
+
+    private static final String PACKAGE_PARAM = "package";
+    private static final String JSON_TYPE = "application/json";
+    private static final String HTML_TYPE = "text/html; charset=UTF-8";
+
+    private static final int OK = 200;
+    private static final int BAD_REQUEST = 400;
+    private static final int NOT_FOUND = 404;
+    private static final int BAD_METHOD = 405;
+    private static final int SERVER_ERROR = 500;
+
+    private static final Comparator<JavaEntity> BY_NAME = Comparator.comparing(JavaEntity::name);
+
+    private final Catalog cat;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Supplier<String> page;
+    private final Supplier<Map<JavaPackage, Set<JavaPackage>>> dependents;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Creates a server for the given analyzed catalog.
+     *
+     * @param cat analyzed catalog
+     */
+    public DependencyServer(Catalog cat) {
+        this.cat = cat;
+        this.page = Suppliers.memoize(this::renderPage);
+        this.dependents = Suppliers.memoize(this::findDependents);
+    }
+
+    /**
+     * Starts serving queries on the given port of the loopback interface.
+     *
+     * @param port port number; 0 for any free port
+     * @throws IOException if unable to bind to the port
+     */
+    public synchronized void start(int port) throws IOException {
+        checkState(server == null, "Server already started");
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/", this::handle);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Stops serving queries, waiting at most the given number of seconds for
+     * requests in progress to complete.
+     *
+     * @param delay maximum time to wait, in seconds
+     */
+    public synchronized void stop(int delay) {
+        if (server != null) {
+            server.stop(delay);
+            executor.shutdown();
+            server = null;
+        }
+    }
+
+    /**
+     * Returns the port on which the server listens.
+     *
+     * @return port number
+     * @throws IllegalStateException if the server has not been started
+     */
+    public synchronized int port() {
+        checkState(server != null, "Server not started");
+        return server.getAddress().getPort();
+    }
+
+    // Dispatches a request to the query given by its path
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, BAD_METHOD, "Only GET is supported");
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath();
+            Map<String, String> params = params(exchange.getRequestURI().getRawQuery());
+            switch (path) {
+                case "/":
+                    send(exchange, OK, HTML_TYPE, page.get());
+                    break;
+                case "/summary":
+                    sendJson(exchange, jsonSummary());
+                    break;
+                case "/packages":
+                    sendJson(exchange, jsonNames(cat.getPackages()));
+                    break;
+                case "/dependencies":
+                case "/dependents":
+                case "/cycles":
+                    handlePackageQuery(exchange, path, params.get(PACKAGE_PARAM));
+                    break;
+                case "/segments":
+                    handleSegmentQuery(exchange, params.get(PACKAGE_PARAM));
+                    break;
+                default:
+                    sendError(exchange, NOT_FOUND, "Unknown query " + path);
+            }
+        } catch (RuntimeException e) {
+            sendError(exchange, SERVER_ERROR, String.valueOf(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Answers a query which concerns a single package
+    private void handlePackageQuery(HttpExchange exchange, String path,
+                                    String packageName) throws IOException {
+        if (packageName == null) {
+            sendError(exchange, BAD_REQUEST, "Missing " + PACKAGE_PARAM + " parameter");
+            return;
+        }
+        JavaPackage javaPackage = cat.getPackage(packageName);
+        if (javaPackage == null) {
+            sendError(exchange, NOT_FOUND, "Unknown package " + packageName);
+            return;
+        }
+
+        if (path.equals("/dependencies")) {
+            sendJson(exchange, jsonNames(javaPackage.getDependencies()));
+        } else if (path.equals("/dependents")) {
+            Set<JavaPackage> set = dependents.get().get(javaPackage);
+            sendJson(exchange, jsonNames(set != null ? set : new TreeSet<>(BY_NAME)));
+        } else {
+            sendJson(exchange, jsonCycles(cat.getPackageCycles(javaPackage)));
+        }
+    }
+
+    // Answers a query for all cycle segments or those of a single package
+    private void handleSegmentQuery(HttpExchange exchange, String packageName) throws IOException {
+        if (packageName == null) {
+            sendJson(exchange, jsonSegments(cat.getCycleSegments()));
+            return;
+        }
+        JavaPackage javaPackage = cat.getPackage(packageName);
+        if (javaPackage == null) {
+            sendError(exchange, NOT_FOUND, "Unknown package " + packageName);
+            return;
+        }
+        sendJson(exchange, jsonSegments(cat.getPackageCycleSegments(javaPackage)));
+    }
+
+    // Parses the raw query string of a request into its parameters
+    private static Map<String, String> params(String query) throws UnsupportedEncodingException {
+        Map<String, String> params = new HashMap<>();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                int i = param.indexOf('=');
+                String key = i < 0 ? param : param.substring(0, i);
+                String value = i < 0 ? "" : param.substring(i + 1);
+                params.put(URLDecoder.decode(key, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+            }
+        }
+        return params;
+    }
+
+    private String renderPage() {
+        try {
+            return new BundleView(cat).toHTML();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Inverts the package dependencies of the catalog
+    private Map<JavaPackage, Set<JavaPackage>> findDependents() {
+        Map<JavaPackage, Set<JavaPackage>> map = new HashMap<>();
+        for (JavaPackage javaPackage : cat.getPackages()) {
+            for (JavaPackage dependency : javaPackage.getDependencies()) {
+                map.computeIfAbsent(dependency, p -> new TreeSet<>(BY_NAME)).add(javaPackage);
+            }
+        }
+        return map;
+    }
+
+    // Produces a JSON summary of the catalog
+    private JsonNode jsonSummary() {
+        ObjectNode summary = mapper.createObjectNode();
+        summary.put("packages", cat.getPackages().size());
+        summary.put("sources", cat.getSources().size());
+        summary.put("cycles", cat.getCycles().size());
+        summary.put("cycleSegments", cat.getCycleSegments().size());
+        summary.put("cycleSearchComplete", cat.isCycleSearchComplete());
+        return summary;
+    }
+
+    // Produces a JSON array of entity names, in name order
+    private JsonNode jsonNames(Collection<? extends JavaEntity> entities) {
+        ArrayNode names = mapper.createArrayNode();
+        entities.stream().map(JavaEntity::name).sorted().forEach(names::add);
+        return names;
+    }
+
+    // Produces a JSON array of cycles, each an array of package names
+    private JsonNode jsonCycles(Set<DependencyCycle> cycles) {
+        ArrayNode array = mapper.createArrayNode();
+        for (DependencyCycle cycle : cycles) {
+            ArrayNode names = array.addArray();
+            cycle.getCycle().forEach(p -> names.add(p.name()));
+        }
+        return array;
+    }
+
+    // Produces a JSON array of cycle segments, ordered by source and target
+    private JsonNode jsonSegments(Set<Dependency> segments) {
+        ArrayNode array = mapper.createArrayNode();
+        segments.stream()
+                .sorted(Comparator.comparing((Dependency d) -> d.getSource().name())
+                                .thenComparing(d -> d.getTarget().name()))
+                .forEach(d -> array.addObject()
+                        .put("s", d.getSource().name())
+                        .put("t", d.getTarget().name()));
+        return array;
+    }
+
+    private void sendJson(HttpExchange exchange, JsonNode node) throws IOException {
+        send(exchange, OK, JSON_TYPE, mapper.writeValueAsString(node));
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, JSON_TYPE,
+             mapper.writeValueAsString(mapper.createObjectNode().put("error", message)));
+    }
+
+    private static void send(HttpExchange exchange, int status,
+                             String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+}
@@ -16,6 +16,8 @@
 package org.onlab.jdvue;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * Generator of a self-contained HTML file which serves as a GUI for
@@ -28,6 +30,8 @@ import java.io.IOException;
  */
 public class DependencyViewer {
 
+    private static final String METRICS_EXT = ".metrics.";
+
     /**
      * Main program entry point.
      *
@@ -36,21 +40,118 @@ public class DependencyViewer {
     public static void main(String[] args) {
         ProgArgs progArgs = new ProgArgs(args);
 
+        if (progArgs.batch()) {
+            runBatch(progArgs);
+            return;
+        }
+
         Catalog cat = new Catalog(progArgs.catPath());
         try {
-            cat.load();
+            process(cat, progArgs, true);
+
+            if (progArgs.serve()) {
+                DependencyServer server = new DependencyServer(cat);
+                server.start(progArgs.servePort());
+                System.err.println("Serving catalog queries at http://localhost:" + server.port() + "/");
+            }
+        } catch (IOException e) {
+            System.err.println("Unable to process catalog: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads and analyzes the given catalog, as directed by the program
+     * arguments, and writes its reports.
+     *
+     * @param cat      catalog to process
+     * @param progArgs program arguments
+     * @param verbose  true to report the catalog summary and longest cycle
+     * @throws IOException if issues encountered reading the catalog or
+     *                     writing the reports
+     */
+    static void process(Catalog cat, ProgArgs progArgs, boolean verbose) throws IOException {
+        if (!progArgs.sourceRoots().isEmpty() || !progArgs.classRoots().isEmpty()) {
+            cat.loadSources(progArgs.sourceRoots());
+            cat.loadClasses(progArgs.classRoots());
             cat.analyze();
-            System.err.println(cat);
+        } else if (!cat.loadSnapshot()) {
+            if (progArgs.mappedLoad()) {
+                cat.loadMapped();
+            } else {
+                cat.load();
+            }
+            cat.analyze();
+            try {
+                cat.saveSnapshot();
+            } catch (IOException e) {
+                // the snapshot only speeds up later runs; go on with the reports
+                System.err.println("Unable to save catalog snapshot: " + e.getMessage());
+            }
+        }
 
-            BundleView bundleView = new BundleView(cat);
+        ReportAssets assets = progArgs.assetDir() != null ? new ReportAssets(progArgs.assetDir()) : null;
+        BundleView bundleView = new BundleView(cat);
+        bundleView.setAssets(assets);
+        if (verbose) {
+            System.err.println(cat);
+            if (!cat.isCycleSearchComplete()) {
+                System.err.println("Cycle search stopped early; not all cycles are reported");
+            }
             bundleView.dumpLongestCycle();
+        }
+        if (progArgs.sharded()) {
+            bundleView.writeShardedHTMLFile();
+        } else {
             bundleView.writeHTMLFile();
+        }
 
-            if (progArgs.outputDetailData()) {
-                new CatalogDetails(cat).writeDetails();
+        if (progArgs.outputDetailData()) {
+            CatalogDetails details = new CatalogDetails(cat);
+            if (progArgs.detailFormat().equals(ProgArgs.TEXT_DETAILS)) {
+                details.writeDetails();
+            } else {
+                details.writeBinaryDetails(progArgs.detailFormat().equals(ProgArgs.GZIP_DETAILS));
+            }
+        }
+
+        if (progArgs.outputJdx()) {
+            JdxView jdxView = new JdxView(cat);
+            jdxView.setAssets(assets);
+            jdxView.writeHTMLFile();
+        }
+
+        if (progArgs.metricsFormat() != null) {
+            Path metricsFile = Paths.get(cat.basePath() + METRICS_EXT + progArgs.metricsFormat());
+            cat.metrics().write(metricsFile);
+            if (verbose) {
+                System.err.println("Wrote metrics: " + metricsFile);
+            }
+        }
+    }
+
+    // Processes each catalog listed in the manifest and reports the outcomes
+    private static void runBatch(ProgArgs progArgs) {
+        try {
+            CatalogBatch batch = new CatalogBatch(CatalogBatch.readManifest(Paths.get(progArgs.catPath())),
+                                                  progArgs.batchThreads(), progArgs);
+            int failures = 0;
+            for (CatalogBatch.Result result : batch.run()) {
+                if (result.isSuccess()) {
+                    System.err.println(result.catalogPath() + " (" + result.millis() + " ms): " + result.summary());
+                } else {
+                    failures++;
+                    System.err.println(result.catalogPath() + " (" + result.millis() + " ms) failed: " +
+                                               result.failure());
+                }
+            }
+            if (failures > 0) {
+                System.err.println(failures + " catalog(s) could not be processed");
             }
         } catch (IOException e) {
-            System.err.println("Unable to process catalog: " + e.getMessage());
+            System.err.println("Unable to read catalog manifest: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Catalog batch interrupted");
         }
     }
 
@@ -0,0 +1,526 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Detail data of an analyzed catalog as written by {@link CatalogDetails},
+ * read back from either the text or the binary detail format.
+ * <p>
+ * Packages are identified by their codes, i.e. their positions in the
+ * name order, and sources by their package code and their position within
+ * the package. Sources are also numbered across all packages, in package
+ * order, which is how dependency targets are kept.
+ * <p>
+ * The binary format starts with the four bytes {@code JDVD}, a version
+ * byte and a flags byte, whose lowest bit marks the rest of the file as
+ * gzip-compressed. All numbers that follow are unsigned varints, i.e. seven
+ * bits at a time, least significant first, with the high bit set on all
+ * but the last byte; strings are a varint byte count followed by UTF-8.
+ * The body holds:
+ * <ol>
+ * <li>the title, date and file name strings of the header;</li>
+ * <li>the package count, then for each package its name, its source count
+ * and the leaf names of its sources;</li>
+ * <li>for each source, in source number order, the count of its
+ * dependencies, then the source numbers of their targets in ascending
+ * order, the first as it is and each other as the difference from the
+ * previous one;</li>
+ * <li>the cycle count, then for each cycle its length and the codes of
+ * its packages.</li>
+ * </ol>
+ */
+public final class DetailData {
+
+    static final byte[] MAGIC = {'J', 'D', 'V', 'D'};
+    static final int VERSION = 1;
+    static final int GZIP_FLAG = 1;
+
+    private static final int[] NO_TARGETS = new int[0];
+
+    private String title = "";
+    private String date = "";
+    private String file = "";
+    private final List<String> packages = new ArrayList<>();
+    private final List<List<String>> sources = new ArrayList<>();
+    private int[] offsets = new int[]{0};
+    private int[][] targets = new int[0][];
+    private final List<int[]> cycles = new ArrayList<>();
+
+    /**
+     * Consumer of source dependencies.
+     */
+    public interface DependencyConsumer {
+        /**
+         * Accepts a dependency of one source on another.
+         *
+         * @param sourcePackage source package code
+         * @param source        source position within its package
+         * @param targetPackage target package code
+         * @param target        target position within its package
+         */
+        void accept(int sourcePackage, int source, int targetPackage, int target);
+    }
+
+    private DetailData() {
+    }
+
+    /**
+     * Reads the detail data from the given file, in whichever of the text
+     * or binary detail formats it is written.
+     *
+     * @param path detail data file
+     * @return detail data
+     * @throws IOException if unable to read the file or if it is malformed
+     */
+    public static DetailData read(Path path) throws IOException {
+        long size = Files.size(path);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            in.mark(MAGIC.length);
+            byte[] magic = new byte[MAGIC.length];
+            int n = 0;
+            while (n < magic.length) {
+                int r = in.read(magic, n, magic.length - n);
+                if (r < 0) {
+                    break;
+                }
+                n += r;
+            }
+            if (n == magic.length && Arrays.equals(magic, MAGIC)) {
+                return readBinary(in, size - MAGIC.length);
+            }
+            in.reset();
+            return readText(in);
+        }
+    }
+
+    // Reads the binary format, following the magic bytes, of which the
+    // given number of bytes remain in the file
+    private static DetailData readBinary(InputStream in, long remaining) throws IOException {
+        int version = in.read();
+        int flags = in.read();
+        if (version != VERSION || flags < 0) {
+            throw new IOException("Unsupported detail data version: " + version);
+        }
+        boolean compressed = (flags & GZIP_FLAG) != 0;
+        Body body = new Body(compressed ?
+                                     new BufferedInputStream(new GZIPInputStream(in, 1 << 16), 1 << 16) : in,
+                             compressed ? Long.MAX_VALUE : remaining - 2);
+
+        DetailData data = new DetailData();
+        data.title = body.readString();
+        data.date = body.readString();
+        data.file = body.readString();
+
+        int packageCount = body.readCount();
+        data.offsets = new int[Math.min(packageCount, Body.INITIAL_CAPACITY) + 1];
+        for (int p = 0; p < packageCount; p++) {
+            data.offsets = Body.grow(data.offsets, p + 1, packageCount + 1L);
+            data.packages.add(body.readString());
+            int sourceCount = body.readCount();
+            List<String> names = new ArrayList<>(Math.min(sourceCount, Body.INITIAL_CAPACITY));
+            for (int s = 0; s < sourceCount; s++) {
+                names.add(body.readString());
+            }
+            data.sources.add(Collections.unmodifiableList(names));
+            if (sourceCount > Integer.MAX_VALUE - data.offsets[p]) {
+                throw new IOException("Too many sources in detail data");
+            }
+            data.offsets[p + 1] = data.offsets[p] + sourceCount;
+        }
+
+        int sourceTotal = data.offsets[packageCount];
+        data.targets = new int[sourceTotal][];
+        for (int s = 0; s < sourceTotal; s++) {
+            int count = body.readCount();
+            int[] list = count == 0 ? NO_TARGETS : new int[Math.min(count, Body.INITIAL_CAPACITY)];
+            int target = 0;
+            for (int i = 0; i < count; i++) {
+                int delta = body.readVarint();
+                if (delta >= sourceTotal - (i == 0 ? 0 : target)) {
+                    throw new IOException("Dependency target out of range in detail data");
+                }
+                target = i == 0 ? delta : target + delta;
+                list = Body.grow(list, i, count);
+                list[i] = target;
+            }
+            data.targets[s] = list;
+        }
+
+        int cycleCount = body.readCount();
+        for (int c = 0; c < cycleCount; c++) {
+            int length = body.readCount();
+            int[] cycle = new int[Math.min(length, Body.INITIAL_CAPACITY)];
+            for (int i = 0; i < length; i++) {
+                cycle = Body.grow(cycle, i, length);
+                cycle[i] = checkPackageCode(body.readVarint(), packageCount);
+            }
+            data.cycles.add(cycle);
+        }
+        return data;
+    }
+
+    // Checks the given package code against the package count
+    private static int checkPackageCode(int code, int packageCount) throws IOException {
+        if (code < 0 || code >= packageCount) {
+            throw new IOException("Package code out of range in detail data: " + code);
+        }
+        return code;
+    }
+
+    // Reads the text format, line by line
+    private static DetailData readText(InputStream in) throws IOException {
+        DetailData data = new DetailData();
+        List<String> comments = new ArrayList<>();
+        List<List<String>> dependencies = new ArrayList<>();
+        List<String> cycles = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<String> current = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            String item = line.substring(1).trim();
+            switch (line.charAt(0)) {
+                case ';':
+                    comments.add(item);
+                    break;
+                case 'P':
+                    data.packages.add(item);
+                    current = new ArrayList<>();
+                    data.sources.add(current);
+                    break;
+                case 'S':
+                    if (current == null) {
+                        throw new IOException("Source outside of a package: " + line);
+                    }
+                    current.add(item);
+                    break;
+                case 'D':
+                    dependencies.add(Arrays.asList(item.split("[.>]")));
+                    break;
+                case 'C':
+                    cycles.add(item);
+                    break;
+                default:
+                    throw new IOException("Unexpected detail data line: " + line);
+            }
+        }
+        data.title = comments.size() > 0 ? comments.get(0) : "";
+        data.date = comments.size() > 1 ? comments.get(1) : "";
+        data.file = comments.size() > 2 ? comments.get(2) : "";
+
+        int packageCount = data.packages.size();
+        data.offsets = new int[packageCount + 1];
+        for (int p = 0; p < packageCount; p++) {
+            data.sources.set(p, Collections.unmodifiableList(data.sources.get(p)));
+            data.offsets[p + 1] = data.offsets[p] + data.sources.get(p).size();
+        }
+
+        int[] counts = new int[data.offsets[packageCount]];
+        int[][] pairs = new int[dependencies.size()][];
+        for (int i = 0; i < pairs.length; i++) {
+            List<String> codes = dependencies.get(i);
+            if (codes.size() != 4) {
+                throw new IOException("Malformed dependency: " + codes);
+            }
+            try {
+                int source = data.number(Integer.parseInt(codes.get(0)), Integer.parseInt(codes.get(1)));
+                int target = data.number(Integer.parseInt(codes.get(2)), Integer.parseInt(codes.get(3)));
+                pairs[i] = new int[]{source, target};
+                counts[source]++;
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                throw new IOException("Malformed dependency: " + codes, e);
+            }
+        }
+        data.targets = new int[counts.length][];
+        for (int s = 0; s < counts.length; s++) {
+            data.targets[s] = counts[s] == 0 ? NO_TARGETS : new int[counts[s]];
+            counts[s] = 0;
+        }
+        for (int[] pair : pairs) {
+            data.targets[pair[0]][counts[pair[0]]++] = pair[1];
+        }
+
+        for (String cycle : cycles) {
+            String[] codes = cycle.split("}");
+            int[] codeList = new int[codes.length];
+            try {
+                for (int i = 0; i < codes.length; i++) {
+                    codeList[i] = checkPackageCode(Integer.parseInt(codes[i]), packageCount);
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed cycle: " + cycle, e);
+            }
+            data.cycles.add(codeList);
+        }
+        return data;
+    }
+
+    // Source number of the given source of the given package
+    private int number(int packageCode, int source) {
+        if (source < 0 || source >= sources.get(packageCode).size()) {
+            throw new IndexOutOfBoundsException("No source " + source + " in package " + packageCode);
+        }
+        return offsets[packageCode] + source;
+    }
+
+    // Package code of the given source number
+    private int packageOf(int number) {
+        int p = Arrays.binarySearch(offsets, number);
+        if (p < 0) {
+            return -p - 2;
+        }
+        // skip any empty packages which share the offset
+        while (offsets[p + 1] == number) {
+            p++;
+        }
+        return p;
+    }
+
+    /**
+     * Returns the title from the header of the detail data.
+     *
+     * @return title
+     */
+    public String title() {
+        return title;
+    }
+
+    /**
+     * Returns the date from the header of the detail data.
+     *
+     * @return date at which the data was written
+     */
+    public String date() {
+        return date;
+    }
+
+    /**
+     * Returns the file name from the header of the detail data.
+     *
+     * @return name of the file as written
+     */
+    public String file() {
+        return file;
+    }
+
+    /**
+     * Returns the package names, in code order.
+     *
+     * @return package names
+     */
+    public List<String> packages() {
+        return Collections.unmodifiableList(packages);
+    }
+
+    /**
+     * Returns the leaf names of the sources of the given package, in
+     * position order.
+     *
+     * @param packageCode package code
+     * @return source leaf names
+     */
+    public List<String> sources(int packageCode) {
+        return sources.get(packageCode);
+    }
+
+    /**
+     * Returns the total number of sources.
+     *
+     * @return source count
+     */
+    public int sourceCount() {
+        return targets.length;
+    }
+
+    /**
+     * Returns the total number of source dependencies.
+     *
+     * @return dependency count
+     */
+    public int dependencyCount() {
+        int count = 0;
+        for (int[] list : targets) {
+            count += list.length;
+        }
+        return count;
+    }
+
+    /**
+     * Streams all source dependencies to the given consumer, ordered by
+     * source and, for each source, as they were written.
+     *
+     * @param consumer dependency consumer
+     */
+    public void forEachDependency(DependencyConsumer consumer) {
+        for (int p = 0; p < packages.size(); p++) {
+            for (int s = offsets[p]; s < offsets[p + 1]; s++) {
+                for (int target : targets[s]) {
+                    int tp = packageOf(target);
+                    consumer.accept(p, s - offsets[p], tp, target - offsets[tp]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the dependency cycles as lists of package codes.
+     *
+     * @return dependency cycles
+     */
+    public List<int[]> cycles() {
+        return Collections.unmodifiableList(cycles);
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("file", file)
+                .add("packages", packages.size())
+                .add("sources", sourceCount())
+                .add("dependencies", dependencyCount())
+                .add("cycles", cycles.size())
+                .toString();
+    }
+
+    /**
+     * Writes an unsigned varint to the given stream.
+     *
+     * @param out   output stream
+     * @param value non-negative value
+     * @throws IOException if unable to write
+     */
+    static void writeVarint(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Writes a string as its UTF-8 byte count and bytes.
+     *
+     * @param out   output stream
+     * @param value string to write
+     * @throws IOException if unable to write
+     */
+    static void writeString(OutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Body of the binary format being read, which keeps track of the bytes
+     * read so that counts can be checked against what remains. The size of
+     * a compressed body is not known up front; arrays are therefore never
+     * allocated beyond {@link #INITIAL_CAPACITY} ahead of the data which
+     * fills them, so that an excessive count ends in a truncation error.
+     */
+    private static final class Body {
+        private static final int INITIAL_CAPACITY = 1 << 12;
+
+        private final InputStream in;
+        private final long size;
+        private long position;
+
+        Body(InputStream in, long size) {
+            this.in = in;
+            this.size = size;
+        }
+
+        // Reads a varint, which must encode a non-negative int
+        int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+                int b = read();
+                value |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    // bits beyond those of a non-negative int are malformed
+                    if (b >>> (Integer.SIZE - 1 - shift) != 0) {
+                        break;
+                    }
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint in detail data");
+        }
+
+        // Reads a count of items, each of which takes at least one byte
+        int readCount() throws IOException {
+            int count = readVarint();
+            if (count > size - position) {
+                throw new IOException("Count exceeds the rest of the detail data: " + count);
+            }
+            return count;
+        }
+
+        String readString() throws IOException {
+            int length = readCount();
+            byte[] bytes = new byte[Math.min(length, INITIAL_CAPACITY)];
+            int n = 0;
+            while (n < length) {
+                bytes = grow(bytes, n, length);
+                int r = in.read(bytes, n, bytes.length - n);
+                if (r < 0) {
+                    throw new EOFException("Truncated detail data");
+                }
+                n += r;
+                position += r;
+            }
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private int read() throws IOException {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated detail data");
+            }
+            position++;
+            return b;
+        }
+
+        // Returns the array, doubled up to the given capacity if index is past its end
+        static int[] grow(int[] array, int index, long capacity) {
+            return index < array.length ? array : Arrays.copyOf(array, (int) Math.min(array.length * 2L, capacity));
+        }
+
+        static byte[] grow(byte[] array, int index, long capacity) {
+            return index < array.length ? array : Arrays.copyOf(array, (int) Math.min(array.length * 2L, capacity));
+        }
+    }
+
+}
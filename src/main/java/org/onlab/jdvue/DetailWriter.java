@@ -0,0 +1,200 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Writer of detail data records which encodes text and numbers as UTF-8
+ * straight into one reusable byte buffer, and drains the buffer into a
+ * channel only when it fills up. Apart from names with non-ASCII
+ * characters, nothing is allocated per record.
+ * <p>
+ * Instances are not safe for concurrent use.
+ */
+final class DetailWriter implements Closeable {
+
+    /**
+     * Default size of the byte buffer.
+     */
+    static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    // decimal digits of the largest int
+    private static final int MAX_DIGITS = 10;
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private final WritableByteChannel channel;
+    private final byte[] buffer;
+    private final byte[] digits = new byte[MAX_DIGITS];
+    private int position;
+    private long lines;
+
+    /**
+     * Creates a writer into the given channel.
+     *
+     * @param channel    channel to write into; closed with the writer
+     * @param bufferSize size of the byte buffer
+     */
+    DetailWriter(WritableByteChannel channel, int bufferSize) {
+        checkArgument(bufferSize >= MAX_DIGITS + LINE_SEPARATOR.length, "Buffer size is too small");
+        this.channel = channel;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Appends a single ASCII character.
+     *
+     * @param c ASCII character
+     * @return this writer
+     * @throws IOException if unable to drain the buffer
+     */
+    DetailWriter append(char c) throws IOException {
+        ensure(1);
+        buffer[position++] = (byte) c;
+        return this;
+    }
+
+    /**
+     * Appends the given text, encoded as UTF-8.
+     *
+     * @param text text to append
+     * @return this writer
+     * @throws IOException if unable to drain the buffer
+     */
+    DetailWriter append(String text) throws IOException {
+        return append(text, 0, text.length());
+    }
+
+    /**
+     * Appends a range of the given text, encoded as UTF-8.
+     *
+     * @param text  text to append from
+     * @param start index of the first character to append
+     * @param end   index past the last character to append
+     * @return this writer
+     * @throws IOException if unable to drain the buffer
+     */
+    DetailWriter append(String text, int start, int end) throws IOException {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                return appendBytes(text.substring(i, end).getBytes(StandardCharsets.UTF_8));
+            }
+            if (position == buffer.length) {
+                drain();
+            }
+            buffer[position++] = (byte) c;
+        }
+        return this;
+    }
+
+    /**
+     * Appends the decimal digits of the given number.
+     *
+     * @param number non-negative number
+     * @return this writer
+     * @throws IOException if unable to drain the buffer
+     */
+    DetailWriter append(int number) throws IOException {
+        checkArgument(number >= 0, "Number must not be negative");
+        int n = 0;
+        do {
+            digits[n++] = (byte) ('0' + number % 10);
+            number /= 10;
+        } while (number > 0);
+        ensure(n);
+        while (n > 0) {
+            buffer[position++] = digits[--n];
+        }
+        return this;
+    }
+
+    /**
+     * Ends the current line.
+     *
+     * @throws IOException if unable to drain the buffer
+     */
+    void endLine() throws IOException {
+        ensure(LINE_SEPARATOR.length);
+        for (byte b : LINE_SEPARATOR) {
+            buffer[position++] = b;
+        }
+        lines++;
+    }
+
+    /**
+     * Returns the number of lines ended so far.
+     *
+     * @return line count
+     */
+    long lines() {
+        return lines;
+    }
+
+    /**
+     * Drains the buffer into the channel.
+     *
+     * @throws IOException if unable to write to the channel
+     */
+    void flush() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private DetailWriter appendBytes(byte[] bytes) throws IOException {
+        for (int i = 0; i < bytes.length; ) {
+            if (position == buffer.length) {
+                drain();
+            }
+            int n = Math.min(bytes.length - i, buffer.length - position);
+            System.arraycopy(bytes, i, buffer, position, n);
+            position += n;
+            i += n;
+        }
+        return this;
+    }
+
+    // Ensures room for the given number of bytes, draining if need be
+    private void ensure(int n) throws IOException {
+        if (buffer.length - position < n) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        ByteBuffer bb = ByteBuffer.wrap(buffer, 0, position);
+        while (bb.hasRemaining()) {
+            channel.write(bb);
+        }
+        position = 0;
+    }
+
+}
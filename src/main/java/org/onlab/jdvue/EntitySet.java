@@ -0,0 +1,97 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Unmodifiable set view of entities whose codes occupy a sorted range of
+ * an int array in the {@link CatalogGraph}.
+ *
+ * @param <E> type of entity
+ */
+final class EntitySet<E extends JavaEntity> extends AbstractSet<E> {
+
+    /**
+     * Code given to objects which are not entities of the backing graph.
+     */
+    static final int FOREIGN = Integer.MIN_VALUE;
+
+    private final int[] codes;
+    private final int from;
+    private final int to;
+    private final IntFunction<E> decoder;
+    private final ToIntFunction<Object> encoder;
+
+    /**
+     * Creates a view of the entities with the given codes.
+     *
+     * @param codes   array of entity codes
+     * @param from    start of the sorted range of codes, inclusive
+     * @param to      end of the sorted range of codes, exclusive
+     * @param decoder function producing an entity from its code
+     * @param encoder function producing the code of an object or
+     *                {@link #FOREIGN} if it is not an entity of the graph
+     */
+    EntitySet(int[] codes, int from, int to, IntFunction<E> decoder, ToIntFunction<Object> encoder) {
+        this.codes = codes;
+        this.from = from;
+        this.to = to;
+        this.decoder = decoder;
+        this.encoder = encoder;
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        int code = encoder.applyAsInt(o);
+        if (code == FOREIGN) {
+            // Entities are equal by name, so look for an equal one
+            return o instanceof JavaEntity && super.contains(o);
+        }
+        return Arrays.binarySearch(codes, from, to, code) >= 0;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int next = from;
+
+            @Override
+            public boolean hasNext() {
+                return next < to;
+            }
+
+            @Override
+            public E next() {
+                if (next >= to) {
+                    throw new NoSuchElementException();
+                }
+                return decoder.apply(codes[next++]);
+            }
+        };
+    }
+
+}
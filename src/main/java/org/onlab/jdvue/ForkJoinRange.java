@@ -0,0 +1,62 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Fork-join action which applies a body to each index of a range, splitting
+ * the range in halves until it falls under the given threshold.
+ */
+final class ForkJoinRange extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+    private final int threshold;
+    private final IntConsumer body;
+
+    /**
+     * Creates an action covering the specified index range.
+     *
+     * @param from      first index, inclusive
+     * @param to        last index, exclusive
+     * @param threshold range size at or under which the body is run directly
+     * @param body      body to apply to each index
+     */
+    ForkJoinRange(int from, int to, int threshold, IntConsumer body) {
+        this.from = from;
+        this.to = to;
+        this.threshold = Math.max(1, threshold);
+        this.body = body;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= threshold) {
+            for (int i = from; i < to; i++) {
+                body.accept(i);
+            }
+        } else {
+            int mid = (from + to) >>> 1;
+            invokeAll(new ForkJoinRange(from, mid, threshold, body),
+                      new ForkJoinRange(mid, to, threshold, body));
+        }
+    }
+
+}
@@ -15,22 +15,53 @@
  */
 package org.onlab.jdvue;
 
-import java.util.Objects;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Abstraction of a Java source entity.
+ * <p>
+ * An entity of a catalog graph holds only the symbol of its name, which is
+ * kept in the {@link NameTable} of the graph; the name string is produced
+ * on demand.
  */
 public abstract class JavaEntity {
 
+    // held only by entities which do not belong to any catalog graph
     private final String name;
+    private final CatalogGraph graph;
+    private final int symbol;
+    private final int id;
 
     /**
-     * Creates a new Java source entity with the given name.
+     * Creates a new Java source entity with the given name, which does not
+     * belong to any catalog.
      *
      * @param name source entity name
      */
     JavaEntity(String name) {
         this.name = name;
+        this.graph = null;
+        this.symbol = NameTable.NONE;
+        this.id = CatalogGraph.NONE;
+    }
+
+    /**
+     * Creates a new Java source entity as a view over the specified catalog
+     * graph, named by a symbol of the graph name table.
+     *
+     * @param symbol entity name symbol
+     * @param graph  catalog graph holding the entity relations
+     * @param id     entity id within the graph
+     */
+    JavaEntity(int symbol, CatalogGraph graph, int id) {
+        this.name = null;
+        this.graph = graph;
+        this.symbol = symbol;
+        this.id = id;
     }
 
     /**
@@ -39,21 +70,85 @@ public abstract class JavaEntity {
      * @return source entity name
      */
     public String name() {
-        return name;
+        return graph != null ? graph.names().name(symbol) : name;
+    }
+
+    /**
+     * Returns the part of the entity name after its last dot.
+     *
+     * @return last name segment
+     */
+    String lastSegment() {
+        return graph != null ? graph.names().lastSegment(symbol) : name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Returns the catalog graph to which the entity belongs.
+     *
+     * @return catalog graph; null if the entity belongs to no catalog
+     */
+    CatalogGraph graph() {
+        return graph;
+    }
+
+    /**
+     * Returns the symbol of the entity name within its catalog graph.
+     *
+     * @return name symbol; {@link NameTable#NONE} if the entity belongs to
+     * no catalog
+     */
+    int symbol() {
+        return symbol;
+    }
+
+    /**
+     * Returns the id of the entity within its catalog graph.
+     *
+     * @return entity id
+     */
+    int id() {
+        return id;
+    }
+
+    /**
+     * Returns the given entities sorted by name, producing each name only
+     * once rather than on every comparison.
+     *
+     * @param entities entities to sort
+     * @param <T>      type of entities
+     * @return new list of the entities in order of name
+     */
+    static <T extends JavaEntity> List<T> sortedByName(Collection<T> entities) {
+        List<Map.Entry<String, T>> keyed = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            keyed.add(new AbstractMap.SimpleImmutableEntry<>(entity.name(), entity));
+        }
+        keyed.sort(Map.Entry.comparingByKey());
+        List<T> sorted = new ArrayList<>(keyed.size());
+        keyed.forEach(entry -> sorted.add(entry.getValue()));
+        return sorted;
     }
 
     @Override
     public boolean equals(Object o) {
         if (o instanceof JavaEntity) {
             JavaEntity that = (JavaEntity) o;
-            return getClass().equals(that.getClass()) &&
-                    Objects.equals(name, that.name);
+            if (!getClass().equals(that.getClass())) {
+                return false;
+            }
+            // A graph holds one entity of each kind per name
+            if (graph != null && graph == that.graph) {
+                return id == that.id;
+            }
+            return hashCode() == that.hashCode() && name().equals(that.name());
         }
         return false;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name);
+        // Same as the hash of the name string, so that it agrees with
+        // equality of entities of different graphs
+        return graph != null ? graph.names().nameHash(symbol) : name.hashCode();
     }
 }
@@ -17,8 +17,6 @@ package org.onlab.jdvue;
 
 import com.google.common.collect.ImmutableSet;
 
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -31,11 +29,8 @@ import static com.google.common.base.MoreObjects.toStringHelper;
  */
 public class JavaPackage extends JavaEntity {
 
-    private final Set<JavaSource> sources = new HashSet<>();
-    private Set<JavaPackage> dependencies;
-
     /**
-     * Creates a new Java package.
+     * Creates a new Java package, which does not belong to any catalog.
      *
      * @param name java package file name
      */
@@ -44,24 +39,23 @@ public class JavaPackage extends JavaEntity {
     }
 
     /**
-     * Returns the set of sources contained in this Java package.
+     * Creates a new Java package as a view over the given catalog graph.
      *
-     * @return set of Java sources
+     * @param symbol java package name symbol
+     * @param graph  catalog graph
+     * @param id     package id within the graph
      */
-    public Set<JavaSource> getSources() {
-        return Collections.unmodifiableSet(sources);
+    JavaPackage(int symbol, CatalogGraph graph, int id) {
+        super(symbol, graph, id);
     }
 
     /**
-     * Adds the specified Java source to the package. Only possible if the
-     * Java package of the source is the same as this Java package.
+     * Returns the set of sources contained in this Java package.
      *
-     * @param source Java source to be added
+     * @return set of Java sources
      */
-    void addSource(JavaSource source) {
-        if (source.getPackage().equals(this)) {
-            sources.add(source);
-        }
+    public Set<JavaSource> getSources() {
+        return graph() != null ? graph().sources(id()) : ImmutableSet.of();
     }
 
     /**
@@ -70,26 +64,15 @@ public class JavaPackage extends JavaEntity {
      * @return set of Java package dependencies
      */
     Set<JavaPackage> getDependencies() {
-        return dependencies != null ? dependencies : ImmutableSet.of();
-    }
-
-    /**
-     * Sets the set of resolved Java packages on which this package dependens.
-     *
-     * @param dependencies set of resolved Java packages
-     */
-    void setDependencies(Set<JavaPackage> dependencies) {
-        if (this.dependencies == null) {
-            this.dependencies = Collections.unmodifiableSet(new HashSet<>(dependencies));
-        }
+        return graph() != null ? graph().dependencies(id()) : ImmutableSet.of();
     }
 
     @Override
     public String toString() {
         return toStringHelper(this)
                 .add("name", name())
-                .add("sources", sources.size())
-                .add("dependencies", (dependencies != null ? dependencies.size() : 0))
+                .add("sources", getSources().size())
+                .add("dependencies", getDependencies().size())
                 .toString();
     }
 
@@ -15,8 +15,7 @@
  */
 package org.onlab.jdvue;
 
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -29,30 +28,38 @@ import static com.google.common.base.MoreObjects.toStringHelper;
  */
 public class JavaSource extends JavaEntity {
 
-    private String path;
-    private JavaPackage javaPackage;
-
-    private final Set<String> importNames = new HashSet<>();
-    private Set<JavaEntity> imports;
+    private final String path;
 
     /**
-     * Creates a new Java source entity.
+     * Creates a new Java source entity as a view over the given catalog graph.
      *
-     * @param name java source file name
-     * @param path source file path
+     * @param symbol java source name symbol
+     * @param path   source file path
+     * @param graph  catalog graph
+     * @param id     source id within the graph
      */
-    JavaSource(String name, String path) {
-        super(name);
+    JavaSource(int symbol, String path, CatalogGraph graph, int id) {
+        super(symbol, graph, id);
         this.path = path;
     }
 
+    /**
+     * Returns the path of the source file, as given in the catalog file.
+     *
+     * @return source file path
+     */
+    String path() {
+        return path;
+    }
+
     /**
      * Returns the Java package for this Java source.
      *
      * @return Java package
      */
     public JavaPackage getPackage() {
-        return javaPackage;
+        int packageId = graph().packageOf(id());
+        return packageId != CatalogGraph.NONE ? graph().getPackage(packageId) : null;
     }
 
     /**
@@ -61,9 +68,7 @@ public class JavaSource extends JavaEntity {
      * @param javaPackage Java package
      */
     void setPackage(JavaPackage javaPackage) {
-        if (this.javaPackage == null) {
-            this.javaPackage = javaPackage;
-        }
+        graph().setPackage(id(), javaPackage.id());
     }
 
     /**
@@ -72,18 +77,7 @@ public class JavaSource extends JavaEntity {
      * @return set of imports
      */
     public Set<JavaEntity> getImports() {
-        return imports;
-    }
-
-    /**
-     * Sets the set of resolved imported Java entities for this source.
-     *
-     * @param imports set of resolved Java entities imported by this source
-     */
-    void setImports(Set<JavaEntity> imports) {
-        if (this.imports == null) {
-            this.imports = Collections.unmodifiableSet(new HashSet<>(imports));
-        }
+        return graph().imports(id());
     }
 
     /**
@@ -92,25 +86,27 @@ public class JavaSource extends JavaEntity {
      * @param name name of an imported Java entity
      */
     void addImportName(String name) {
-        importNames.add(name);
+        graph().addImportName(id(), name);
     }
 
     /**
-     * Returns the set of imported, but unresolved, Java entity names.
+     * Returns the list of distinct imported, but unresolved, Java entity
+     * names in the order in which they were first added.
      *
-     * @return set of imported Java entity names
+     * @return list of imported Java entity names
      */
-    Set<String> getImportNames() {
-        return importNames;
+    List<String> getImportNames() {
+        return graph().importNames(id());
     }
 
     @Override
     public String toString() {
+        JavaPackage javaPackage = getPackage();
         return toStringHelper(this)
                 .add("name", name())
                 .add("javaPackage", (javaPackage != null ? javaPackage.name() : ""))
-                .add("importNames", importNames.size())
-                .add("imports", (imports != null ? imports.size() : 0))
+                .add("importNames", graph().importNameCount(id()))
+                .add("imports", graph().importCount(id()))
                 .toString();
     }
 
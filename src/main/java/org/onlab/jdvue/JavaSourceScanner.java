@@ -0,0 +1,343 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import com.google.common.collect.ImmutableSet;
+import org.onlab.jdvue.CatalogLineParser.Pragma;
+import org.onlab.jdvue.MappedCatalogReader.PragmaConsumer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Scanner of Java source trees which produces pragmas like those parsed
+ * from a catalog file built by {@code bin/jdvue} from the same trees,
+ * without the intermediate file.
+ * <p>
+ * The pragmas are not always the same as the script's. Unlike the script,
+ * the scanner understands comments, so package declarations and imports
+ * within comments are ignored, and those split across lines are still
+ * found. Catalogs of sources with such lines therefore differ.
+ * <p>
+ * Source roots are walked in parallel, skipping the directories which the
+ * script leaves out, and the sources found are scanned in parallel on the
+ * threads of a fork-join pool. Each source is read only up to its first
+ * type declaration. Pragmas are handed to the consumer on the calling
+ * thread, in order of source path.
+ */
+final class JavaSourceScanner {
+
+    private static final String JAVA_EXT = ".java";
+    private static final Set<String> SKIPPED_DIRS =
+            ImmutableSet.of("lost+found", "target", "archetype-resources");
+
+    private static final String PACKAGE = "package";
+    private static final String IMPORT = "import";
+    private static final String STATIC = "static";
+    private static final String INTERFACE = "interface";
+
+    private final List<Path> roots;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a scanner of the specified source roots.
+     *
+     * @param roots directories to scan for Java sources
+     * @param pool  pool on which to walk the roots and scan the sources
+     */
+    JavaSourceScanner(List<Path> roots, ForkJoinPool pool) {
+        this.roots = roots;
+        this.pool = pool;
+    }
+
+    /**
+     * Scans all Java sources under the source roots, handing the parsed
+     * pragmas to the consumer.
+     *
+     * @param consumer pragma consumer
+     * @throws IOException if unable to walk the roots or read a source
+     */
+    void scan(PragmaConsumer consumer) throws IOException {
+        try {
+            List<String> paths = findSources();
+            ScannedSource[] sources = new ScannedSource[paths.size()];
+            pool.invoke(new ForkJoinRange(0, sources.length, 1,
+                                          i -> sources[i] = scanSource(paths.get(i))));
+            for (ScannedSource source : sources) {
+                source.replay(consumer);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Walks all roots and produces the sorted paths of the sources found
+    private List<String> findSources() {
+        List<List<String>> found = new ArrayList<>(Collections.nCopies(roots.size(), null));
+        pool.invoke(new ForkJoinRange(0, roots.size(), 1, i -> found.set(i, findSources(roots.get(i)))));
+        List<String> paths = new ArrayList<>();
+        found.forEach(paths::addAll);
+        Collections.sort(paths);
+        return paths;
+    }
+
+    // Walks the given root and produces the paths of the sources found
+    private static List<String> findSources(Path root) {
+        List<String> paths = new ArrayList<>();
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    Path name = dir.getFileName();
+                    return !dir.equals(root) && name != null && SKIPPED_DIRS.contains(name.toString())
+                            ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && file.toString().endsWith(JAVA_EXT)) {
+                        paths.add(file.toString().replace(file.getFileSystem().getSeparator(), "/"));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return paths;
+    }
+
+    // Reads the package declaration and imports of the given source
+    private static ScannedSource scanSource(String path) {
+        ScannedSource source = new ScannedSource(path);
+        try (Reader reader = new BufferedReader(new InputStreamReader(
+                Files.newInputStream(Paths.get(path)), StandardCharsets.UTF_8))) {
+            new Lexer(reader).scan(source);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return source;
+    }
+
+    /**
+     * Package declaration and imports of one source.
+     */
+    private static final class ScannedSource {
+        private final String path;
+        private String packageName;
+        private final List<String> imports = new ArrayList<>();
+
+        ScannedSource(String path) {
+            this.path = path;
+        }
+
+        void replay(PragmaConsumer consumer) {
+            if (packageName != null) {
+                consumer.accept(path, Pragma.PACKAGE, packageName);
+            }
+            for (String name : imports) {
+                consumer.accept(path, Pragma.IMPORT, name);
+            }
+        }
+    }
+
+    /**
+     * Minimal lexer of the compilation unit header, i.e. everything before
+     * the first type declaration. Tokens are identifiers and single
+     * punctuation characters; comments and literals are skipped.
+     */
+    private static final class Lexer {
+        private static final int EOF = -1;
+        private static final String LITERAL = "\"";
+
+        private final Reader reader;
+        private final StringBuilder sb = new StringBuilder();
+        private int next;
+        private String peeked;
+
+        Lexer(Reader reader) throws IOException {
+            this.reader = reader;
+            this.next = reader.read();
+        }
+
+        // Scans the header into the given source, up to a type declaration
+        void scan(ScannedSource source) throws IOException {
+            String token;
+            while ((token = token()) != null) {
+                if (token.equals(";")) {
+                    continue;
+                } else if (token.equals("@")) {
+                    if (!skipAnnotation()) {
+                        return;
+                    }
+                } else if (token.equals(PACKAGE)) {
+                    String name = qualifiedName(token());
+                    if (!name.isEmpty() && source.packageName == null) {
+                        source.packageName = name;
+                    }
+                } else if (token.equals(IMPORT)) {
+                    String first = token();
+                    boolean isStatic = STATIC.equals(first);
+                    String name = qualifiedName(isStatic ? token() : first);
+                    if (isStatic) {
+                        // Drop the member name, just as catalog lines do
+                        int dot = name.lastIndexOf('.');
+                        name = dot >= 0 ? name.substring(0, dot) : name;
+                    }
+                    if (!name.isEmpty()) {
+                        source.imports.add(name);
+                    }
+                } else {
+                    return;
+                }
+            }
+        }
+
+        // Skips an annotation; returns false if it began an annotation type
+        private boolean skipAnnotation() throws IOException {
+            String name = token();
+            if (name == null || name.equals(INTERFACE)) {
+                return false;
+            }
+            while (".".equals(peek())) {
+                token();
+                token();
+            }
+            if ("(".equals(peek())) {
+                token();
+                int depth = 1;
+                String token;
+                while (depth > 0 && (token = token()) != null) {
+                    depth += token.equals("(") ? 1 : token.equals(")") ? -1 : 0;
+                }
+            }
+            return true;
+        }
+
+        // Joins identifiers, dots and stars starting with the given token
+        private String qualifiedName(String first) throws IOException {
+            StringBuilder name = new StringBuilder();
+            String token = first;
+            while (token != null && (token.equals(".") || token.equals("*") || isIdentifier(token))) {
+                name.append(token);
+                token = peek();
+                if (token != null && (token.equals(".") || token.equals("*") || isIdentifier(token))) {
+                    token();
+                } else {
+                    break;
+                }
+            }
+            return name.toString();
+        }
+
+        private static boolean isIdentifier(String token) {
+            return Character.isJavaIdentifierStart(token.charAt(0));
+        }
+
+        private String peek() throws IOException {
+            if (peeked == null) {
+                peeked = read();
+            }
+            return peeked;
+        }
+
+        private String token() throws IOException {
+            String token = peek();
+            peeked = null;
+            return token;
+        }
+
+        // Reads the next token, or null at the end of the source
+        private String read() throws IOException {
+            while (true) {
+                while (next != EOF && Character.isWhitespace(next)) {
+                    advance();
+                }
+                if (next == EOF) {
+                    return null;
+                }
+                if (next != '/') {
+                    break;
+                }
+                advance();
+                if (next == '/') {
+                    while (next != EOF && next != '\n' && next != '\r') {
+                        advance();
+                    }
+                } else if (next == '*') {
+                    advance();
+                    int previous = 0;
+                    while (next != EOF && !(previous == '*' && next == '/')) {
+                        previous = next;
+                        advance();
+                    }
+                    advance();
+                } else {
+                    return "/";
+                }
+            }
+
+            if (Character.isJavaIdentifierStart(next)) {
+                sb.setLength(0);
+                while (next != EOF && Character.isJavaIdentifierPart(next)) {
+                    sb.append((char) next);
+                    advance();
+                }
+                return sb.toString();
+            }
+            if (next == '"' || next == '\'') {
+                skipLiteral(next);
+                return LITERAL;
+            }
+            String token = String.valueOf((char) next);
+            advance();
+            return token;
+        }
+
+        private void skipLiteral(int quote) throws IOException {
+            advance();
+            while (next != EOF && next != quote && next != '\n') {
+                if (next == '\\') {
+                    advance();
+                }
+                advance();
+            }
+            advance();
+        }
+
+        private void advance() throws IOException {
+            if (next != EOF) {
+                next = reader.read();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Able to create the JDX "Java Dependency Explorer" page from an analyzed
+ * {@link Catalog}, i.e. the page produced by {@code scripts/gen-jdx.py}
+ * from a detail data file, without the round trip through that file.
+ * <p>
+ * The page data is written straight from the codes assigned by
+ * {@link CatalogDetails}, in the same layout as the script writes it.
+ * With {@link #setAssets shared assets}, the page references its style and
+ * script instead of embedding them.
+ */
+public class JdxView extends AbstractReportGenerator {
+
+    private static final String JDX_EXT = ".jdx.html";
+
+    private static final String JDX = "jdx.html";
+    private static final String STYLE = "jdx.css";
+    private static final String SCRIPT = "jdx.js";
+
+    private static final String TITLE_PLACEHOLDER = "TITLE_PLACEHOLDER";
+    private static final String STYLE_PLACEHOLDER = "STYLE_PLACEHOLDER";
+    private static final String DATA_PLACEHOLDER = "DATA_PLACEHOLDER";
+    private static final String SCRIPT_PLACEHOLDER = "SCRIPT_PLACEHOLDER";
+    private static final String[] PLACEHOLDERS = {
+            TITLE_PLACEHOLDER, STYLE_PLACEHOLDER, DATA_PLACEHOLDER, SCRIPT_PLACEHOLDER
+    };
+
+    private final Catalog cat;
+    private final CatalogDetails details;
+
+    /**
+     * Wraps a catalog in a JDX page generator.
+     *
+     * @param cat the catalog
+     */
+    public JdxView(Catalog cat) {
+        this.cat = cat;
+        this.details = new CatalogDetails(cat);
+    }
+
+    /**
+     * Writes the JDX page of the catalog.
+     *
+     * @throws IOException if issues encountered writing the page file
+     */
+    public void writeHTMLFile() throws IOException {
+        String jdxFile = cat.basePath() + JDX_EXT;
+        try (PipelineMetrics.Phase phase = cat.metrics().start("writeJdxFile");
+             Writer writer = Files.newBufferedWriter(Paths.get(jdxFile), StandardCharsets.UTF_8)) {
+            writeHTML(writer);
+            phase.count("packages", details.sortedPackages().size());
+        }
+        System.err.println("Wrote JDX report: " + jdxFile);
+    }
+
+    /**
+     * Renders the JDX page of the catalog.
+     *
+     * @return self-contained HTML page, apart from jQuery
+     * @throws IOException if issues encountered reading the page resources
+     */
+    public String toHTML() throws IOException {
+        StringWriter writer = new StringWriter();
+        writeHTML(writer);
+        return writer.toString();
+    }
+
+    /**
+     * Writes the JDX page of the catalog to the given writer, which is
+     * left open.
+     *
+     * @param writer writer of the page
+     * @throws IOException if issues encountered writing the page
+     */
+    public void writeHTML(Writer writer) throws IOException {
+        Path reportDir = Paths.get(cat.basePath()).toAbsolutePath().getParent();
+        getTemplate(JDX, PLACEHOLDERS).render(writer, (placeholder, w) -> {
+            if (placeholder.equals(TITLE_PLACEHOLDER)) {
+                w.write(cat.basePath());
+            } else if (placeholder.equals(STYLE_PLACEHOLDER)) {
+                writeStyle(w, STYLE, reportDir);
+            } else if (placeholder.equals(SCRIPT_PLACEHOLDER)) {
+                writeScriptContent(w, SCRIPT, reportDir);
+            } else {
+                writeData(w);
+            }
+        });
+    }
+
+    // Writes the project data script section
+    private void writeData(Writer w) throws IOException {
+        List<JavaPackage> packages = details.sortedPackages();
+
+        // Sources, dependencies and the packages which depend on nothing
+        int sourceCount = 0;
+        int dependencyCount = 0;
+        BitSet roots = new BitSet();
+        for (int p = 0; p < packages.size(); p++) {
+            boolean root = true;
+            for (JavaSource source : details.sortedSources(packages.get(p))) {
+                int n = source.getImports().size();
+                dependencyCount += n;
+                root &= n == 0;
+                sourceCount++;
+            }
+            roots.set(p, root);
+        }
+
+        w.write("/* ------------ */\n");
+        w.write("/* Project Data */\n");
+        w.write("/* ------------ */\n\n");
+        w.write("const jdxMeta = {\n");
+        writeMeta(w, "npkgs", packages.size());
+        writeMeta(w, "nsrcs", sourceCount);
+        writeMeta(w, "ndeps", dependencyCount);
+        writeMeta(w, "ncycs", cat.getCycles().size());
+        writeMeta(w, "title", CatalogDetails.TITLE);
+        writeMeta(w, "date", new Date().toString());
+        writeMeta(w, "file", details.dataFileName());
+        writeMeta(w, "basename", cat.basePath());
+        writeMeta(w, "nroots", roots.cardinality());
+        w.write("};\n");
+
+        w.write("const packages = [\n");
+        for (JavaPackage javaPackage : packages) {
+            w.write("  " + quoted(javaPackage.name()) + ",\n");
+        }
+        w.write("];\n");
+
+        w.write("const sources = [\n");
+        for (JavaPackage javaPackage : packages) {
+            w.write("  [");
+            for (JavaSource source : details.sortedSources(javaPackage)) {
+                w.write(" " + quoted(source.lastSegment()) + ",");
+            }
+            w.write(" ],\n");
+        }
+        w.write("];\n");
+
+        w.write("const codedDeps = [\n");
+        details.writeDependencies((sp, s, tp, t) -> w.write("  \"" + sp + "." + s + ">" + tp + "." + t + "\",\n"));
+        w.write("];\n");
+
+        w.write("const codedCycles = [\n");
+        for (DependencyCycle cycle : cat.getCycles()) {
+            w.write("  \"");
+            for (JavaPackage javaPackage : cycle.getCycle()) {
+                w.write(details.packageCode(javaPackage) + "}");
+            }
+            w.write("\",\n");
+        }
+        w.write("];\n");
+
+        w.write("const codedRoots = [");
+        for (int p = roots.nextSetBit(0); p >= 0; p = roots.nextSetBit(p + 1)) {
+            w.write(p + ",");
+        }
+        w.write("];\n");
+    }
+
+    private void writeMeta(Writer w, String key, int value) throws IOException {
+        w.write("  \"" + key + "\": " + value + ",\n");
+    }
+
+    private void writeMeta(Writer w, String key, String value) throws IOException {
+        w.write("  \"" + key + "\": " + quoted(value) + ",\n");
+    }
+
+    // Quotes the text as a JavaScript string literal
+    private static String quoted(String text) {
+        return "\"" + text.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+}
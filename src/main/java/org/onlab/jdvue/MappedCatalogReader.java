@@ -0,0 +1,262 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import org.onlab.jdvue.CatalogLineParser.Pragma;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Reader of catalog files which memory-maps the file, splits it into chunks
+ * at line boundaries and parses the chunks on the threads of a fork-join
+ * pool. Parsed pragmas are handed to the consumer strictly in file order,
+ * on the calling thread, so the outcome is the same as reading the file
+ * line by line.
+ * <p>
+ * Chunks are split on raw bytes, which requires the file charset to
+ * encode line breaks and colons as their single-byte ASCII values.
+ */
+final class MappedCatalogReader {
+
+    static final int DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    private static final int SCAN_BUFFER_SIZE = 8 * 1024;
+    private static final byte[] ASCII_PUNCTUATION = {'\n', '\r', ':'};
+
+    /**
+     * Consumer of pragmas parsed from the catalog file.
+     */
+    interface PragmaConsumer {
+        /**
+         * Accepts the next pragma parsed from the catalog file.
+         *
+         * @param path   Java source path
+         * @param pragma kind of pragma
+         * @param name   package or imported entity name; null for other pragmas
+         */
+        void accept(String path, Pragma pragma, String name);
+    }
+
+    private final Path path;
+    private final Charset charset;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    /**
+     * Creates a reader of the specified catalog file.
+     *
+     * @param path      catalog file path
+     * @param charset   charset of the catalog file
+     * @param pool      pool on which to parse the chunks
+     * @param chunkSize preferred chunk size in bytes
+     */
+    MappedCatalogReader(Path path, Charset charset, ForkJoinPool pool, int chunkSize) {
+        this.path = path;
+        this.charset = charset;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Indicates whether catalog files in the given charset can be split
+     * into chunks on raw bytes.
+     *
+     * @param charset file charset
+     * @return true if the charset is supported
+     */
+    static boolean isSupported(Charset charset) {
+        return Arrays.equals(ASCII_PUNCTUATION, new String(ASCII_PUNCTUATION, charset).getBytes(charset));
+    }
+
+    /**
+     * Reads the catalog file, handing all parsed pragmas to the consumer
+     * in the order in which they appear in the file.
+     *
+     * @param consumer pragma consumer
+     * @return number of lines read, counted as by {@link java.io.BufferedReader#readLine()}
+     * @throws IOException if unable to read the catalog file
+     */
+    long read(PragmaConsumer consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            List<ForkJoinTask<ParsedChunk>> tasks = new ArrayList<>();
+            try {
+                long start = 0;
+                for (long end : boundaries(channel)) {
+                    MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                    tasks.add(pool.submit(() -> parse(bytes)));
+                    start = end;
+                }
+
+                // Merge chunks in order as they become available
+                long lines = 0;
+                for (int i = 0; i < tasks.size(); i++) {
+                    ParsedChunk chunk = tasks.get(i).join();
+                    chunk.replay(consumer);
+                    lines += chunk.lines;
+                    tasks.set(i, null);
+                }
+                return lines;
+            } finally {
+                tasks.stream().filter(Objects::nonNull).forEach(t -> t.cancel(false));
+            }
+        }
+    }
+
+    // Produces the chunk end offsets; each falls just past a line break
+    private List<Long> boundaries(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int parallelism = Math.max(1, pool.getParallelism());
+        long count = Math.max(1, (size + chunkSize - 1) / chunkSize);
+        if (size > parallelism * (long) SCAN_BUFFER_SIZE) {
+            count = Math.max(count, parallelism);
+        }
+
+        List<Long> boundaries = new ArrayList<>();
+        long previous = 0;
+        for (long i = 1; i < count; i++) {
+            long nominal = Math.max(previous, size * i / count);
+            long boundary = nextLineStart(channel, nominal, size);
+            if (boundary > previous && boundary < size) {
+                boundaries.add(boundary);
+                previous = boundary;
+            }
+        }
+        boundaries.add(size);
+        return boundaries;
+    }
+
+    // Returns the offset just past the first line break at or after position;
+    // a CR LF pair counts as one line break, so it is never split
+    private long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        while (position < size) {
+            buffer.clear();
+            int n = channel.read(buffer, position);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n') {
+                    return position + i + 1;
+                } else if (b == '\r') {
+                    long next = position + i + 1;
+                    return next < size && byteAt(channel, next, buffer, position, n) == '\n' ? next + 1 : next;
+                }
+            }
+            position += n;
+        }
+        return size;
+    }
+
+    // Returns the byte at the given offset, from the buffer if it holds it
+    private static byte byteAt(FileChannel channel, long offset, ByteBuffer buffer,
+                               long bufferPosition, int bufferLength) throws IOException {
+        if (offset < bufferPosition + bufferLength) {
+            return buffer.get((int) (offset - bufferPosition));
+        }
+        ByteBuffer one = ByteBuffer.allocate(1);
+        return channel.read(one, offset) == 1 ? one.get(0) : -1;
+    }
+
+    // Decodes the chunk and parses each of its lines
+    private ParsedChunk parse(ByteBuffer bytes) {
+        CharBuffer chars = decode(bytes);
+        CatalogLineParser parser = new CatalogLineParser();
+        ParsedChunk chunk = new ParsedChunk(Math.max(16, chars.length() / 64));
+
+        int length = chars.length();
+        int start = 0;
+        while (start < length) {
+            int end = start;
+            while (end < length && chars.charAt(end) != '\n' && chars.charAt(end) != '\r') {
+                end++;
+            }
+            if (parser.parse(chars, start, end)) {
+                chunk.add(parser.path(), parser.pragma(), parser.name());
+            }
+            chunk.lines++;
+            boolean crlf = end + 1 < length && chars.charAt(end) == '\r' && chars.charAt(end + 1) == '\n';
+            start = end + (crlf ? 2 : 1);
+        }
+        return chunk;
+    }
+
+    private CharBuffer decode(ByteBuffer bytes) {
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        try {
+            return decoder.decode(bytes);
+        } catch (CharacterCodingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Pragmas parsed from one chunk, kept in parallel arrays.
+     */
+    private static final class ParsedChunk {
+        private String[] paths;
+        private Pragma[] pragmas;
+        private String[] names;
+        private int size = 0;
+        private long lines = 0;
+
+        ParsedChunk(int capacity) {
+            paths = new String[capacity];
+            pragmas = new Pragma[capacity];
+            names = new String[capacity];
+        }
+
+        void add(String path, Pragma pragma, String name) {
+            if (size == paths.length) {
+                int capacity = size + (size >> 1);
+                paths = Arrays.copyOf(paths, capacity);
+                pragmas = Arrays.copyOf(pragmas, capacity);
+                names = Arrays.copyOf(names, capacity);
+            }
+            paths[size] = path;
+            pragmas[size] = pragma;
+            names[size] = name;
+            size++;
+        }
+
+        void replay(PragmaConsumer consumer) {
+            for (int i = 0; i < size; i++) {
+                consumer.accept(paths[i], pragmas[i], names[i]);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,391 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import java.util.Arrays;
+
+/**
+ * Symbol table of dotted names, such as package, source and import names,
+ * kept as a trie of name segments. Each distinct name is given a dense
+ * integer symbol, which is the node of its last segment; names sharing a
+ * prefix share the nodes of that prefix, and each distinct segment string
+ * is stored only once.
+ * <p>
+ * A name of n dots has n + 1 segments, some possibly empty, so every string
+ * has exactly one symbol and the string can be reproduced from the symbol.
+ * <p>
+ * Interning is not thread-safe; lookups may be made from multiple threads
+ * once no more names are being interned.
+ */
+final class NameTable {
+
+    static final int NONE = -1;
+
+    private static final char SEPARATOR = '.';
+    private static final int INITIAL_CAPACITY = 64;
+
+    // distinct segments and an open-addressed index of them
+    private String[] segments = new String[INITIAL_CAPACITY];
+    private int segmentCount = 0;
+    private int[] segmentSlots = emptySlots(INITIAL_CAPACITY * 2);
+
+    // trie nodes and an open-addressed index of them by parent and segment
+    private int[] parents = new int[INITIAL_CAPACITY];
+    private int[] nodeSegments = new int[INITIAL_CAPACITY];
+    private int[] lengths = new int[INITIAL_CAPACITY];
+    private int[] nameHashes = new int[INITIAL_CAPACITY];
+    private int symbolCount = 0;
+    private int[] childSlots = emptySlots(INITIAL_CAPACITY * 2);
+
+    /**
+     * Returns the number of distinct names interned so far, including the
+     * names of all their prefixes.
+     *
+     * @return symbol count
+     */
+    int size() {
+        return symbolCount;
+    }
+
+    /**
+     * Discards all interned names, leaving the table as if newly created.
+     */
+    void clear() {
+        segments = new String[INITIAL_CAPACITY];
+        segmentCount = 0;
+        segmentSlots = emptySlots(INITIAL_CAPACITY * 2);
+        parents = new int[INITIAL_CAPACITY];
+        nodeSegments = new int[INITIAL_CAPACITY];
+        lengths = new int[INITIAL_CAPACITY];
+        nameHashes = new int[INITIAL_CAPACITY];
+        symbolCount = 0;
+        childSlots = emptySlots(INITIAL_CAPACITY * 2);
+    }
+
+    /**
+     * Returns the symbol of the given name, adding the name if needed.
+     *
+     * @param name dotted name
+     * @return name symbol
+     */
+    int intern(CharSequence name) {
+        return intern(NONE, name, 0, name.length());
+    }
+
+    /**
+     * Returns the symbol of the name formed by appending a separator and the
+     * given range of characters to the name of the prefix symbol, adding the
+     * name if needed.
+     *
+     * @param prefix prefix symbol; {@link #NONE} for no prefix
+     * @param chars  characters holding the rest of the name
+     * @param start  start of the rest of the name, inclusive
+     * @param end    end of the rest of the name, exclusive
+     * @return name symbol
+     */
+    int intern(int prefix, CharSequence chars, int start, int end) {
+        int symbol = prefix;
+        int from = start;
+        while (true) {
+            int to = separatorIndex(chars, from, end);
+            symbol = internChild(symbol, internSegment(chars, from, to));
+            if (to == end) {
+                return symbol;
+            }
+            from = to + 1;
+        }
+    }
+
+    /**
+     * Returns the symbol of the given name, if the name was interned.
+     *
+     * @param name dotted name
+     * @return name symbol or {@link #NONE}
+     */
+    int find(CharSequence name) {
+        int symbol = NONE;
+        int from = 0;
+        int end = name.length();
+        while (true) {
+            int to = separatorIndex(name, from, end);
+            int segment = findSegment(name, from, to);
+            symbol = segment == NONE ? NONE : findChild(symbol, segment);
+            if (symbol == NONE || to == end) {
+                return symbol;
+            }
+            from = to + 1;
+        }
+    }
+
+    /**
+     * Returns the name of the given symbol.
+     *
+     * @param symbol name symbol
+     * @return dotted name
+     */
+    String name(int symbol) {
+        char[] chars = new char[lengths[symbol]];
+        int at = chars.length;
+        for (int s = symbol; s != NONE; s = parents[s]) {
+            String segment = segments[nodeSegments[s]];
+            at -= segment.length();
+            segment.getChars(0, segment.length(), chars, at);
+            if (parents[s] != NONE) {
+                chars[--at] = SEPARATOR;
+            }
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Returns the hash code of the name of the given symbol, which is the
+     * same as that of the name string, without producing the string.
+     *
+     * @param symbol name symbol
+     * @return name hash code
+     */
+    int nameHash(int symbol) {
+        return nameHashes[symbol];
+    }
+
+    /**
+     * Returns the symbol of the name without its last segment.
+     *
+     * @param symbol name symbol
+     * @return prefix symbol; {@link #NONE} for names of a single segment
+     */
+    int parent(int symbol) {
+        return parents[symbol];
+    }
+
+    /**
+     * Returns the last segment of the name of the given symbol.
+     *
+     * @param symbol name symbol
+     * @return last name segment
+     */
+    String lastSegment(int symbol) {
+        return segments[nodeSegments[symbol]];
+    }
+
+    /**
+     * Returns the number of distinct name segments.
+     *
+     * @return segment count
+     */
+    int segmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * Returns the name segment with the given index.
+     *
+     * @param index segment index
+     * @return name segment
+     */
+    String segment(int index) {
+        return segments[index];
+    }
+
+    /**
+     * Returns the index of the last segment of the name of the given symbol.
+     *
+     * @param symbol name symbol
+     * @return segment index
+     */
+    int segmentOf(int symbol) {
+        return nodeSegments[symbol];
+    }
+
+    /**
+     * Returns the index of the given name segment, adding it if needed.
+     * Segments are indexed in order of addition.
+     *
+     * @param segment name segment, without separators
+     * @return segment index
+     */
+    int internSegment(CharSequence segment) {
+        return internSegment(segment, 0, segment.length());
+    }
+
+    /**
+     * Indicates whether all segments of the name of the given symbol are
+     * empty, i.e. whether the name consists of nothing but separators.
+     *
+     * @param symbol name symbol
+     * @return true if the name is blank
+     */
+    boolean isBlank(int symbol) {
+        for (int s = symbol; s != NONE; s = parents[s]) {
+            if (!segments[nodeSegments[s]].isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int separatorIndex(CharSequence chars, int from, int end) {
+        int i = from;
+        while (i < end && chars.charAt(i) != SEPARATOR) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int[] emptySlots(int capacity) {
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, NONE);
+        return slots;
+    }
+
+    // Same as String.hashCode() over the range, spread over the low bits
+    private static int hash(CharSequence chars, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + chars.charAt(i);
+        }
+        return spread(h);
+    }
+
+    private static int hash(int parent, int segment) {
+        return spread(31 * (parent + 1) + segment * 0x9E3779B9);
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(String segment, CharSequence chars, int start, int end) {
+        if (segment.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (segment.charAt(i - start) != chars.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int findSegment(CharSequence chars, int start, int end) {
+        int mask = segmentSlots.length - 1;
+        for (int i = hash(chars, start, end) & mask; ; i = (i + 1) & mask) {
+            int segment = segmentSlots[i];
+            if (segment == NONE || matches(segments[segment], chars, start, end)) {
+                return segment;
+            }
+        }
+    }
+
+    private int internSegment(CharSequence chars, int start, int end) {
+        int mask = segmentSlots.length - 1;
+        int i = hash(chars, start, end) & mask;
+        while (segmentSlots[i] != NONE) {
+            if (matches(segments[segmentSlots[i]], chars, start, end)) {
+                return segmentSlots[i];
+            }
+            i = (i + 1) & mask;
+        }
+
+        int segment = segmentCount++;
+        if (segment == segments.length) {
+            segments = Arrays.copyOf(segments, segment * 2);
+        }
+        segments[segment] = chars.subSequence(start, end).toString();
+        segmentSlots[i] = segment;
+        if (segmentCount * 2 > segmentSlots.length) {
+            rehashSegments();
+        }
+        return segment;
+    }
+
+    private void rehashSegments() {
+        segmentSlots = emptySlots(segmentSlots.length * 2);
+        int mask = segmentSlots.length - 1;
+        for (int segment = 0; segment < segmentCount; segment++) {
+            int i = spread(segments[segment].hashCode()) & mask;
+            while (segmentSlots[i] != NONE) {
+                i = (i + 1) & mask;
+            }
+            segmentSlots[i] = segment;
+        }
+    }
+
+    private int findChild(int parent, int segment) {
+        int mask = childSlots.length - 1;
+        for (int i = hash(parent, segment) & mask; ; i = (i + 1) & mask) {
+            int symbol = childSlots[i];
+            if (symbol == NONE || (parents[symbol] == parent && nodeSegments[symbol] == segment)) {
+                return symbol;
+            }
+        }
+    }
+
+    /**
+     * Returns the symbol of the name formed by the prefix symbol and the
+     * segment with the given index, adding the name if needed.
+     *
+     * @param parent  prefix symbol; {@link #NONE} for no prefix
+     * @param segment segment index
+     * @return name symbol
+     */
+    int internChild(int parent, int segment) {
+        int mask = childSlots.length - 1;
+        int i = hash(parent, segment) & mask;
+        while (childSlots[i] != NONE) {
+            int symbol = childSlots[i];
+            if (parents[symbol] == parent && nodeSegments[symbol] == segment) {
+                return symbol;
+            }
+            i = (i + 1) & mask;
+        }
+
+        int symbol = symbolCount++;
+        if (symbol == parents.length) {
+            parents = Arrays.copyOf(parents, symbol * 2);
+            nodeSegments = Arrays.copyOf(nodeSegments, symbol * 2);
+            lengths = Arrays.copyOf(lengths, symbol * 2);
+            nameHashes = Arrays.copyOf(nameHashes, symbol * 2);
+        }
+        String chars = segments[segment];
+        int h = parent == NONE ? 0 : nameHashes[parent] * 31 + SEPARATOR;
+        for (int c = 0; c < chars.length(); c++) {
+            h = h * 31 + chars.charAt(c);
+        }
+        parents[symbol] = parent;
+        nodeSegments[symbol] = segment;
+        lengths[symbol] = chars.length() + (parent == NONE ? 0 : lengths[parent] + 1);
+        nameHashes[symbol] = h;
+        childSlots[i] = symbol;
+        if (symbolCount * 2 > childSlots.length) {
+            rehashChildren();
+        }
+        return symbol;
+    }
+
+    private void rehashChildren() {
+        childSlots = emptySlots(childSlots.length * 2);
+        int mask = childSlots.length - 1;
+        for (int symbol = 0; symbol < symbolCount; symbol++) {
+            int i = hash(parents[symbol], nodeSegments[symbol]) & mask;
+            while (childSlots[i] != NONE) {
+                i = (i + 1) & mask;
+            }
+            childSlots[i] = symbol;
+        }
+    }
+
+}
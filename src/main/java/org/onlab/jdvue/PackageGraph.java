@@ -0,0 +1,140 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the package dependency graph in which packages are
+ * identified by dense integer indexes, assigned in order of package names,
+ * and dependencies are held in compressed sparse row form. Packages removed
+ * by catalog updates are not part of the graph.
+ */
+final class PackageGraph {
+
+    private final CatalogGraph catalogGraph;
+    private final JavaPackage[] packages;
+    private final int[] indexes;
+    private final int[] offsets;
+    private final int[] targets;
+
+    /**
+     * Creates a snapshot of the packages of the given catalog graph and
+     * their resolved dependencies.
+     *
+     * @param catalogGraph catalog graph
+     */
+    PackageGraph(CatalogGraph catalogGraph) {
+        this.catalogGraph = catalogGraph;
+        int count = catalogGraph.packageCount();
+        List<JavaPackage> present = new ArrayList<>(count);
+        for (int id = 0; id < count; id++) {
+            if (!catalogGraph.isRemovedPackage(id)) {
+                present.add(catalogGraph.getPackage(id));
+            }
+        }
+        packages = JavaEntity.sortedByName(present).toArray(new JavaPackage[0]);
+        int n = packages.length;
+
+        // Map package ids to name-ordered indexes; -1 for removed packages
+        indexes = new int[count];
+        Arrays.fill(indexes, -1);
+        for (int i = 0; i < n; i++) {
+            indexes[packages[i].id()] = i;
+        }
+
+        offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            int id = packages[i].id();
+            offsets[i + 1] = offsets[i] + catalogGraph.dependencyEnd(id) - catalogGraph.dependencyStart(id);
+        }
+
+        targets = new int[offsets[n]];
+        for (int i = 0; i < n; i++) {
+            int id = packages[i].id();
+            int t = offsets[i];
+            for (int p = catalogGraph.dependencyStart(id), end = catalogGraph.dependencyEnd(id); p < end; p++) {
+                targets[t++] = indexes[catalogGraph.dependency(p)];
+            }
+            Arrays.sort(targets, offsets[i], t);
+        }
+    }
+
+    /**
+     * Returns the number of packages in the graph.
+     *
+     * @return number of packages
+     */
+    int size() {
+        return packages.length;
+    }
+
+    /**
+     * Returns the package with the specified index.
+     *
+     * @param index package index
+     * @return Java package
+     */
+    JavaPackage getPackage(int index) {
+        return packages[index];
+    }
+
+    /**
+     * Returns the index of the specified package.
+     *
+     * @param javaPackage Java package
+     * @return package index or -1 if the package is not in the graph
+     */
+    int indexOf(JavaPackage javaPackage) {
+        return javaPackage.graph() == catalogGraph && javaPackage.id() < indexes.length ?
+                indexes[javaPackage.id()] : -1;
+    }
+
+    /**
+     * Returns the position in the target array of the first dependency
+     * of the specified package.
+     *
+     * @param index package index
+     * @return start of the package dependencies, inclusive
+     */
+    int start(int index) {
+        return offsets[index];
+    }
+
+    /**
+     * Returns the position in the target array just past the last
+     * dependency of the specified package.
+     *
+     * @param index package index
+     * @return end of the package dependencies, exclusive
+     */
+    int end(int index) {
+        return offsets[index + 1];
+    }
+
+    /**
+     * Returns the index of the dependency target at the given position.
+     *
+     * @param position position in the target array
+     * @return index of the target package
+     */
+    int target(int position) {
+        return targets[position];
+    }
+
+}
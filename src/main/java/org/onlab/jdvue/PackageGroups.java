@@ -0,0 +1,342 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Groups of packages by name prefix, i.e. by leading dot-separated name
+ * segments, which a view may show collapsed into single nodes. A group
+ * contains the package named by its prefix, if there is one, and all
+ * packages named with the prefix followed by a dot.
+ * <p>
+ * Only prefixes shared by at least two packages make groups. Groups are
+ * initially expanded largest first for as long as the number of visible
+ * nodes, i.e. collapsed groups and packages outside of them, stays within
+ * the given limit.
+ */
+final class PackageGroups {
+
+    // orders groups largest first, then by name
+    private static final Comparator<Node> LARGEST_FIRST =
+            Comparator.comparingInt((Node n) -> -n.packages).thenComparing(n -> n.name);
+
+    private final Map<String, Node> nodes = new TreeMap<>();
+    private final Node root = new Node("");
+    private final int visibleCount;
+
+    /**
+     * Group of packages sharing a name prefix.
+     */
+    static final class Group {
+        private final Node node;
+
+        private Group(Node node) {
+            this.node = node;
+        }
+
+        /**
+         * Returns the name prefix shared by the packages of the group.
+         *
+         * @return group name
+         */
+        String name() {
+            return node.name;
+        }
+
+        /**
+         * Returns the total number of sources of the packages of the group.
+         *
+         * @return source count
+         */
+        int size() {
+            return node.size;
+        }
+
+        /**
+         * Returns the number of packages of the group.
+         *
+         * @return package count
+         */
+        int packageCount() {
+            return node.packages;
+        }
+
+        /**
+         * Returns the number of cycles through any package of the group.
+         *
+         * @return cycle count
+         */
+        int cycleCount() {
+            return node.cycles;
+        }
+
+        /**
+         * Indicates whether the group is initially expanded.
+         *
+         * @return true if expanded
+         */
+        boolean isExpanded() {
+            return node.expanded;
+        }
+
+        /**
+         * Returns the groups directly within this one, in name order.
+         *
+         * @return subgroups
+         */
+        List<Group> subgroups() {
+            List<Group> groups = new ArrayList<>();
+            for (Node child : node.children) {
+                if (child.packages > 1) {
+                    groups.add(new Group(child));
+                }
+            }
+            return groups;
+        }
+
+        /**
+         * Returns the packages directly within this group, i.e. those not
+         * within any of its subgroups, in name order.
+         *
+         * @return packages outside of the subgroups
+         */
+        List<JavaPackage> packages() {
+            List<JavaPackage> packages = new ArrayList<>();
+            if (node.javaPackage != null) {
+                packages.add(node.javaPackage);
+            }
+            for (Node child : node.children) {
+                if (child.packages == 1) {
+                    Node leaf = child;
+                    while (leaf.javaPackage == null) {
+                        leaf = leaf.children.get(0);
+                    }
+                    packages.add(leaf.javaPackage);
+                }
+            }
+            return packages;
+        }
+
+        /**
+         * Returns all packages of the group, including those of subgroups.
+         *
+         * @return group members
+         */
+        List<JavaPackage> members() {
+            List<JavaPackage> members = new ArrayList<>();
+            addMembers(node, members);
+            return members;
+        }
+
+        private static void addMembers(Node node, List<JavaPackage> members) {
+            if (node.javaPackage != null) {
+                members.add(node.javaPackage);
+            }
+            for (Node child : node.children) {
+                addMembers(child, members);
+            }
+        }
+
+        /**
+         * Indicates whether the named package belongs to the group.
+         *
+         * @param packageName package name
+         * @return true if the package is a member
+         */
+        boolean contains(String packageName) {
+            return packageName.startsWith(node.name) && (packageName.length() == node.name.length() ||
+                    packageName.charAt(node.name.length()) == '.');
+        }
+
+        @Override
+        public String toString() {
+            return toStringHelper(this)
+                    .add("name", name())
+                    .add("packages", packageCount())
+                    .add("expanded", isExpanded())
+                    .toString();
+        }
+    }
+
+    // Node of the name prefix tree
+    private static final class Node {
+        private final String name;
+        private final List<Node> children = new ArrayList<>();
+        private JavaPackage javaPackage;
+        private int size;
+        private int packages;
+        private int cycles;
+        private boolean expanded;
+
+        private Node(String name) {
+            this.name = name;
+        }
+
+        // Number of nodes visible in place of this one once expanded
+        private int entries() {
+            return children.size() + (javaPackage != null ? 1 : 0);
+        }
+    }
+
+    /**
+     * Groups the given packages and chooses the groups initially expanded.
+     *
+     * @param packages Java packages
+     * @param cycles   dependency cycles among the packages
+     * @param limit    maximum number of initially visible nodes
+     */
+    PackageGroups(Collection<JavaPackage> packages, Collection<DependencyCycle> cycles, int limit) {
+        nodes.put(root.name, root);
+        for (JavaPackage javaPackage : packages) {
+            add(javaPackage);
+        }
+
+        for (DependencyCycle cycle : cycles) {
+            Set<String> prefixes = new HashSet<>();
+            for (JavaPackage javaPackage : cycle.getCycle()) {
+                addPrefixes(javaPackage.name(), prefixes);
+            }
+            for (String prefix : prefixes) {
+                nodes.get(prefix).cycles++;
+            }
+        }
+
+        root.expanded = true;
+        int visible = root.entries();
+        PriorityQueue<Node> candidates = new PriorityQueue<>(LARGEST_FIRST);
+        addCandidates(root, candidates);
+        while (!candidates.isEmpty()) {
+            Node node = candidates.poll();
+            int cost = node.entries() - 1;
+            if (visible + cost <= limit) {
+                node.expanded = true;
+                visible += cost;
+                addCandidates(node, candidates);
+            }
+        }
+        visibleCount = visible;
+    }
+
+    // Adds the package to the node of every prefix of its name
+    private void add(JavaPackage javaPackage) {
+        String name = javaPackage.name();
+        int size = javaPackage.getSources().size();
+        Node parent = root;
+        int end = 0;
+        while (end >= 0) {
+            end = name.indexOf('.', end + 1);
+            String prefix = end < 0 ? name : name.substring(0, end);
+            Node node = nodes.get(prefix);
+            if (node == null) {
+                node = new Node(prefix);
+                nodes.put(prefix, node);
+                parent.children.add(node);
+            }
+            node.size += size;
+            node.packages++;
+            parent = node;
+        }
+        parent.javaPackage = javaPackage;
+        root.size += size;
+        root.packages++;
+    }
+
+    private static void addPrefixes(String name, Set<String> prefixes) {
+        int end = 0;
+        while (end >= 0) {
+            end = name.indexOf('.', end + 1);
+            prefixes.add(end < 0 ? name : name.substring(0, end));
+        }
+    }
+
+    private static void addCandidates(Node node, PriorityQueue<Node> candidates) {
+        for (Node child : node.children) {
+            if (child.packages > 1) {
+                candidates.add(child);
+            }
+        }
+    }
+
+    /**
+     * Returns the groups, in name order.
+     *
+     * @return package groups
+     */
+    List<Group> groups() {
+        List<Group> groups = new ArrayList<>();
+        for (Node node : nodes.values()) {
+            if (!node.name.isEmpty() && node.packages > 1) {
+                groups.add(new Group(node));
+            }
+        }
+        return Collections.unmodifiableList(groups);
+    }
+
+    /**
+     * Returns the name of the node which initially stands for the named
+     * package, i.e. that of the outermost collapsed group containing it, or
+     * the package name itself if no collapsed group contains it.
+     *
+     * @param packageName package name
+     * @return name of the initially visible node
+     */
+    String representative(String packageName) {
+        int end = packageName.indexOf('.');
+        while (true) {
+            String prefix = end < 0 ? packageName : packageName.substring(0, end);
+            Node node = nodes.get(prefix);
+            if (node != null && node.packages > 1 && !node.expanded) {
+                return prefix;
+            }
+            if (end < 0) {
+                return packageName;
+            }
+            end = packageName.indexOf('.', end + 1);
+        }
+    }
+
+    /**
+     * Returns the group of all packages, which is always expanded and not
+     * among the {@link #groups() groups}.
+     *
+     * @return root group
+     */
+    Group root() {
+        return new Group(root);
+    }
+
+    /**
+     * Returns the number of nodes initially visible.
+     *
+     * @return visible node count
+     */
+    int visibleCount() {
+        return visibleCount;
+    }
+
+}
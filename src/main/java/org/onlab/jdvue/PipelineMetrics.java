@@ -0,0 +1,370 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Timings and counts recorded for the phases of the analysis pipeline,
+ * such as loading, import resolution, cycle search and report writing.
+ * Each phase records its wall-clock time, the bytes allocated while it ran
+ * and any counts it chooses to report. Phases run again, e.g. by repeated
+ * loads, accumulate into the same entry.
+ * <p>
+ * Allocated bytes are summed over the thread which runs a phase and, so
+ * that parallel work is accounted for, the workers of the fork-join pool
+ * on which the phase does its parallel work. Allocations by pool workers
+ * which exit before the phase ends are missed. Allocated bytes are reported
+ * as -1 where the platform cannot measure them, and where the pool is shared
+ * with other work, whose allocations could not be told apart.
+ * <p>
+ * Metrics may be exported as JSON or in the Prometheus text exposition
+ * format.
+ */
+public class PipelineMetrics {
+
+    private static final String PROMETHEUS_PREFIX = "jdvue_phase_";
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final ForkJoinPool pool;
+    private final boolean measureAllocations;
+    private final Map<String, PhaseStats> phases = new LinkedHashMap<>();
+
+    /**
+     * Creates metrics which measure the allocations of the threads running
+     * the phases only.
+     */
+    public PipelineMetrics() {
+        this(null, true);
+    }
+
+    /**
+     * Creates metrics which measure the allocations of the threads running
+     * the phases and of the workers of the given fork-join pool.
+     *
+     * @param pool       fork-join pool on which the phases do their parallel
+     *                   work; null for none
+     * @param sharedPool true if the pool does other work while phases run,
+     *                   in which case allocations are not measured
+     */
+    PipelineMetrics(ForkJoinPool pool, boolean sharedPool) {
+        this.pool = pool;
+        this.measureAllocations = !sharedPool;
+    }
+
+    /**
+     * Starts timing the named phase, which is recorded once the returned
+     * phase is closed.
+     *
+     * @param name phase name
+     * @return running phase
+     */
+    public Phase start(String name) {
+        return new Phase(name);
+    }
+
+    /**
+     * Returns the names of the recorded phases, in the order in which they
+     * were first recorded.
+     *
+     * @return phase names
+     */
+    public synchronized List<String> phases() {
+        return Collections.unmodifiableList(new ArrayList<>(phases.keySet()));
+    }
+
+    /**
+     * Returns the total wall-clock time of the named phase.
+     *
+     * @param phase phase name
+     * @return time in nanoseconds; 0 if the phase was not recorded
+     */
+    public synchronized long wallNanos(String phase) {
+        PhaseStats stats = phases.get(phase);
+        return stats != null ? stats.wallNanos : 0;
+    }
+
+    /**
+     * Returns the total bytes allocated during the named phase.
+     *
+     * @param phase phase name
+     * @return allocated bytes; -1 if not measured or the phase was not
+     * recorded
+     */
+    public synchronized long allocatedBytes(String phase) {
+        PhaseStats stats = phases.get(phase);
+        return stats != null ? stats.allocatedBytes : -1;
+    }
+
+    /**
+     * Returns the total of the named count reported by the named phase.
+     *
+     * @param phase phase name
+     * @param count count name
+     * @return count total; 0 if never reported
+     */
+    public synchronized long count(String phase, String count) {
+        PhaseStats stats = phases.get(phase);
+        Long value = stats != null ? stats.counts.get(count) : null;
+        return value != null ? value : 0;
+    }
+
+    /**
+     * Writes the metrics to the given file, in the Prometheus text format
+     * if the file name ends with {@code .prom} or as JSON otherwise.
+     *
+     * @param path metrics file
+     * @throws IOException if issues encountered writing the file
+     */
+    public void write(Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            if (path.toString().endsWith(".prom")) {
+                writePrometheus(writer);
+            } else {
+                writeJson(writer);
+            }
+        }
+    }
+
+    /**
+     * Writes the metrics as a JSON object to the given writer, which is
+     * left open.
+     *
+     * @param writer metrics writer
+     * @throws IOException if issues encountered writing the metrics
+     */
+    public synchronized void writeJson(Writer writer) throws IOException {
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(writer)) {
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("phases");
+            for (Map.Entry<String, PhaseStats> entry : phases.entrySet()) {
+                PhaseStats stats = entry.getValue();
+                gen.writeStartObject();
+                gen.writeStringField("name", entry.getKey());
+                gen.writeNumberField("runs", stats.runs);
+                gen.writeNumberField("wallNanos", stats.wallNanos);
+                gen.writeNumberField("allocatedBytes", stats.allocatedBytes);
+                gen.writeObjectFieldStart("counts");
+                for (Map.Entry<String, Long> count : stats.counts.entrySet()) {
+                    gen.writeNumberField(count.getKey(), count.getValue());
+                }
+                gen.writeEndObject();
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+        writer.flush();
+    }
+
+    /**
+     * Writes the metrics in the Prometheus text exposition format to the
+     * given writer, which is left open.
+     *
+     * @param writer metrics writer
+     * @throws IOException if issues encountered writing the metrics
+     */
+    public synchronized void writePrometheus(Writer writer) throws IOException {
+        writeFamily(writer, "runs", "Number of times each phase ran.");
+        for (Map.Entry<String, PhaseStats> entry : phases.entrySet()) {
+            writeSample(writer, "runs", entry.getKey(), null, Long.toString(entry.getValue().runs));
+        }
+        writeFamily(writer, "seconds", "Wall-clock time spent in each phase.");
+        for (Map.Entry<String, PhaseStats> entry : phases.entrySet()) {
+            writeSample(writer, "seconds", entry.getKey(), null,
+                        String.format(Locale.ROOT, "%.9f", entry.getValue().wallNanos / NANOS_PER_SECOND));
+        }
+        writeFamily(writer, "allocated_bytes", "Bytes allocated by the threads of each phase.");
+        for (Map.Entry<String, PhaseStats> entry : phases.entrySet()) {
+            writeSample(writer, "allocated_bytes", entry.getKey(), null,
+                        Long.toString(entry.getValue().allocatedBytes));
+        }
+        writeFamily(writer, "count", "Counts reported by each phase.");
+        for (Map.Entry<String, PhaseStats> entry : phases.entrySet()) {
+            for (Map.Entry<String, Long> count : entry.getValue().counts.entrySet()) {
+                writeSample(writer, "count", entry.getKey(), count.getKey(), Long.toString(count.getValue()));
+            }
+        }
+        writer.flush();
+    }
+
+    private void writeFamily(Writer writer, String metric, String help) throws IOException {
+        writer.write("# HELP " + PROMETHEUS_PREFIX + metric + " " + help + "\n");
+        writer.write("# TYPE " + PROMETHEUS_PREFIX + metric + " gauge\n");
+    }
+
+    private void writeSample(Writer writer, String metric, String phase, String count,
+                             String value) throws IOException {
+        writer.write(PROMETHEUS_PREFIX + metric + "{phase=\"" + escape(phase) + "\"");
+        if (count != null) {
+            writer.write(",count=\"" + escape(count) + "\"");
+        }
+        writer.write("} " + value + "\n");
+    }
+
+    // Escapes a label value as required by the Prometheus text format
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    // Records a finished run of the named phase
+    private synchronized void record(String name, long wallNanos, long allocatedBytes, Map<String, Long> counts) {
+        PhaseStats stats = phases.computeIfAbsent(name, k -> new PhaseStats());
+        stats.runs++;
+        stats.wallNanos += wallNanos;
+        stats.allocatedBytes = stats.allocatedBytes < 0 || allocatedBytes < 0 ?
+                -1 : stats.allocatedBytes + allocatedBytes;
+        counts.forEach((k, v) -> stats.counts.merge(k, v, Long::sum));
+    }
+
+    // Bytes allocated so far by the calling thread and the live pool workers,
+    // keyed by thread id; null if not measurable
+    private Map<Long, Long> allocatedBytes() {
+        if (!measureAllocations || !(THREADS instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) {
+            return null;
+        }
+        long[] ids = measuredThreads();
+        long[] bytes = threads.getThreadAllocatedBytes(ids);
+        Map<Long, Long> allocated = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (bytes[i] >= 0) {
+                allocated.put(ids[i], bytes[i]);
+            }
+        }
+        return allocated;
+    }
+
+    // Ids of the calling thread and of the live workers of the pool
+    private long[] measuredThreads() {
+        Thread current = Thread.currentThread();
+        if (pool == null) {
+            return new long[]{current.getId()};
+        }
+        ThreadGroup root = current.getThreadGroup();
+        while (root.getParent() != null) {
+            root = root.getParent();
+        }
+        Thread[] threads = new Thread[root.activeCount() + pool.getParallelism() + 1];
+        int n = root.enumerate(threads, true);
+        long[] ids = new long[n + 1];
+        int count = 0;
+        ids[count++] = current.getId();
+        for (int i = 0; i < n; i++) {
+            if (threads[i] != current && threads[i] instanceof ForkJoinWorkerThread &&
+                    ((ForkJoinWorkerThread) threads[i]).getPool() == pool) {
+                ids[count++] = threads[i].getId();
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    // Bytes allocated between the two measurements by the threads measured
+    // at the end; threads new since the start count in full
+    private static long allocatedSince(Map<Long, Long> start, Map<Long, Long> end) {
+        long total = 0;
+        for (Map.Entry<Long, Long> entry : end.entrySet()) {
+            total += Math.max(entry.getValue() - start.getOrDefault(entry.getKey(), 0L), 0);
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return toStringHelper(this)
+                .add("phases", phases.keySet())
+                .toString();
+    }
+
+    // Accumulated measurements of a phase
+    private static final class PhaseStats {
+        private int runs;
+        private long wallNanos;
+        private long allocatedBytes;
+        private final Map<String, Long> counts = new LinkedHashMap<>();
+    }
+
+    /**
+     * Phase of the pipeline being timed; the measurements are recorded
+     * when the phase is closed, normally at the end of a try-with-resources
+     * block.
+     */
+    public final class Phase implements AutoCloseable {
+        private final String name;
+        private final long startNanos;
+        private final Map<Long, Long> startBytes;
+        private final Map<String, Long> counts = new LinkedHashMap<>();
+        private boolean closed;
+
+        private Phase(String name) {
+            this.name = name;
+            this.startBytes = allocatedBytes();
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Adds to the named count of this phase.
+         *
+         * @param count count name
+         * @param value amount to add
+         * @return this phase
+         */
+        public Phase count(String count, long value) {
+            counts.merge(count, value, Long::sum);
+            return this;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                long wallNanos = System.nanoTime() - startNanos;
+                Map<Long, Long> endBytes = startBytes == null ? null : allocatedBytes();
+                record(name, wallNanos, endBytes == null ? -1 : allocatedSince(startBytes, endBytes), counts);
+            }
+        }
+    }
+
+}
@@ -15,17 +15,54 @@
  */
 package org.onlab.jdvue;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Encapsulates the command line arguments for the Dependency Viewer.
  */
 public class ProgArgs {
-    private static final String USAGE = "Expected Args: <catalog path> [-d]";
+    private static final String USAGE = "Expected Args: <catalog path> [-d [text|bin|gz]] [-x] [-l] [-a <asset dir>] [-m] " +
+            "[-t [json|prom]] [-s [port]] [-r <source root>]... [-c <class root or jar>]...\n" +
+            "           or: <manifest path> -b [threads] [-d [text|bin|gz]] [-x] [-l] [-a <asset dir>] [-m] " +
+            "[-t [json|prom]]";
     private static final String DETAIL_DATA_FLAG = "-d";
+    private static final String MAPPED_LOAD_FLAG = "-m";
+    private static final String JDX_FLAG = "-x";
+    private static final String SHARDED_FLAG = "-l";
+    private static final String ASSET_DIR_FLAG = "-a";
+    private static final String SERVE_FLAG = "-s";
+    private static final String SOURCE_ROOT_FLAG = "-r";
+    private static final String CLASS_ROOT_FLAG = "-c";
+    private static final String BATCH_FLAG = "-b";
+    private static final String METRICS_FLAG = "-t";
+    private static final String JSON_FORMAT = "json";
+    private static final String PROMETHEUS_FORMAT = "prom";
+
+    /** Detail data format: text. */
+    public static final String TEXT_DETAILS = "text";
+    /** Detail data format: binary. */
+    public static final String BINARY_DETAILS = "bin";
+    /** Detail data format: gzip-compressed binary. */
+    public static final String GZIP_DETAILS = "gz";
 
     private final String catPath;
     private final String asString;
 
     private boolean outputDetailData = false;
+    private String detailFormat = TEXT_DETAILS;
+    private boolean mappedLoad = false;
+    private boolean outputJdx = false;
+    private boolean sharded = false;
+    private Path assetDir = null;
+    private int servePort = -1;
+    private int batchThreads = -1;
+    private String metricsFormat = null;
+    private final List<Path> sourceRoots = new ArrayList<>();
+    private final List<Path> classRoots = new ArrayList<>();
 
     public ProgArgs(String[] args) {
         if (args.length < 1) {
@@ -52,6 +89,38 @@ public class ProgArgs {
         for (int i = 1; i < args.length; i++) {
             if (DETAIL_DATA_FLAG.equals(args[i])) {
                 outputDetailData = true;
+                if (i + 1 < args.length && (args[i + 1].equals(TEXT_DETAILS) ||
+                        args[i + 1].equals(BINARY_DETAILS) || args[i + 1].equals(GZIP_DETAILS))) {
+                    detailFormat = args[++i];
+                }
+            } else if (MAPPED_LOAD_FLAG.equals(args[i])) {
+                mappedLoad = true;
+            } else if (JDX_FLAG.equals(args[i])) {
+                outputJdx = true;
+            } else if (SHARDED_FLAG.equals(args[i])) {
+                sharded = true;
+            } else if (ASSET_DIR_FLAG.equals(args[i]) && i + 1 < args.length) {
+                assetDir = Paths.get(args[++i]);
+            } else if (SERVE_FLAG.equals(args[i])) {
+                servePort = DependencyServer.DEFAULT_PORT;
+                if (i + 1 < args.length && args[i + 1].matches("\\d+")) {
+                    servePort = Integer.parseInt(args[++i]);
+                }
+            } else if (BATCH_FLAG.equals(args[i])) {
+                batchThreads = Runtime.getRuntime().availableProcessors();
+                if (i + 1 < args.length && args[i + 1].matches("[1-9]\\d*")) {
+                    batchThreads = Integer.parseInt(args[++i]);
+                }
+            } else if (METRICS_FLAG.equals(args[i])) {
+                metricsFormat = JSON_FORMAT;
+                if (i + 1 < args.length &&
+                        (args[i + 1].equals(JSON_FORMAT) || args[i + 1].equals(PROMETHEUS_FORMAT))) {
+                    metricsFormat = args[++i];
+                }
+            } else if (SOURCE_ROOT_FLAG.equals(args[i]) && i + 1 < args.length) {
+                sourceRoots.add(Paths.get(args[++i]));
+            } else if (CLASS_ROOT_FLAG.equals(args[i]) && i + 1 < args.length) {
+                classRoots.add(Paths.get(args[++i]));
             }
         }
     }
@@ -78,4 +147,125 @@ public class ProgArgs {
     public boolean outputDetailData() {
         return outputDetailData;
     }
+
+    /**
+     * Returns the format of the detail data, as given after the detail
+     * data flag: {@value #TEXT_DETAILS}, the default, {@value #BINARY_DETAILS}
+     * or {@value #GZIP_DETAILS}.
+     *
+     * @return detail data format
+     */
+    public String detailFormat() {
+        return detailFormat;
+    }
+
+    /**
+     * Returns true if the JDX flag was set.
+     *
+     * @return true if the JDX explorer page should be written
+     */
+    public boolean outputJdx() {
+        return outputJdx;
+    }
+
+    /**
+     * Returns true if the sharded report flag was set.
+     *
+     * @return true if the report data should be written as shards, which
+     *         the page loads lazily
+     */
+    public boolean sharded() {
+        return sharded;
+    }
+
+    /**
+     * Returns the directory of static assets shared by the reports, as
+     * given after the asset directory flag.
+     *
+     * @return shared asset directory; null if the reports should embed
+     *         their assets
+     */
+    public Path assetDir() {
+        return assetDir;
+    }
+
+    /**
+     * Returns true if the memory-mapped load flag was set.
+     *
+     * @return true if catalog should be loaded via memory-mapped file
+     */
+    public boolean mappedLoad() {
+        return mappedLoad;
+    }
+
+    /**
+     * Returns true if the serve flag was set.
+     *
+     * @return true if catalog queries should be served over HTTP
+     */
+    public boolean serve() {
+        return servePort >= 0;
+    }
+
+    /**
+     * Returns the port on which to serve catalog queries, as given after
+     * the serve flag or {@link DependencyServer#DEFAULT_PORT} by default.
+     *
+     * @return port number; -1 if the serve flag was not set
+     */
+    public int servePort() {
+        return servePort;
+    }
+
+    /**
+     * Returns the source roots to scan in place of reading the catalog file,
+     * each given after a source root flag.
+     *
+     * @return source root directories; empty to read the catalog file
+     */
+    public List<Path> sourceRoots() {
+        return Collections.unmodifiableList(sourceRoots);
+    }
+
+    /**
+     * Returns the class directories and jar files to scan in place of
+     * reading the catalog file, each given after a class root flag.
+     *
+     * @return class roots; empty to read the catalog file
+     */
+    public List<Path> classRoots() {
+        return Collections.unmodifiableList(classRoots);
+    }
+
+    /**
+     * Returns true if the batch flag was set, in which case the first
+     * argument names a manifest listing the catalog paths to process.
+     *
+     * @return true if a batch of catalogs should be processed
+     */
+    public boolean batch() {
+        return batchThreads > 0;
+    }
+
+    /**
+     * Returns the number of catalogs to process at a time, as given after
+     * the batch flag or the number of available processors by default.
+     *
+     * @return number of threads; -1 if the batch flag was not set
+     */
+    public int batchThreads() {
+        return batchThreads;
+    }
+
+    /**
+     * Returns the format in which to write the pipeline metrics, as given
+     * after the metrics flag: {@code json}, the default, or {@code prom}
+     * for the Prometheus text format. The format also serves as the
+     * extension of the metrics file.
+     *
+     * @return metrics format; null if the metrics flag was not set
+     */
+    public String metricsFormat() {
+        return metricsFormat;
+    }
 }
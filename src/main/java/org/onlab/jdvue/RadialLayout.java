@@ -0,0 +1,269 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Radial cluster layout of named leaves and hierarchical edge bundling of
+ * the links between them, as computed by the bundle view page with the d3
+ * cluster and bundle layouts, so that the page may merely draw them.
+ * <p>
+ * Leaves are arranged in a hierarchy by their dot-separated names, the way
+ * the page does it: a leaf whose name extends that of another leaf hangs
+ * off the parent of the other leaf. Leaves then take equal turns of the
+ * circle in depth-first order, with an extra turn between leaves of
+ * different parents, and the other nodes sit at the mean angle of their
+ * children. The root is at the centre and the leaves on the circle.
+ * <p>
+ * Angles are given as fractions of the full circle and radii as fractions
+ * of the radius of the circle of leaves. Nodes are numbered with the leaves
+ * first, in the given order, followed by the inner nodes, starting with the
+ * root. Each link is laid out as a path of nodes from its source leaf up to
+ * the nearest common ancestor and back down to its target leaf; these are
+ * the control points of its spline.
+ */
+final class RadialLayout {
+
+    // links laid out per fork-join task
+    private static final int LINK_THRESHOLD = 1024;
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final int leafCount;
+    private final int[][] paths;
+
+    // Node of the hierarchy
+    private static final class Node {
+        private final int id;
+        private final boolean leaf;
+        private final List<Node> children = new ArrayList<>();
+        private Node parent;
+        private int depth;
+        private double x;
+        private double y;
+
+        private Node(int id, boolean leaf) {
+            this.id = id;
+            this.leaf = leaf;
+        }
+    }
+
+    /**
+     * Lays out the given leaves and the links between them.
+     *
+     * @param leaves  leaf names, in the order given to the page
+     * @param imports for each leaf, the leaves it links to, in the order
+     *                given to the page
+     * @param pool    fork-join pool for laying out the links
+     */
+    RadialLayout(List<String> leaves, List<int[]> imports, ForkJoinPool pool) {
+        checkArgument(leaves.size() == imports.size(), "Imports must be given for each leaf");
+        leafCount = leaves.size();
+        if (leafCount == 0) {
+            paths = new int[0][];
+            return;
+        }
+
+        Map<String, Node> map = new HashMap<>();
+        for (String name : leaves) {
+            Node leaf = new Node(nodes.size(), true);
+            nodes.add(leaf);
+            map.put(name, leaf);
+        }
+        Node root = new Node(nodes.size(), false);
+        nodes.add(root);
+        for (int i = 0; i < leafCount; i++) {
+            buildHierarchy(nodes.get(i), leaves.get(i), root, map);
+        }
+
+        List<Node> order = new ArrayList<>();
+        cluster(root, order);
+
+        // links in the order the page derives them from the leaves
+        List<int[]> links = new ArrayList<>();
+        for (Node leaf : order) {
+            for (int target : imports.get(leaf.id)) {
+                links.add(new int[]{leaf.id, target});
+            }
+        }
+        paths = new int[links.size()][];
+        pool.invoke(new ForkJoinRange(0, paths.length, LINK_THRESHOLD, k -> {
+            int[] link = links.get(k);
+            paths[k] = path(nodes.get(link[0]), nodes.get(link[1]));
+        }));
+    }
+
+    // Hangs the leaf in the hierarchy, creating inner nodes for the leading
+    // segments of its name, until reaching another leaf or itself
+    private void buildHierarchy(Node leaf, String name, Node root, Map<String, Node> map) {
+        Node parent = root;
+        int start = 0;
+        while (start < name.length()) {
+            int dot = name.indexOf('.', start);
+            String prefix = dot > 0 ? name.substring(0, dot) : name;
+            Node node = map.get(prefix);
+            if (node == null) {
+                node = new Node(nodes.size(), false);
+                nodes.add(node);
+                map.put(prefix, node);
+                node.parent = parent;
+                node.depth = parent.depth + 1;
+                parent.children.add(node);
+            } else if (node.leaf) {
+                leaf.parent = parent;
+                leaf.depth = parent.depth + 1;
+                parent.children.add(leaf);
+                break;
+            }
+            parent = node;
+            start = prefix.length() + 1;
+        }
+    }
+
+    // Positions the nodes of the hierarchy and collects the leaves in
+    // depth-first order
+    private void cluster(Node root, List<Node> order) {
+        visit(root, order);
+        Node left = root;
+        while (!left.children.isEmpty()) {
+            left = left.children.get(0);
+        }
+        Node right = root;
+        while (!right.children.isEmpty()) {
+            right = right.children.get(right.children.size() - 1);
+        }
+        double x0 = left.x - separation(left, right) / 2;
+        double x1 = right.x + separation(right, left) / 2;
+        double height = root.y;
+        for (Node node : nodes) {
+            node.x = (node.x - x0) / (x1 - x0);
+            node.y = 1 - (height != 0 ? node.y / height : 1);
+        }
+    }
+
+    // Assigns leaves their turns along the circle and inner nodes the mean
+    // turn and the height of their children
+    private void visit(Node node, List<Node> order) {
+        if (node.children.isEmpty()) {
+            node.x = order.isEmpty() ? 0 :
+                    order.get(order.size() - 1).x + separation(node, order.get(order.size() - 1));
+            node.y = 0;
+            order.add(node);
+            return;
+        }
+        double x = 0;
+        double y = 0;
+        for (Node child : node.children) {
+            visit(child, order);
+            x += child.x;
+            y = Math.max(y, child.y);
+        }
+        node.x = x / node.children.size();
+        node.y = 1 + y;
+    }
+
+    private static double separation(Node a, Node b) {
+        return a.parent == b.parent ? 1 : 2;
+    }
+
+    // Returns the nodes from the source up to the nearest common ancestor
+    // and down to the target
+    private static int[] path(Node source, Node target) {
+        List<Node> up = new ArrayList<>();
+        List<Node> down = new ArrayList<>();
+        Node a = source;
+        Node b = target;
+        while (a.depth > b.depth) {
+            up.add(a);
+            a = a.parent;
+        }
+        while (b.depth > a.depth) {
+            down.add(b);
+            b = b.parent;
+        }
+        while (a != b) {
+            up.add(a);
+            down.add(b);
+            a = a.parent;
+            b = b.parent;
+        }
+        up.add(a);
+        int[] path = new int[up.size() + down.size()];
+        int i = 0;
+        for (Node node : up) {
+            path[i++] = node.id;
+        }
+        for (int j = down.size() - 1; j >= 0; j--) {
+            path[i++] = down.get(j).id;
+        }
+        return path;
+    }
+
+    /**
+     * Returns the number of leaves, which are the first nodes.
+     *
+     * @return leaf count
+     */
+    int leafCount() {
+        return leafCount;
+    }
+
+    /**
+     * Returns the number of nodes, leaves and inner nodes.
+     *
+     * @return node count
+     */
+    int nodeCount() {
+        return nodes.size();
+    }
+
+    /**
+     * Returns the angle of the given node.
+     *
+     * @param node node number
+     * @return angle as a fraction of the full circle
+     */
+    double angle(int node) {
+        return nodes.get(node).x;
+    }
+
+    /**
+     * Returns the distance of the given node from the centre.
+     *
+     * @param node node number
+     * @return radius as a fraction of the radius of the circle of leaves
+     */
+    double radius(int node) {
+        return nodes.get(node).y;
+    }
+
+    /**
+     * Returns the paths of the links, in the order the page draws them.
+     *
+     * @return paths, each the numbers of the nodes from the source leaf to
+     *         the target leaf
+     */
+    int[][] paths() {
+        return paths;
+    }
+
+}
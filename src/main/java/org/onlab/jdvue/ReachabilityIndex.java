@@ -0,0 +1,307 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Transitive reachability index of a package graph, computed over the
+ * condensed graph of its strongly connected components.
+ * <p>
+ * For each component, the index holds the set of components reachable from
+ * it by one or more dependencies, and the set of components from which it is
+ * reachable, each as a compressed bitset: a sorted array of runs of
+ * consecutive component numbers. Since components are numbered in the order
+ * in which Tarjan's algorithm completes them, the components reachable from
+ * one component were mostly completed during the same descent and so tend to
+ * form few long runs. Whether one package transitively depends on another is
+ * then a matter of a binary search over the runs of its component.
+ * <p>
+ * A component depends only on components with lower numbers, so the sets are
+ * computed a level of the condensed graph at a time, the components of each
+ * level in parallel, where the level of a component is the length of the
+ * longest path to a component on which nothing depends, or for dependents,
+ * from a component which depends on nothing.
+ */
+final class ReachabilityIndex {
+
+    // components whose sets are computed per fork-join task
+    private static final int COMPONENT_THRESHOLD = 64;
+
+    private static final int[] NO_RUNS = new int[0];
+
+    private final StronglyConnectedComponents scc;
+
+    // packages by component, in compressed sparse row form
+    private final int[] memberOffsets;
+    private final int[] members;
+
+    // runs of reachable components as [start, end) pairs, per component
+    private final int[][] dependencies;
+    private final int[][] dependents;
+
+    /**
+     * Computes the reachability index of the specified graph.
+     *
+     * @param graph package graph
+     * @param scc   strongly connected components of the graph
+     * @param pool  fork-join pool for computing the sets in parallel
+     */
+    ReachabilityIndex(PackageGraph graph, StronglyConnectedComponents scc, ForkJoinPool pool) {
+        this.scc = scc;
+        int n = graph.size();
+        int count = scc.count();
+
+        memberOffsets = new int[count + 1];
+        for (int i = 0; i < n; i++) {
+            memberOffsets[scc.component(i) + 1]++;
+        }
+        for (int c = 0; c < count; c++) {
+            memberOffsets[c + 1] += memberOffsets[c];
+        }
+        members = new int[n];
+        int[] next = Arrays.copyOf(memberOffsets, count);
+        for (int i = 0; i < n; i++) {
+            members[next[scc.component(i)]++] = i;
+        }
+
+        // Dependencies between components, in both directions
+        int[][] successors = new int[count][];
+        int[][] predecessors = new int[count][];
+        int[] outCounts = new int[count];
+        int[] inCounts = new int[count];
+        for (int s = 0; s < n; s++) {
+            for (int p = graph.start(s), end = graph.end(s); p < end; p++) {
+                int t = graph.target(p);
+                if (!scc.isCycleSegment(s, t)) {
+                    outCounts[scc.component(s)]++;
+                    inCounts[scc.component(t)]++;
+                }
+            }
+        }
+        for (int c = 0; c < count; c++) {
+            successors[c] = new int[outCounts[c]];
+            predecessors[c] = new int[inCounts[c]];
+        }
+        Arrays.fill(outCounts, 0);
+        Arrays.fill(inCounts, 0);
+        for (int s = 0; s < n; s++) {
+            for (int p = graph.start(s), end = graph.end(s); p < end; p++) {
+                int t = graph.target(p);
+                if (!scc.isCycleSegment(s, t)) {
+                    int cs = scc.component(s);
+                    int ct = scc.component(t);
+                    successors[cs][outCounts[cs]++] = ct;
+                    predecessors[ct][inCounts[ct]++] = cs;
+                }
+            }
+        }
+        for (int c = 0; c < count; c++) {
+            successors[c] = distinct(successors[c]);
+            predecessors[c] = distinct(predecessors[c]);
+        }
+
+        // Levels follow from component numbers: successors are lower
+        int[] levels = new int[count];
+        for (int c = 0; c < count; c++) {
+            for (int d : successors[c]) {
+                levels[c] = Math.max(levels[c], levels[d] + 1);
+            }
+        }
+        dependencies = new int[count][];
+        compute(dependencies, successors, levels, pool);
+
+        Arrays.fill(levels, 0);
+        for (int c = count - 1; c >= 0; c--) {
+            for (int d : predecessors[c]) {
+                levels[c] = Math.max(levels[c], levels[d] + 1);
+            }
+        }
+        dependents = new int[count][];
+        compute(dependents, predecessors, levels, pool);
+    }
+
+    // Returns the sorted distinct values of the given array
+    private static int[] distinct(int[] values) {
+        if (values.length == 0) {
+            return values;
+        }
+        Arrays.sort(values);
+        int k = 1;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] != values[k - 1]) {
+                values[k++] = values[i];
+            }
+        }
+        return k == values.length ? values : Arrays.copyOf(values, k);
+    }
+
+    // Computes the runs of each component from those of its neighbours, one
+    // level at a time, each level in parallel
+    private void compute(int[][] runs, int[][] neighbours, int[] levels, ForkJoinPool pool) {
+        int count = levels.length;
+        int height = 0;
+        for (int level : levels) {
+            height = Math.max(height, level + 1);
+        }
+        int[] offsets = new int[height + 1];
+        for (int level : levels) {
+            offsets[level + 1]++;
+        }
+        for (int l = 0; l < height; l++) {
+            offsets[l + 1] += offsets[l];
+        }
+        int[] order = new int[count];
+        int[] next = Arrays.copyOf(offsets, height);
+        for (int c = 0; c < count; c++) {
+            order[next[levels[c]]++] = c;
+        }
+
+        for (int l = 0; l < height; l++) {
+            pool.invoke(new ForkJoinRange(offsets[l], offsets[l + 1], COMPONENT_THRESHOLD, i -> {
+                int c = order[i];
+                runs[c] = reachable(c, neighbours[c], runs);
+            }));
+        }
+    }
+
+    // Returns the runs of components reachable from the given component,
+    // i.e. its neighbours and whatever is reachable from them, and the
+    // component itself if it is cyclic
+    private int[] reachable(int component, int[] neighbours, int[][] runs) {
+        int total = scc.isCyclic(component) ? 1 : 0;
+        for (int d : neighbours) {
+            total += 1 + runs[d].length / 2;
+        }
+        if (total == 0) {
+            return NO_RUNS;
+        }
+
+        // Runs packed as start and end in the high and low halves
+        long[] packed = new long[total];
+        int k = 0;
+        if (scc.isCyclic(component)) {
+            packed[k++] = run(component, component + 1);
+        }
+        for (int d : neighbours) {
+            packed[k++] = run(d, d + 1);
+            int[] r = runs[d];
+            for (int j = 0; j < r.length; j += 2) {
+                packed[k++] = run(r[j], r[j + 1]);
+            }
+        }
+        Arrays.sort(packed);
+
+        int[] merged = new int[2 * total];
+        int m = 0;
+        for (long run : packed) {
+            int start = (int) (run >>> 32);
+            int end = (int) run;
+            if (m > 0 && start <= merged[m - 1]) {
+                merged[m - 1] = Math.max(merged[m - 1], end);
+            } else {
+                merged[m++] = start;
+                merged[m++] = end;
+            }
+        }
+        return Arrays.copyOf(merged, m);
+    }
+
+    private static long run(int start, int end) {
+        return ((long) start << 32) | end;
+    }
+
+    // Indicates whether the component is within the given runs
+    private static boolean contains(int[] runs, int component) {
+        int low = 0;
+        int high = runs.length / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (component < runs[2 * mid]) {
+                high = mid - 1;
+            } else if (component >= runs[2 * mid + 1]) {
+                low = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Returns the indexes of the packages of the components within the runs
+    private BitSet packages(int[] runs) {
+        BitSet packages = new BitSet();
+        for (int j = 0; j < runs.length; j += 2) {
+            for (int p = memberOffsets[runs[j]], end = memberOffsets[runs[j + 1]]; p < end; p++) {
+                packages.set(members[p]);
+            }
+        }
+        return packages;
+    }
+
+    /**
+     * Indicates whether the first package depends on the second one, either
+     * directly or by way of other packages.
+     *
+     * @param source index of the dependent package
+     * @param target index of the package depended on
+     * @return true if the target is reachable from the source
+     */
+    boolean dependsOn(int source, int target) {
+        return contains(dependencies[scc.component(source)], scc.component(target));
+    }
+
+    /**
+     * Returns the packages on which the specified package depends, either
+     * directly or by way of other packages. The package itself is among them
+     * exactly if it is part of a dependency cycle.
+     *
+     * @param index package index
+     * @return indexes of the packages depended on
+     */
+    BitSet dependencies(int index) {
+        return packages(dependencies[scc.component(index)]);
+    }
+
+    /**
+     * Returns the packages which depend on the specified package, either
+     * directly or by way of other packages. The package itself is among them
+     * exactly if it is part of a dependency cycle.
+     *
+     * @param index package index
+     * @return indexes of the dependent packages
+     */
+    BitSet dependents(int index) {
+        return packages(dependents[scc.component(index)]);
+    }
+
+    /**
+     * Returns the total number of runs held by the index, which is a measure
+     * of its size.
+     *
+     * @return number of runs
+     */
+    long runCount() {
+        long count = 0;
+        for (int c = 0; c < dependencies.length; c++) {
+            count += dependencies[c].length / 2 + dependents[c].length / 2;
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import com.google.common.hash.Hashing;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Directory of static report assets, i.e. style sheets and scripts, shared
+ * by any number of reports which reference them rather than embed them.
+ * <p>
+ * Each asset file is named after its resource with a hash of its content
+ * appended, e.g. {@code d3.v3.min-0123456789abcdef.js}, so that a changed
+ * asset gets a new name and browsers may cache the files indefinitely.
+ * Asset files are written only if not present already, and atomically, so
+ * that concurrent report generators may share the directory. They are
+ * created with the default file permissions, so that they may be served
+ * by a web server running as another user.
+ */
+public class ReportAssets {
+
+    // hexadecimal digits of the content hash in asset file names
+    private static final int HASH_LENGTH = 16;
+
+    private final Path dir;
+    private final Set<String> written = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates the assets of the given shared directory.
+     *
+     * @param dir asset directory; created when the first asset is written
+     */
+    public ReportAssets(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Returns the asset directory.
+     *
+     * @return asset directory
+     */
+    public Path dir() {
+        return dir;
+    }
+
+    /**
+     * Returns the name of the asset file with the given content, writing
+     * the file unless it exists.
+     *
+     * @param resourceName name of the resource with the asset content
+     * @param content      asset content
+     * @return asset file name
+     * @throws IOException if unable to write the asset file
+     */
+    String publish(String resourceName, String content) throws IOException {
+        int dot = resourceName.lastIndexOf('.');
+        String hash = Hashing.sha256().hashString(content, StandardCharsets.UTF_8).toString();
+        String fileName = resourceName.substring(0, dot) + "-" + hash.substring(0, HASH_LENGTH) +
+                resourceName.substring(dot);
+        if (!written.contains(fileName)) {
+            Path file = dir.resolve(fileName);
+            if (!Files.exists(file)) {
+                Files.createDirectories(dir);
+                // a temp file of our own naming, so that the asset gets the
+                // default permissions rather than createTempFile's owner-only ones
+                Path temp = dir.resolve(fileName + "." +
+                                                Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+                try {
+                    Files.write(temp, content.getBytes(StandardCharsets.UTF_8),
+                                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                    Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            }
+            written.add(fileName);
+        }
+        return fileName;
+    }
+
+    /**
+     * Returns the URL of the asset with the given content relative to the
+     * given report directory, writing the asset file unless it exists.
+     *
+     * @param reportDir    directory of the report referencing the asset
+     * @param resourceName name of the resource with the asset content
+     * @param content      asset content
+     * @return relative asset URL
+     * @throws IOException if unable to write the asset file
+     */
+    String reference(Path reportDir, String resourceName, String content) throws IOException {
+        Path file = dir.resolve(publish(resourceName, content)).toAbsolutePath().normalize();
+        Path relative = reportDir.toAbsolutePath().normalize().relativize(file);
+        return relative.toString().replace(File.separatorChar, '/');
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("dir", dir)
+                .toString();
+    }
+
+}
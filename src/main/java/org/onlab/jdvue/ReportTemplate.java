@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Text template tokenized into literal segments and the placeholders
+ * between them, so that it can be rendered any number of times without
+ * searching the text again. Templates are immutable and may be rendered
+ * from multiple threads.
+ */
+public final class ReportTemplate {
+
+    /**
+     * Writer of the text which replaces a placeholder.
+     */
+    public interface PlaceholderWriter {
+        /**
+         * Writes the replacement of the given placeholder.
+         *
+         * @param placeholder placeholder being replaced
+         * @param writer      writer of the rendered text
+         * @throws IOException if issues encountered writing the replacement
+         */
+        void write(String placeholder, Writer writer) throws IOException;
+    }
+
+    // literals[i] precedes placeholders[i]; the last literal ends the text
+    private final String[] literals;
+    private final String[] placeholders;
+
+    private ReportTemplate(String[] literals, String[] placeholders) {
+        this.literals = literals;
+        this.placeholders = placeholders;
+    }
+
+    /**
+     * Tokenizes the given text at every occurrence of any of the given
+     * placeholders. Where placeholders overlap, the one which starts first
+     * is taken, or the one listed first if they start together.
+     *
+     * @param text         template text
+     * @param placeholders placeholders to look for
+     * @return template
+     */
+    public static ReportTemplate parse(String text, String... placeholders) {
+        List<String> literals = new ArrayList<>();
+        List<String> found = new ArrayList<>();
+        int start = 0;
+        while (true) {
+            int at = -1;
+            String placeholder = null;
+            for (String candidate : placeholders) {
+                int i = text.indexOf(candidate, start);
+                if (i >= 0 && (at < 0 || i < at)) {
+                    at = i;
+                    placeholder = candidate;
+                }
+            }
+            if (placeholder == null) {
+                literals.add(text.substring(start));
+                return new ReportTemplate(literals.toArray(new String[literals.size()]),
+                                          found.toArray(new String[found.size()]));
+            }
+            literals.add(text.substring(start, at));
+            found.add(placeholder);
+            start = at + placeholder.length();
+        }
+    }
+
+    /**
+     * Returns the placeholders in the order in which they occur.
+     *
+     * @return placeholders, possibly repeated
+     */
+    public List<String> placeholders() {
+        return Collections.unmodifiableList(Arrays.asList(placeholders));
+    }
+
+    /**
+     * Renders the template to the given writer, which is left open.
+     *
+     * @param writer            writer of the rendered text
+     * @param placeholderWriter writer of the placeholder replacements
+     * @throws IOException if issues encountered writing the text
+     */
+    public void render(Writer writer, PlaceholderWriter placeholderWriter) throws IOException {
+        for (int i = 0; i < placeholders.length; i++) {
+            writer.write(literals[i]);
+            placeholderWriter.write(placeholders[i], writer);
+        }
+        writer.write(literals[placeholders.length]);
+        writer.flush();
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import java.util.Arrays;
+
+/**
+ * Strongly connected components of a package graph, computed in linear time
+ * using an iterative rendition of Tarjan's algorithm.
+ * <p>
+ * Components are numbered in the order in which Tarjan's algorithm completes
+ * them, which is a reverse topological order of the condensed graph; any
+ * dependency between two different components leads from a component with
+ * a higher number to one with a lower number.
+ */
+final class StronglyConnectedComponents {
+
+    private static final int UNVISITED = -1;
+
+    private final int[] components;
+    private final int[] sizes;
+    private final boolean[] cyclic;
+    private final int count;
+
+    /**
+     * Computes the strongly connected components of the specified graph.
+     *
+     * @param graph package graph
+     */
+    StronglyConnectedComponents(PackageGraph graph) {
+        int n = graph.size();
+        components = new int[n];
+
+        int[] index = new int[n];
+        int[] low = new int[n];
+        boolean[] onStack = new boolean[n];
+        boolean[] selfLoop = new boolean[n];
+        int[] stack = new int[n];
+        int[] callStack = new int[n];
+        int[] positions = new int[n];
+        Arrays.fill(index, UNVISITED);
+
+        int sp = 0;
+        int nextIndex = 0;
+        int nextComponent = 0;
+        for (int root = 0; root < n; root++) {
+            if (index[root] != UNVISITED) {
+                continue;
+            }
+
+            // Emulate the recursive descent with an explicit call stack
+            int csp = 0;
+            index[root] = low[root] = nextIndex++;
+            stack[sp++] = root;
+            onStack[root] = true;
+            callStack[csp] = root;
+            positions[csp++] = graph.start(root);
+
+            while (csp > 0) {
+                int v = callStack[csp - 1];
+                int position = positions[csp - 1];
+                if (position < graph.end(v)) {
+                    positions[csp - 1]++;
+                    int w = graph.target(position);
+                    if (w == v) {
+                        selfLoop[v] = true;
+                    } else if (index[w] == UNVISITED) {
+                        index[w] = low[w] = nextIndex++;
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        callStack[csp] = w;
+                        positions[csp++] = graph.start(w);
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+
+                // All dependencies of v are done; pop it off the call stack
+                csp--;
+                if (low[v] == index[v]) {
+                    int w;
+                    do {
+                        w = stack[--sp];
+                        onStack[w] = false;
+                        components[w] = nextComponent;
+                    } while (w != v);
+                    nextComponent++;
+                }
+                if (csp > 0) {
+                    int u = callStack[csp - 1];
+                    low[u] = Math.min(low[u], low[v]);
+                }
+            }
+        }
+
+        count = nextComponent;
+        sizes = new int[count];
+        cyclic = new boolean[count];
+        for (int v = 0; v < n; v++) {
+            int c = components[v];
+            sizes[c]++;
+            cyclic[c] |= selfLoop[v] || sizes[c] > 1;
+        }
+    }
+
+    /**
+     * Returns the number of strongly connected components.
+     *
+     * @return number of components
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * Returns the component to which the specified package belongs.
+     *
+     * @param index package index
+     * @return component number
+     */
+    int component(int index) {
+        return components[index];
+    }
+
+    /**
+     * Returns the number of packages in the specified component.
+     *
+     * @param component component number
+     * @return number of packages
+     */
+    int size(int component) {
+        return sizes[component];
+    }
+
+    /**
+     * Indicates whether the specified component contains any dependency
+     * cycles, i.e. whether it has more than one package or its sole package
+     * depends on itself.
+     *
+     * @param component component number
+     * @return true if the component is cyclic
+     */
+    boolean isCyclic(int component) {
+        return cyclic[component];
+    }
+
+    /**
+     * Indicates whether the existing dependency between the two specified
+     * packages is part of some dependency cycle, which is the case exactly
+     * when both packages belong to the same component.
+     *
+     * @param source index of the dependent package
+     * @param target index of the package depended on
+     * @return true if the dependency is a cycle segment
+     */
+    boolean isCycleSegment(int source, int target) {
+        return components[source] == components[target];
+    }
+
+}
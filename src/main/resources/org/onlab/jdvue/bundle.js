@@ -0,0 +1,543 @@
+    var diameter = 1600,
+            radius = diameter / 2,
+            innerRadius = radius - 300;
+
+    var cluster = d3.layout.cluster()
+            .size([360, innerRadius])
+            .sort(null)
+            .value(function(d) { return d.size; });
+
+    var bundle = d3.layout.bundle();
+
+    var line = d3.svg.line.radial()
+            .interpolate("bundle")
+            .tension(.75)
+            .radius(function(d) { return d.y; })
+            .angle(function(d) { return d.x / 180 * Math.PI; });
+
+    var svg = d3.select("body").append("svg")
+            .attr("width", diameter)
+            .attr("height", diameter)
+            .append("g")
+            .attr("transform", "translate(" + radius + "," + radius + ")");
+
+    var linkLayer = svg.append("g"),
+            nodeLayer = svg.append("g"),
+            link = linkLayer.selectAll(".link"),
+            node = nodeLayer.selectAll(".node"),
+            cycles = {}, highlightCycles = true, selectedNode,
+            groups = {}, expanded = {}, reps = {},
+            visible = {}, edges = {}, expandedGroups = {};
+
+    function isCyclicLink(l) {
+        return highlightCycles &&
+                (cycles[l.source.key + "-" + l.target.key] || cycles[l.target.key + "-" + l.source.key]);
+    }
+
+    function isCyclicPackageLink(l, p) {
+        var key = l.source.key + "-" + l.target.key,
+                rKey = l.target.key + "-" + l.source.key;
+        return isCyclicLink(l) && p.cycleSegments && (p.cycleSegments[key] || p.cycleSegments[rKey]);
+    }
+
+    function refreshPaths() {
+        svg.selectAll("path.link").classed("link--cycle", isCyclicLink);
+    }
+
+    function processCatalog() {
+        d3.select("input[type=checkbox]").on("change", function() {
+            highlightCycles = this.checked;
+            refreshPaths();
+        });
+
+        d3.select("input[type=range]").on("change", function() {
+            line.tension(this.value / 100);
+            link.attr("d", function(d) { return line(d); });
+        });
+
+        d3.select("#packageCount").text(catalog.summary.packages);
+        d3.select("#sourceCount").text(catalog.summary.sources);
+        d3.select("#segmentCount").text(catalog.summary.cycleSegments);
+        d3.select("#cycleCount").text(catalog.summary.cycles);
+
+        // Large catalogs come with package groups, some of them collapsed
+        if (catalog.groups) {
+            catalog.groups.forEach(function(g) {
+                groups[g.name] = g;
+                expanded[g.name] = g.expanded;
+            });
+            d3.select("#lod").style("display", "block");
+        } else if (catalog.shards) {
+            catalog.expanded.forEach(function(g) {
+                expandedGroups[g.name] = g;
+            });
+            catalog.leaves.forEach(function(e) {
+                visible[e.name] = e;
+            });
+            catalog.links.forEach(function(l) {
+                addEdge(catalog.leaves[l[0]].name, catalog.leaves[l[1]].name, l[2], l[3]);
+            });
+            d3.select("#lod").style("display", "block");
+        }
+
+        render();
+    }
+
+    // Lays out and draws the visible nodes and the links between them.
+    // The initial view comes laid out with the catalog.
+    function render() {
+        var leaves = catalog.shards ? shardLeaves() : catalog.groups ? visibleLeaves() : catalog.packages,
+                layout = catalog.layout,
+                nodes = layout ? laidOutNodes(leaves, layout) : cluster.nodes(packageHierarchy(leaves)),
+                splines = layout ? laidOutLinks(nodes, layout) : bundle(packageImports(nodes));
+        delete catalog.layout;
+
+        cycles = catalog.shards ? shardSegments() :
+                catalog.groups ? visibleSegments(catalog.cycleSegments, {}) : catalog.cycleSegments;
+        selectedNode = null;
+        d3.select(".details").classed("shown", false);
+        linkLayer.selectAll("*").remove();
+        nodeLayer.selectAll("*").remove();
+
+        link = linkLayer.selectAll(".link")
+                .data(splines)
+                .enter().append("path")
+                .each(function(d) { d.source = d[0], d.target = d[d.length - 1], d.weight = linkWeight(d); })
+                .attr("class", "link")
+                .classed("link--cycle", isCyclicLink)
+                .style("stroke-width", linkWidth)
+                .attr("d", function(d) { return line(d); });
+
+        node = nodeLayer.selectAll(".node")
+                .data(nodes.filter(function(n) { return !n.children; }))
+                .enter().append("text")
+                .attr("class", "node")
+                .classed("node--group", function(d) { return d.group; })
+                .attr("dy", ".31em")
+                .attr("transform", function(d) { return "rotate(" + (d.x - 90) + ")translate(" + (d.y + 8) + ",0)" + (d.x < 180 ? "" : "rotate(180)"); })
+                .style("text-anchor", function(d) { return d.x < 180 ? "start" : "end"; })
+                .text(function(d) { return d.label || d.key; })
+                .on("focus", processSelect)
+                .on("blur", processSelect)
+                .on("click", processClick);
+
+        d3.select("#visibleCount").text(node.size());
+    }
+
+    // Places the leaves and the inner nodes as laid out with the catalog.
+    function laidOutNodes(leaves, layout) {
+        return layout.nodes.map(function(n, i) {
+            var d = i < leaves.length ? leaves[i] : {children: []};
+            if (i < leaves.length) {
+                d.key = d.name;
+            }
+            d.x = n[0] * 360;
+            d.y = n[1] * innerRadius;
+            return d;
+        });
+    }
+
+    // Returns the links as laid out with the catalog, i.e. as paths of nodes.
+    function laidOutLinks(nodes, layout) {
+        return layout.links.map(function(path) {
+            return path.map(function(n) { return nodes[n]; });
+        });
+    }
+
+    function linkWeight(l) {
+        return l.source.weights ? l.source.weights[l.target.name] : 1;
+    }
+
+    // Bundled links get wider with the number of imports they stand for.
+    function linkWidth(l) {
+        return l.weight > 1 ? Math.min(1 + Math.log(l.weight), 8) + "px" : null;
+    }
+
+    // Expands a collapsed group, or on shift-click collapses the innermost
+    // group around a node.
+    function processClick(d) {
+        if (!catalog.groups && !catalog.shards) {
+            return;
+        }
+        var name = d3.event.shiftKey ? enclosingGroup(d.name, d.group) : d.group ? d.name : null;
+        if (!name) {
+            return;
+        }
+        if (!catalog.shards) {
+            expanded[name] = !d3.event.shiftKey;
+            render();
+        } else if (d3.event.shiftKey) {
+            collapseShard(name);
+            render();
+        } else {
+            expandShard(d);
+        }
+    }
+
+    function enclosingGroup(name, isGroup) {
+        var prefix = isGroup ? name.substring(0, Math.max(name.lastIndexOf("."), 0)) : name;
+        while (prefix) {
+            if (groups[prefix] || expandedGroups[prefix]) {
+                return prefix;
+            }
+            prefix = prefix.substring(0, Math.max(prefix.lastIndexOf("."), 0));
+        }
+        return null;
+    }
+
+    // Returns the name of the outermost collapsed group containing the
+    // named package, or the package name if none does.
+    function representative(name) {
+        var end = name.indexOf("."), prefix;
+        while (true) {
+            prefix = end < 0 ? name : name.substring(0, end);
+            if (groups[prefix] && !expanded[prefix]) {
+                return prefix;
+            }
+            if (end < 0) {
+                return name;
+            }
+            end = name.indexOf(".", end + 1);
+        }
+    }
+
+    // Returns the visible leaves, i.e. the collapsed groups and the packages
+    // outside of them, each importing what any of its packages imports.
+    function visibleLeaves() {
+        var leaves = {}, list = [];
+        reps = {};
+        catalog.packages.forEach(function(p) {
+            reps[p.name] = representative(p.name);
+        });
+
+        catalog.packages.forEach(function(p) {
+            var r = reps[p.name], leaf = leaves[r], g;
+            if (!leaf) {
+                g = !expanded[r] && groups[r];
+                leaf = leaves[r] = g ?
+                        {name: r, label: r + ".* (" + g.packages + ")", group: true, size: g.size,
+                            cycleCount: g.cycleCount, imports: [], weights: {}, members: []} :
+                        {name: r, size: p.size, cycleCount: p.cycleCount, cycleSegmentCount: p.cycleSegmentCount,
+                            imports: [], weights: {}, members: []};
+                list.push(leaf);
+            }
+            leaf.members.push(p);
+            p.imports.forEach(function(i) {
+                var t = reps[i];
+                if (t !== undefined && t !== r) {
+                    if (!leaf.weights[t]) {
+                        leaf.weights[t] = 0;
+                        leaf.imports.push(t);
+                    }
+                    leaf.weights[t]++;
+                }
+            });
+        });
+        return list;
+    }
+
+    // Adds the given cyclic segments to the visible ones, as segments
+    // between the visible leaves.
+    function visibleSegments(segments, visible) {
+        for (var key in segments) {
+            var s = repOf(segments[key].s), t = repOf(segments[key].t);
+            if (s !== undefined && t !== undefined && s !== t) {
+                visible[t + "-" + s] = {s: s, t: t};
+            }
+        }
+        return visible;
+    }
+
+    function repOf(name) {
+        return catalog.shards ? shardRep(name) : reps[name];
+    }
+
+    // Sharded data: the visible leaves and the links between them are kept
+    // as they are and change only as groups expand and collapse.
+
+    function addEdge(s, t, count, cyclic) {
+        var key = s + ">" + t,
+                edge = edges[key] || (edges[key] = {s: s, t: t, count: 0, cyclic: false});
+        edge.count += count;
+        edge.cyclic = edge.cyclic || !!cyclic;
+    }
+
+    function inGroup(name, group) {
+        return name === group || name.lastIndexOf(group + ".", 0) === 0;
+    }
+
+    // Returns the name of the visible leaf containing the named package.
+    function shardRep(name) {
+        var end = name.indexOf("."), prefix;
+        while (true) {
+            prefix = end < 0 ? name : name.substring(0, end);
+            if (visible[prefix] && visible[prefix].group) {
+                return prefix;
+            }
+            if (end < 0) {
+                return visible[name] ? name : undefined;
+            }
+            end = name.indexOf(".", end + 1);
+        }
+    }
+
+    function shardLeaves() {
+        var leaves = {}, list = [];
+        for (var name in visible) {
+            var e = visible[name];
+            list.push(leaves[name] = {name: name, label: e.group ? name + ".* (" + e.packages + ")" : null,
+                group: e.group, size: e.size, cycleCount: e.cycleCount, cycleSegmentCount: e.cycleSegmentCount,
+                shard: e.shard, imports: [], weights: {}});
+        }
+        for (var key in edges) {
+            var l = edges[key];
+            leaves[l.s].imports.push(l.t);
+            leaves[l.s].weights[l.t] = l.count;
+        }
+        return list;
+    }
+
+    function shardSegments() {
+        var segments = {};
+        for (var key in edges) {
+            var l = edges[key];
+            if (l.cyclic) {
+                segments[l.t + "-" + l.s] = {s: l.s, t: l.t};
+            }
+        }
+        return segments;
+    }
+
+    // Fetches the shard of the group and replaces the group by its children
+    // and its links by theirs.
+    function expandShard(d) {
+        d3.json(catalog.shards + "g" + d.shard + ".json", function(error, shard) {
+            var group = visible[d.name];
+            if (error || !group || !group.group) {
+                return;
+            }
+            delete visible[d.name];
+            expandedGroups[d.name] = group;
+            for (var key in edges) {
+                if (edges[key].s === d.name || edges[key].t === d.name) {
+                    delete edges[key];
+                }
+            }
+
+            shard.children.forEach(function(c) {
+                visible[c.name] = c;
+            });
+            shard.children.forEach(function(c) {
+                c.out.forEach(function(l) {
+                    var t = shardRep(l[0]);
+                    if (t && t !== c.name) {
+                        addEdge(c.name, t, l[1], l[2]);
+                    }
+                });
+                c.in.forEach(function(l) {
+                    var s = shardRep(l[0]);
+                    if (s && !inGroup(s, d.name)) {
+                        addEdge(s, c.name, l[1], l[2]);
+                    }
+                });
+                delete c.out;
+                delete c.in;
+            });
+            render();
+        });
+    }
+
+    // Replaces the leaves within the group by the group, bundling their links.
+    function collapseShard(name) {
+        var group = expandedGroups[name], old = edges;
+        for (var g in expandedGroups) {
+            if (inGroup(g, name)) {
+                delete expandedGroups[g];
+            }
+        }
+        for (var v in visible) {
+            if (inGroup(v, name)) {
+                delete visible[v];
+            }
+        }
+        visible[name] = group;
+
+        edges = {};
+        for (var key in old) {
+            var l = old[key],
+                    s = inGroup(l.s, name) ? name : l.s,
+                    t = inGroup(l.t, name) ? name : l.t;
+            if (s !== t) {
+                addEdge(s, t, l.count, l.cyclic);
+            }
+        }
+    }
+
+    function processSelect(d) {
+        if (selectedNode === d) {
+            deselected(d);
+            selectedNode = null;
+
+        } else if (selectedNode) {
+            deselected(selectedNode);
+            selectedNode = d;
+            selected(d);
+
+        } else {
+            selected(d);
+            selectedNode = d;
+        }
+    }
+
+    function selected(d) {
+        if (d.members && !d.cycleSegments) {
+            d.cycleSegments = {};
+            d.members.forEach(function(p) {
+                visibleSegments(p.cycleSegments, d.cycleSegments);
+            });
+            if (d.group) {
+                d.cycleSegmentCount = Object.keys(d.cycleSegments).length;
+            }
+        } else if (catalog.shards && !d.cycleSegments && d.group) {
+            d.cycleSegments = {};
+            for (var key in cycles) {
+                if (cycles[key].s === d.name || cycles[key].t === d.name) {
+                    d.cycleSegments[key] = cycles[key];
+                }
+            }
+            d.cycleSegmentCount = Object.keys(d.cycleSegments).length;
+        } else if (catalog.shards && !d.cycleSegments && !d.loading) {
+            // Package cycle segments come with the package shard
+            d.loading = true;
+            d3.json(catalog.shards + "p" + d.shard + ".json", function(error, shard) {
+                if (!error) {
+                    d.cycleSegments = visibleSegments(shard.cycleSegments, {});
+                    if (selectedNode === d) {
+                        selected(d);
+                    }
+                }
+            });
+        }
+
+        node
+                .each(function(n) { n.target = n.source = false; })
+                .classed("node--focus", function(n) { return n === d; });
+
+        link
+                .classed("link--cycle", function(l) { return isCyclicPackageLink(l, d); })
+                .classed("link--target", function(l) { if (l.target === d) return l.source.source = true; })
+                .classed("link--source", function(l) { if (l.source === d) return l.target.target = true; })
+                .filter(function(l) { return l.target === d || l.source === d; })
+                .each(function() { this.parentNode.appendChild(this); });
+
+        node
+                .classed("node--target", function(n) { return n.target; })
+                .classed("node--source", function(n) { return n.source; });
+
+        d3.select("#psourceCount").text(d.size);
+        d3.select("#pdependentCount").text(d.imports.length);
+        d3.select("#psegmentCount").text(d.cycleSegmentCount);
+        d3.select("#pcycleCount").text(d.cycleCount);
+        d3.select(".details").classed("shown", function() { return true; });
+    }
+
+    function deselected(d) {
+        link
+                .classed("link--cycle", isCyclicLink)
+                .classed("link--target", false)
+                .classed("link--source", false);
+
+        node
+                .classed("node--target", false)
+                .classed("node--source", false)
+                .classed("node--focus", false);
+        d3.select(".details").classed("shown", function() { return false; });
+    }
+
+    d3.select(self.frameElement).style("height", diameter + "px");
+
+    // Lazily construct the package hierarchy.
+    function packageHierarchy(packages) {
+        var map = {}, cnt = 0;
+
+        // Builds the structure top-down to the specified leaf or until
+        // another leaf in which case hook this leaf to the same parent
+        function buildHierarchy(leaf, i) {
+            var leafName = leaf.name,
+                    node, name, parent = map[""], start = 0;
+            while (start < leafName.length) {
+                name = parentName(leafName, start);
+                node = map[name];
+                if (!node) {
+                    node = map[name] = parentNode(name, parent);
+                    parent.children.push(node);
+
+                } else if (node.imports) {
+                    leaf.parent = parent;
+                    parent.children.push(leaf);
+                    break;
+                }
+                parent = node;
+                start = name.length + 1;
+            }
+        }
+
+        function parentNode(name, parent) {
+            return {name: name, parent: parent, key: name, children: []};
+        }
+
+        function parentName(leafName, start) {
+            var i = leafName.indexOf(".", start);
+            return i > 0 ? leafName.substring(0, i) : leafName;
+        }
+
+        // First populate all packages as leafs
+        packages.forEach(function(d) {
+            map[d.name] = d;
+            d.key = d.name;
+        });
+
+        // Next synthesize the intermediate structure, by-passing any leafs
+        map[""] = parentNode("", null);
+        var i = 0;
+        packages.forEach(function(d) {
+            buildHierarchy(d, i++);
+        });
+
+        return map[""];
+    }
+
+    // Return a list of imports for the given array of nodes.
+    function packageImports(nodes) {
+        var map = {},
+                imports = [];
+
+        // Compute a map from name to node.
+        nodes.forEach(function(d) {
+            map[d.name] = d;
+        });
+
+        // For each import, construct a link from the source to target node.
+        nodes.forEach(function(d) {
+            if (d.imports) d.imports.forEach(function(i) {
+                imports.push({source: map[d.name], target: map[i]});
+            });
+        });
+
+        return imports;
+    }
+
+    // Sharded data is fetched, starting with its index
+    if (catalog.shards) {
+        d3.json(catalog.shards + "index.json", function(error, index) {
+            if (error) {
+                d3.select(".title").text("Unable to load " + catalog.shards + "index.json");
+                return;
+            }
+            index.shards = catalog.shards;
+            catalog = index;
+            processCatalog();
+        });
+    } else {
+        processCatalog();
+    }
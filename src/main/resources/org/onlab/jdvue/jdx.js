@@ -0,0 +1,401 @@
+/* -------------- */
+/* Internal State */
+/* -------------- */
+
+const $cont = $('#container');
+const $sbar = $('#sidebar');
+const $sump = $('#summary-pane');
+const $selp = $('#select-pane');
+const $detp = $('#detail-pane');
+const $lists = $('#lists');
+const $plist = $('#pkg-list .content');
+const $slist = $('#src-list .content');
+const $ilist = $('#imp-list .content');
+
+const sel = {
+    pi: -1,
+    si: -1,
+    $p: null,
+    $s: null,
+};
+
+const srcDepMap = {};
+const cycles = [];
+const pkgCycMap = {};
+
+
+/* -------------------- */
+/* Function Definitions */
+/* -------------------- */
+
+const logVersion = () => {
+    $('#ver').text("JDX " + jdxVersion);
+    console.log('JDX version', jdxVersion);
+    console.log('jQuery version', $().jquery);
+};
+
+const inflateData = () => {
+    console.log('Inflating data...')
+    
+    codedDeps.forEach(d => {
+        let [src, tgt] = d.split('>');
+        let impList = srcDepMap[src];
+        if (!impList) {
+            impList = [];
+            srcDepMap[src] = impList;
+        }
+        impList.push(tgt);
+    });
+    
+    codedCycles.forEach((c, ci) => {
+      let cp = c.split("}");
+      cp.pop();
+      cycles.push(cp);
+      cp.forEach(pi => {
+        let cis = pkgCycMap[pi] || [];
+        cis.push(ci);
+        pkgCycMap[pi] = cis;
+      });
+    });
+    //console.log('cycles...', cycles);
+    //console.log('package cycles...', pkgCycMap);
+};
+
+const div = cls => $('<div>').addClass(cls);
+const clickable = $d => $d.addClass('clickable');
+
+
+/* --- SIDEBAR panels --- */
+
+const addSpacer = $div => $div.append(div('stat-spacer'));
+
+const addStat = ($div, lab, val, lj) => {
+    const $l = div('stat-label').html(lab);
+    const $v = div('stat-value').html(val);
+    const cls = lj ? 'stat-item-lj' : 'stat-item';
+    const $si = div(cls).append($l).append($v);
+    $div.append($si);
+}
+
+const nextItem = (arr, item) => {
+  let n = arr.indexOf(item) + 1;
+  n = n === arr.length ? 0 : n;
+  return arr[n];
+};
+
+const getDeps = (pi, pCyc) => {
+  let tagNext = {};
+  pCyc.forEach(ci => {
+    tagNext[nextItem(cycles[ci], pi)] = 1;
+  });
+  return Object.keys(tagNext);
+};
+
+const popCycLinks = ($sl, pi, pCyc) => {
+  getDeps(pi, pCyc).forEach(k => {
+    addStat($sl, '&rarr;', insSpaces(xP(k)), 1);
+  });
+};
+    
+const popImpCycLinks = ($sl, cycImps) => {
+  cycImps.forEach(dd => {
+    addStat($sl, '&rarr;', insSpaces(xxFqSStr(dd)), 1);
+  });
+};
+    
+const popSummary = () => {
+    $sump.find('h1').text(`Project ${jdxMeta.basename}`);
+    const $sl = $sump.find('.stat-list');
+    addStat($sl, "Packages", jdxMeta.npkgs);
+    addStat($sl, "Classes", jdxMeta.nsrcs);
+    addStat($sl, "Cycles", jdxMeta.ncycs);
+    addStat($sl, "Roots", jdxMeta.nroots);
+};
+
+$sump.click(ev => deselectPackage());
+
+const updatePkgStats = ($pane, pi) => {
+    let nSrc = sources[pi].length;
+    
+    let isRoot = codedRoots.includes(parseInt(pi, 10));
+    $pane.toggleClass('root', isRoot);
+    
+    let pCyc = pkgCycMap[pi] || [];
+    let nCyc = pCyc.length;
+    let inCyc = nCyc > 0;
+    $pane.toggleClass('incyc', inCyc);
+    
+    $pane.find('h1').text(insSpaces(xP(pi)));
+    const $sl = $pane.find('.stat-list');
+    $sl.empty();
+    isRoot && addStat($sl, "Root", "(no dependencies)");
+    addStat($sl, "Classes", nSrc);
+    if (inCyc) {
+      addSpacer($sl);
+      addStat($sl, "Cycle Count", nCyc); 
+      popCycLinks($sl, pi, pCyc);
+    }
+};
+
+const fillPkgDetails = pi => {
+    updatePkgStats($detp, pi);
+};
+
+const updateSrcStats = ($pane, si) => {
+    let fq = mkFqsi(si);
+    let deps = srcDepMap[fq] || [];
+    let ddps = pkgsFromFqsiList(deps);
+    let cycps = pkgsInCycs(ddps);
+    let imps = [];
+    let cycImps = [];
+    
+    deps.forEach(dd => {
+        imps.push(dd);
+        let [p, s] = dd.split('.');
+        cycps.includes(p) && cycImps.push(dd);
+    });
+    let inCyc = cycImps.length > 0;
+    
+    $pane.toggleClass('incyc', inCyc);
+    $pane.find('h1').text(xxS(fq));
+    const $sl = $pane.find('.stat-list');
+    $sl.empty();
+    addStat($sl, "Imports", imps.length);
+    if (inCyc) {
+      addSpacer($sl);
+      addStat($sl, "Cycle Count", cycImps.length); 
+      popImpCycLinks($sl, cycImps);
+    }
+};
+
+const fillSrcDetails = $s => {
+    updateSrcStats($detp, $s.attr('data-idx'));
+};
+
+
+/* --- DATA wrangling --- */
+
+const insSpaces = z => z.replace(/\./g, ' .');
+
+const xP = x => packages[x];
+const xPStr = x => `${xP(x)} (${sources[x].length})`;
+const xxPSi = xx => xx.split('.');
+const xxS = xx => {
+    let [p, s] = xxPSi(xx);
+    return sources[p][s];
+};
+const xxSStr = xx => {
+    let deps = srcDepMap[xx] || []
+    return `${xxS(xx)} (${deps.length})`
+};
+const xxFqSStr = xx => {
+    let [p, s] = xxPSi(xx);
+    return `${xP(p)}.${sources[p][s]}`
+};
+
+const pkgsFromFqsiList = arr => {
+    let pTags = {};
+    arr.forEach(fq => {
+      pTags[fq.split('.')[0]] = 1;
+    });
+    return Object.keys(pTags);
+};
+ 
+const pkgsInCycs = arr => {
+    let inCycs = Object.keys(pkgCycMap);
+    return arr.filter(pi => inCycs.includes(pi));
+};
+
+const navTo = ssi => {
+    console.log('** NAV TO **', ssi);
+    deselectPackage();
+    const [p, s] = xxPSi(ssi);
+    doPClick($plist.find(`.item[data-idx="${p}"]`));
+    doSClick($slist.find(`.item[data-idx="${s}"]`));
+};
+
+
+/* --- PACKAGE list --- */
+
+const packageHover = pi => {
+    fillPkgDetails(pi);
+    $detp.show();
+};
+
+const sourceHover = $s => {
+    fillSrcDetails($s);
+    $detp.show();
+};
+
+const clearHover = () => {
+    $detp.hide();
+};
+
+const pkgRef = pi => `[${pi}] ${xP(pi)}`;
+
+$plist.click(ev => doPClick($(ev.target)));
+
+const doPClick = $p => {
+    if (sel.$p) {
+        deselectPackage();
+    }
+    selectPackage($p, $p.attr('data-idx'));
+};
+
+const deselectPackage = () => {
+    sel.$p && sel.$p.removeClass('selected');
+    sel.$p = null;
+    sel.pi = -1;
+    clearSourceList();
+    clearImportList();
+    $selp.hide();
+};
+
+const selectPackage = ($p, pi) => {
+    console.log(`Selecting package ${pkgRef(pi)}`);
+    
+    $p.addClass('selected');
+    sel.$p = $p;
+    sel.pi = pi;
+    popSourceList(pi);
+    updatePkgStats($selp, sel.pi);
+    $selp.show();
+};
+
+const popPackageList = () => {
+    for (let pi=0; pi<packages.length; pi++) {
+        let $item = clickable(div('item').text(xPStr(pi)));
+        $item.attr('data-idx', pi);
+        $item.hover(ev => packageHover($(ev.target).attr('data-idx')),
+                    ev => clearHover());
+        // mark root packages
+        codedRoots.includes(pi) && $item.addClass('root').attr('data-root', 1);
+        // mark packages that are found in cycles
+        pkgCycMap[pi] && $item.addClass('incyc');
+                
+        $plist.append($item);
+    }
+};
+
+
+/* --- SOURCE list --- */
+
+const mkFqsi = si => sel.pi < 0 ? `-.${si}` : `${sel.pi}.${si}`;
+
+const srcRef = si => {
+    let fqsi = mkFqsi(si);
+    return `[${fqsi}] ${xxFqSStr(fqsi)}`;
+};
+
+$slist.click(ev => doSClick($(ev.target)));
+
+const doSClick = $s => {
+    let si = $s.attr('data-idx');
+    if (si !== undefined) {
+        sel.$s && deselectSource();
+        selectSource($s, si);
+    }
+};
+
+const deselectSource = () => {
+    sel.$s.removeClass('selected');
+    clearImportList();
+};
+
+const selectSource = ($s, si) => {
+    console.log(`Selecting source ${srcRef(si)}`);
+    
+    $s.addClass('selected');
+    sel.$s = $s;
+    sel.si = si;
+    popImportList(si);
+};
+
+const popSourceList = pi => {
+    for (let si=0; si<sources[pi].length; si++) {
+        let fq = mkFqsi(si);
+        let sdeps = srcDepMap[fq] || [];
+        let depps = pkgsFromFqsiList(sdeps);
+        let cycps = pkgsInCycs(depps);
+        let inCyc = cycps.length > 0;
+        
+        let $item = clickable(div('item').text(xxSStr(mkFqsi(si))));
+        $item.attr('data-idx', si);
+        $item.attr('data-depp', depps);
+        $item.attr('data-depc', cycps);
+        $item.toggleClass('incyc', inCyc);
+        
+        $item.hover(ev => sourceHover($(ev.target)),
+                    ev => clearHover());
+
+        $slist.append($item);
+    }
+};
+
+const clearSourceList = () => {
+    $slist.empty();
+    sel.$s = null;
+    sel.si = -1;
+};
+
+
+/* --- IMPORT list --- */
+
+$ilist.click(ev => {
+    let $tgt = $(ev.target);
+    let ssi = $tgt.attr('data-dd');
+    if (ssi !== undefined) {
+        console.log(`Clicked on import [${ssi}] ${xxFqSStr(ssi)}`);
+        navTo(ssi);
+    }
+});
+
+const popImportList = si => {
+    let deps = srcDepMap[mkFqsi(si)] || [];
+    let ddps = pkgsFromFqsiList(deps);
+    let cycps = pkgsInCycs(ddps);
+
+    deps.forEach(dd => {
+        let [p, s] = dd.split('.');
+        let inCyc = cycps.includes(p);
+        
+        let $item = clickable(div('item').text(xxFqSStr(dd)));
+        $item.attr('data-dd', dd);
+        $item.toggleClass('incyc', inCyc);
+        
+        $ilist.append($item);
+    });
+};
+
+const clearImportList = () => {
+    $ilist.empty();
+};
+
+const matchHeightToWindow = () => {
+    const vfudge = 16;
+    const v = $(window).height() - vfudge;
+    const lv = v - 20;
+    const ldv = lv - 20;
+    const ldcv = ldv - 24;
+    
+    $cont.height(v);
+    $sbar.height(lv);
+    $('#lists').height(lv);
+    $('#lists>div').height(ldv);
+    $('#lists .content').height(ldcv);
+};
+const jdxVersion = "1.0.1";
+
+
+/* ------------------------- */
+/* Mainline Code starts here */
+/* ------------------------- */
+
+console.log('Now under New Management!');
+matchHeightToWindow();
+$(window).on('resize', matchHeightToWindow);
+
+logVersion();
+inflateData();
+popSummary();
+popPackageList();
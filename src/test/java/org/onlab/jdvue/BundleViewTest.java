@@ -0,0 +1,240 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the bundle view generator.
+ */
+public class BundleViewTest {
+
+    private static final String DATA_START = "var catalog =";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Copies the named test catalog into the temporary folder, then loads
+    // and analyzes it
+    private Catalog analyzed(String name) throws IOException {
+        String base = folder.getRoot() + "/" + name;
+        Files.copy(Paths.get("src/test/resources/" + name + ".db"), Paths.get(base + ".db"));
+        Catalog cat = new Catalog(base);
+        cat.load();
+        cat.analyze();
+        return cat;
+    }
+
+    @Test
+    public void html() throws IOException {
+        Catalog cat = analyzed("catalog");
+        String base = cat.basePath();
+
+        BundleView view = new BundleView(cat);
+        view.writeHTMLFile();
+        String html = new String(Files.readAllBytes(Paths.get(base + ".html")), StandardCharsets.UTF_8);
+        assertEquals("incorrect page", view.toHTML(), html);
+        assertFalse("placeholders should be replaced", html.contains("_PLACEHOLDER"));
+        assertTrue("title should be present", html.contains("<title>" + base + "</title>"));
+
+        assertTrue("data should be present", html.contains(DATA_START));
+        JsonNode data = data(html);
+        assertEquals("incorrect package count", 12, data.get("packages").size());
+        assertEquals("incorrect segment count", 11, data.get("cycleSegments").size());
+        assertEquals("incorrect cycle count", 5, data.get("summary").get("cycles").asInt());
+
+        JsonNode k = null;
+        for (JsonNode node : data.get("packages")) {
+            k = node.get("name").asText().equals("k") ? node : k;
+        }
+        assertEquals("incorrect package cycle count", 3, k.get("cycleCount").asInt());
+        assertEquals("incorrect package import count", 1, k.get("imports").size());
+    }
+
+    @Test
+    public void groups() throws IOException {
+        Catalog cat = analyzed("non_maven_cat");
+
+        JsonNode data = data(new BundleView(cat).toHTML());
+        assertFalse("groups should be absent", data.has("groups"));
+
+        data = data(new BundleView(cat, 2).toHTML());
+        assertEquals("incorrect package count", 3, data.get("packages").size());
+        JsonNode groups = data.get("groups");
+        assertEquals("incorrect group count", 2, groups.size());
+        assertEquals("incorrect group", "com", groups.get(0).get("name").asText());
+        assertTrue("group should be expanded", groups.get(0).get("expanded").asBoolean());
+        assertEquals("incorrect group", "com.foobar", groups.get(1).get("name").asText());
+        assertFalse("group should be collapsed", groups.get(1).get("expanded").asBoolean());
+        assertEquals("incorrect group package count", 3, groups.get(1).get("packages").asInt());
+        assertEquals("incorrect group size", cat.getSources().size(), groups.get(1).get("size").asInt());
+        assertEquals("incorrect laid out node count", 3, data.get("layout").get("nodes").size());
+    }
+
+    @Test
+    public void layout() throws IOException {
+        Catalog cat = analyzed("catalog");
+        String base = cat.basePath();
+
+        JsonNode layout = data(new BundleView(cat).toHTML()).get("layout");
+        int packages = cat.getPackages().size();
+        int dependencies = 0;
+        for (JavaPackage javaPackage : cat.getPackages()) {
+            dependencies += javaPackage.getDependencies().size();
+        }
+        assertEquals("incorrect link count", dependencies, layout.get("links").size());
+        for (int i = 0; i < packages; i++) {
+            JsonNode node = layout.get("nodes").get(i);
+            assertTrue("incorrect angle", node.get(0).asDouble() >= 0 && node.get(0).asDouble() < 1);
+            assertEquals("leaves should be on the circle", 1.0, node.get(1).asDouble(), 0);
+        }
+        assertEquals("root should be at the centre", 0.0, layout.get("nodes").get(packages).get(1).asDouble(), 0);
+        for (JsonNode path : layout.get("links")) {
+            assertTrue("link should run from leaf", path.get(0).asInt() < packages);
+            assertTrue("link should run to leaf", path.get(path.size() - 1).asInt() < packages);
+        }
+
+        new BundleView(cat).writeShardedHTMLFile();
+        JsonNode index = new ObjectMapper().readTree(Paths.get(base + ".shards/index.json").toFile());
+        assertEquals("incorrect link count", index.get("links").size(), index.get("layout").get("links").size());
+    }
+
+    @Test
+    public void shards() throws IOException {
+        Catalog cat = analyzed("catalog");
+        String base = cat.basePath();
+
+        new BundleView(cat).writeShardedHTMLFile();
+        String html = new String(Files.readAllBytes(Paths.get(base + ".html")), StandardCharsets.UTF_8);
+        assertEquals("incorrect shard location", "catalog.shards/", data(html).get("shards").asText());
+
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode index = mapper.readTree(Paths.get(base + ".shards/index.json").toFile());
+        assertEquals("incorrect cycle count", 5, index.get("summary").get("cycles").asInt());
+        assertEquals("incorrect leaf count", 12, index.get("leaves").size());
+        int dependencies = 0;
+        int cyclic = 0;
+        for (JsonNode link : index.get("links")) {
+            dependencies += link.get(2).asInt();
+            cyclic += link.get(3).asInt();
+        }
+        int expected = 0;
+        for (JavaPackage javaPackage : cat.getPackages()) {
+            expected += javaPackage.getDependencies().size();
+        }
+        assertEquals("incorrect dependency count", expected, dependencies);
+        assertEquals("incorrect cyclic link count", 11, cyclic);
+
+        JsonNode k = null;
+        for (JsonNode leaf : index.get("leaves")) {
+            k = leaf.get("name").asText().equals("k") ? leaf : k;
+        }
+        JsonNode shard = mapper.readTree(Paths.get(base + ".shards/p" + k.get("shard").asInt() + ".json").toFile());
+        assertEquals("incorrect package", "k", shard.get("name").asText());
+        assertEquals("incorrect package cycle count", 3, shard.get("cycleCount").asInt());
+    }
+
+    @Test
+    public void staleShards() throws IOException {
+        Catalog cat = analyzed("catalog");
+        String base = cat.basePath();
+
+        Path shardDir = Files.createDirectories(Paths.get(base + ".shards"));
+        Path staleGroup = Files.write(shardDir.resolve("g9999.json"), "{}".getBytes(StandardCharsets.UTF_8));
+        Path stalePackage = Files.write(shardDir.resolve("p9999.json"), "{}".getBytes(StandardCharsets.UTF_8));
+        Path other = Files.write(shardDir.resolve("notes.json"), "{}".getBytes(StandardCharsets.UTF_8));
+
+        new BundleView(cat).writeShardedHTMLFile();
+        assertFalse("stale group shard should be deleted", Files.exists(staleGroup));
+        assertFalse("stale package shard should be deleted", Files.exists(stalePackage));
+        assertTrue("other files should be kept", Files.exists(other));
+        assertTrue("index should be written", Files.exists(shardDir.resolve("index.json")));
+        assertEquals("incorrect stale shard count", 2, cat.metrics().count("writeShardedHTMLFile", "staleShards"));
+    }
+
+    @Test
+    public void groupShards() throws IOException {
+        Catalog cat = analyzed("non_maven_cat");
+        String base = cat.basePath();
+
+        new BundleView(cat, 2).writeShardedHTMLFile();
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode index = mapper.readTree(Paths.get(base + ".shards/index.json").toFile());
+        assertEquals("incorrect expanded group", "com", index.get("expanded").get(0).get("name").asText());
+        assertEquals("incorrect leaf count", 1, index.get("leaves").size());
+        JsonNode group = index.get("leaves").get(0);
+        assertEquals("incorrect leaf", "com.foobar", group.get("name").asText());
+        assertEquals("no links expected", 0, index.get("links").size());
+
+        JsonNode shard = mapper.readTree(Paths.get(base + ".shards/g" + group.get("shard").asInt() + ".json")
+                                                 .toFile());
+        assertEquals("incorrect child count", 3, shard.get("children").size());
+        int out = 0;
+        int in = 0;
+        for (JsonNode child : shard.get("children")) {
+            for (JsonNode link : child.get("out")) {
+                out += link.get(1).asInt();
+            }
+            for (JsonNode link : child.get("in")) {
+                in += link.get(1).asInt();
+            }
+        }
+        int expected = 0;
+        for (JavaPackage javaPackage : cat.getPackages()) {
+            expected += javaPackage.getDependencies().size();
+        }
+        assertEquals("incorrect outgoing link count", expected, out);
+        assertEquals("incorrect incoming link count", expected, in);
+    }
+
+    @Test
+    public void assets() throws IOException {
+        Catalog cat = analyzed("catalog");
+        String base = cat.basePath();
+
+        BundleView view = new BundleView(cat);
+        String embedded = view.toHTML();
+        view.setAssets(new ReportAssets(folder.getRoot().toPath().resolve("assets")));
+        view.writeHTMLFile();
+        String html = new String(Files.readAllBytes(Paths.get(base + ".html")), StandardCharsets.UTF_8);
+        assertTrue("d3 should be referenced", html.matches("(?s).*<script src=\"assets/d3\\.v3\\.min-\\w+\\.js\">.*"));
+        assertTrue("style should be referenced", html.matches("(?s).*<link rel=\"stylesheet\" href=\"assets/bundle-\\w+\\.css\">.*"));
+        assertTrue("script should be referenced", html.matches("(?s).*<script src=\"assets/bundle-\\w+\\.js\">.*"));
+        assertTrue("page should shrink", html.length() * 10 < embedded.length());
+        assertEquals("incorrect asset count", 3, folder.getRoot().toPath().resolve("assets").toFile().list().length);
+        assertEquals("incorrect data", data(embedded).toString(), data(html).toString());
+    }
+
+    private static JsonNode data(String html) throws IOException {
+        int start = html.indexOf(DATA_START);
+        return new ObjectMapper().readTree(html.substring(start + DATA_START.length(), html.indexOf(';', start)));
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for processing a batch of catalogs.
+ */
+public class CatalogBatchTest {
+
+    private static final String[] CATALOGS = {"catalog", "abc_cat_normal", "abc_cat_static"};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String copy(String name) throws IOException {
+        String base = folder.getRoot() + "/" + name;
+        Files.copy(Paths.get("src/test/resources/" + name + ".db"), Paths.get(base + ".db"));
+        return base;
+    }
+
+    @Test
+    public void manifest() throws IOException {
+        Path manifest = folder.getRoot().toPath().resolve("manifest");
+        Files.write(manifest, ImmutableList.of("# catalogs", "a/cat", "", "  b/cat  "), StandardCharsets.UTF_8);
+        assertEquals("incorrect paths", ImmutableList.of("a/cat", "b/cat"), CatalogBatch.readManifest(manifest));
+    }
+
+    @Test
+    public void batch() throws IOException, InterruptedException {
+        ImmutableList.Builder<String> paths = ImmutableList.builder();
+        for (String name : CATALOGS) {
+            paths.add(copy(name));
+        }
+        String missing = folder.getRoot() + "/missing";
+        paths.add(missing);
+
+        ProgArgs options = new ProgArgs(new String[]{"manifest", "-b", "2"});
+        List<CatalogBatch.Result> results = new CatalogBatch(paths.build(), 2, options).run();
+        assertEquals("incorrect result count", CATALOGS.length + 1, results.size());
+
+        for (int i = 0; i < CATALOGS.length; i++) {
+            CatalogBatch.Result result = results.get(i);
+            String base = folder.getRoot() + "/" + CATALOGS[i];
+            assertEquals("incorrect path", base, result.catalogPath());
+            assertTrue("catalog should succeed", result.isSuccess());
+            assertNotNull("summary should be present", result.summary());
+            assertTrue("page should be written", Files.exists(Paths.get(base + ".html")));
+
+            Catalog cat = new Catalog(base);
+            cat.load();
+            cat.analyze();
+            assertEquals("incorrect summary", cat.toString(), result.summary());
+        }
+
+        CatalogBatch.Result failed = results.get(CATALOGS.length);
+        assertEquals("incorrect path", missing, failed.catalogPath());
+        assertFalse("catalog should fail", failed.isSuccess());
+        assertNull("summary should be absent", failed.summary());
+        assertNotNull("failure should be present", failed.failure());
+        assertFalse("page should not be written", Files.exists(Paths.get(missing + ".html")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void badThreads() {
+        new CatalogBatch(ImmutableList.of("a"), 0, new ProgArgs(new String[]{"manifest"}));
+    }
+
+}
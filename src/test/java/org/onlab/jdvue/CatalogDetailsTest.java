@@ -43,8 +43,8 @@ public class CatalogDetailsTest {
     };
 
     private static final String[] EXP_DEPS = {
-            "D0.0>1.2",
             "D0.0>1.1",
+            "D0.0>1.2",
             "D0.2>1.1",
             "D1.0>2.0",
             "D2.0>0.0",
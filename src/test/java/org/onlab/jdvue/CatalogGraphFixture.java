@@ -0,0 +1,75 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test fixture for assembling catalog graphs of packages and dependencies.
+ */
+final class CatalogGraphFixture {
+
+    private final CatalogGraph graph = new CatalogGraph();
+    private final Map<String, JavaPackage> packages = new LinkedHashMap<>();
+    private final List<List<Integer>> dependencies = new ArrayList<>();
+
+    /**
+     * Returns the package with the given name, adding it if needed.
+     *
+     * @param name package name
+     * @return Java package
+     */
+    JavaPackage pkg(String name) {
+        return packages.computeIfAbsent(name, n -> {
+            dependencies.add(new ArrayList<>());
+            return graph.addPackage(n);
+        });
+    }
+
+    /**
+     * Adds dependencies of the first package on the other packages.
+     *
+     * @param source  dependent package name
+     * @param targets names of packages depended on
+     * @return self
+     */
+    CatalogGraphFixture dependency(String source, String... targets) {
+        int s = pkg(source).id();
+        for (String target : targets) {
+            dependencies.get(s).add(pkg(target).id());
+        }
+        return this;
+    }
+
+    /**
+     * Records the dependencies as resolved and returns the graph.
+     *
+     * @return catalog graph
+     */
+    CatalogGraph resolve() {
+        int[][] deps = new int[dependencies.size()][];
+        for (int p = 0; p < deps.length; p++) {
+            int[] ids = dependencies.get(p).stream().mapToInt(Integer::intValue).toArray();
+            deps[p] = CatalogGraph.sortedDistinct(ids, ids.length);
+        }
+        graph.resolved(new int[graph.sourceCount()][], deps);
+        return graph;
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the integer-indexed catalog graph.
+ */
+public class CatalogGraphTest {
+
+    @Test
+    public void basics() {
+        CatalogGraph graph = new CatalogGraph();
+        JavaPackage a = graph.addPackage("a");
+        JavaPackage b = graph.addPackage("b");
+        JavaSource a1 = graph.addSource("A1", "a/A1.java");
+        JavaSource a2 = graph.addSource("A2", "a/A2.java");
+        JavaSource b1 = graph.addSource("B1", "b/B1.java");
+
+        a1.setPackage(a);
+        a1.setPackage(b);
+        a2.setPackage(a);
+        b1.setPackage(b);
+        a1.addImportName("b.B1");
+        a1.addImportName("a.A2");
+        a1.addImportName("b.B1");
+
+        assertEquals("incorrect package count", 2, graph.packageCount());
+        assertEquals("incorrect source count", 3, graph.sourceCount());
+        assertSame("first package should stick", a, a1.getPackage());
+        assertSame("incorrect package", b, graph.getPackage(b.id()));
+        assertSame("incorrect source", b1, graph.getSource(b1.id()));
+
+        graph.seal();
+        assertEquals("incorrect sources", ImmutableSet.of(a1, a2), a.getSources());
+        assertEquals("incorrect import names", ImmutableList.of("b.B1", "a.A2"),
+                     a1.getImportNames());
+        assertNull("imports should not be resolved", graph.imports(a1.id()));
+        assertFalse("graph should not be resolved", graph.isResolved());
+
+        int[][] imports = {{a2.id(), b1.id()}, {}, {}};
+        int[][] dependencies = {{b.id()}, {}};
+        graph.resolved(imports, dependencies);
+
+        assertTrue("graph should be resolved", graph.isResolved());
+        assertEquals("incorrect imports", ImmutableSet.of(a2, b1), a1.getImports());
+        assertTrue("incorrect import lookup", a1.getImports().contains(b1));
+        assertFalse("package is not an import", a1.getImports().contains(b));
+        assertEquals("incorrect dependencies", ImmutableSet.of(b), a.getDependencies());
+        assertTrue("incorrect dependencies", b.getDependencies().isEmpty());
+    }
+
+    @Test
+    public void distinctImportNames() {
+        CatalogGraph graph = new CatalogGraph();
+        JavaSource a1 = graph.addSource("A1", "a/A1.java");
+        JavaSource b1 = graph.addSource("B1", "b/B1.java");
+        a1.addImportName("b.B1");
+        b1.addImportName("b.B1");
+        a1.addImportName("b.B1");
+        graph.seal();
+        assertEquals("incorrect import names", ImmutableList.of("b.B1"), a1.getImportNames());
+        assertEquals("incorrect import names", ImmutableList.of("b.B1"), b1.getImportNames());
+
+        a1.addImportName("a.A2");
+        a1.addImportName("b.B1");
+        graph.seal();
+        assertEquals("incorrect import names", ImmutableList.of("b.B1", "a.A2"), a1.getImportNames());
+        assertEquals("incorrect import name count", 2, graph.importNameCount(a1.id()));
+    }
+
+    @Test
+    public void entityNames() {
+        CatalogGraph graph = new CatalogGraph();
+        JavaPackage a = graph.addPackage("org.a");
+        JavaSource s = graph.addSource("org.a.S", "org/a/S.java");
+        assertEquals("incorrect name", "org.a.S", s.name());
+        assertEquals("incorrect last segment", "S", s.lastSegment());
+        assertEquals("incorrect symbol", graph.names().find("org.a"), a.symbol());
+        assertEquals("hash should match name", "org.a".hashCode(), a.hashCode());
+        assertEquals("hash should match foreign entity", new JavaPackage("org.a").hashCode(), a.hashCode());
+        assertEquals("should equal foreign entity", new JavaPackage("org.a"), a);
+    }
+
+    @Test
+    public void foreignEntities() {
+        CatalogGraph one = new CatalogGraph();
+        CatalogGraph two = new CatalogGraph();
+        JavaPackage a = one.addPackage("a");
+        JavaPackage b = one.addPackage("b");
+        JavaPackage twin = two.addPackage("b");
+        JavaPackage other = two.addPackage("c");
+        one.seal();
+        one.resolved(new int[0][], new int[][]{{b.id()}, {}});
+
+        assertTrue("should contain own package", a.getDependencies().contains(b));
+        assertTrue("should contain equal foreign package", a.getDependencies().contains(twin));
+        assertFalse("should not contain foreign package", a.getDependencies().contains(other));
+        assertFalse("should not contain other types", a.getDependencies().contains("b"));
+    }
+
+    @Test
+    public void entityCodes() {
+        CatalogGraph graph = new CatalogGraph();
+        JavaPackage a = graph.addPackage("a");
+        JavaSource s = graph.addSource("S", "a/S.java");
+        assertSame("incorrect source entity", s, graph.entity(s.id()));
+        assertSame("incorrect package entity", a,
+                   graph.entity(CatalogGraph.packageEntityCode(a.id())));
+    }
+
+    @Test
+    public void lookupByName() {
+        CatalogGraph graph = new CatalogGraph();
+        JavaPackage a = graph.addPackage("a");
+        JavaSource s = graph.addSource("a.S", "a/S.java");
+        assertSame("incorrect package", a, graph.findPackage("a"));
+        assertSame("incorrect source", s, graph.findSource("a.S"));
+        assertNull("package is not a source", graph.findSource("a"));
+        assertNull("no such package", graph.findPackage("b"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicatePackage() {
+        CatalogGraph graph = new CatalogGraph();
+        graph.addPackage("a");
+        graph.addPackage("a");
+    }
+
+    @Test
+    public void sortedDistinct() {
+        int[] buffer = {5, 3, 5, 1, 3, 9};
+        assertArrayEquals("incorrect codes", new int[]{1, 3, 5},
+                          CatalogGraph.sortedDistinct(buffer, 5));
+    }
+
+}
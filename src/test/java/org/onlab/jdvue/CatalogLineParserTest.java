@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import org.junit.Test;
+import org.onlab.jdvue.CatalogLineParser.Pragma;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the catalog line parser.
+ */
+public class CatalogLineParserTest {
+
+    private static final String PATH = "src/main/java/a/A.java";
+
+    private final CatalogLineParser parser = new CatalogLineParser();
+
+    private void assertParsed(String line, Pragma pragma, String name) {
+        assertTrue("line should parse: " + line, parser.parse(line));
+        assertEquals("incorrect path", PATH, parser.path());
+        assertEquals("incorrect pragma", pragma, parser.pragma());
+        assertEquals("incorrect name", name, parser.name());
+    }
+
+    @Test
+    public void basics() {
+        assertParsed(PATH + ":package a;", Pragma.PACKAGE, "a");
+        assertParsed(PATH + ":import b.B;", Pragma.IMPORT, "b.B");
+        assertParsed(PATH + ":import static b.B.foo;", Pragma.IMPORT, "b.B");
+        assertParsed(PATH + ":public class A {", Pragma.OTHER, null);
+    }
+
+    @Test
+    public void punctuationAndWhitespace() {
+        assertParsed("  " + PATH + ":  import\tb.B ;  // x \r", Pragma.IMPORT, "b.B");
+        assertParsed(PATH + ":import b.B;:ignored", Pragma.IMPORT, "b.B");
+        assertParsed(PATH + ":import b;.B", Pragma.IMPORT, "b.B");
+        assertParsed(PATH + ":import  b.B;", Pragma.IMPORT, "");
+        assertParsed(PATH + ":packages a;", Pragma.OTHER, null);
+    }
+
+    @Test
+    public void skipped() {
+        assertFalse("blank line", parser.parse(""));
+        assertFalse("no colon", parser.parse(PATH));
+        assertFalse("only colons", parser.parse(PATH + ":::"));
+        assertFalse("missing package name", parser.parse(PATH + ":package;"));
+        assertFalse("missing static name", parser.parse(PATH + ":import static;"));
+    }
+
+    @Test
+    public void sharedPath() {
+        assertTrue(parser.parse(PATH + ":package a;"));
+        String path = parser.path();
+        assertTrue(parser.parse(PATH + ":import b.B;"));
+        assertSame("path should be reused", path, parser.path());
+        assertTrue(parser.parse("x/X.java:import b.B;"));
+        assertEquals("incorrect path", "x/X.java", parser.path());
+    }
+
+    @Test
+    public void range() {
+        String text = "junk\n" + PATH + ":import c.C;\njunk";
+        assertTrue(parser.parse(text, 5, text.length() - 5));
+        assertEquals("incorrect name", "c.C", parser.name());
+    }
+
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Unit tests for saving and loading catalog snapshots.
+ */
+public class CatalogSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Copies the named test catalog into the temporary folder
+    private String copyCatalog(String name) throws IOException {
+        Path base = folder.getRoot().toPath().resolve(name);
+        Files.copy(Paths.get("src/test/resources", name + ".db"), Paths.get(base + ".db"));
+        return base.toString();
+    }
+
+    private Catalog analyzed(String basePath) throws IOException {
+        Catalog cat = new Catalog(basePath);
+        cat.load();
+        cat.analyze();
+        return cat;
+    }
+
+    private void assertSameCatalog(Catalog expected, Catalog actual) {
+        assertEquals("incorrect packages", expected.getPackages(), actual.getPackages());
+        assertEquals("incorrect sources", expected.getSources(), actual.getSources());
+        for (JavaPackage pkg : expected.getPackages()) {
+            JavaPackage other = actual.getPackage(pkg.name());
+            assertEquals("incorrect sources for " + pkg.name(), pkg.getSources(), other.getSources());
+            assertEquals("incorrect dependencies for " + pkg.name(),
+                         pkg.getDependencies(), other.getDependencies());
+            assertEquals("incorrect cycles for " + pkg.name(),
+                         expected.getPackageCycles(pkg), actual.getPackageCycles(other));
+            assertEquals("incorrect cycle segments for " + pkg.name(),
+                         expected.getPackageCycleSegments(pkg), actual.getPackageCycleSegments(other));
+        }
+        for (JavaSource src : expected.getSources()) {
+            JavaSource other = actual.getSource(src.name());
+            assertEquals("incorrect package for " + src.name(), src.getPackage(), other.getPackage());
+            assertEquals("incorrect import names for " + src.name(),
+                         src.getImportNames(), other.getImportNames());
+            assertEquals("incorrect imports for " + src.name(), src.getImports(), other.getImports());
+        }
+        assertEquals("incorrect cycles", expected.getCycles(), actual.getCycles());
+        assertEquals("incorrect cycle segments", expected.getCycleSegments(), actual.getCycleSegments());
+        assertEquals("incorrect completeness", expected.isCycleSearchComplete(), actual.isCycleSearchComplete());
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        for (String name : new String[]{"catalog", "non_maven_cat", "abc_cat_static"}) {
+            String base = copyCatalog(name);
+            Catalog expected = analyzed(base);
+            expected.saveSnapshot();
+
+            Catalog cat = new Catalog(base);
+            assertTrue("snapshot should load", cat.loadSnapshot());
+            assertSameCatalog(expected, cat);
+        }
+    }
+
+    @Test
+    public void staleSnapshot() throws IOException {
+        String base = copyCatalog("catalog");
+        analyzed(base).saveSnapshot();
+        Path db = Paths.get(base + ".db");
+        Files.setLastModifiedTime(db, FileTime.fromMillis(Files.getLastModifiedTime(db).toMillis() - 1000));
+
+        Catalog cat = new Catalog(base);
+        assertFalse("stale snapshot should not load", cat.loadSnapshot());
+        assertTrue("catalog should be empty", cat.getPackages().isEmpty());
+    }
+
+    @Test
+    public void missingSnapshot() throws IOException {
+        assertFalse("missing snapshot should not load", new Catalog(copyCatalog("catalog")).loadSnapshot());
+    }
+
+    @Test
+    public void foreignFile() throws IOException {
+        String base = copyCatalog("catalog");
+        Files.write(Paths.get(base + ".snap"), "not a snapshot".getBytes());
+        assertFalse("foreign file should not load", new Catalog(base).loadSnapshot());
+    }
+
+    @Test
+    public void corruptSnapshot() throws IOException {
+        String base = copyCatalog("catalog");
+        Catalog expected = analyzed(base);
+        expected.saveSnapshot();
+        Path snap = Paths.get(base + ".snap");
+        byte[] bytes = Files.readAllBytes(snap);
+        Files.write(snap, Arrays.copyOf(bytes, bytes.length / 2));
+
+        Catalog cat = new Catalog(base);
+        assertFalse("corrupt snapshot should not load", cat.loadSnapshot());
+        assertTrue("catalog should be empty", cat.getPackages().isEmpty());
+        assertTrue("catalog should be empty", cat.getSources().isEmpty());
+
+        cat.load();
+        cat.analyze();
+        assertSameCatalog(expected, cat);
+    }
+
+    @Test
+    public void snapshotPermissions() throws IOException {
+        String base = copyCatalog("catalog");
+        analyzed(base).saveSnapshot();
+        Path db = Paths.get(base + ".db");
+        Path snap = Paths.get(base + ".snap");
+        assumeTrue(Files.getFileStore(snap).supportsFileAttributeView(PosixFileAttributeView.class));
+        assertEquals("snapshot should be readable like the catalog",
+                     Files.getPosixFilePermissions(db).contains(PosixFilePermission.GROUP_READ),
+                     Files.getPosixFilePermissions(snap).contains(PosixFilePermission.GROUP_READ));
+    }
+
+    @Test
+    public void withoutCatalogFile() throws IOException {
+        String base = copyCatalog("catalog");
+        Catalog expected = analyzed(base);
+        expected.saveSnapshot();
+        Files.delete(Paths.get(base + ".db"));
+
+        Catalog cat = new Catalog(base);
+        assertTrue("snapshot should load", cat.loadSnapshot());
+        assertSameCatalog(expected, cat);
+    }
+
+    @Test
+    public void otherCycleLimits() throws IOException {
+        String base = copyCatalog("catalog");
+        Catalog full = analyzed(base);
+        full.saveSnapshot();
+
+        Catalog cat = new Catalog(base);
+        cat.setCycleLimits(new CycleLimits(Integer.MAX_VALUE, 2, Long.MAX_VALUE));
+        assertTrue("snapshot should load", cat.loadSnapshot());
+        assertEquals("cycles should be enumerated anew", 2, cat.getCycles().size());
+        assertFalse("search should be incomplete", cat.isCycleSearchComplete());
+        assertEquals("incorrect cycle segments", full.getCycleSegments(), cat.getCycleSegments());
+    }
+
+    @Test
+    public void updatedCatalog() throws IOException {
+        String base = copyCatalog("catalog");
+        Catalog expected = analyzed(base);
+        List<String> lines = Files.readAllLines(Paths.get(base + ".db"));
+        String removed = lines.get(0).substring(0, lines.get(0).indexOf(':'));
+        expected.update(ImmutableList.of(), ImmutableList.of(removed));
+        expected.saveSnapshot();
+
+        Catalog cat = new Catalog(base);
+        assertTrue("snapshot should load", cat.loadSnapshot());
+        assertSameCatalog(expected, cat);
+    }
+
+}
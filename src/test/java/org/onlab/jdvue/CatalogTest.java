@@ -15,12 +15,17 @@
  */
 package org.onlab.jdvue;
 
+import com.google.common.collect.ImmutableList;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Unit test for the source catalog.
@@ -52,6 +57,49 @@ public class CatalogTest {
         assertEquals("incorrect cycle count", 5, cat.getCycles().size());
     }
 
+    @Test
+    public void mapped() throws IOException {
+        Catalog cat = new Catalog("src/test/resources/catalog");
+        cat.loadMapped();
+        cat.analyze();
+
+        assertEquals("incorrect package count", 12, cat.getPackages().size());
+        assertEquals("incorrect source count", 14, cat.getSources().size());
+        assertNotNull("source should be found", cat.getSource("k.K"));
+        assertEquals("incorrect segment count", 11, cat.getCycleSegments().size());
+        assertEquals("incorrect cycle count", 5, cat.getCycles().size());
+    }
+
+    @Test
+    public void customPool() throws IOException {
+        ForkJoinPool serialPool = new ForkJoinPool(1);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            Catalog expected = new Catalog("src/test/resources/non_maven_cat", serialPool);
+            expected.load();
+            expected.analyze();
+
+            Catalog cat = new Catalog("src/test/resources/non_maven_cat", pool);
+            cat.load();
+            cat.analyze();
+
+            assertEquals("incorrect package count", expected.getPackages().size(), cat.getPackages().size());
+            assertEquals("incorrect source count", expected.getSources().size(), cat.getSources().size());
+            assertEquals("incorrect cycle count", expected.getCycles().size(), cat.getCycles().size());
+            for (JavaPackage pkg : cat.getPackages()) {
+                assertEquals("incorrect dependencies for " + pkg.name(),
+                             expected.getPackage(pkg.name()).getDependencies(), pkg.getDependencies());
+            }
+            for (JavaSource src : cat.getSources()) {
+                assertEquals("incorrect imports for " + src.name(),
+                             expected.getSource(src.name()).getImports(), src.getImports());
+            }
+        } finally {
+            serialPool.shutdown();
+            pool.shutdown();
+        }
+    }
+
     @Test
     public void nonMavenCat() throws IOException {
         Catalog cat = new Catalog("src/test/resources/non_maven_cat");
@@ -88,6 +136,38 @@ public class CatalogTest {
         assertEquals("incorrect cycle count", 1, cat.getCycles().size());
     }
 
+    @Test
+    public void transitiveDependencies() throws IOException {
+        Catalog cat = new Catalog("src/test/resources/abc_cat_normal");
+        cat.load();
+        cat.analyze();
+
+        JavaPackage main = cat.getPackage("com.foobar.loop");
+        JavaPackage alpha = cat.getPackage("com.foobar.loop.alpha");
+        JavaPackage beta = cat.getPackage("com.foobar.loop.beta");
+        JavaPackage gamma = cat.getPackage("com.foobar.loop.gamma");
+        assertTrue("main should depend on alpha", cat.dependsOn(main, alpha));
+        assertFalse("alpha should not depend on main", cat.dependsOn(alpha, main));
+        assertTrue("alpha should depend on itself", cat.dependsOn(alpha, alpha));
+
+        assertEquals("incorrect dependencies", ImmutableList.of(alpha, beta, gamma),
+                     ImmutableList.copyOf(cat.getTransitiveDependencies(main)));
+        assertEquals("incorrect dependencies", ImmutableList.of(alpha, beta, gamma),
+                     ImmutableList.copyOf(cat.getTransitiveDependencies(beta)));
+        assertTrue("main should have no dependents", cat.getTransitiveDependents(main).isEmpty());
+        assertEquals("incorrect dependent count", 4, cat.getTransitiveDependents(gamma).size());
+        assertTrue("unknown package should have no dependencies",
+                   cat.getTransitiveDependencies(new JavaPackage("q")).isEmpty());
+        List<String> phases = cat.metrics().phases();
+        assertEquals("incorrect phase", "indexReachability", phases.get(phases.size() - 1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void transitiveDependenciesBeforeAnalysis() {
+        Catalog cat = new Catalog("src/test/resources/abc_cat_normal");
+        cat.getTransitiveDependencies(new JavaPackage("q"));
+    }
+
     @Test
     public void abcCatStatic() throws IOException {
         /*
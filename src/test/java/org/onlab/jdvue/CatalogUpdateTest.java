@@ -0,0 +1,242 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for incremental catalog updates, which compare an updated
+ * catalog with one loaded from scratch.
+ */
+public class CatalogUpdateTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private int catalogs = 0;
+
+    // Loads and analyzes a catalog of the given lines from scratch
+    private Catalog analyzed(Collection<String> lines) throws IOException {
+        Path base = folder.getRoot().toPath().resolve("cat" + catalogs++);
+        Files.write(Paths.get(base + ".db"), lines);
+        Catalog cat = new Catalog(base.toString());
+        cat.load();
+        cat.analyze();
+        return cat;
+    }
+
+    private static List<String> lines(Map<String, List<String>> records) {
+        List<String> lines = new ArrayList<>();
+        records.values().forEach(lines::addAll);
+        return lines;
+    }
+
+    private static Set<String> names(Collection<? extends JavaEntity> entities) {
+        return entities.stream().map(JavaEntity::name).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static Set<String> cycles(Collection<DependencyCycle> cycles) {
+        return cycles.stream().map(c -> names(c.getCycle()).toString() + c.getCycle())
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static Set<String> segments(Collection<Dependency> segments) {
+        return segments.stream().map(d -> d.getSource().name() + ">" + d.getTarget().name())
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private void assertSameCatalog(Catalog expected, Catalog actual) {
+        assertEquals("incorrect packages", names(expected.getPackages()), names(actual.getPackages()));
+        assertEquals("incorrect sources", names(expected.getSources()), names(actual.getSources()));
+        for (JavaPackage pkg : expected.getPackages()) {
+            JavaPackage other = actual.getPackage(pkg.name());
+            assertEquals("incorrect sources for " + pkg.name(), names(pkg.getSources()), names(other.getSources()));
+            assertEquals("incorrect dependencies for " + pkg.name(),
+                         names(pkg.getDependencies()), names(other.getDependencies()));
+            assertEquals("incorrect cycle segments for " + pkg.name(),
+                         segments(expected.getPackageCycleSegments(pkg)),
+                         segments(actual.getPackageCycleSegments(other)));
+        }
+        for (JavaSource src : expected.getSources()) {
+            JavaSource other = actual.getSource(src.name());
+            assertEquals("incorrect import names for " + src.name(), src.getImportNames(), other.getImportNames());
+            assertEquals("incorrect imports for " + src.name(), names(src.getImports()), names(other.getImports()));
+        }
+        assertEquals("incorrect cycles", cycles(expected.getCycles()), cycles(actual.getCycles()));
+        assertEquals("incorrect cycle segments",
+                     segments(expected.getCycleSegments()), segments(actual.getCycleSegments()));
+        assertEquals("incorrect completeness", expected.isCycleSearchComplete(), actual.isCycleSearchComplete());
+    }
+
+    private static String path(String pkg, String cls) {
+        return "src/main/java/" + pkg.replace('.', '/') + "/" + cls + ".java";
+    }
+
+    private static List<String> source(String pkg, String cls, String... imports) {
+        List<String> lines = new ArrayList<>();
+        String path = path(pkg, cls);
+        lines.add(path + ":package " + pkg + ";");
+        for (String imp : imports) {
+            lines.add(path + ":import " + imp + ";");
+        }
+        return lines;
+    }
+
+    @Test
+    public void basics() throws IOException {
+        Map<String, List<String>> records = new LinkedHashMap<>();
+        records.put(path("a", "A"), source("a", "A", "b.B"));
+        records.put(path("b", "B"), source("b", "B", "c.C"));
+        records.put(path("c", "C"), source("c", "C", "java.util.List"));
+        records.put(path("d", "D"), source("d", "D", "a.A"));
+
+        Catalog cat = analyzed(lines(records));
+        assertTrue("no cycles expected", cat.getCycles().isEmpty());
+
+        // Close a cycle a > b > c > a
+        List<String> delta = source("c", "C", "java.util.List", "a.A");
+        records.put(path("c", "C"), delta);
+        cat.update(delta, ImmutableList.of());
+        assertEquals("incorrect cycle count", 1, cat.getCycles().size());
+        assertSameCatalog(analyzed(lines(records)), cat);
+
+        // Remove b, which breaks the cycle and leaves package b empty
+        JavaPackage b = cat.getPackage("b");
+        records.remove(path("b", "B"));
+        cat.update(ImmutableList.of(), ImmutableList.of(path("b", "B")));
+        assertNull("source should be gone", cat.getSource("b.B"));
+        assertNull("package should be gone", cat.getPackage("b"));
+        assertTrue("no cycles expected", cat.getCycles().isEmpty());
+        assertSameCatalog(analyzed(lines(records)), cat);
+
+        // The removed package is unknown to transitive queries
+        assertFalse("removed package should depend on nothing", cat.dependsOn(b, cat.getPackage("c")));
+        assertTrue("removed package should have no dependencies", cat.getTransitiveDependencies(b).isEmpty());
+        assertTrue("removed package should have no dependents", cat.getTransitiveDependents(b).isEmpty());
+        assertEquals("removed package should not be indexed", 3,
+                     cat.metrics().count("indexReachability", "components"));
+
+        // Add b back, in a new location and package
+        delta = source("e", "B", "c.C");
+        records.put(path("e", "B"), delta);
+        cat.update(delta, ImmutableList.of());
+        assertSameCatalog(analyzed(lines(records)), cat);
+    }
+
+    @Test
+    public void testCatalog() throws IOException {
+        List<String> all = Files.readAllLines(Paths.get("src/test/resources/catalog.db"));
+        String changed = all.get(0).substring(0, all.get(0).indexOf(':'));
+        List<String> base = all.stream().filter(l -> !l.startsWith(changed + ":")).collect(Collectors.toList());
+        List<String> delta = all.stream().filter(l -> l.startsWith(changed + ":")).collect(Collectors.toList());
+
+        Catalog cat = analyzed(base);
+        cat.update(delta, ImmutableList.of());
+        assertSameCatalog(analyzed(all), cat);
+
+        cat.update(ImmutableList.of(), ImmutableList.of(changed));
+        assertSameCatalog(analyzed(base), cat);
+    }
+
+    @Test
+    public void randomDeltas() throws IOException {
+        Random random = new Random(42);
+        for (int round = 0; round < 40; round++) {
+            int packageCount = 3 + random.nextInt(8);
+            Map<String, List<String>> records = new LinkedHashMap<>();
+            List<String> classes = new ArrayList<>();
+            for (int i = 0; i < 4 + random.nextInt(25); i++) {
+                addRandomSource(random, records, classes, packageCount, "C" + i);
+            }
+            Catalog cat = analyzed(lines(records));
+
+            for (int step = 0; step < 4 && !records.isEmpty(); step++) {
+                Set<String> touched = new TreeSet<>();
+                for (int i = 0; i < 1 + random.nextInt(4) && !records.isEmpty(); i++) {
+                    List<String> paths = new ArrayList<>(records.keySet());
+                    String path = paths.get(random.nextInt(paths.size()));
+                    String cls = path.substring(path.lastIndexOf('/') + 1, path.length() - 5);
+                    touched.add(path);
+                    switch (random.nextInt(4)) {
+                        case 0:
+                            records.remove(path);
+                            break;
+                        case 1:
+                            records.remove(path);
+                            touched.add(addRandomSource(random, records, classes, packageCount, cls));
+                            break;
+                        default:
+                            String pkg = path.substring("src/main/java/".length(), path.lastIndexOf('/'));
+                            records.put(path, source(pkg, cls, randomImports(random, classes)));
+                    }
+                }
+
+                List<String> delta = new ArrayList<>();
+                List<String> removed = new ArrayList<>();
+                for (String path : touched) {
+                    if (records.containsKey(path)) {
+                        delta.addAll(records.get(path));
+                    } else {
+                        removed.add(path);
+                    }
+                }
+                cat.update(delta, removed);
+                assertSameCatalog(analyzed(lines(records)), cat);
+            }
+        }
+    }
+
+    // Adds a source of the given class name to a random package
+    private String addRandomSource(Random random, Map<String, List<String>> records,
+                                   List<String> classes, int packageCount, String cls) {
+        String pkg = "p" + random.nextInt(packageCount);
+        classes.add(pkg + "." + cls);
+        String path = path(pkg, cls);
+        records.put(path, source(pkg, cls, randomImports(random, classes)));
+        return path;
+    }
+
+    private String[] randomImports(Random random, List<String> classes) {
+        String[] imports = new String[random.nextInt(4)];
+        for (int i = 0; i < imports.length; i++) {
+            imports[i] = random.nextInt(8) == 0 ? "java.util.List" : classes.get(random.nextInt(classes.size()));
+        }
+        return imports;
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the class file scanner, which scan the compiled classes
+ * of jdvue itself.
+ */
+public class ClassFileScannerTest {
+
+    private static final Path CLASSES = Paths.get("target/classes");
+    private static final String PREFIX = CLASSES + "/org/onlab/jdvue/";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private List<String> scan(Path root) throws IOException {
+        List<String> pragmas = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            new ClassFileScanner(ImmutableList.of(root), pool)
+                    .scan((p, pragma, name) -> pragmas.add(p + "|" + pragma + "|" + name));
+        } finally {
+            pool.shutdown();
+        }
+        return pragmas;
+    }
+
+    @Test
+    public void classes() throws IOException {
+        List<String> pragmas = scan(CLASSES);
+        assertTrue("missing package",
+                   pragmas.contains(PREFIX + "Catalog.java|PACKAGE|org.onlab.jdvue"));
+        assertTrue("missing same-package reference",
+                   pragmas.contains(PREFIX + "Catalog.java|IMPORT|org.onlab.jdvue.CatalogGraph"));
+        assertTrue("missing library reference",
+                   pragmas.contains(PREFIX + "Catalog.java|IMPORT|java.util.BitSet"));
+        assertTrue("missing nested class reference",
+                   pragmas.contains(PREFIX + "JavaSourceScanner.java|IMPORT|java.lang.Character"));
+        assertFalse("nested classes should be merged",
+                    pragmas.stream().anyMatch(p -> p.contains("$")));
+        assertFalse("self reference should be omitted",
+                    pragmas.contains(PREFIX + "Catalog.java|IMPORT|org.onlab.jdvue.Catalog"));
+    }
+
+    @Test
+    public void jar() throws IOException {
+        Path jar = folder.getRoot().toPath().resolve("jdvue.jar");
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(CLASSES)) {
+            files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        try (OutputStream os = Files.newOutputStream(jar);
+             ZipOutputStream zip = new ZipOutputStream(os)) {
+            for (Path file : files) {
+                zip.putNextEntry(new ZipEntry(CLASSES.relativize(file).toString().replace('\\', '/')));
+                zip.write(Files.readAllBytes(file));
+                zip.closeEntry();
+            }
+        }
+
+        List<String> expected = scan(CLASSES).stream()
+                .map(p -> p.replace(CLASSES + "/", jar + "!/")).collect(Collectors.toList());
+        assertEquals("incorrect pragmas", expected, scan(jar));
+    }
+
+    @Test
+    public void catalog() throws IOException {
+        Catalog cat = new Catalog(folder.getRoot() + "/classes");
+        cat.loadClasses(ImmutableList.of(CLASSES));
+        cat.analyze();
+
+        JavaSource catalog = cat.getSource("org.onlab.jdvue.Catalog");
+        assertNotNull("source should be found", catalog);
+        assertTrue("same-package import should be resolved",
+                   catalog.getImports().contains(cat.getSource("org.onlab.jdvue.CatalogGraph")));
+        assertEquals("incorrect package count", 1, cat.getPackages().size());
+    }
+
+    @Test
+    public void malformed() throws IOException {
+        Path root = folder.getRoot().toPath().resolve("classes");
+        Files.createDirectories(root.resolve("a"));
+        Files.copy(CLASSES.resolve("org/onlab/jdvue/Dependency.class"), root.resolve("a/Good.class"));
+        byte[] bytes = Files.readAllBytes(CLASSES.resolve("org/onlab/jdvue/Dependency.class"));
+        Files.write(root.resolve("a/Truncated.class"), Arrays.copyOf(bytes, bytes.length / 2));
+        Files.write(root.resolve("a/Text.class"), "not a class".getBytes());
+
+        Catalog cat = new Catalog(folder.getRoot() + "/malformed");
+        cat.loadClasses(ImmutableList.of(root));
+        assertEquals("incorrect skipped count", 2, cat.metrics().count("load", "skippedClasses"));
+        assertEquals("incorrect source count", 1, cat.getSources().size());
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the elementary dependency cycle enumerator.
+ */
+public class CycleEnumeratorTest {
+
+    // Produces a graph of n packages, each depending on all others
+    private PackageGraph complete(int n, boolean selfLoops) {
+        CatalogGraphFixture fixture = new CatalogGraphFixture();
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (selfLoops || i != j) {
+                    fixture.dependency("p" + i, "p" + j);
+                }
+            }
+        }
+        return new PackageGraph(fixture.resolve());
+    }
+
+    private List<DependencyCycle> enumerate(PackageGraph graph, CycleLimits limits, boolean complete) {
+        List<DependencyCycle> cycles = new ArrayList<>();
+        CycleEnumerator enumerator =
+                new CycleEnumerator(graph, new StronglyConnectedComponents(graph), limits);
+        assertEquals("incorrect completeness", complete, enumerator.enumerate(cycles::add));
+        return cycles;
+    }
+
+    @Test
+    public void allCycles() {
+        // 6 two-package, 8 three-package and 6 four-package cycles
+        List<DependencyCycle> cycles = enumerate(complete(4, false), CycleLimits.UNBOUNDED, true);
+        assertEquals("incorrect cycle count", 20, cycles.size());
+        assertEquals("cycles should be distinct", 20, new HashSet<>(cycles).size());
+        assertEquals("incorrect first cycle", "[p0, p1]", cycles.get(0).toShortString());
+    }
+
+    @Test
+    public void selfLoops() {
+        List<DependencyCycle> cycles = enumerate(complete(3, true), CycleLimits.UNBOUNDED, true);
+        assertEquals("incorrect cycle count", 3 + 3 + 2, cycles.size());
+        assertEquals("incorrect first cycle", "[p0]", cycles.get(0).toShortString());
+    }
+
+    @Test
+    public void maxLength() {
+        List<DependencyCycle> cycles = enumerate(complete(5, false), new CycleLimits(2, 1000, 1000), true);
+        assertEquals("incorrect cycle count", 10, cycles.size());
+        for (DependencyCycle cycle : cycles) {
+            assertEquals("cycle too long", 2, cycle.getCycle().size());
+        }
+
+        cycles = enumerate(complete(5, false), new CycleLimits(3, 1000, 1000), true);
+        assertEquals("incorrect cycle count", 10 + 20, cycles.size());
+    }
+
+    @Test
+    public void maxCount() {
+        List<DependencyCycle> cycles = enumerate(complete(6, false), new CycleLimits(6, 7, 1000), false);
+        assertEquals("incorrect cycle count", 7, cycles.size());
+        assertTrue("enumeration should be deterministic",
+                   cycles.equals(enumerate(complete(6, false), new CycleLimits(6, 7, 1000), false)));
+    }
+
+    @Test
+    public void timeBudget() {
+        List<DependencyCycle> cycles = enumerate(complete(12, false), new CycleLimits(12, Integer.MAX_VALUE, 0), false);
+        assertFalse("enumeration should have been cut short", cycles.size() > 100_000);
+    }
+
+    @Test
+    public void acyclic() {
+        CatalogGraphFixture fixture = new CatalogGraphFixture().dependency("a", "b");
+        PackageGraph graph = new PackageGraph(fixture.resolve());
+        assertTrue("no cycles expected", enumerate(graph, CycleLimits.UNBOUNDED, true).isEmpty());
+    }
+
+}
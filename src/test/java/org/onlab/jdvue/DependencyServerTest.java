@@ -0,0 +1,158 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.ByteStreams;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the dependency query server.
+ */
+public class DependencyServerTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private Catalog cat;
+    private DependencyServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        cat = new Catalog("src/test/resources/catalog");
+        cat.load();
+        cat.analyze();
+        server = new DependencyServer(cat);
+        server.start(0);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private HttpURLConnection open(String query) throws IOException {
+        URL url = new URL("http://localhost:" + server.port() + query);
+        return (HttpURLConnection) url.openConnection();
+    }
+
+    private JsonNode get(String query) throws IOException {
+        HttpURLConnection connection = open(query);
+        assertEquals("incorrect status for " + query, 200, connection.getResponseCode());
+        try (InputStream is = connection.getInputStream()) {
+            return mapper.readTree(is);
+        }
+    }
+
+    private int status(String query) throws IOException {
+        HttpURLConnection connection = open(query);
+        int status = connection.getResponseCode();
+        connection.disconnect();
+        return status;
+    }
+
+    private List<String> names(JsonNode array) {
+        List<String> names = new ArrayList<>();
+        array.forEach(n -> names.add(n.asText()));
+        return names;
+    }
+
+    @Test
+    public void summary() throws IOException {
+        JsonNode summary = get("/summary");
+        assertEquals("incorrect package count", 12, summary.get("packages").asInt());
+        assertEquals("incorrect source count", 14, summary.get("sources").asInt());
+        assertEquals("incorrect cycle count", 5, summary.get("cycles").asInt());
+        assertEquals("incorrect segment count", 11, summary.get("cycleSegments").asInt());
+        assertTrue("search should be complete", summary.get("cycleSearchComplete").asBoolean());
+        assertEquals("incorrect package list", 12, get("/packages").size());
+    }
+
+    @Test
+    public void packageQueries() throws IOException {
+        JavaPackage k = cat.getPackage("k");
+        List<String> dependencies = names(get("/dependencies?package=k"));
+        assertEquals("incorrect dependency count", k.getDependencies().size(), dependencies.size());
+
+        for (String name : dependencies) {
+            assertTrue("k should be a dependent of " + name,
+                       names(get("/dependents?package=" + name)).contains("k"));
+        }
+
+        assertEquals("incorrect cycle count", 3, get("/cycles?package=k").size());
+        assertEquals("incorrect segment count",
+                     cat.getPackageCycleSegments(k).size(), get("/segments?package=k").size());
+        assertEquals("incorrect segment count", 11, get("/segments").size());
+    }
+
+    @Test
+    public void badQueries() throws IOException {
+        assertEquals("incorrect status", 400, status("/dependencies"));
+        assertEquals("incorrect status", 404, status("/dependents?package=nope"));
+        assertEquals("incorrect status", 404, status("/nope"));
+
+        HttpURLConnection connection = open("/summary");
+        connection.setRequestMethod("DELETE");
+        assertEquals("incorrect status", 405, connection.getResponseCode());
+    }
+
+    @Test
+    public void page() throws IOException {
+        HttpURLConnection connection = open("/");
+        assertEquals("incorrect status", 200, connection.getResponseCode());
+        assertTrue("incorrect content type", connection.getContentType().startsWith("text/html"));
+        try (InputStream is = connection.getInputStream()) {
+            String html = new String(ByteStreams.toByteArray(is), StandardCharsets.UTF_8);
+            assertEquals("incorrect page", new BundleView(cat).toHTML(), html);
+        }
+    }
+
+    @Test
+    public void concurrentQueries() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                String query = i % 2 == 0 ? "/dependents?package=k" : "/cycles?package=k";
+                results.add(clients.submit((Callable<Integer>) () -> get(query).size()));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals("incorrect result size", i % 2 == 0 ? get("/dependents?package=k").size() : 3,
+                             (int) results.get(i).get());
+            }
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+}
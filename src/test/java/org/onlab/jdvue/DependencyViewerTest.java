@@ -15,10 +15,14 @@
  */
 package org.onlab.jdvue;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 /**
  * Unit test for the dependency viewer.
@@ -32,12 +36,17 @@ public class DependencyViewerTest {
 
     private final Fixture fixture = new Fixture();
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void basics() throws IOException {
-        DependencyViewer.main(new String[]{"src/test/resources/catalog"});
+        String base = folder.getRoot() + "/catalog";
+        Files.copy(Paths.get("src/test/resources/catalog.db"), Paths.get(base + ".db"));
+        DependencyViewer.main(new String[]{base});
 
         String expected = fixture.slurp(new FileInputStream("src/test/resources/expected.html"));
-        String actual = fixture.slurp(new FileInputStream("src/test/resources/catalog.html"));
+        String actual = fixture.slurp(new FileInputStream(base + ".html"));
 
         // FIXME: add more manageable assertions here
 //        assertEquals("incorrect html", expected, actual);
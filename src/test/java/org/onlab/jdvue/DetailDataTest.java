@@ -0,0 +1,213 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for reading detail data in the text and binary formats.
+ */
+public class DetailDataTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Copies the named test catalog into the temporary folder, then loads
+    // and analyzes it
+    private Catalog analyzed(String name) throws IOException {
+        String base = folder.getRoot() + "/" + name;
+        Files.copy(Paths.get("src/test/resources/" + name + ".db"), Paths.get(base + ".db"));
+        Catalog cat = new Catalog(base);
+        cat.load();
+        cat.analyze();
+        return cat;
+    }
+
+    private CatalogDetails details(String name) throws IOException {
+        return new CatalogDetails(analyzed(name));
+    }
+
+    // Re-encodes the data in the form of the text format records
+    private List<String> records(DetailData data) {
+        List<String> records = new ArrayList<>();
+        for (int p = 0; p < data.packages().size(); p++) {
+            records.add("P" + data.packages().get(p));
+            for (String source : data.sources(p)) {
+                records.add("S" + source);
+            }
+        }
+        data.forEachDependency((sp, s, tp, t) -> records.add("D" + sp + "." + s + ">" + tp + "." + t));
+        for (int[] cycle : data.cycles()) {
+            StringBuilder sb = new StringBuilder("C");
+            for (int p : cycle) {
+                sb.append(p).append('}');
+            }
+            records.add(sb.toString());
+        }
+        return records;
+    }
+
+    private List<String> expected(CatalogDetails details) throws IOException {
+        List<String> records = new ArrayList<>(details.getEncPackageSources());
+        records.addAll(details.getEncDependencies());
+        records.addAll(details.getEncCycles());
+        return records;
+    }
+
+    private void check(String name) throws IOException {
+        CatalogDetails details = details(name);
+        Path base = folder.getRoot().toPath().resolve(name);
+        List<String> expected = expected(details);
+
+        details.writeDetails();
+        Path text = Paths.get(base + ".data");
+        DetailData data = DetailData.read(text);
+        assertEquals("incorrect text records", expected, records(data));
+        assertEquals("incorrect title", "Java Package Dependency Data", data.title());
+        assertEquals("incorrect file", text.toString(), data.file());
+
+        details.writeBinaryDetails(false);
+        Path binary = Paths.get(base + ".datb");
+        long binarySize = Files.size(binary);
+        data = DetailData.read(binary);
+        assertEquals("incorrect binary records", expected, records(data));
+        assertEquals("incorrect title", "Java Package Dependency Data", data.title());
+        assertEquals("incorrect file", binary.toString(), data.file());
+        assertTrue("binary should be smaller", binarySize < Files.size(text));
+
+        details.writeBinaryDetails(true);
+        assertEquals("incorrect compressed records", expected, records(DetailData.read(binary)));
+    }
+
+    @Test
+    public void formats() throws IOException {
+        check("catalog");
+        check("non_maven_cat");
+        check("abc_cat_static");
+    }
+
+    @Test
+    public void counts() throws IOException {
+        CatalogDetails details = details("non_maven_cat");
+        details.writeBinaryDetails(true);
+        DetailData data = DetailData.read(folder.getRoot().toPath().resolve("non_maven_cat.datb"));
+        assertEquals("incorrect package count", 3, data.packages().size());
+        assertEquals("incorrect source count", 8, data.sourceCount());
+        assertEquals("incorrect dependency count", 8, data.dependencyCount());
+        assertEquals("incorrect cycle count", 1, data.cycles().size());
+    }
+
+    @Test(expected = IOException.class)
+    public void malformed() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("bad.data");
+        Files.write(path, "Pa\nSA\nD0.0>0.7\n".getBytes());
+        DetailData.read(path);
+    }
+
+    // Writes a binary detail data file with an empty header, followed by
+    // the given body, gzip-compressed if requested
+    private Path binary(boolean compressed, Body body) throws IOException {
+        Path path = folder.getRoot().toPath().resolve(compressed ? "bad.datb.gz" : "bad.datb");
+        try (OutputStream file = Files.newOutputStream(path)) {
+            file.write(DetailData.MAGIC);
+            file.write(DetailData.VERSION);
+            file.write(compressed ? DetailData.GZIP_FLAG : 0);
+            OutputStream out = compressed ? new GZIPOutputStream(file) : file;
+            for (int i = 0; i < 3; i++) {
+                DetailData.writeString(out, "");
+            }
+            body.write(out);
+            out.flush();
+            if (compressed) {
+                ((GZIPOutputStream) out).finish();
+            }
+        }
+        return path;
+    }
+
+    private interface Body {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private void assertMalformed(String message, Path path) {
+        try {
+            DetailData.read(path);
+            fail(message);
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void malformedBinary() throws IOException {
+        for (boolean compressed : new boolean[]{false, true}) {
+            assertMalformed("negative count should fail", binary(compressed, out -> {
+                DetailData.writeVarint(out, -1);
+            }));
+            assertMalformed("excessive count should fail", binary(compressed, out -> {
+                DetailData.writeVarint(out, Integer.MAX_VALUE);
+            }));
+            assertMalformed("excessive string should fail", binary(compressed, out -> {
+                DetailData.writeVarint(out, 1);
+                DetailData.writeVarint(out, Integer.MAX_VALUE);
+            }));
+            assertMalformed("target out of range should fail", binary(compressed, out -> {
+                DetailData.writeVarint(out, 1);
+                DetailData.writeString(out, "a");
+                DetailData.writeVarint(out, 1);
+                DetailData.writeString(out, "A");
+                DetailData.writeVarint(out, 1);
+                DetailData.writeVarint(out, 1);
+                DetailData.writeVarint(out, 0);
+            }));
+            assertMalformed("cycle code out of range should fail", binary(compressed, out -> {
+                DetailData.writeVarint(out, 0);
+                DetailData.writeVarint(out, 1);
+                DetailData.writeVarint(out, 1);
+                DetailData.writeVarint(out, 3);
+            }));
+            assertMalformed("truncated data should fail", binary(compressed, out -> {
+                DetailData.writeVarint(out, 2);
+                DetailData.writeString(out, "a");
+            }));
+        }
+    }
+
+    @Test
+    public void malformedCycles() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("bad.data");
+        Files.write(path, "Pa\nSA\nC0}x}\n".getBytes());
+        assertMalformed("malformed code should fail", path);
+        Files.write(path, "Pa\nSA\nC0}1}\n".getBytes());
+        assertMalformed("code out of range should fail", path);
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the detail data writer.
+ */
+public class DetailWriterTest {
+
+    private static final String NL = System.lineSeparator();
+
+    @Test
+    public void basics() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DetailWriter out = new DetailWriter(Channels.newChannel(bytes), 16)) {
+            out.append('D').append(0).append('.').append(12).append('>').append(Integer.MAX_VALUE).endLine();
+            out.append("Pcom.foo.").append("org.bar.Baz", 8, 11).endLine();
+            out.append("Sna\u00efve\u2603Source-with-a-name-longer-than-the-buffer").endLine();
+            assertEquals("incorrect line count", 3, out.lines());
+        }
+        assertEquals("incorrect text",
+                     "D0.12>2147483647" + NL + "Pcom.foo.Baz" + NL +
+                             "Sna\u00efve\u2603Source-with-a-name-longer-than-the-buffer" + NL,
+                     new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void flush() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DetailWriter out = new DetailWriter(Channels.newChannel(bytes), DetailWriter.DEFAULT_BUFFER_SIZE);
+        out.append("abc");
+        assertEquals("nothing should be written yet", 0, bytes.size());
+        out.flush();
+        assertEquals("incorrect size", 3, bytes.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negative() throws IOException {
+        new DetailWriter(Channels.newChannel(new ByteArrayOutputStream()), 16).append(-1);
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the Java source scanner.
+ */
+public class JavaSourceScannerTest {
+
+    // Lines which bin/jdvue used to pick out of the sources with grep
+    private static final Pattern GREP = Pattern.compile("^[ \t]*import .*;.*|^[ \t]*package .*;.*");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private List<String> scan(List<Path> roots) throws IOException {
+        List<String> pragmas = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            new JavaSourceScanner(roots, pool)
+                    .scan((p, pragma, name) -> pragmas.add(p + "|" + pragma + "|" + name));
+        } finally {
+            pool.shutdown();
+        }
+        return pragmas;
+    }
+
+    // Parses the catalog lines which grep would have produced of the roots
+    private List<String> grep(Path root) throws IOException {
+        List<String> pragmas = new ArrayList<>();
+        CatalogLineParser parser = new CatalogLineParser();
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(root)) {
+            files = stream.filter(p -> p.toString().endsWith(".java")).sorted().collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (GREP.matcher(line).matches() && parser.parse(file + ":" + line)) {
+                    pragmas.add(parser.path() + "|" + parser.pragma() + "|" + parser.name());
+                }
+            }
+        }
+        return pragmas;
+    }
+
+    private void write(String path, String... lines) throws IOException {
+        Path file = folder.getRoot().toPath().resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, ImmutableList.copyOf(lines), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void sameAsGrep() throws IOException {
+        Path root = Paths.get("src/main/java");
+        assertEquals("incorrect pragmas", grep(root), scan(ImmutableList.of(root)));
+    }
+
+    @Test
+    public void header() throws IOException {
+        write("a/A.java",
+              "/* package x;",
+              " * import x.X; */",
+              "@Deprecated",
+              "package a;  // import y.Y;",
+              "",
+              "import b.B;",
+              "import static c.C.member;",
+              "import static c.D.*;",
+              "import d",
+              "    .E;",
+              "import e.*;",
+              "",
+              "@SuppressWarnings(\"import f.F;\")",
+              "public class A {",
+              "    import g.G;",
+              "}");
+        write("b/B.java",
+              "package b;",
+              "@interface B {",
+              "}",
+              "import h.H;");
+        write("Default.java", "import a.A;", "class Default {}");
+        write("target/T.java", "package t;");
+        write("b/target/T.java", "package t;");
+
+        String root = folder.getRoot().toString();
+        assertEquals("incorrect pragmas",
+                     ImmutableList.of(root + "/Default.java|IMPORT|a.A",
+                                      root + "/a/A.java|PACKAGE|a",
+                                      root + "/a/A.java|IMPORT|b.B",
+                                      root + "/a/A.java|IMPORT|c.C",
+                                      root + "/a/A.java|IMPORT|c.D",
+                                      root + "/a/A.java|IMPORT|d.E",
+                                      root + "/a/A.java|IMPORT|e.*",
+                                      root + "/b/B.java|PACKAGE|b"),
+                     scan(ImmutableList.of(folder.getRoot().toPath())));
+    }
+
+    @Test
+    public void catalog() throws IOException {
+        Path root = Paths.get("src/main/java");
+        Catalog expected = new Catalog(folder.getRoot() + "/jdvue");
+        List<String> lines = new ArrayList<>();
+        for (String pragma : grep(root)) {
+            String[] fields = pragma.split("\\|");
+            lines.add(fields[0] + ":" + fields[1].toLowerCase() + " " + fields[2] + ";");
+        }
+        Files.write(Paths.get(expected.basePath() + ".db"), lines);
+        expected.load();
+        expected.analyze();
+
+        Catalog cat = new Catalog(folder.getRoot() + "/scanned");
+        cat.loadSources(ImmutableList.of(root));
+        cat.analyze();
+        assertEquals("incorrect packages", expected.getPackages(), cat.getPackages());
+        assertEquals("incorrect sources", expected.getSources(), cat.getSources());
+        assertEquals("incorrect cycles", expected.getCycles(), cat.getCycles());
+    }
+
+}
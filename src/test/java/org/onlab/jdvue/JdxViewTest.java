@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the JDX page generator, against pages produced by
+ * {@code scripts/gen-jdx.py} from the detail data of the same catalogs.
+ */
+public class JdxViewTest {
+
+    private static final String DATE = "(?m)^  \"date\": .*$";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Copies the named test catalog into the temporary folder, then loads
+    // and analyzes it
+    private Catalog analyzed(String name) throws IOException {
+        String base = folder.getRoot() + "/" + name;
+        Files.copy(Paths.get("src/test/resources/" + name + ".db"), Paths.get(base + ".db"));
+        Catalog cat = new Catalog(base);
+        cat.load();
+        cat.analyze();
+        return cat;
+    }
+
+    private void check(String name) throws IOException {
+        Catalog cat = analyzed(name);
+        new JdxView(cat).writeHTMLFile();
+        String html = new String(Files.readAllBytes(Paths.get(cat.basePath() + ".jdx.html")),
+                                 StandardCharsets.UTF_8);
+        String expected = new String(Files.readAllBytes(Paths.get("src/test/resources/expected_" + name + ".jdx.html")),
+                                     StandardCharsets.UTF_8);
+        assertEquals("incorrect page", expected.replaceAll(DATE, ""),
+                     html.replace(folder.getRoot() + "/", "").replaceAll(DATE, ""));
+    }
+
+    @Test
+    public void pages() throws IOException {
+        check("catalog");
+        check("non_maven_cat");
+    }
+
+    @Test
+    public void assets() throws IOException {
+        JdxView view = new JdxView(analyzed("catalog"));
+        view.setAssets(new ReportAssets(folder.getRoot().toPath().resolve("assets")));
+        String html = view.toHTML();
+        Matcher style = Pattern.compile("<link rel=\"stylesheet\" href=\"(assets/jdx-\\w+\\.css)\">").matcher(html);
+        Matcher script = Pattern.compile("</script>\\s*<script src=\"(assets/jdx-\\w+\\.js)\"></script>").matcher(html);
+        assertTrue("style should be referenced", style.find());
+        assertTrue("script should be referenced", script.find());
+        assertTrue("data should be embedded", html.contains("const jdxMeta = {"));
+        assertFalse("script should not be embedded", html.contains("const inflateData"));
+        assertEquals("incorrect style asset", view.getResourceAsString("jdx.css"), read(style.group(1)));
+        assertEquals("incorrect script asset", view.getResourceAsString("jdx.js"), read(script.group(1)));
+    }
+
+    private String read(String asset) throws IOException {
+        return new String(Files.readAllBytes(folder.getRoot().toPath().resolve(asset)), StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the memory-mapped catalog reader.
+ */
+public class MappedCatalogReaderTest {
+
+    private static final String[] CATALOGS = {
+            "src/test/resources/catalog.db",
+            "src/test/resources/non_maven_cat.db",
+            "src/test/resources/abc_cat_normal.db",
+            "src/test/resources/abc_cat_static.db",
+    };
+
+    private static final Charset CHARSET = StandardCharsets.UTF_8;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Parses the file serially, one line at a time
+    private List<String> serial(Path path) throws IOException {
+        List<String> pragmas = new ArrayList<>();
+        CatalogLineParser parser = new CatalogLineParser();
+        for (String line : Files.readAllLines(path, CHARSET)) {
+            if (parser.parse(line)) {
+                pragmas.add(parser.path() + "|" + parser.pragma() + "|" + parser.name());
+            }
+        }
+        return pragmas;
+    }
+
+    private List<String> mapped(Path path, int chunkSize) throws IOException {
+        List<String> pragmas = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            new MappedCatalogReader(path, CHARSET, pool, chunkSize)
+                    .read((p, pragma, name) -> pragmas.add(p + "|" + pragma + "|" + name));
+        } finally {
+            pool.shutdown();
+        }
+        return pragmas;
+    }
+
+    @Test
+    public void sameAsSerial() throws IOException {
+        for (String catalog : CATALOGS) {
+            Path path = Paths.get(catalog);
+            List<String> expected = serial(path);
+            assertFalse("catalog should not be empty", expected.isEmpty());
+            for (int chunkSize : new int[]{1, 7, 64, 1024, MappedCatalogReader.DEFAULT_CHUNK_SIZE}) {
+                assertEquals("incorrect pragmas for " + catalog + " in chunks of " + chunkSize,
+                             expected, mapped(path, chunkSize));
+            }
+        }
+    }
+
+    @Test
+    public void lineCount() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("lines.db");
+        Files.write(path, "a.java:package a;\r\n\r\nb.java:import a.A;\n\rc\r\r\nlast".getBytes(CHARSET));
+        long expected;
+        try (BufferedReader reader = Files.newBufferedReader(path, CHARSET)) {
+            expected = reader.lines().count();
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int chunkSize = 1; chunkSize <= Files.size(path); chunkSize++) {
+                assertEquals("incorrect line count in chunks of " + chunkSize, expected,
+                             new MappedCatalogReader(path, CHARSET, pool, chunkSize).read((p, pragma, name) -> {
+                             }));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void supportedCharsets() {
+        assertTrue("UTF-8 should be supported", MappedCatalogReader.isSupported(StandardCharsets.UTF_8));
+        assertTrue("ISO-8859-1 should be supported", MappedCatalogReader.isSupported(StandardCharsets.ISO_8859_1));
+        assertFalse("UTF-16 should not be supported", MappedCatalogReader.isSupported(StandardCharsets.UTF_16));
+    }
+
+}
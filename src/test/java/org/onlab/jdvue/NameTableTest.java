@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the name table.
+ */
+public class NameTableTest {
+
+    private final NameTable names = new NameTable();
+
+    @Test
+    public void basics() {
+        int a = names.intern("org.onlab.jdvue.Catalog");
+        int b = names.intern("org.onlab.jdvue.JavaSource");
+        assertEquals("same name should have same symbol", a, names.intern("org.onlab.jdvue.Catalog"));
+        assertNotEquals("different names should differ", a, b);
+        assertEquals("prefixes should be shared", names.parent(a), names.parent(b));
+        assertEquals("incorrect symbol count", 5, names.size());
+
+        assertEquals("incorrect name", "org.onlab.jdvue.Catalog", names.name(a));
+        assertEquals("incorrect prefix", "org.onlab.jdvue", names.name(names.parent(a)));
+        assertEquals("incorrect segment", "JavaSource", names.lastSegment(b));
+        assertEquals("incorrect lookup", b, names.find("org.onlab.jdvue.JavaSource"));
+        assertEquals("incorrect prefix lookup", names.parent(a), names.find("org.onlab.jdvue"));
+        assertEquals("missing name", NameTable.NONE, names.find("org.onlab.Catalog"));
+        assertEquals("missing segment", NameTable.NONE, names.find("org.onlab.jdvue.Foo"));
+    }
+
+    @Test
+    public void prefixed() {
+        int pkg = names.intern("a.b");
+        String path = "src/a/b/C.java";
+        int c = names.intern(pkg, path, path.lastIndexOf('/') + 1, path.length() - 5);
+        assertEquals("incorrect name", "a.b.C", names.name(c));
+        assertEquals("incorrect symbol", c, names.intern("a.b.C"));
+        assertEquals("incorrect top-level name", "x.y", names.name(names.intern(NameTable.NONE, "x.y", 0, 3)));
+    }
+
+    @Test
+    public void oddNames() {
+        String[] odd = {"", ".", "...", "a.", ".a", "a..b", "a/b/c", "import b.B", "a.*"};
+        for (String name : odd) {
+            int symbol = names.intern(name);
+            assertEquals("incorrect name", name, names.name(symbol));
+            assertEquals("incorrect lookup", symbol, names.find(name));
+            assertEquals("incorrect hash", name.hashCode(), names.nameHash(symbol));
+        }
+        assertTrue("should be blank", names.isBlank(names.find("")));
+        assertTrue("should be blank", names.isBlank(names.find("...")));
+        assertFalse("should not be blank", names.isBlank(names.find("a.")));
+        assertFalse("should not be blank", names.isBlank(names.find(".a")));
+    }
+
+    @Test
+    public void growth() {
+        int n = 10_000;
+        int[] symbols = new int[n];
+        for (int i = 0; i < n; i++) {
+            symbols[i] = names.intern("p" + (i % 37) + ".q" + (i % 101) + ".S" + i);
+        }
+        for (int i = 0; i < n; i++) {
+            String name = "p" + (i % 37) + ".q" + (i % 101) + ".S" + i;
+            assertEquals("incorrect name", name, names.name(symbols[i]));
+            assertEquals("incorrect lookup", symbols[i], names.find(name));
+        }
+    }
+
+}
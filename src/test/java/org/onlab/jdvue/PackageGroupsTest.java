@@ -0,0 +1,82 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the package groups.
+ */
+public class PackageGroupsTest {
+
+    private static final List<JavaPackage> PACKAGES = Arrays.asList(
+            new JavaPackage("org.a"), new JavaPackage("org.a.x"), new JavaPackage("org.a.y"),
+            new JavaPackage("org.b.x"), new JavaPackage("org.b.y"), new JavaPackage("net.c"));
+
+    private static List<String> names(PackageGroups groups, boolean expanded) {
+        List<String> names = new ArrayList<>();
+        for (PackageGroups.Group group : groups.groups()) {
+            if (group.isExpanded() == expanded) {
+                names.add(group.name());
+            }
+        }
+        return names;
+    }
+
+    @Test
+    public void grouping() {
+        PackageGroups groups = new PackageGroups(PACKAGES, Collections.emptySet(), 100);
+        assertEquals("incorrect groups", Arrays.asList("org", "org.a", "org.b"), names(groups, true));
+        assertTrue("no group should be collapsed", names(groups, false).isEmpty());
+        assertEquals("incorrect visible count", 6, groups.visibleCount());
+
+        PackageGroups.Group org = groups.groups().get(0);
+        assertEquals("incorrect package count", 5, org.packageCount());
+        assertEquals("incorrect package count", 3, groups.groups().get(1).packageCount());
+    }
+
+    @Test
+    public void limited() {
+        PackageGroups groups = new PackageGroups(PACKAGES, Collections.emptySet(), 4);
+        assertEquals("incorrect expanded groups", Arrays.asList("org", "org.b"), names(groups, true));
+        assertEquals("incorrect collapsed groups", Arrays.asList("org.a"), names(groups, false));
+        assertEquals("incorrect visible count", 4, groups.visibleCount());
+
+        groups = new PackageGroups(PACKAGES, Collections.emptySet(), 1);
+        assertFalse("nothing should be expanded", groups.groups().get(0).isExpanded());
+        assertEquals("incorrect visible count", 2, groups.visibleCount());
+    }
+
+    @Test
+    public void cycles() {
+        DependencyCycle ab = new DependencyCycle(Arrays.asList(PACKAGES.get(0), PACKAGES.get(3)), PACKAGES.get(0));
+        DependencyCycle aa = new DependencyCycle(Arrays.asList(PACKAGES.get(1), PACKAGES.get(2)), PACKAGES.get(1));
+        PackageGroups groups = new PackageGroups(PACKAGES, Arrays.asList(ab, aa), 100);
+        assertEquals("incorrect cycle count", 2, groups.groups().get(0).cycleCount());
+        assertEquals("incorrect cycle count", 2, groups.groups().get(1).cycleCount());
+        assertEquals("incorrect cycle count", 1, groups.groups().get(2).cycleCount());
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the pipeline metrics.
+ */
+public class PipelineMetricsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Copies the named test catalog into the temporary folder
+    private String copyCatalog(String name) throws IOException {
+        String base = folder.getRoot() + "/" + name;
+        Files.copy(Paths.get("src/test/resources/" + name + ".db"), Paths.get(base + ".db"));
+        return base;
+    }
+
+    private Catalog analyzed(String name) throws IOException {
+        Catalog cat = new Catalog(copyCatalog(name));
+        cat.load();
+        cat.analyze();
+        return cat;
+    }
+
+    @Test
+    public void phases() throws IOException {
+        PipelineMetrics metrics = new PipelineMetrics();
+        try (PipelineMetrics.Phase phase = metrics.start("a")) {
+            phase.count("x", 2).count("x", 3).count("y", 1);
+        }
+        try (PipelineMetrics.Phase phase = metrics.start("b")) {
+            phase.count("z", 7);
+        }
+        try (PipelineMetrics.Phase phase = metrics.start("a")) {
+            phase.count("x", 1);
+        }
+
+        assertEquals("incorrect phases", ImmutableList.of("a", "b"), metrics.phases());
+        assertEquals("incorrect count", 6, metrics.count("a", "x"));
+        assertEquals("incorrect count", 1, metrics.count("a", "y"));
+        assertEquals("incorrect count", 0, metrics.count("b", "x"));
+        assertEquals("incorrect count", 0, metrics.count("c", "x"));
+        assertTrue("time should be recorded", metrics.wallNanos("a") > 0);
+
+        StringWriter json = new StringWriter();
+        metrics.writeJson(json);
+        JsonNode phases = new ObjectMapper().readTree(json.toString()).get("phases");
+        assertEquals("incorrect phase count", 2, phases.size());
+        assertEquals("incorrect name", "a", phases.get(0).get("name").asText());
+        assertEquals("incorrect runs", 2, phases.get(0).get("runs").asInt());
+        assertEquals("incorrect count", 6, phases.get(0).get("counts").get("x").asLong());
+        assertEquals("incorrect count", 7, phases.get(1).get("counts").get("z").asLong());
+
+        StringWriter prom = new StringWriter();
+        metrics.writePrometheus(prom);
+        String text = prom.toString();
+        assertTrue("missing type", text.contains("# TYPE jdvue_phase_seconds gauge\n"));
+        assertTrue("missing runs", text.contains("jdvue_phase_runs{phase=\"a\"} 2\n"));
+        assertTrue("missing count", text.contains("jdvue_phase_count{phase=\"a\",count=\"x\"} 6\n"));
+        assertTrue("missing count", text.contains("jdvue_phase_count{phase=\"b\",count=\"z\"} 7\n"));
+    }
+
+    @Test
+    public void catalog() throws IOException {
+        Catalog cat = analyzed("catalog");
+        String base = cat.basePath();
+        new BundleView(cat).writeHTMLFile();
+
+        PipelineMetrics metrics = cat.metrics();
+        assertEquals("incorrect phases",
+                     ImmutableList.of("load", "resolveImports", "findCircularDependencies", "writeHTMLFile"),
+                     metrics.phases());
+        long lines = Files.readAllLines(Paths.get(base + ".db")).size();
+        assertEquals("incorrect line count", lines, metrics.count("load", "lines"));
+        assertTrue("pragmas should be counted", metrics.count("load", "pragmas") > 0);
+        assertTrue("import names should be counted",
+                   metrics.count("resolveImports", "importNames") >=
+                           metrics.count("resolveImports", "unresolvedImports"));
+        assertEquals("incorrect cycle count", 5, metrics.count("findCircularDependencies", "cycles"));
+        assertTrue("search nodes should be counted",
+                   metrics.count("findCircularDependencies", "searchNodesVisited") > 0);
+        assertEquals("incorrect package count", 12, metrics.count("writeHTMLFile", "packages"));
+
+        Path prom = folder.getRoot().toPath().resolve("catalog.metrics.prom");
+        metrics.write(prom);
+        assertTrue("missing prometheus text", new String(Files.readAllBytes(prom), StandardCharsets.UTF_8)
+                .contains("jdvue_phase_count{phase=\"findCircularDependencies\",count=\"cycles\"} 5\n"));
+    }
+
+    @Test
+    public void mappedLines() throws IOException {
+        String base = copyCatalog("catalog");
+        Catalog cat = new Catalog(base);
+        cat.loadMapped();
+        assertEquals("incorrect line count", Files.readAllLines(Paths.get(base + ".db")).size(),
+                     cat.metrics().count("load", "lines"));
+    }
+
+    @Test
+    public void sharedPool() throws IOException {
+        String base = copyCatalog("catalog");
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            Catalog cat = new Catalog(base, pool, true);
+            cat.load();
+            cat.analyze();
+            assertEquals("allocations should not be measured", -1, cat.metrics().allocatedBytes("load"));
+            assertEquals("allocations should not be measured", -1, cat.metrics().allocatedBytes("resolveImports"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+}
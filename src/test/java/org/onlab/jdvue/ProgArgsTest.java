@@ -15,10 +15,14 @@
  */
 package org.onlab.jdvue;
 
+import com.google.common.collect.ImmutableList;
 import org.junit.Test;
 
+import java.nio.file.Paths;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -28,6 +32,12 @@ public class ProgArgsTest {
 
     private static final String CAT_PATH = "somepath/somecat";
     private static final String DETAIL_FLAG = "-d";
+    private static final String MAPPED_FLAG = "-m";
+    private static final String SERVE_FLAG = "-s";
+    private static final String ROOT_FLAG = "-r";
+    private static final String BATCH_FLAG = "-b";
+    private static final String METRICS_FLAG = "-t";
+    private static final String CLASS_ROOT_FLAG = "-c";
     private static final String OTHER_FLAG = "-o";
 
     @Test
@@ -36,6 +46,9 @@ public class ProgArgsTest {
 
         assertEquals("wrong catalog path", CAT_PATH, pa.catPath());
         assertFalse("Detail flag should be false", pa.outputDetailData());
+        assertFalse("Mapped flag should be false", pa.mappedLoad());
+        assertFalse("Serve flag should be false", pa.serve());
+        assertTrue("Source roots should be empty", pa.sourceRoots().isEmpty());
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -51,6 +64,14 @@ public class ProgArgsTest {
         assertTrue("Detail flag should be true", pa.outputDetailData());
     }
 
+    @Test
+    public void mappedFlag() {
+        ProgArgs pa = new ProgArgs(new String[]{CAT_PATH, DETAIL_FLAG, MAPPED_FLAG});
+
+        assertTrue("Detail flag should be true", pa.outputDetailData());
+        assertTrue("Mapped flag should be true", pa.mappedLoad());
+    }
+
     @Test
     public void otherFlag() {
         ProgArgs pa = new ProgArgs(new String[]{CAT_PATH, OTHER_FLAG});
@@ -58,4 +79,91 @@ public class ProgArgsTest {
         assertEquals("wrong catalog path", CAT_PATH, pa.catPath());
         assertFalse("Detail flag should be false", pa.outputDetailData());
     }
+
+    @Test
+    public void serveFlag() {
+        ProgArgs pa = new ProgArgs(new String[]{CAT_PATH, SERVE_FLAG});
+        assertTrue("Serve flag should be true", pa.serve());
+        assertEquals("wrong port", DependencyServer.DEFAULT_PORT, pa.servePort());
+
+        pa = new ProgArgs(new String[]{CAT_PATH, SERVE_FLAG, "9000", DETAIL_FLAG});
+        assertEquals("wrong port", 9000, pa.servePort());
+        assertTrue("Detail flag should be true", pa.outputDetailData());
+    }
+
+    @Test
+    public void sourceRoots() {
+        ProgArgs pa = new ProgArgs(new String[]{CAT_PATH, ROOT_FLAG, "a/src", DETAIL_FLAG, ROOT_FLAG, "b"});
+        assertEquals("wrong source roots", ImmutableList.of(Paths.get("a/src"), Paths.get("b")), pa.sourceRoots());
+        assertTrue("Detail flag should be true", pa.outputDetailData());
+    }
+
+    @Test
+    public void classRoots() {
+        ProgArgs pa = new ProgArgs(new String[]{CAT_PATH, CLASS_ROOT_FLAG, "a.jar", CLASS_ROOT_FLAG, "target/classes"});
+        assertEquals("wrong class roots",
+                     ImmutableList.of(Paths.get("a.jar"), Paths.get("target/classes")), pa.classRoots());
+        assertTrue("Source roots should be empty", pa.sourceRoots().isEmpty());
+    }
+
+    @Test
+    public void batchFlag() {
+        ProgArgs pa = new ProgArgs(new String[]{CAT_PATH, BATCH_FLAG});
+        assertTrue("Batch flag should be true", pa.batch());
+        assertEquals("wrong thread count", Runtime.getRuntime().availableProcessors(), pa.batchThreads());
+
+        pa = new ProgArgs(new String[]{CAT_PATH, BATCH_FLAG, "3", DETAIL_FLAG});
+        assertEquals("wrong thread count", 3, pa.batchThreads());
+        assertTrue("Detail flag should be true", pa.outputDetailData());
+
+        pa = new ProgArgs(new String[]{CAT_PATH});
+        assertFalse("Batch flag should be false", pa.batch());
+    }
+
+    @Test
+    public void metricsFlag() {
+        ProgArgs pa = new ProgArgs(new String[]{CAT_PATH, METRICS_FLAG, DETAIL_FLAG});
+        assertEquals("wrong metrics format", "json", pa.metricsFormat());
+        assertTrue("Detail flag should be true", pa.outputDetailData());
+
+        pa = new ProgArgs(new String[]{CAT_PATH, METRICS_FLAG, "prom"});
+        assertEquals("wrong metrics format", "prom", pa.metricsFormat());
+
+        pa = new ProgArgs(new String[]{CAT_PATH});
+        assertEquals("wrong metrics format", null, pa.metricsFormat());
+    }
+
+    @Test
+    public void detailFormat() {
+        ProgArgs pa = new ProgArgs(new String[]{CAT_PATH, DETAIL_FLAG, MAPPED_FLAG});
+        assertEquals("wrong detail format", "text", pa.detailFormat());
+        assertTrue("Mapped flag should be true", pa.mappedLoad());
+
+        pa = new ProgArgs(new String[]{CAT_PATH, DETAIL_FLAG, "gz"});
+        assertTrue("Detail flag should be true", pa.outputDetailData());
+        assertEquals("wrong detail format", "gz", pa.detailFormat());
+    }
+
+    @Test
+    public void jdxFlag() {
+        ProgArgs pa = new ProgArgs(new String[]{CAT_PATH, "-x", DETAIL_FLAG});
+        assertTrue("JDX flag should be true", pa.outputJdx());
+        assertTrue("Detail flag should be true", pa.outputDetailData());
+        assertFalse("JDX flag should be false", new ProgArgs(new String[]{CAT_PATH}).outputJdx());
+    }
+
+    @Test
+    public void shardedFlag() {
+        ProgArgs pa = new ProgArgs(new String[]{CAT_PATH, "-l"});
+        assertTrue("sharded flag should be true", pa.sharded());
+        assertFalse("sharded flag should be false", new ProgArgs(new String[]{CAT_PATH}).sharded());
+    }
+
+    @Test
+    public void assetDir() {
+        ProgArgs pa = new ProgArgs(new String[]{CAT_PATH, "-a", "reports/assets", "-x"});
+        assertEquals("incorrect asset dir", Paths.get("reports/assets"), pa.assetDir());
+        assertTrue("JDX flag should be true", pa.outputJdx());
+        assertNull("asset dir should be null", new ProgArgs(new String[]{CAT_PATH}).assetDir());
+    }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the radial layout.
+ */
+public class RadialLayoutTest {
+
+    private static final double DELTA = 1e-9;
+
+    // org.a and org.b under org, with net.c on its own
+    private static final List<String> LEAVES = Arrays.asList("org.a", "org.b", "net.c");
+
+    private static RadialLayout layout(List<int[]> imports) {
+        return new RadialLayout(LEAVES, imports, ForkJoinPool.commonPool());
+    }
+
+    @Test
+    public void nodes() {
+        RadialLayout layout = layout(Arrays.asList(new int[0], new int[0], new int[0]));
+        assertEquals("incorrect leaf count", 3, layout.leafCount());
+        assertEquals("incorrect node count", 6, layout.nodeCount());
+
+        // leaves 1 apart under the same parent, 2 apart otherwise, and
+        // half of that before the first and after the last
+        assertEquals("incorrect angle", 1.0 / 5, layout.angle(0), DELTA);
+        assertEquals("incorrect angle", 2.0 / 5, layout.angle(1), DELTA);
+        assertEquals("incorrect angle", 4.0 / 5, layout.angle(2), DELTA);
+        for (int leaf = 0; leaf < 3; leaf++) {
+            assertEquals("leaves should be on the circle", 1.0, layout.radius(leaf), DELTA);
+        }
+
+        // root, org, net
+        assertEquals("root should be at the centre", 0.0, layout.radius(3), DELTA);
+        assertEquals("incorrect angle", 1.5 / 5, layout.angle(4), DELTA);
+        assertEquals("incorrect radius", 0.5, layout.radius(4), DELTA);
+        assertEquals("incorrect angle", 4.0 / 5, layout.angle(5), DELTA);
+    }
+
+    @Test
+    public void paths() {
+        RadialLayout layout = layout(Arrays.asList(new int[]{1, 2}, new int[0], new int[]{0}));
+        int[][] paths = layout.paths();
+        assertEquals("incorrect link count", 3, paths.length);
+        assertArrayEquals("incorrect path", new int[]{0, 4, 1}, paths[0]);
+        assertArrayEquals("incorrect path", new int[]{0, 4, 3, 5, 2}, paths[1]);
+        assertArrayEquals("incorrect path", new int[]{2, 5, 3, 4, 0}, paths[2]);
+    }
+
+    @Test
+    public void nested() {
+        // org.a.x extends org.a, so it hangs off org rather than org.a
+        RadialLayout layout = new RadialLayout(Arrays.asList("org.a", "org.a.x"),
+                                               Arrays.asList(new int[]{1}, new int[0]),
+                                               ForkJoinPool.commonPool());
+        assertEquals("incorrect node count", 4, layout.nodeCount());
+        assertArrayEquals("incorrect path", new int[]{0, 3, 1}, layout.paths()[0]);
+    }
+
+    @Test
+    public void empty() {
+        RadialLayout layout = new RadialLayout(Collections.emptyList(), Collections.emptyList(),
+                                               ForkJoinPool.commonPool());
+        assertEquals("incorrect node count", 0, layout.nodeCount());
+        assertEquals("incorrect link count", 0, layout.paths().length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingImports() {
+        layout(Collections.emptyList());
+    }
+
+}
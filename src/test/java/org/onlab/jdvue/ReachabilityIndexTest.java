@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the transitive reachability index of a package graph.
+ */
+public class ReachabilityIndexTest {
+
+    private static ReachabilityIndex index(PackageGraph graph) {
+        return new ReachabilityIndex(graph, new StronglyConnectedComponents(graph), ForkJoinPool.commonPool());
+    }
+
+    // Packages reachable from the given one by one or more dependencies
+    private static BitSet walk(PackageGraph graph, int index) {
+        BitSet reached = new BitSet();
+        Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(index);
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            for (int p = graph.start(s); p < graph.end(s); p++) {
+                int t = graph.target(p);
+                if (!reached.get(t)) {
+                    reached.set(t);
+                    queue.add(t);
+                }
+            }
+        }
+        return reached;
+    }
+
+    @Test
+    public void sample() {
+        CatalogGraphFixture fixture = new CatalogGraphFixture();
+        fixture.dependency("a", "b")
+                .dependency("b", "x")
+                .dependency("w", "w")
+                .dependency("x", "y")
+                .dependency("y", "z")
+                .dependency("z", "x", "w");
+        PackageGraph graph = new PackageGraph(fixture.resolve());
+        ReachabilityIndex index = index(graph);
+        int a = graph.indexOf(fixture.pkg("a"));
+        int b = graph.indexOf(fixture.pkg("b"));
+        int w = graph.indexOf(fixture.pkg("w"));
+        int x = graph.indexOf(fixture.pkg("x"));
+
+        assertTrue("a should depend on w", index.dependsOn(a, w));
+        assertFalse("w should not depend on a", index.dependsOn(w, a));
+        assertFalse("a should not depend on itself", index.dependsOn(a, a));
+        assertTrue("cyclic package should depend on itself", index.dependsOn(x, x));
+        assertTrue("self-dependent package should depend on itself", index.dependsOn(w, w));
+
+        assertEquals("incorrect dependency count", 5, index.dependencies(a).cardinality());
+        assertEquals("incorrect dependency count", 4, index.dependencies(x).cardinality());
+        assertEquals("incorrect dependent count", 5, index.dependents(x).cardinality());
+        assertEquals("incorrect dependencies", walk(graph, a), index.dependencies(a));
+        assertTrue("b should have no dependents but a", index.dependents(b).get(a));
+        assertEquals("incorrect dependent count", 1, index.dependents(b).cardinality());
+    }
+
+    @Test
+    public void random() {
+        Random random = new Random(7);
+        CatalogGraphFixture fixture = new CatalogGraphFixture();
+        int n = 300;
+        for (int i = 0; i < n; i++) {
+            fixture.pkg("p" + i);
+        }
+        for (int e = 0; e < 2 * n; e++) {
+            int s = random.nextInt(n);
+            // mostly forward, occasionally backward to form cycles
+            int t = random.nextInt(10) == 0 ? random.nextInt(n) : s + 1 + random.nextInt(n - s);
+            if (t < n) {
+                fixture.dependency("p" + s, "p" + t);
+            }
+        }
+        PackageGraph graph = new PackageGraph(fixture.resolve());
+        ReachabilityIndex index = index(graph);
+
+        BitSet[] reached = new BitSet[n];
+        for (int i = 0; i < n; i++) {
+            reached[i] = walk(graph, i);
+            assertEquals("incorrect dependencies", reached[i], index.dependencies(i));
+        }
+        for (int t = 0; t < n; t++) {
+            BitSet dependents = new BitSet();
+            for (int s = 0; s < n; s++) {
+                dependents.set(s, reached[s].get(t));
+                assertEquals("incorrect reachability", reached[s].get(t), index.dependsOn(s, t));
+            }
+            assertEquals("incorrect dependents", dependents, index.dependents(t));
+        }
+    }
+
+    @Test
+    public void empty() {
+        PackageGraph graph = new PackageGraph(new CatalogGraphFixture().resolve());
+        assertEquals("incorrect run count", 0, index(graph).runCount());
+    }
+
+}
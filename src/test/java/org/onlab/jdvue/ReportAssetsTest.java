@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Unit tests for the shared report assets.
+ */
+public class ReportAssetsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void publish() throws IOException {
+        Path dir = folder.getRoot().toPath().resolve("assets");
+        ReportAssets assets = new ReportAssets(dir);
+
+        String name = assets.publish("lib.v1.min.js", "var x = 1;");
+        assertTrue("incorrect file name", name.matches("lib\\.v1\\.min-[0-9a-f]{16}\\.js"));
+        assertEquals("incorrect content", "var x = 1;",
+                     new String(Files.readAllBytes(dir.resolve(name)), StandardCharsets.UTF_8));
+        assertEquals("same content should share the file", name,
+                     new ReportAssets(dir).publish("lib.v1.min.js", "var x = 1;"));
+        assertNotEquals("changed content should get a new file", name,
+                        assets.publish("lib.v1.min.js", "var x = 2;"));
+        assertEquals("incorrect file count", 2, dir.toFile().list().length);
+    }
+
+    @Test
+    public void readable() throws IOException {
+        Path dir = folder.getRoot().toPath().resolve("assets");
+        Path file = dir.resolve(new ReportAssets(dir).publish("style.css", "body {}"));
+        assumeTrue(Files.getFileStore(file).supportsFileAttributeView(PosixFileAttributeView.class));
+
+        Path plain = Files.write(dir.resolve("plain.txt"), new byte[0]);
+        assertEquals("asset should have default permissions",
+                     Files.getPosixFilePermissions(plain), Files.getPosixFilePermissions(file));
+        assertTrue("asset should be readable", Files.isReadable(file));
+    }
+
+    @Test
+    public void reference() throws IOException {
+        Path root = folder.getRoot().toPath();
+        ReportAssets assets = new ReportAssets(root.resolve("assets"));
+        String name = assets.publish("style.css", "body {}");
+        assertEquals("incorrect sibling reference", "assets/" + name,
+                     assets.reference(root, "style.css", "body {}"));
+        assertEquals("incorrect nested reference", "../../assets/" + name,
+                     assets.reference(root.resolve("a/b"), "style.css", "body {}"));
+    }
+
+}
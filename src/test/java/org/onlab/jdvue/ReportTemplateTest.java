@@ -0,0 +1,74 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for report templates and their caching.
+ */
+public class ReportTemplateTest {
+
+    private static class Fixture extends AbstractReportGenerator {
+    }
+
+    private String render(ReportTemplate template) throws IOException {
+        StringWriter writer = new StringWriter();
+        template.render(writer, (placeholder, w) -> w.write("<" + placeholder.toLowerCase() + ">"));
+        return writer.toString();
+    }
+
+    @Test
+    public void basics() throws IOException {
+        ReportTemplate template = ReportTemplate.parse("a TITLE b DATA c TITLE", "TITLE", "DATA");
+        assertEquals("incorrect placeholders", ImmutableList.of("TITLE", "DATA", "TITLE"), template.placeholders());
+        assertEquals("incorrect rendering", "a <title> b <data> c <title>", render(template));
+        assertEquals("incorrect rendering", "a <title> b <data> c <title>", render(template));
+    }
+
+    @Test
+    public void edges() throws IOException {
+        assertEquals("incorrect rendering", "plain", render(ReportTemplate.parse("plain", "X")));
+        assertEquals("incorrect rendering", "", render(ReportTemplate.parse("", "X")));
+        assertEquals("incorrect rendering", "<x><x>", render(ReportTemplate.parse("XX", "X")));
+        assertEquals("incorrect rendering", "<ab>C", render(ReportTemplate.parse("ABC", "BC", "AB")));
+    }
+
+    @Test
+    public void cached() throws IOException {
+        String resource = "index.html";
+        String text = new Fixture().getResourceAsString(resource);
+        assertSame("resource should be cached", text, new Fixture().getResourceAsString(resource));
+
+        ReportTemplate template = new Fixture().getTemplate(resource, "TITLE_PLACEHOLDER");
+        assertSame("template should be cached", template, new Fixture().getTemplate(resource, "TITLE_PLACEHOLDER"));
+        assertEquals("incorrect rendering", text.replace("TITLE_PLACEHOLDER", "<title_placeholder>"),
+                     render(template));
+    }
+
+    @Test(expected = IOException.class)
+    public void missing() throws IOException {
+        new Fixture().getResourceAsString("missing.html");
+    }
+
+}
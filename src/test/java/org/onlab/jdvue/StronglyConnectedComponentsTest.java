@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.jdvue;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the strongly connected components of a package graph.
+ */
+public class StronglyConnectedComponentsTest {
+
+    private final CatalogGraphFixture fixture = new CatalogGraphFixture();
+    // created in reverse order of names
+    private final JavaPackage z = fixture.pkg("z");
+    private final JavaPackage y = fixture.pkg("y");
+    private final JavaPackage x = fixture.pkg("x");
+    private final JavaPackage w = fixture.pkg("w");
+    private final JavaPackage b = fixture.pkg("b");
+    private final JavaPackage a = fixture.pkg("a");
+
+    private PackageGraph sampleGraph() {
+        fixture.dependency("a", "b")
+                .dependency("w", "w")
+                .dependency("x", "y")
+                .dependency("y", "z")
+                .dependency("z", "x", "w");
+        return new PackageGraph(fixture.resolve());
+    }
+
+    @Test
+    public void graph() {
+        PackageGraph g = sampleGraph();
+        assertEquals("incorrect size", 6, g.size());
+        assertEquals("packages should be ordered by name", a, g.getPackage(0));
+        assertEquals("incorrect index", 5, g.indexOf(z));
+        assertEquals("incorrect index", -1, g.indexOf(new JavaPackage("q")));
+        assertEquals("incorrect index", -1, g.indexOf(new CatalogGraphFixture().pkg("a")));
+
+        int zi = g.indexOf(z);
+        assertEquals("incorrect dependency count", 2, g.end(zi) - g.start(zi));
+        assertEquals("dependencies should be ordered", g.indexOf(w), g.target(g.start(zi)));
+    }
+
+    @Test
+    public void components() {
+        PackageGraph g = sampleGraph();
+        StronglyConnectedComponents scc = new StronglyConnectedComponents(g);
+
+        assertEquals("incorrect component count", 4, scc.count());
+        int xyz = scc.component(g.indexOf(x));
+        assertEquals("incorrect component", xyz, scc.component(g.indexOf(y)));
+        assertEquals("incorrect component", xyz, scc.component(g.indexOf(z)));
+        assertEquals("incorrect component size", 3, scc.size(xyz));
+        assertTrue("component should be cyclic", scc.isCyclic(xyz));
+        assertTrue("self-dependency should be cyclic", scc.isCyclic(scc.component(g.indexOf(w))));
+        assertFalse("component should not be cyclic", scc.isCyclic(scc.component(g.indexOf(a))));
+        assertNotEquals("incorrect component", scc.component(g.indexOf(a)), scc.component(g.indexOf(b)));
+
+        // Dependencies across components go from higher to lower numbers
+        assertTrue("incorrect order", scc.component(g.indexOf(a)) > scc.component(g.indexOf(b)));
+        assertTrue("incorrect order", xyz > scc.component(g.indexOf(w)));
+
+        assertTrue("segment should be cyclic", scc.isCycleSegment(g.indexOf(z), g.indexOf(x)));
+        assertTrue("segment should be cyclic", scc.isCycleSegment(g.indexOf(w), g.indexOf(w)));
+        assertFalse("segment should not be cyclic", scc.isCycleSegment(g.indexOf(z), g.indexOf(w)));
+    }
+
+}